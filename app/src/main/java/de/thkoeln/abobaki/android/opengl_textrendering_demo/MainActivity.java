@@ -19,7 +19,8 @@ public class MainActivity extends ListActivity {
     @Override
     protected void onCreate(Bundle bundle) {
         super.onCreate(bundle);
-        SchriftzeichenUtility.initialisierung(this);
+        // Die Schriftzeichen werden bei Bedarf geladen, die Datenbank wird im Hintergrund aktualisiert
+        SchriftzeichenUtility.initialisierungImHintergrund(this);
         ListAdapter adapter = new ArrayAdapter<>(this, android.R.layout.simple_list_item_1, list);
         setListAdapter(adapter);
         setTitle(R.string.app_name);
@@ -27,8 +27,10 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import java.util.Random;
+import java.util.concurrent.CompletableFuture;
 
 import de.thkoeln.abobaki.android.opengl_textrendering.SchriftzeichenUtility;
+import de.thkoeln.abobaki.android.opengl_textrendering.TextBlock;
 import de.thkoeln.cvogt.android.opengl_utilities.GLAnimatorFactoryCV;
 import de.thkoeln.cvogt.android.opengl_utilities.GLRendererCV;
 import de.thkoeln.cvogt.android.opengl_utilities.GLShapeCV;
@@ -40,34 +42,69 @@ public class TextDesignActivity extends Activity {
 
     private GLSurfaceViewCV glSurfaceView;
     private GLRendererCV renderer;
-    private GLShapeCV[] shapes;
+    private TextBlock block;
+    private GLShapeCV[] shapes = new GLShapeCV[0];
     private String text;
     private String farbeAlsString;
     private float abstandZwWoerter;
     private float schriftzeichenGroesse;
     private int abstandSeekbarPosition;
     private int groesseSeekbarPosition = 50;
+    private int letzterAuftrag;
 
     private void textBearbeiten(GLSurfaceViewCV surfaceView) {
         surfaceView.clearShapes();
         text = "Bitte geben Sie einen Text ein" ;
-        long start = System.nanoTime();
-        shapes = SchriftzeichenUtility.textDarstellen(text, true);
-        long duration = System.nanoTime() - start;
-        int numberOfTriangle = 0;
-        for (GLShapeCV shapeCV : shapes) {
-            shapeCV.setLineWidth(8f);
-            surfaceView.addShape(shapeCV);
-            numberOfTriangle += shapeCV.getNumberOfTriangles();
-        }
-        String toast = "Anzahl von Dreiecke =" + numberOfTriangle  + "\nAnzahl von Vertices =" + SchriftzeichenUtility.anzahlVertices(text)
-                + "\nZeitdauer ist "+duration/1000000 + "ms";
-        SchriftzeichenUtility.toastAnzeigen(TextDesignActivity.this, toast, Toast.LENGTH_LONG);
-
+        textAnzeigen(textErzeugen(text, schriftzeichenGroesse, 0, true));
         surfaceView.addOnTouchListener(new OnTouchListenerForFling(this));
         setContentView(surfaceView);
     }
 
+    // Jeder Text hat seinen eigenen TextBlock, der in einem Thread des TextRenderers erzeugt wird.
+    private CompletableFuture<TextBlock> textErzeugen(String text, float skalierungsfaktor, float abstandsanpassung, boolean textAnimation) {
+        return SchriftzeichenUtility.getTextRenderer().textDarstellenAsync(text, skalierungsfaktor, abstandsanpassung, textAnimation);
+    }
+
+    // Die Schriftzeichen werden im Hintergrund erzeugt und danach im UI-Thread angezeigt.
+    // Das Ergebnis eines älteren Auftrags wird verworfen, wenn inzwischen ein neuer Text eingegeben wurde.
+    private void textAnzeigen(CompletableFuture<TextBlock> erzeugt) {
+        int auftrag = ++letzterAuftrag;
+        long start = System.nanoTime();
+        String farbe = farbeAlsString;
+        erzeugt.thenApply(neuerBlock -> {
+                    GLShapeCV[] neueShapes = neuerBlock.getShapes();
+                    for (GLShapeCV shapeCV : neueShapes)
+                        shapeCV.setLineWidth(8f);
+                    if (farbe != null)
+                        SchriftzeichenUtility.farbeAendern(neueShapes, farbe);
+                    return neuerBlock;
+                })
+                .thenCombine(SchriftzeichenUtility.anzahlVerticesAsync(text), (neuerBlock, vertices) -> {
+                    long duration = System.nanoTime() - start;
+                    runOnUiThread(() -> {
+                        if (auftrag != letzterAuftrag)
+                            return;
+                        block = neuerBlock;
+                        shapes = neuerBlock.getShapes();
+                        glSurfaceView.clearShapes();
+                        int numberOfTriangle = 0;
+                        for (GLShapeCV shapeCV : shapes) {
+                            glSurfaceView.addShape(shapeCV);
+                            numberOfTriangle += shapeCV.getNumberOfTriangles();
+                        }
+                        String toast = "Anzahl von Dreiecke =" + numberOfTriangle  + "\nAnzahl von Vertices =" + vertices
+                                + "\nZeitdauer ist "+duration/1000000 + "ms";
+                        SchriftzeichenUtility.toastAnzeigen(TextDesignActivity.this, toast, Toast.LENGTH_LONG);
+                    });
+                    return neuerBlock;
+                })
+                .exceptionally(fehler -> {
+                    String meldung = fehler.getCause() != null ? fehler.getCause().getMessage() : fehler.getMessage();
+                    runOnUiThread(() -> SchriftzeichenUtility.toastAnzeigen(TextDesignActivity.this, meldung, Toast.LENGTH_LONG));
+                    return null;
+                });
+    }
+
     @Override
     protected void onCreate(Bundle savedInstanceState) {
         super.onCreate(savedInstanceState);
@@ -168,23 +205,8 @@ public class TextDesignActivity extends Activity {
         }
 
         private void neueTextHinzufuegen(String eingabe) {
-            int verticesNumbers = 0;
-            glSurfaceView.clearShapes();
             setText(eingabe.trim());
-            long start4 = System.nanoTime();
-            shapes = SchriftzeichenUtility.textDarstellen(text,schriftzeichenGroesse,abstandZwWoerter,true);
-            SchriftzeichenUtility.farbeAendern(shapes, farbeAlsString);
-            long duration4 = System.nanoTime() - start4;
-
-            for (GLShapeCV shapeCV : shapes) {
-                glSurfaceView.addShape(shapeCV);
-                verticesNumbers = verticesNumbers + shapeCV.getNumberOfTriangles();
-            }
-
-            String toast = "Anzahl von Dreiecke =" + verticesNumbers  + "\nAnzahl von Vertices =" +
-                    SchriftzeichenUtility.anzahlVertices(text) + "\nZeitdauer ist "+duration4/1000000 + "ms";
-            SchriftzeichenUtility.toastAnzeigen(TextDesignActivity.this, toast, Toast.LENGTH_LONG);
-
+            textAnzeigen(textErzeugen(text, schriftzeichenGroesse, abstandZwWoerter, true));
         }
 
         private class SeekbarsListener implements SeekBar.OnSeekBarChangeListener {
@@ -202,7 +224,8 @@ public class TextDesignActivity extends Activity {
                         groesseSeekbarPosition = i;
                     }
 
-                    SchriftzeichenUtility.textDarstellen(shapes, text, schriftzeichenGroesse, abstandZwWoerter,false);
+                    if (block != null)
+                        block.anordnen(schriftzeichenGroesse, abstandZwWoerter, false);
                     glSurfaceView.requestRender();
                 }
             }
@@ -287,35 +310,39 @@ public class TextDesignActivity extends Activity {
                     switch (direction) {
                         case "up":
                         case "down":
-                            int ind = SchriftzeichenUtility.indexSchriftzeichen(shapes, touchedShape);
-                            shapes = SchriftzeichenUtility.schriftzeichenEntfernen(shapes, touchedShape);
+                            block.entfernen(touchedShape);
+                            shapes = block.getShapes();
                             double sqrt = Math.sqrt(vectorX * vectorX + vectorY * vectorY);
                             ObjectAnimator anim = GLAnimatorFactoryCV.makeAnimTransLinearBy(vectorX, vectorY, touchedShape.getTransZ(), (int) (5000000 / (float) sqrt));
                             anim.addListener(new GLAnimatorFactoryCV.EndListenerRemove(touchedShape, glSurfaceView));
                             touchedShape.addAnimator(anim);
                             touchedShape.startAnimators();
                             listener.clearTouchedShape();
-                            SchriftzeichenUtility.elementEntfernen(ind);
-                            setText(SchriftzeichenUtility.zeichenEntfernenAnIndexOhneLeerzeichen(text, ind + 1));
+                            setText(block.getText());
+                            TextBlock verbleibend = block;
                             new Thread(() -> {
                                 try {
                                     Thread.sleep(100);
                                 } catch (InterruptedException e) {
                                     e.printStackTrace();
                                 }
-                                SchriftzeichenUtility.textDarstellen(shapes, text, schriftzeichenGroesse, abstandZwWoerter, false);
+                                verbleibend.anordnen(schriftzeichenGroesse, abstandZwWoerter, false);
                             }).start();
                             break;
                         case "left":
                             SchriftzeichenUtility.toastAnzeigen(TextDesignActivity.this, "left", Toast.LENGTH_SHORT);
-                            setText(SchriftzeichenUtility.tauscheSchriftzeichen(shapes, text, touchedShape, "left"));
-                            SchriftzeichenUtility.textDarstellen(shapes, text, schriftzeichenGroesse, abstandZwWoerter, false);
+                            block.tauschen(touchedShape, "left");
+                            shapes = block.getShapes();
+                            setText(block.getText());
+                            block.anordnen(schriftzeichenGroesse, abstandZwWoerter, false);
                             listener.clearTouchedShape();
                             break;
                         case "right":
                             SchriftzeichenUtility.toastAnzeigen(TextDesignActivity.this, "right", Toast.LENGTH_SHORT);
-                            setText(SchriftzeichenUtility.tauscheSchriftzeichen(shapes, text,  touchedShape, "right"));
-                            SchriftzeichenUtility.textDarstellen(shapes, text, schriftzeichenGroesse, abstandZwWoerter, false);
+                            block.tauschen(touchedShape, "right");
+                            shapes = block.getShapes();
+                            setText(block.getText());
+                            block.anordnen(schriftzeichenGroesse, abstandZwWoerter, false);
                             listener.clearTouchedShape();
                             break;
                         default:
@@ -16,6 +16,10 @@ import android.widget.LinearLayout;
 import android.widget.PopupWindow;
 import android.widget.Toast;
 
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import de.thkoeln.abobaki.android.opengl_textrendering.EditierbarerText;
 import de.thkoeln.abobaki.android.opengl_textrendering.SchriftzeichenUtility;
 import de.thkoeln.abobaki.android.opengl_textrendering_demo.R.id;
 import de.thkoeln.cvogt.android.opengl_utilities.GLAnimatorFactoryCV;
@@ -27,25 +31,57 @@ public class TextIndexActivity extends Activity {
 
     private GLSurfaceViewCV glSurfaceView;
     private GLRendererCV renderer;
-    private GLShapeCV[] shapes;
+    private GLShapeCV[] shapes = new GLShapeCV[0];
     private String text;
+    private EditierbarerText editierbarerText;
+    // Die Bearbeitungen werden nacheinander in einem Hintergrund-Thread ausgeführt
+    private final ExecutorService bearbeitung = Executors.newSingleThreadExecutor();
 
     private void textBearbeiten(GLSurfaceViewCV sV) {
         sV.clearShapes();
         text = "Hello World";
-        long start = System.nanoTime();
-        shapes = SchriftzeichenUtility.textDarstellen(text, true);
-        long duration = System.nanoTime() - start;
-        int numberOfTriangle = 0;
-        for (GLShapeCV shapeCV : shapes) {
-            sV.addShape(shapeCV);
-            numberOfTriangle += shapeCV.getNumberOfTriangles();
-        }
-        String toast = "Anzahl von Dreiecke =" + numberOfTriangle + "\nAnzahl von Vertices =" + SchriftzeichenUtility.anzahlVertices(text) + "\nZeitdauer ist " + duration / 1000000 + "ms";
-        SchriftzeichenUtility.toastAnzeigen(TextIndexActivity.this, toast, Toast.LENGTH_LONG);
+        textAnzeigen();
         setContentView(sV);
     }
 
+    // Die Schriftzeichen werden im Hintergrund erzeugt; sie werden von EditierbarerText selbst zur GLSurfaceViewCV hinzugefügt.
+    private void textAnzeigen() {
+        String anzuzeigen = text;
+        bearbeitung.execute(() -> {
+            try {
+                long start = System.nanoTime();
+                editierbarerText = new EditierbarerText(glSurfaceView, anzuzeigen, 6.5f, 0, true);
+                long duration = System.nanoTime() - start;
+                GLShapeCV[] neueShapes = editierbarerText.getShapes();
+                int vertices = SchriftzeichenUtility.anzahlVertices(anzuzeigen);
+                runOnUiThread(() -> {
+                    shapes = neueShapes;
+                    int numberOfTriangle = 0;
+                    for (GLShapeCV shapeCV : shapes)
+                        numberOfTriangle += shapeCV.getNumberOfTriangles();
+                    String toast = "Anzahl von Dreiecke =" + numberOfTriangle + "\nAnzahl von Vertices =" + vertices + "\nZeitdauer ist " + duration / 1000000 + "ms";
+                    SchriftzeichenUtility.toastAnzeigen(TextIndexActivity.this, toast, Toast.LENGTH_LONG);
+                });
+            } catch (RuntimeException fehler) {
+                runOnUiThread(() -> SchriftzeichenUtility.toastAnzeigen(TextIndexActivity.this, fehler.getMessage(), Toast.LENGTH_LONG));
+            }
+        });
+    }
+
+    // Eine Bearbeitung wird im Hintergrund ausgeführt, weil neue Schriftzeichen aus der Datenbank geladen werden.
+    // Nur die geänderten Schriftzeichen werden erzeugt; der übrige Text bleibt erhalten.
+    private void textAendern(Runnable aenderung) {
+        bearbeitung.execute(() -> {
+            try {
+                aenderung.run();
+                GLShapeCV[] neueShapes = editierbarerText.getShapes();
+                runOnUiThread(() -> shapes = neueShapes);
+            } catch (RuntimeException fehler) {
+                runOnUiThread(() -> SchriftzeichenUtility.toastAnzeigen(TextIndexActivity.this, fehler.getMessage(), Toast.LENGTH_LONG));
+            }
+        });
+    }
+
     @Override
     protected void onCreate(Bundle bundle) {
         super.onCreate(bundle);
@@ -66,6 +102,12 @@ public class TextIndexActivity extends Activity {
         glSurfaceView.onPause();
     }
 
+    @Override
+    protected void onDestroy() {
+        super.onDestroy();
+        bearbeitung.shutdown();
+    }
+
     @Override
     public boolean onCreateOptionsMenu(Menu menu) {
         super.onCreateOptionsMenu(menu);
@@ -154,22 +196,25 @@ public class TextIndexActivity extends Activity {
                 return;
             }
 
-            glSurfaceView.clearShapes();
             if (viewID == id.addButton) {
-                if (text != null) {
-                    text = text.substring(0, index) + editString + text.substring(index);
-                } else {
-                    text = editString;
-                }
-                shapes = SchriftzeichenUtility.textDarstellen(text, false);
+                text = text.substring(0, index) + editString + text.substring(index);
+                int einfuegeIndex = index;
+                textAendern(() -> editierbarerText.einfuegen(einfuegeIndex, editString));
+                return;
             } else if (viewID == id.removeButton) {
                 text = text.substring(0, index) + text.substring(index + 1);
-                shapes = SchriftzeichenUtility.textDarstellen(text, false);
+                int loeschIndex = index;
+                textAendern(() -> editierbarerText.loeschen(loeschIndex, 1));
+                return;
             } else if (viewID == id.editButton) {
                 char c = editString.charAt(0);
                 text = text.substring(0, index) + c + text.substring(index + 1);
-                shapes = SchriftzeichenUtility.textDarstellen(text, false);
-            } else if (viewID == id.rotationButtonX) {
+                int ersetzIndex = index;
+                textAendern(() -> editierbarerText.ersetzen(ersetzIndex, c));
+                return;
+            }
+            glSurfaceView.clearShapes();
+            if (viewID == id.rotationButtonX) {
                 shapes[index].addAnimator(GLAnimatorFactoryCV.makeAnimRotX(360, 5000, 4, false));
             } else if (viewID == id.rotationButtonY) {
                 shapes[index].addAnimator(GLAnimatorFactoryCV.makeAnimRotY(360, 5000, 4, false));
@@ -0,0 +1,128 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.sql.Connection;
+import java.sql.DriverManager;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * SchriftzeichenDatenbankGenerator erzeugt beim Bauen der Bibliothek (Gradle-Task generateSchriftzeichenDatabase)
+ * eine fertig gefüllte SQLite-Datei (SchriftzeichenDatabase.db), einen {@link GlyphPack} (Schriftzeichen.glyphpack)
+ * und das {@link ImportManifest} (Schriftzeichen.manifest) mit allen Schriftzeichen aus src/main/assets.
+ * Die Dateien werden als Assets mitgeliefert. Die Datenbank wird von {@link SchriftzeichenUtility#initialisierung} mit
+ * Room.createFromAsset geöffnet, der GlyphPack von {@link SchriftzeichenUtility#initialisierungMitGlyphPack} eingeblendet,
+ * sodass die OBJ-Dateien nicht mehr auf dem Gerät eingelesen werden müssen.
+ * <p>
+ * Die Tabellen und die Version werden aus {@link SchriftzeichenSchema} übernommen.
+ * Room prüft das Schema beim ersten Öffnen der Datei.
+ * <p>
+ * Aufruf: SchriftzeichenDatenbankGenerator &lt;Assets-Verzeichnis&gt; &lt;Ziel-Verzeichnis&gt;
+ */
+public final class SchriftzeichenDatenbankGenerator {
+
+    private static final String MANIFEST_EINFUEGEN = "INSERT INTO `ManifestEintrag` (`dateiName`, `hash`, `formatVersion`) VALUES (?, ?, ?)";
+
+    private static final String EINFUEGEN = "INSERT INTO `Schriftzeichen` "
+            + "(`eckpunkte`, `normalen`, `indizes`, `modellName`, `modelBreite`, `modelHoehe`, `vertices`, "
+            + "`oberlaenge`, `unterlaenge`, `profilLinks`, `profilRechts`, `detailstufen`) "
+            + "VALUES (?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?, ?)";
+
+    private SchriftzeichenDatenbankGenerator() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    public static void main(String[] args) throws IOException, SQLException {
+        if (args.length != 2)
+            throw new IllegalArgumentException("Aufruf: SchriftzeichenDatenbankGenerator <Assets-Verzeichnis> <Ziel-Verzeichnis>");
+        File assets = new File(args[0]);
+        File zielVerzeichnis = new File(args[1]);
+        File ziel = new File(zielVerzeichnis, "SchriftzeichenDatabase.db");
+        File[] dateien = assets.listFiles((verzeichnis, name) -> name.endsWith(".obj"));
+        if (dateien == null)
+            throw new IOException("Verzeichnis nicht gefunden: " + assets.getAbsolutePath());
+        // Feste Reihenfolge, damit bei gleichen Assets dieselbe Datei entsteht
+        Arrays.sort(dateien);
+
+        List<Schriftzeichen> alleSchriftzeichen = new ArrayList<>(dateien.length);
+        Map<String, String> hashes = new TreeMap<>();
+        for (File datei : dateien) {
+            try (InputStream in = new FileInputStream(datei)) {
+                alleSchriftzeichen.add(SchriftzeichenImport.ausObj(datei.getName(), in));
+            } catch (IOException e) {
+                throw new IOException(datei.getName() + ": " + e.getMessage(), e);
+            }
+            try (InputStream in = new FileInputStream(datei)) {
+                hashes.put(datei.getName(), ImportManifest.hash(in));
+            }
+        }
+        ImportManifest manifest = new ImportManifest(hashes);
+
+        Files.createDirectories(zielVerzeichnis.toPath());
+        Files.deleteIfExists(ziel.toPath());
+        try (Connection verbindung = DriverManager.getConnection("jdbc:sqlite:" + ziel.getAbsolutePath())) {
+            verbindung.setAutoCommit(false);
+            try (Statement anweisung = verbindung.createStatement()) {
+                // Die Tabellen müssen existieren, bevor SQLite die Einfüge-Anweisungen vorbereiten kann
+                anweisung.execute(SchriftzeichenSchema.SCHRIFTZEICHEN_TABELLE);
+                anweisung.execute(SchriftzeichenSchema.SCHRIFTZEICHEN_INDEX);
+                anweisung.execute(SchriftzeichenSchema.MANIFEST_TABELLE);
+                try (PreparedStatement einfuegen = verbindung.prepareStatement(EINFUEGEN);
+                     PreparedStatement manifestEinfuegen = verbindung.prepareStatement(MANIFEST_EINFUEGEN)) {
+                    for (Schriftzeichen schriftzeichen : alleSchriftzeichen) {
+                        // Dieselbe Kodierung wie in der App, damit Room die Spalten lesen kann
+                        einfuegen.setBytes(1, Konverter.floatArrayZuBlob(schriftzeichen.eckpunkte));
+                        einfuegen.setBytes(2, Konverter.floatArrayZuBlob(schriftzeichen.normalen));
+                        einfuegen.setBytes(3, Konverter.intArrayZuBlob(schriftzeichen.indizes));
+                        einfuegen.setString(4, schriftzeichen.modellName);
+                        einfuegen.setFloat(5, schriftzeichen.modelBreite);
+                        einfuegen.setFloat(6, schriftzeichen.modelHoehe);
+                        einfuegen.setInt(7, schriftzeichen.anzahlVertices);
+                        SchriftzeichenMetrik metrik = schriftzeichen.getMetrik();
+                        einfuegen.setFloat(8, metrik.oberlaenge);
+                        einfuegen.setFloat(9, metrik.unterlaenge);
+                        einfuegen.setBytes(10, Konverter.floatArrayZuBlob(metrik.profilLinks));
+                        einfuegen.setBytes(11, Konverter.floatArrayZuBlob(metrik.profilRechts));
+                        einfuegen.setBytes(12, Konverter.intArrayZuBlob(schriftzeichen.detailstufen));
+                        einfuegen.addBatch();
+                    }
+                    einfuegen.executeBatch();
+                    // Das Manifest der Datenbank entspricht dem mitgelieferten, damit beim ersten Start nichts neu eingelesen wird
+                    for (Map.Entry<String, String> eintrag : manifest.hashes().entrySet()) {
+                        manifestEinfuegen.setString(1, eintrag.getKey());
+                        manifestEinfuegen.setString(2, eintrag.getValue());
+                        manifestEinfuegen.setInt(3, SchriftzeichenImport.FORMAT_VERSION);
+                        manifestEinfuegen.addBatch();
+                    }
+                    manifestEinfuegen.executeBatch();
+                }
+                verbindung.commit();
+                // Room erkennt die Version der mitgelieferten Datei an user_version
+                verbindung.setAutoCommit(true);
+                anweisung.execute("PRAGMA user_version = " + SchriftzeichenSchema.VERSION);
+            }
+        }
+        File pack = new File(zielVerzeichnis, "Schriftzeichen.glyphpack");
+        try (OutputStream out = new BufferedOutputStream(new FileOutputStream(pack))) {
+            GlyphPack.schreiben(alleSchriftzeichen, out);
+        }
+        try (OutputStream out = new FileOutputStream(new File(zielVerzeichnis, ImportManifest.DATEINAME))) {
+            manifest.schreiben(out);
+        }
+        System.out.println("SchriftzeichenDatenbankGenerator: " + dateien.length + " Schriftzeichen nach " + zielVerzeichnis + " geschrieben");
+    }
+
+}
@@ -0,0 +1,434 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.PriorityQueue;
+
+/**
+ * Detailstufen erzeugt beim Import vereinfachte Fassungen des Netzes eines Schriftzeichens (Level of Detail),
+ * die gezeichnet werden, wenn das Schriftzeichen auf dem Bildschirm klein ist.
+ * <p>
+ * Das Netz wird durch Kantenkontraktion vereinfacht: Schritt für Schritt wird ein Eckpunkt auf einen seiner Nachbarn gezogen,
+ * und zwar jeweils der, bei dem der quadratische Abstand zu den Ebenen der ursprünglichen Dreiecke am kleinsten bleibt
+ * (Fehlerquadriken nach Garland und Heckbert). Kontraktionen, die ein Dreieck umklappen oder die Topologie verändern, werden übersprungen.
+ * <p>
+ * Da dabei kein Eckpunkt verschoben wird, ist jede Detailstufe nur ein weiteres Index-Array, das auf die Eckpunkte und Normalen
+ * des vollständigen Netzes verweist. Diese werden nur einmal gespeichert und auf die Grafikkarte übertragen.
+ * <p>
+ * Die Klasse ist nicht von Android abhängig.
+ */
+public final class Detailstufen {
+
+    /** Der Anteil der Dreiecke des vollständigen Netzes, den die Detailstufen 1, 2 und 3 höchstens haben. */
+    public static final float[] ANTEILE = {1 / 2f, 1 / 4f, 1 / 8f};
+
+    /** Ein Dreieck, dessen Normale sich bei einer Kontraktion um mehr als etwa 78 Grad drehen würde, gilt als umgeklappt. */
+    private static final double UMKLAPP_KOSINUS = 0.2;
+
+    private Detailstufen() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Berechnet die Detailstufen eines Netzes mit den Anteilen aus {@link #ANTEILE}.
+     * Lässt sich das Netz nicht so weit vereinfachen, haben die letzten Stufen mehr Dreiecke.
+     * @param eckpunkte Die Eckpunkte (x, y, z hintereinander)
+     * @param normalen  Die Normalen der Eckpunkte (x, y, z hintereinander)
+     * @param indizes   Die Indizes der Eckpunkte, drei Einträge pro Dreieck
+     * @return Für jede Detailstufe ein Index-Array in dieselben Eckpunkte, drei Einträge pro Dreieck
+     */
+    public static int[][] berechnen(float[] eckpunkte, float[] normalen, int[] indizes) {
+        return new Vereinfachung(eckpunkte, normalen, indizes).vereinfachen(ANTEILE);
+    }
+
+    /**
+     * Fasst die Index-Arrays der Detailstufen für die Speicherung in einem Array zusammen: pro Stufe die Anzahl der Indizes und die Indizes.
+     * @param stufen Die Index-Arrays
+     * @return Das zusammengefasste Array
+     */
+    public static int[] zusammenfassen(int[][] stufen) {
+        int laenge = 0;
+        for (int[] stufe : stufen)
+            laenge += 1 + stufe.length;
+        int[] ergebnis = new int[laenge];
+        int position = 0;
+        for (int[] stufe : stufen) {
+            ergebnis[position++] = stufe.length;
+            System.arraycopy(stufe, 0, ergebnis, position, stufe.length);
+            position += stufe.length;
+        }
+        return ergebnis;
+    }
+
+    /**
+     * Teilt ein mit {@link #zusammenfassen(int[][])} erzeugtes Array wieder in die Index-Arrays der Detailstufen auf.
+     * @param zusammengefasst Das zusammengefasste Array
+     * @return Die Index-Arrays
+     * @throws IllegalArgumentException wenn das Array beschädigt ist
+     */
+    public static int[][] aufteilen(int[] zusammengefasst) {
+        int anzahl = 0;
+        for (int position = 0; position < zusammengefasst.length; position += 1 + zusammengefasst[position]) {
+            if (zusammengefasst[position] < 0 || position + 1 + zusammengefasst[position] > zusammengefasst.length)
+                throw new IllegalArgumentException("Beschädigte Detailstufen");
+            anzahl++;
+        }
+        int[][] stufen = new int[anzahl][];
+        for (int stufe = 0, position = 0; stufe < anzahl; stufe++) {
+            stufen[stufe] = Arrays.copyOfRange(zusammengefasst, position + 1, position + 1 + zusammengefasst[position]);
+            position += 1 + zusammengefasst[position];
+        }
+        return stufen;
+    }
+
+    /**
+     * Der Zustand einer Vereinfachung. Die Kontraktionen arbeiten auf den Orten des Netzes, d.h. den verschiedenen Positionen:
+     * Die Eckpunkte, die {@link SchriftzeichenNetz} an einem Knick mehrfach angelegt hat, gehören zu demselben Ort.
+     */
+    private static final class Vereinfachung {
+
+        private final float[] normalen;
+        private final int[] ecken;
+        private final boolean[] entfernt;
+        private int lebende;
+
+        /** Der Ort jedes Eckpunkts und pro Ort eine verkettete Liste seiner Eckpunkte. */
+        private final int[] ort;
+        private final int[] ersterEckpunkt;
+        private final int[] naechsterEckpunkt;
+        private final double[] orte;
+
+        /** Pro Ort die Dreiecke, die ihn benutzen (entfernte werden beim Lesen übersprungen). */
+        private final int[][] dreiecke;
+        private final int[] anzahlDreiecke;
+
+        /** Die Fehlerquadrik jedes Ortes: die obere Hälfte einer symmetrischen 4x4-Matrix (10 Werte). */
+        private final double[] quadriken;
+        private final boolean[] amRand;
+        private final boolean[] entfallen;
+        private final int[] version;
+
+        /** Markierungen für die Nachbarn eines Ortes. */
+        private final int[] marke;
+        private int markierung;
+
+        private final PriorityQueue<Kandidat> kandidaten = new PriorityQueue<>();
+
+        Vereinfachung(float[] eckpunkte, float[] normalen, int[] indizes) {
+            this.normalen = normalen;
+            int anzahlEckpunkte = eckpunkte.length / 3;
+            ecken = indizes.clone();
+            entfernt = new boolean[indizes.length / 3];
+
+            // Eckpunkte mit gleichen Koordinaten werden zu einem Ort zusammengefasst
+            ort = new int[anzahlEckpunkte];
+            Map<Koordinaten, Integer> orteNachKoordinaten = new HashMap<>();
+            for (int e = 0; e < anzahlEckpunkte; e++) {
+                Koordinaten k = new Koordinaten(eckpunkte[3 * e], eckpunkte[3 * e + 1], eckpunkte[3 * e + 2]);
+                Integer vorhanden = orteNachKoordinaten.putIfAbsent(k, orteNachKoordinaten.size());
+                ort[e] = vorhanden != null ? vorhanden : orteNachKoordinaten.size() - 1;
+            }
+            int anzahlOrte = orteNachKoordinaten.size();
+            orte = new double[3 * anzahlOrte];
+            ersterEckpunkt = new int[anzahlOrte];
+            naechsterEckpunkt = new int[anzahlEckpunkte];
+            Arrays.fill(ersterEckpunkt, -1);
+            for (int e = anzahlEckpunkte - 1; e >= 0; e--) {
+                for (int achse = 0; achse < 3; achse++)
+                    orte[3 * ort[e] + achse] = eckpunkte[3 * e + achse];
+                naechsterEckpunkt[e] = ersterEckpunkt[ort[e]];
+                ersterEckpunkt[ort[e]] = e;
+            }
+
+            dreiecke = new int[anzahlOrte][];
+            anzahlDreiecke = new int[anzahlOrte];
+            quadriken = new double[10 * anzahlOrte];
+            amRand = new boolean[anzahlOrte];
+            entfallen = new boolean[anzahlOrte];
+            version = new int[anzahlOrte];
+            marke = new int[anzahlOrte];
+            for (int o = 0; o < anzahlOrte; o++)
+                dreiecke[o] = new int[4];
+
+            // Dreiecke, deren Ecken an demselben Ort liegen, sind unsichtbar und entfallen in allen Detailstufen
+            Map<Long, Integer> kanten = new HashMap<>();
+            for (int d = 0; d < entfernt.length; d++) {
+                int a = ort[ecken[3 * d]], b = ort[ecken[3 * d + 1]], c = ort[ecken[3 * d + 2]];
+                if (a == b || b == c || a == c) {
+                    entfernt[d] = true;
+                    continue;
+                }
+                lebende++;
+                ebeneHinzufuegen(a, b, c);
+                for (int k = 0; k < 3; k++) {
+                    int o = ort[ecken[3 * d + k]], n = ort[ecken[3 * d + (k + 1) % 3]];
+                    anhaengen(o, d);
+                    kanten.merge(Math.min(o, n) * (long) anzahlOrte + Math.max(o, n), 1, Integer::sum);
+                }
+            }
+            // Orte an offenen Kanten werden nicht bewegt, damit der Umriss offener Netze erhalten bleibt
+            for (Map.Entry<Long, Integer> kante : kanten.entrySet())
+                if (kante.getValue() == 1) {
+                    amRand[(int) (kante.getKey() / anzahlOrte)] = true;
+                    amRand[(int) (kante.getKey() % anzahlOrte)] = true;
+                }
+            for (int d = 0; d < entfernt.length; d++)
+                if (!entfernt[d])
+                    for (int k = 0; k < 3; k++)
+                        kandidatHinzufuegen(ort[ecken[3 * d + k]], ort[ecken[3 * d + (k + 1) % 3]]);
+        }
+
+        /**
+         * Führt Kontraktionen aus, bis die Anteile der Dreiecke erreicht sind, und hält nach jedem Anteil die übrigen Dreiecke fest.
+         */
+        int[][] vereinfachen(float[] anteile) {
+            int gesamt = lebende;
+            int[][] stufen = new int[anteile.length][];
+            int stufe = 0;
+            while (stufe < anteile.length) {
+                if (lebende <= anteile[stufe] * gesamt) {
+                    stufen[stufe++] = indizes();
+                    continue;
+                }
+                Kandidat kandidat = kandidaten.poll();
+                if (kandidat == null)
+                    break;
+                int u = kandidat.von, v = kandidat.nach;
+                if (entfallen[u] || entfallen[v] || version[u] != kandidat.versionVon || version[v] != kandidat.versionNach)
+                    continue;
+                if (zusammenziehbar(u, v))
+                    zusammenziehen(u, v);
+            }
+            while (stufe < anteile.length)
+                stufen[stufe++] = indizes();
+            return stufen;
+        }
+
+        private int[] indizes() {
+            int[] ergebnis = new int[3 * lebende];
+            int position = 0;
+            for (int d = 0; d < entfernt.length; d++)
+                if (!entfernt[d]) {
+                    System.arraycopy(ecken, 3 * d, ergebnis, position, 3);
+                    position += 3;
+                }
+            return ergebnis;
+        }
+
+        /** Prüft, ob der Ort u auf den benachbarten Ort v gezogen werden darf. */
+        private boolean zusammenziehbar(int u, int v) {
+            if (amRand[u])
+                return false;
+            // Die gemeinsamen Nachbarn von u und v dürfen nur die dritten Ecken der gemeinsamen Dreiecke sein,
+            // sonst entstünden doppelte Dreiecke oder eine Engstelle im Netz
+            markierung++;
+            for (int i = 0; i < anzahlDreiecke[v]; i++) {
+                int d = dreiecke[v][i];
+                if (!entfernt[d])
+                    for (int k = 0; k < 3; k++)
+                        marke[ort[ecken[3 * d + k]]] = markierung;
+            }
+            int gemeinsameDreiecke = 0;
+            for (int i = 0; i < anzahlDreiecke[u]; i++) {
+                int d = dreiecke[u][i];
+                if (!entfernt[d] && enthaelt(d, v))
+                    gemeinsameDreiecke++;
+            }
+            if (gemeinsameDreiecke == 0)
+                return false;
+            int gemeinsameNachbarn = 0;
+            markierung++;
+            for (int i = 0; i < anzahlDreiecke[u]; i++) {
+                int d = dreiecke[u][i];
+                if (entfernt[d])
+                    continue;
+                for (int k = 0; k < 3; k++) {
+                    int o = ort[ecken[3 * d + k]];
+                    if (o != u && o != v && marke[o] == markierung - 1) {
+                        marke[o] = markierung;
+                        gemeinsameNachbarn++;
+                    }
+                }
+            }
+            if (gemeinsameNachbarn > gemeinsameDreiecke)
+                return false;
+            // Kein verbleibendes Dreieck darf umklappen oder zu einer Linie werden
+            for (int i = 0; i < anzahlDreiecke[u]; i++) {
+                int d = dreiecke[u][i];
+                if (entfernt[d] || enthaelt(d, v))
+                    continue;
+                double[] vorher = normale(d, -1, -1);
+                double[] nachher = normale(d, u, v);
+                double laengen = Math.sqrt(skalarprodukt(vorher, vorher) * skalarprodukt(nachher, nachher));
+                if (laengen > 0 && skalarprodukt(vorher, nachher) < UMKLAPP_KOSINUS * laengen)
+                    return false;
+                if (skalarprodukt(nachher, nachher) == 0)
+                    return false;
+            }
+            return true;
+        }
+
+        /** Zieht den Ort u auf den Ort v. Die Ecken von u werden durch den Eckpunkt von v mit der ähnlichsten Normale ersetzt. */
+        private void zusammenziehen(int u, int v) {
+            for (int i = 0; i < anzahlDreiecke[u]; i++) {
+                int d = dreiecke[u][i];
+                if (entfernt[d])
+                    continue;
+                if (enthaelt(d, v)) {
+                    entfernt[d] = true;
+                    lebende--;
+                    continue;
+                }
+                for (int k = 0; k < 3; k++)
+                    if (ort[ecken[3 * d + k]] == u)
+                        ecken[3 * d + k] = aehnlichsterEckpunkt(v, ecken[3 * d + k]);
+                anhaengen(v, d);
+            }
+            for (int i = 0; i < 10; i++)
+                quadriken[10 * v + i] += quadriken[10 * u + i];
+            entfallen[u] = true;
+            version[v]++;
+            for (int i = 0; i < anzahlDreiecke[v]; i++) {
+                int d = dreiecke[v][i];
+                if (entfernt[d])
+                    continue;
+                for (int k = 0; k < 3; k++) {
+                    int o = ort[ecken[3 * d + k]];
+                    if (o != v) {
+                        kandidatHinzufuegen(v, o);
+                        kandidatHinzufuegen(o, v);
+                    }
+                }
+            }
+        }
+
+        private int aehnlichsterEckpunkt(int o, int eckpunkt) {
+            int bester = ersterEckpunkt[o];
+            float besteUebereinstimmung = -Float.MAX_VALUE;
+            for (int e = ersterEckpunkt[o]; e != -1; e = naechsterEckpunkt[e]) {
+                float uebereinstimmung = normalen[3 * e] * normalen[3 * eckpunkt] + normalen[3 * e + 1] * normalen[3 * eckpunkt + 1]
+                        + normalen[3 * e + 2] * normalen[3 * eckpunkt + 2];
+                if (uebereinstimmung > besteUebereinstimmung) {
+                    besteUebereinstimmung = uebereinstimmung;
+                    bester = e;
+                }
+            }
+            return bester;
+        }
+
+        private boolean enthaelt(int d, int o) {
+            return ort[ecken[3 * d]] == o || ort[ecken[3 * d + 1]] == o || ort[ecken[3 * d + 2]] == o;
+        }
+
+        /** Die (nicht normierte) Normale eines Dreiecks, wobei der Ort alt durch den Ort neu ersetzt wird. */
+        private double[] normale(int d, int alt, int neu) {
+            int[] o = new int[3];
+            for (int k = 0; k < 3; k++) {
+                o[k] = ort[ecken[3 * d + k]];
+                if (o[k] == alt)
+                    o[k] = neu;
+            }
+            double ux = orte[3 * o[1]] - orte[3 * o[0]], uy = orte[3 * o[1] + 1] - orte[3 * o[0] + 1], uz = orte[3 * o[1] + 2] - orte[3 * o[0] + 2];
+            double vx = orte[3 * o[2]] - orte[3 * o[0]], vy = orte[3 * o[2] + 1] - orte[3 * o[0] + 1], vz = orte[3 * o[2] + 2] - orte[3 * o[0] + 2];
+            return new double[]{uy * vz - uz * vy, uz * vx - ux * vz, ux * vy - uy * vx};
+        }
+
+        private static double skalarprodukt(double[] a, double[] b) {
+            return a[0] * b[0] + a[1] * b[1] + a[2] * b[2];
+        }
+
+        /** Addiert die mit der Fläche gewichtete Quadrik der Ebene eines Dreiecks zu seinen drei Orten. */
+        private void ebeneHinzufuegen(int a, int b, int c) {
+            double ux = orte[3 * b] - orte[3 * a], uy = orte[3 * b + 1] - orte[3 * a + 1], uz = orte[3 * b + 2] - orte[3 * a + 2];
+            double vx = orte[3 * c] - orte[3 * a], vy = orte[3 * c + 1] - orte[3 * a + 1], vz = orte[3 * c + 2] - orte[3 * a + 2];
+            double nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+            double laenge = Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (laenge == 0)
+                return;
+            double flaeche = laenge / 2;
+            nx /= laenge;
+            ny /= laenge;
+            nz /= laenge;
+            double dd = -(nx * orte[3 * a] + ny * orte[3 * a + 1] + nz * orte[3 * a + 2]);
+            double[] ebene = {nx * nx, nx * ny, nx * nz, nx * dd, ny * ny, ny * nz, ny * dd, nz * nz, nz * dd, dd * dd};
+            for (int o : new int[]{a, b, c})
+                for (int i = 0; i < 10; i++)
+                    quadriken[10 * o + i] += flaeche * ebene[i];
+        }
+
+        /** Die Kosten, den Ort u auf den Ort v zu ziehen: die Summe ihrer Quadriken an der Position von v. */
+        private void kandidatHinzufuegen(int u, int v) {
+            if (amRand[u])
+                return;
+            double x = orte[3 * v], y = orte[3 * v + 1], z = orte[3 * v + 2];
+            double[] q = new double[10];
+            for (int i = 0; i < 10; i++)
+                q[i] = quadriken[10 * u + i] + quadriken[10 * v + i];
+            double kosten = q[0] * x * x + 2 * q[1] * x * y + 2 * q[2] * x * z + 2 * q[3] * x
+                    + q[4] * y * y + 2 * q[5] * y * z + 2 * q[6] * y
+                    + q[7] * z * z + 2 * q[8] * z
+                    + q[9];
+            kandidaten.add(new Kandidat(Math.max(kosten, 0), u, v, version[u], version[v]));
+        }
+
+        private void anhaengen(int o, int d) {
+            if (anzahlDreiecke[o] == dreiecke[o].length)
+                dreiecke[o] = Arrays.copyOf(dreiecke[o], 2 * dreiecke[o].length);
+            dreiecke[o][anzahlDreiecke[o]++] = d;
+        }
+
+    }
+
+    /** Eine mögliche Kontraktion. Sie ist ungültig, wenn sich einer der beiden Orte seit ihrer Berechnung geändert hat. */
+    private static final class Kandidat implements Comparable<Kandidat> {
+
+        final double kosten;
+        final int von, nach, versionVon, versionNach;
+
+        Kandidat(double kosten, int von, int nach, int versionVon, int versionNach) {
+            this.kosten = kosten;
+            this.von = von;
+            this.nach = nach;
+            this.versionVon = versionVon;
+            this.versionNach = versionNach;
+        }
+
+        @Override
+        public int compareTo(Kandidat anderer) {
+            // Bei gleichen Kosten entscheidet die Reihenfolge der Orte, damit das Ergebnis nicht vom Zufall abhängt
+            int vergleich = Double.compare(kosten, anderer.kosten);
+            if (vergleich == 0)
+                vergleich = Integer.compare(von, anderer.von);
+            return vergleich != 0 ? vergleich : Integer.compare(nach, anderer.nach);
+        }
+
+    }
+
+    /** Die Koordinaten eines Eckpunkts als Schlüssel. */
+    private static final class Koordinaten {
+
+        private final float x, y, z;
+
+        Koordinaten(float x, float y, float z) {
+            this.x = x;
+            this.y = y;
+            this.z = z;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Koordinaten))
+                return false;
+            Koordinaten k = (Koordinaten) o;
+            return Float.compare(x, k.x) == 0 && Float.compare(y, k.y) == 0 && Float.compare(z, k.z) == 0;
+        }
+
+        @Override
+        public int hashCode() {
+            return Arrays.hashCode(new float[]{x, y, z});
+        }
+
+    }
+
+}
@@ -0,0 +1,331 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * DistanzfeldAtlas ist eine Textur mit den vorzeichenbehafteten Distanzfeldern (Signed Distance Fields) aller Schriftzeichen einer Schrift.
+ * Mit ihr werden Texte flach gezeichnet, z.B. weit entfernte oder zweidimensionale Beschriftungen: jedes Schriftzeichen als Rechteck
+ * aus zwei Dreiecken statt als 3D-Modell (siehe {@link TextRenderer#flachDarstellen(String, float, float, float[])}).
+ * <p>
+ * Die Umrisse stammen aus den Netzen der Schriftzeichen, daher sehen flache und dreidimensionale Texte gleich aus:
+ * Die Dreiecke werden von vorn gesehen (in der xy-Ebene) in ein feines Raster gezeichnet, und für jedes Pixel wird der Abstand
+ * zum Umriss mit einer exakten euklidischen Distanztransformation berechnet. Jedes Texel des Atlas ist der Mittelwert dieser Abstände
+ * über {@link #UEBERABTASTUNG} x {@link #UEBERABTASTUNG} Pixel: 128 liegt auf dem Umriss, größere Werte innen, kleinere außen;
+ * 0 und 255 werden im Abstand von {@link #AUSBREITUNG} Texeln erreicht. Der Fragment-Shader zeichnet das Schriftzeichen dann
+ * bei jeder Größe mit glatten Kanten.
+ * <p>
+ * Der Atlas wird beim ersten Bedarf berechnet (für die 92 mitgelieferten Schriftzeichen etwa 0,2 Sekunden), am besten nicht im UI-Thread.
+ * Die Klasse ist nicht von Android abhängig.
+ */
+public final class DistanzfeldAtlas {
+
+    /** Die Höhe des höchsten Schriftzeichens im Atlas in Texeln (ohne Rand). */
+    public static final int ZELLENHOEHE = 48;
+
+    /** Der Abstand vom Umriss in Texeln, bei dem der Wert 0 (außen) bzw. 255 (innen) erreicht wird. Jedes Schriftzeichen hat einen so breiten Rand. */
+    public static final int AUSBREITUNG = 6;
+
+    /** Die Breite des Atlas in Texeln. Die Höhe ist die kleinste Zweierpotenz, in die alle Schriftzeichen passen. */
+    static final int BREITE = 512;
+
+    /** Die Anzahl der Rasterpunkte pro Texel und Richtung, aus denen die Abstände gemittelt werden. */
+    static final int UEBERABTASTUNG = 4;
+
+    private final int hoehe;
+    private final byte[] werte;
+    private final int[] codePoints;
+    // Pro Schriftzeichen links, unten, rechts und oben in Modell-Einheiten relativ zu seiner Mitte
+    private final float[] rechtecke;
+    // Pro Schriftzeichen u und v der linken oberen und der rechten unteren Ecke
+    private final float[] texturKoordinaten;
+
+    private DistanzfeldAtlas(int hoehe, byte[] werte, int[] codePoints, float[] rechtecke, float[] texturKoordinaten) {
+        this.hoehe = hoehe;
+        this.werte = werte;
+        this.codePoints = codePoints;
+        this.rechtecke = rechtecke;
+        this.texturKoordinaten = texturKoordinaten;
+    }
+
+    /**
+     * Berechnet den Atlas für Schriftzeichen aus der Datenbank oder dem Import.
+     * @param schriftzeichen Die Schriftzeichen. Der modellName jedes Schriftzeichens muss genau ein Zeichen (Code Point) sein.
+     * @return Der Atlas
+     * @throws IllegalArgumentException wenn ein Name kein einzelnes Zeichen ist oder doppelt vorkommt
+     */
+    public static DistanzfeldAtlas berechnen(List<Schriftzeichen> schriftzeichen) {
+        int anzahl = schriftzeichen.size();
+        int[] codePoints = new int[anzahl];
+        float[] breite = new float[anzahl], hoehe = new float[anzahl];
+        float[][] eckpunkte = new float[anzahl][];
+        int[][] indizes = new int[anzahl][];
+        for (int i = 0; i < anzahl; i++) {
+            Schriftzeichen s = schriftzeichen.get(i);
+            if (s.modellName == null || s.modellName.isEmpty() || s.modellName.codePointCount(0, s.modellName.length()) != 1)
+                throw new IllegalArgumentException("Kein einzelnes Zeichen: " + s.modellName);
+            codePoints[i] = s.modellName.codePointAt(0);
+            breite[i] = s.modelBreite;
+            hoehe[i] = s.modelHoehe;
+            eckpunkte[i] = s.eckpunkte;
+            indizes[i] = s.indizes;
+        }
+        return berechnen(codePoints, breite, hoehe, eckpunkte, indizes);
+    }
+
+    /**
+     * Berechnet den Atlas für alle Schriftzeichen eines GlyphPacks.
+     * @param glyphPack Der GlyphPack
+     * @return Der Atlas
+     */
+    public static DistanzfeldAtlas berechnen(GlyphPack glyphPack) {
+        SchriftzeichenMetriken metriken = glyphPack.metriken();
+        int anzahl = glyphPack.anzahl();
+        int[] codePoints = new int[anzahl];
+        float[] breite = new float[anzahl], hoehe = new float[anzahl];
+        float[][] eckpunkte = new float[anzahl][];
+        int[][] indizes = new int[anzahl][];
+        for (int id = 0; id < anzahl; id++) {
+            GlyphPack.Glyph glyph = glyphPack.glyph(metriken.codePoint(id));
+            codePoints[id] = glyph.codePoint();
+            breite[id] = glyph.breite();
+            hoehe[id] = glyph.hoehe();
+            FloatBuffer e = glyph.eckpunkte();
+            eckpunkte[id] = new float[e.remaining()];
+            e.get(eckpunkte[id]);
+            ShortBuffer s = glyph.indizes();
+            indizes[id] = new int[s.remaining()];
+            for (int i = 0; i < indizes[id].length; i++)
+                indizes[id][i] = s.get() & 0xFFFF;
+        }
+        return berechnen(codePoints, breite, hoehe, eckpunkte, indizes);
+    }
+
+    private static DistanzfeldAtlas berechnen(int[] codePoints, float[] breite, float[] hoehe, float[][] eckpunkte, int[][] indizes) {
+        int anzahl = codePoints.length;
+        Integer[] reihenfolge = new Integer[anzahl];
+        for (int i = 0; i < anzahl; i++)
+            reihenfolge[i] = i;
+        Arrays.sort(reihenfolge, (a, b) -> Integer.compare(codePoints[a], codePoints[b]));
+
+        // Ein gemeinsamer Maßstab für alle Schriftzeichen, damit ihre Größenverhältnisse erhalten bleiben
+        float hoechstes = 0;
+        for (float h : hoehe)
+            hoechstes = Math.max(hoechstes, h);
+        float texelProEinheit = hoechstes > 0 ? ZELLENHOEHE / hoechstes : 1;
+
+        // Die Zellen werden zeilenweise nebeneinander gelegt, mit einem Texel Abstand
+        int[] zellenBreite = new int[anzahl], zellenHoehe = new int[anzahl], zellenX = new int[anzahl], zellenY = new int[anzahl];
+        int x = 1, y = 1, zeilenHoehe = 0;
+        for (int id = 0; id < anzahl; id++) {
+            int i = reihenfolge[id];
+            zellenBreite[id] = Math.min((int) Math.ceil(breite[i] * texelProEinheit) + 2 * AUSBREITUNG, BREITE - 2);
+            zellenHoehe[id] = (int) Math.ceil(hoehe[i] * texelProEinheit) + 2 * AUSBREITUNG;
+            if (x + zellenBreite[id] + 1 > BREITE) {
+                x = 1;
+                y += zeilenHoehe + 1;
+                zeilenHoehe = 0;
+            }
+            zellenX[id] = x;
+            zellenY[id] = y;
+            x += zellenBreite[id] + 1;
+            zeilenHoehe = Math.max(zeilenHoehe, zellenHoehe[id]);
+        }
+        int atlasHoehe = 1;
+        while (atlasHoehe < y + zeilenHoehe + 1)
+            atlasHoehe *= 2;
+
+        byte[] werte = new byte[BREITE * atlasHoehe];
+        int[] sortierteCodePoints = new int[anzahl];
+        float[] rechtecke = new float[4 * anzahl];
+        float[] texturKoordinaten = new float[4 * anzahl];
+        for (int id = 0; id < anzahl; id++) {
+            int i = reihenfolge[id];
+            sortierteCodePoints[id] = codePoints[i];
+            if (id > 0 && sortierteCodePoints[id] == sortierteCodePoints[id - 1])
+                throw new IllegalArgumentException("Doppeltes Zeichen: " + new String(Character.toChars(codePoints[i])));
+            float halbeBreite = zellenBreite[id] / (2 * texelProEinheit), halbeHoehe = zellenHoehe[id] / (2 * texelProEinheit);
+            rechtecke[4 * id] = -halbeBreite;
+            rechtecke[4 * id + 1] = -halbeHoehe;
+            rechtecke[4 * id + 2] = halbeBreite;
+            rechtecke[4 * id + 3] = halbeHoehe;
+            texturKoordinaten[4 * id] = (float) zellenX[id] / BREITE;
+            texturKoordinaten[4 * id + 1] = (float) zellenY[id] / atlasHoehe;
+            texturKoordinaten[4 * id + 2] = (float) (zellenX[id] + zellenBreite[id]) / BREITE;
+            texturKoordinaten[4 * id + 3] = (float) (zellenY[id] + zellenHoehe[id]) / atlasHoehe;
+            zelleBerechnen(eckpunkte[i], indizes[i], texelProEinheit, zellenBreite[id], zellenHoehe[id], werte, zellenX[id], zellenY[id]);
+        }
+        return new DistanzfeldAtlas(atlasHoehe, werte, sortierteCodePoints, rechtecke, texturKoordinaten);
+    }
+
+    /**
+     * Rastert die Vorderansicht eines Schriftzeichens, dessen Mitte im Ursprung liegt, und schreibt sein Distanzfeld in den Atlas.
+     */
+    private static void zelleBerechnen(float[] eckpunkte, int[] indizes, float texelProEinheit, int breite, int hoehe, byte[] werte, int zelleX, int zelleY) {
+        int rasterBreite = breite * UEBERABTASTUNG, rasterHoehe = hoehe * UEBERABTASTUNG;
+        float pixelProEinheit = texelProEinheit * UEBERABTASTUNG;
+        boolean[] innen = new boolean[rasterBreite * rasterHoehe];
+        for (int d = 0; d + 2 < indizes.length; d += 3) {
+            // Rasterkoordinaten der Ecken: x nach rechts, y nach unten
+            float[] px = new float[3], py = new float[3];
+            for (int k = 0; k < 3; k++) {
+                px[k] = eckpunkte[3 * indizes[d + k]] * pixelProEinheit + rasterBreite / 2f;
+                py[k] = rasterHoehe / 2f - eckpunkte[3 * indizes[d + k] + 1] * pixelProEinheit;
+            }
+            float flaeche = (px[1] - px[0]) * (py[2] - py[0]) - (py[1] - py[0]) * (px[2] - px[0]);
+            // Seitenwände erscheinen von vorn als Linien
+            if (Math.abs(flaeche) < 1e-6f)
+                continue;
+            int x0 = Math.max(0, (int) Math.floor(Math.min(px[0], Math.min(px[1], px[2])))), x1 = Math.min(rasterBreite - 1, (int) Math.ceil(Math.max(px[0], Math.max(px[1], px[2]))));
+            int y0 = Math.max(0, (int) Math.floor(Math.min(py[0], Math.min(py[1], py[2])))), y1 = Math.min(rasterHoehe - 1, (int) Math.ceil(Math.max(py[0], Math.max(py[1], py[2]))));
+            for (int ry = y0; ry <= y1; ry++)
+                for (int rx = x0; rx <= x1; rx++) {
+                    float mx = rx + 0.5f, my = ry + 0.5f;
+                    float w0 = ((px[2] - px[1]) * (my - py[1]) - (py[2] - py[1]) * (mx - px[1])) / flaeche;
+                    float w1 = ((px[0] - px[2]) * (my - py[2]) - (py[0] - py[2]) * (mx - px[2])) / flaeche;
+                    float w2 = 1 - w0 - w1;
+                    if (w0 >= 0 && w1 >= 0 && w2 >= 0)
+                        innen[ry * rasterBreite + rx] = true;
+                }
+        }
+
+        // Quadrierte Abstände jedes Rasterpunkts zum nächsten inneren bzw. äußeren Rasterpunkt
+        float[] zuInnen = distanzTransformation(innen, true, rasterBreite, rasterHoehe);
+        float[] zuAussen = distanzTransformation(innen, false, rasterBreite, rasterHoehe);
+        float skalierung = 128f / (AUSBREITUNG * UEBERABTASTUNG);
+        for (int ty = 0; ty < hoehe; ty++)
+            for (int tx = 0; tx < breite; tx++) {
+                // Positiv innen: der Abstand bis zum Umriss, der zwischen zwei Rasterpunkten liegt
+                float summe = 0;
+                for (int ry = ty * UEBERABTASTUNG; ry < (ty + 1) * UEBERABTASTUNG; ry++)
+                    for (int rx = tx * UEBERABTASTUNG; rx < (tx + 1) * UEBERABTASTUNG; rx++) {
+                        int p = ry * rasterBreite + rx;
+                        summe += innen[p] ? (float) Math.sqrt(zuAussen[p]) - 0.5f : 0.5f - (float) Math.sqrt(zuInnen[p]);
+                    }
+                float abstand = summe / (UEBERABTASTUNG * UEBERABTASTUNG);
+                int wert = Math.round(128 + abstand * skalierung);
+                werte[(zelleY + ty) * BREITE + zelleX + tx] = (byte) Math.max(0, Math.min(255, wert));
+            }
+    }
+
+    /**
+     * Exakte euklidische Distanztransformation (Felzenszwalb und Huttenlocher): zuerst spaltenweise, dann zeilenweise.
+     * @return Für jeden Rasterpunkt der quadrierte Abstand zum nächsten Punkt, dessen Wert in 'innen' gleich 'ziel' ist
+     */
+    private static float[] distanzTransformation(boolean[] innen, boolean ziel, int breite, int hoehe) {
+        float unendlich = (float) breite * breite + (float) hoehe * hoehe;
+        float[] abstand = new float[breite * hoehe];
+        for (int p = 0; p < abstand.length; p++)
+            abstand[p] = innen[p] == ziel ? 0 : unendlich;
+        int laenge = Math.max(breite, hoehe);
+        float[] f = new float[laenge], ergebnis = new float[laenge], z = new float[laenge + 1];
+        int[] v = new int[laenge];
+        for (int x = 0; x < breite; x++) {
+            for (int y = 0; y < hoehe; y++)
+                f[y] = abstand[y * breite + x];
+            eindimensional(f, hoehe, ergebnis, v, z);
+            for (int y = 0; y < hoehe; y++)
+                abstand[y * breite + x] = ergebnis[y];
+        }
+        for (int y = 0; y < hoehe; y++) {
+            System.arraycopy(abstand, y * breite, f, 0, breite);
+            eindimensional(f, breite, ergebnis, v, z);
+            System.arraycopy(ergebnis, 0, abstand, y * breite, breite);
+        }
+        return abstand;
+    }
+
+    /** Die untere Hüllkurve der Parabeln f(q) + (p - q)² für p = 0 ... n - 1. */
+    private static void eindimensional(float[] f, int n, float[] ergebnis, int[] v, float[] z) {
+        int k = 0;
+        v[0] = 0;
+        z[0] = Float.NEGATIVE_INFINITY;
+        z[1] = Float.POSITIVE_INFINITY;
+        for (int q = 1; q < n; q++) {
+            float s = ((f[q] + q * q) - (f[v[k]] + v[k] * v[k])) / (2 * q - 2 * v[k]);
+            while (s <= z[k]) {
+                k--;
+                s = ((f[q] + q * q) - (f[v[k]] + v[k] * v[k])) / (2 * q - 2 * v[k]);
+            }
+            k++;
+            v[k] = q;
+            z[k] = s;
+            z[k + 1] = Float.POSITIVE_INFINITY;
+        }
+        k = 0;
+        for (int q = 0; q < n; q++) {
+            while (z[k + 1] < q)
+                k++;
+            ergebnis[q] = (q - v[k]) * (q - v[k]) + f[v[k]];
+        }
+    }
+
+    /**
+     * @return Die Breite des Atlas in Texeln
+     */
+    public int getBreite() {
+        return BREITE;
+    }
+
+    /**
+     * @return Die Höhe des Atlas in Texeln
+     */
+    public int getHoehe() {
+        return hoehe;
+    }
+
+    /**
+     * @return Die Werte der Texel zeilenweise von oben nach unten (unsigned byte, 128 auf dem Umriss)
+     */
+    public byte[] getWerte() {
+        return werte.clone();
+    }
+
+    /**
+     * @return Die Texel als ARGB-Farbwerte für eine Bitmap: weiß mit dem Distanzfeld als Alpha-Wert
+     */
+    public int[] argb() {
+        int[] farben = new int[werte.length];
+        for (int p = 0; p < werte.length; p++)
+            farben[p] = (werte[p] & 0xFF) << 24 | 0xFFFFFF;
+        return farben;
+    }
+
+    /**
+     * @return Die Anzahl der Schriftzeichen
+     */
+    public int anzahl() {
+        return codePoints.length;
+    }
+
+    /**
+     * Sucht ein Schriftzeichen im Atlas.
+     * @param codePoint Der Unicode-Code-Point des Zeichens
+     * @return Der Index des Schriftzeichens oder -1, wenn es nicht im Atlas enthalten ist
+     */
+    public int index(int codePoint) {
+        int index = Arrays.binarySearch(codePoints, codePoint);
+        return index >= 0 ? index : -1;
+    }
+
+    /**
+     * Gibt das Rechteck zurück, das ein Schriftzeichen mit seinem Rand bedeckt.
+     * @param index    Der Index des Schriftzeichens
+     * @param ergebnis Array für links, unten, rechts und oben in Modell-Einheiten relativ zur Mitte des Schriftzeichens
+     */
+    public void rechteck(int index, float[] ergebnis) {
+        System.arraycopy(rechtecke, 4 * index, ergebnis, 0, 4);
+    }
+
+    /**
+     * Gibt die Texturkoordinaten eines Schriftzeichens zurück.
+     * @param index    Der Index des Schriftzeichens
+     * @param ergebnis Array für u und v der linken oberen und der rechten unteren Ecke (v wächst nach unten)
+     */
+    public void texturKoordinaten(int index, float[] ergebnis) {
+        System.arraycopy(texturKoordinaten, 4 * index, ergebnis, 0, 4);
+    }
+
+}
@@ -0,0 +1,190 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import de.thkoeln.cvogt.android.opengl_utilities.GLAnimatorFactoryCV_DEPRAC;
+import de.thkoeln.cvogt.android.opengl_utilities.GLShapeCV;
+import de.thkoeln.cvogt.android.opengl_utilities.GLSurfaceViewCV;
+
+/**
+ * EditierbarerText ist ein dargestellter Text, der zeichenweise bearbeitet werden kann, ohne ihn neu aufzubauen.
+ * <p>
+ * Bei {@link #einfuegen(int, String)}, {@link #loeschen(int, int)} und {@link #ersetzen(int, char)} werden nur für die neuen Zeichen
+ * GLShapeCV-Objekte erzeugt; die übrigen Schriftzeichen bleiben erhalten. Die Anordnung schreibt {@link FortlaufendeAnordnung} fort:
+ * Nur die Schriftzeichen, deren Position sich ändern kann, werden neu angeordnet, die folgenden höchstens um ganze Zeilen verschoben.
+ * Die Bearbeitung eines Zeichens in einem langen Text kostet daher etwa so viel wie ein Schriftzeichen.
+ * <p>
+ * Die Methoden laden neue Schriftzeichen und dürfen daher nicht im UI-Thread aufgerufen werden, wenn die Schriftzeichen
+ * aus der Datenbank kommen (siehe {@link SchriftzeichenUtility#initialisierung(android.content.Context)}).
+ * Sie sind synchronisiert; die GLSurfaceViewCV kann währenddessen weiter zeichnen.
+ */
+public final class EditierbarerText {
+
+    private final TextRenderer renderer;
+    private final GLSurfaceViewCV ansicht;
+    private final float skalierungsfaktor;
+    private final float zeilenabstand;
+    private final FortlaufendeAnordnung anordnung;
+
+    // Pro Schriftzeichen (ohne Leerzeichen), in derselben Reihenfolge wie in der Anordnung; die Arrays sind größer als die Anzahl,
+    // damit nicht bei jeder Bearbeitung neue angelegt werden
+    private GLShapeCV[] shapes = new GLShapeCV[16];
+    private float[] hoehe = new float[16];
+
+    /**
+     * Erzeugt und ordnet die Schriftzeichen eines Textes an.
+     * @param ansicht           Die GLSurfaceViewCV, zu der die Schriftzeichen hinzugefügt und aus der sie entfernt werden, oder null
+     * @param text              eingegebene Text
+     * @param skalierungsfaktor Die Ziel-Skalierungsfaktor der Schriftzeichen
+     * @param abstandsanpassung Abstand zwischen Wörtern und Zeichen
+     * @param textAnimation     Wenn true ist, kommen die Schriftzeichen mit einer Animationssequenz aus verschiedenen Orten
+     *                          (nur beim Aufbau, nicht bei späteren Bearbeitungen)
+     */
+    public EditierbarerText(GLSurfaceViewCV ansicht, String text, float skalierungsfaktor, float abstandsanpassung, boolean textAnimation) {
+        this(SchriftzeichenUtility.getTextRenderer(), ansicht, text, skalierungsfaktor, abstandsanpassung, textAnimation);
+    }
+
+    /**
+     * Wie {@link #EditierbarerText(GLSurfaceViewCV, String, float, float, boolean)}, aber mit den Schriftzeichen eines anderen TextRenderers.
+     * @param renderer Der TextRenderer, der die Schriftzeichen erzeugt
+     */
+    public EditierbarerText(TextRenderer renderer, GLSurfaceViewCV ansicht, String text, float skalierungsfaktor, float abstandsanpassung, boolean textAnimation) {
+        if (renderer == null)
+            throw new IllegalStateException("SchriftzeichenUtility ist nicht initialisiert");
+        this.renderer = renderer;
+        this.ansicht = ansicht;
+        this.skalierungsfaktor = skalierungsfaktor;
+        zeilenabstand = TextAnordnung.zeilenabstand(skalierungsfaktor);
+        anordnung = new FortlaufendeAnordnung(skalierungsfaktor, abstandsanpassung);
+        bearbeiten(0, 0, text);
+        int anzahl = anordnung.anzahl();
+        if (textAnimation) {
+            Random rand = new Random();
+            for (int i = 0; i < anzahl; i++) {
+                shapes[i].setTrans(new float[]{(rand.nextFloat() * 6) - 3, (rand.nextFloat() * 12) - 6, (rand.nextFloat() * 6) - 3});
+                shapes[i].addAnimator(GLAnimatorFactoryCV_DEPRAC.makeAnimatorTransBezier(new float[]{0, 0, 0},
+                        new float[]{anordnung.x(i), transY(i), 0}, -1, 6000, 3500));
+            }
+        }
+        if (ansicht != null)
+            for (int i = 0; i < anzahl; i++)
+                ansicht.addShape(shapes[i]);
+    }
+
+    /**
+     * Fügt Zeichen in den Text ein.
+     * @param index   Die Position im Text (mit Leerzeichen), an der eingefügt wird
+     * @param zeichen Die einzufügenden Zeichen
+     */
+    public synchronized void einfuegen(int index, String zeichen) {
+        bearbeitenUndAnzeigen(index, 0, zeichen);
+    }
+
+    /**
+     * Löscht Zeichen aus dem Text.
+     * @param index  Die Position des ersten zu löschenden Zeichens im Text (mit Leerzeichen)
+     * @param laenge Die Anzahl der zu löschenden Zeichen
+     */
+    public synchronized void loeschen(int index, int laenge) {
+        bearbeitenUndAnzeigen(index, laenge, "");
+    }
+
+    /**
+     * Ersetzt ein Zeichen des Textes.
+     * @param index   Die Position des Zeichens im Text (mit Leerzeichen)
+     * @param zeichen Das neue Zeichen
+     */
+    public synchronized void ersetzen(int index, char zeichen) {
+        bearbeitenUndAnzeigen(index, 1, String.valueOf(zeichen));
+    }
+
+    /**
+     * @return Der aktuelle Text
+     */
+    public synchronized String getText() {
+        return anordnung.getText();
+    }
+
+    /**
+     * @return Die Schriftzeichen des Textes (ohne Leerzeichen) als neues Array
+     */
+    public synchronized GLShapeCV[] getShapes() {
+        GLShapeCV[] ergebnis = new GLShapeCV[anordnung.anzahl()];
+        System.arraycopy(shapes, 0, ergebnis, 0, ergebnis.length);
+        return ergebnis;
+    }
+
+    private void bearbeitenUndAnzeigen(int index, int laenge, String neu) {
+        String text = anordnung.getText();
+        if (index < 0 || laenge < 0 || index + laenge > text.length())
+            throw new IndexOutOfBoundsException("Bereich " + index + " bis " + (index + laenge) + " im Text der Länge " + text.length());
+        int erstes = FortlaufendeAnordnung.anzahlSchriftzeichen(text, 0, index);
+        int entfernt = FortlaufendeAnordnung.anzahlSchriftzeichen(text, index, index + laenge);
+        if (ansicht != null)
+            for (int i = erstes; i < erstes + entfernt; i++)
+                ansicht.removeShape(shapes[i]);
+        int eingefuegt = bearbeiten(index, laenge, neu);
+        if (ansicht != null)
+            for (int i = erstes; i < erstes + eingefuegt; i++)
+                ansicht.addShape(shapes[i]);
+    }
+
+    /**
+     * Ersetzt einen Abschnitt des Textes, erzeugt die Schriftzeichen der neuen Zeichen und setzt die Positionen der Schriftzeichen,
+     * die {@link FortlaufendeAnordnung} neu angeordnet oder um Zeilen verschoben hat.
+     * @return Die Anzahl der neuen Schriftzeichen
+     */
+    private int bearbeiten(int index, int laenge, String neu) {
+        String text = anordnung.getText();
+        int erstes = FortlaufendeAnordnung.anzahlSchriftzeichen(text, 0, index);
+        int entfernt = FortlaufendeAnordnung.anzahlSchriftzeichen(text, index, index + laenge);
+
+        // Nur für die neuen Zeichen werden Schriftzeichen erzeugt
+        String ohneLeerzeichen = FortlaufendeAnordnung.ohneLeerzeichen(neu);
+        int eingefuegt = ohneLeerzeichen.length();
+        float[] neueBreite = new float[eingefuegt];
+        float[] neueHoehe = new float[eingefuegt];
+        GLShapeCV[] neueShapes = renderer.erzeugeSchriftzeichen(ohneLeerzeichen, neueBreite, neueHoehe);
+
+        verschiebenUm(erstes + entfernt, eingefuegt - entfernt);
+        System.arraycopy(neueShapes, 0, shapes, erstes, eingefuegt);
+        System.arraycopy(neueHoehe, 0, hoehe, erstes, eingefuegt);
+        for (int i = erstes; i < erstes + eingefuegt; i++)
+            shapes[i].setScale(skalierungsfaktor);
+
+        anordnung.bearbeiten(index, laenge, neu, neueBreite, renderer::kerningBerechnen);
+        for (int i = anordnung.neuAngeordnetVon(); i < anordnung.neuAngeordnetBis(); i++) {
+            shapes[i].setTransX(anordnung.x(i));
+            shapes[i].setTransY(transY(i));
+        }
+        if (anordnung.zeilenVerschiebung() != 0)
+            for (int i = anordnung.neuAngeordnetBis(); i < anordnung.anzahl(); i++)
+                shapes[i].setTransY(transY(i));
+        return eingefuegt;
+    }
+
+    /**
+     * Verschiebt die Schriftzeichen und ihre Höhen ab einem Schriftzeichen wie {@link FortlaufendeAnordnung} und vergrößert
+     * die Arrays bei Bedarf.
+     */
+    private void verschiebenUm(int ab, int verschiebung) {
+        int anzahl = anordnung.anzahl();
+        int neueAnzahl = anzahl + verschiebung;
+        if (neueAnzahl > shapes.length) {
+            int kapazitaet = Math.max(neueAnzahl, 2 * shapes.length);
+            shapes = Arrays.copyOf(shapes, kapazitaet);
+            hoehe = Arrays.copyOf(hoehe, kapazitaet);
+        }
+        int rest = anzahl - ab;
+        System.arraycopy(shapes, ab, shapes, ab + verschiebung, rest);
+        System.arraycopy(hoehe, ab, hoehe, ab + verschiebung, rest);
+        for (int i = neueAnzahl; i < anzahl; i++)
+            shapes[i] = null;
+    }
+
+    private float transY(int i) {
+        return (hoehe[i] * skalierungsfaktor) - (anordnung.zeile(i) * zeilenabstand);
+    }
+
+}
@@ -0,0 +1,225 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.util.Arrays;
+import java.util.function.Function;
+
+/**
+ * FortlaufendeAnordnung ist die Anordnung eines Textes, der zeichenweise bearbeitet wird (siehe {@link EditierbarerText}).
+ * Sie benutzt keine Android-Klassen und kann daher auf dem Entwicklungsrechner getestet werden.
+ * <p>
+ * Nach einer Bearbeitung wird ab der Zeile vor der bearbeiteten Stelle neu angeordnet (deren letztes Wort kann nach einer Änderung
+ * in die vorherige Zeile passen), und zwar nur so weit, bis eine Zeile wieder mit demselben Schriftzeichen beginnt wie vorher.
+ * Ab dort ändert sich die Anordnung nicht mehr; die folgenden Schriftzeichen werden höchstens um ganze Zeilen verschoben.
+ * <p>
+ * Das Ergebnis entspricht dem von {@link TextAnordnung}: Beide setzen die Positionen aus {@link TextAnordnung#schritt} zusammen
+ * und brechen nach {@link TextAnordnung#ueberschreitetZeile(float)} um. TextAnordnung berechnet die Positionen aber aus Summen
+ * vom Anfang des Textes, diese Klasse schreibt sie Schriftzeichen für Schriftzeichen fort, damit sie an der bearbeiteten Stelle
+ * fortgesetzt werden kann.
+ */
+final class FortlaufendeAnordnung {
+
+    private final float skalierungsfaktor;
+    private final float abstandsanpassung;
+
+    private String text = "";
+    private int anzahl;
+
+    // Pro Schriftzeichen (ohne Leerzeichen); die Arrays sind größer als anzahl, damit nicht bei jeder Bearbeitung neue angelegt werden
+    private float[] breite = new float[16];
+    private float[] kerning = new float[16];
+    private float[] x = new float[16];
+    private int[] zeile = new int[16];
+    private boolean[] wortanfang = new boolean[16];
+    private boolean[] zeilenanfang = new boolean[16];
+
+    // Der bei der letzten Bearbeitung neu angeordnete Bereich und die Verschiebung der Zeilen dahinter
+    private int neuAngeordnetVon;
+    private int neuAngeordnetBis;
+    private int zeilenVerschiebung;
+
+    /**
+     * @param skalierungsfaktor Der Skalierungsfaktor der Schriftzeichen
+     * @param abstandsanpassung Abstand zwischen Wörtern und Zeichen
+     */
+    FortlaufendeAnordnung(float skalierungsfaktor, float abstandsanpassung) {
+        this.skalierungsfaktor = skalierungsfaktor;
+        this.abstandsanpassung = abstandsanpassung;
+    }
+
+    /**
+     * Ersetzt einen Abschnitt des Textes und ordnet den betroffenen Bereich neu an.
+     * @param index            Die Position des Abschnitts im Text (mit Leerzeichen)
+     * @param laenge           Die Länge des Abschnitts
+     * @param neu              Die neuen Zeichen
+     * @param neueBreite       Die Breiten der neuen Zeichen ohne Leerzeichen
+     * @param kerningBerechnen Die Funktion, die für eine Zeichenfolge ohne Leerzeichen das Kerning jedes Zeichens zu seinem Vorgänger
+     *                         berechnet (wie {@link TextRenderer#kerningBerechnen(String)})
+     */
+    void bearbeiten(int index, int laenge, String neu, float[] neueBreite, Function<String, float[]> kerningBerechnen) {
+        String ohneLeerzeichen = ohneLeerzeichen(neu);
+        int eingefuegt = ohneLeerzeichen.length();
+        if (neueBreite.length != eingefuegt)
+            throw new IllegalArgumentException(eingefuegt + " Schriftzeichen, aber " + neueBreite.length + " Breiten");
+        int erstes = anzahlSchriftzeichen(text, 0, index);
+        int entfernt = anzahlSchriftzeichen(text, index, index + laenge);
+
+        verschiebenUm(erstes + entfernt, eingefuegt - entfernt);
+        System.arraycopy(neueBreite, 0, breite, erstes, eingefuegt);
+        text = text.substring(0, index) + neu + text.substring(index + laenge);
+
+        // Kerning der neuen Schriftzeichen und des ersten Schriftzeichens dahinter, jeweils zum Vorgänger
+        int vorgaenger = index - 1;
+        while (vorgaenger >= 0 && Character.isWhitespace(text.charAt(vorgaenger)))
+            vorgaenger--;
+        int nachfolger = index + neu.length();
+        while (nachfolger < text.length() && Character.isWhitespace(text.charAt(nachfolger)))
+            nachfolger++;
+        String paare = (vorgaenger >= 0 ? String.valueOf(text.charAt(vorgaenger)) : "") + ohneLeerzeichen
+                + (nachfolger < text.length() ? String.valueOf(text.charAt(nachfolger)) : "");
+        float[] neuesKerning = kerningBerechnen.apply(paare);
+        System.arraycopy(neuesKerning, vorgaenger >= 0 ? 1 : 0, kerning, erstes, Math.min(eingefuegt + 1, anzahl - erstes));
+
+        // Wortanfänge der neuen Schriftzeichen und des ersten Schriftzeichens dahinter
+        int schriftzeichen = erstes;
+        for (int i = index; i < text.length() && schriftzeichen <= erstes + eingefuegt && schriftzeichen < anzahl; i++)
+            if (!Character.isWhitespace(text.charAt(i))) {
+                wortanfang[schriftzeichen] = schriftzeichen > 0 && i > 0 && Character.isWhitespace(text.charAt(i - 1));
+                schriftzeichen++;
+            }
+
+        // Das erste Wort der Zeile des bearbeiteten Wortes kann in die vorherige Zeile rutschen
+        int anfang = 0;
+        if (erstes > 0) {
+            int vorherigeZeile = zeile[erstes - 1] - 1;
+            anfang = erstes - 1;
+            while (anfang > 0 && zeile[anfang - 1] >= vorherigeZeile)
+                anfang--;
+        }
+        anordnen(anfang, erstes + eingefuegt);
+    }
+
+    /**
+     * Verschiebt die Einträge ab einem Schriftzeichen in allen Arrays und vergrößert die Arrays bei Bedarf.
+     * Die verschobenen Einträge behalten ihre bisherige Anordnung (x, zeile, zeilenanfang), die anordnen() zum Vergleich benutzt.
+     */
+    private void verschiebenUm(int ab, int verschiebung) {
+        int neueAnzahl = anzahl + verschiebung;
+        if (neueAnzahl > breite.length) {
+            int kapazitaet = Math.max(neueAnzahl, 2 * breite.length);
+            breite = Arrays.copyOf(breite, kapazitaet);
+            kerning = Arrays.copyOf(kerning, kapazitaet);
+            x = Arrays.copyOf(x, kapazitaet);
+            zeile = Arrays.copyOf(zeile, kapazitaet);
+            wortanfang = Arrays.copyOf(wortanfang, kapazitaet);
+            zeilenanfang = Arrays.copyOf(zeilenanfang, kapazitaet);
+        }
+        int rest = anzahl - ab;
+        System.arraycopy(breite, ab, breite, ab + verschiebung, rest);
+        System.arraycopy(kerning, ab, kerning, ab + verschiebung, rest);
+        System.arraycopy(x, ab, x, ab + verschiebung, rest);
+        System.arraycopy(zeile, ab, zeile, ab + verschiebung, rest);
+        System.arraycopy(wortanfang, ab, wortanfang, ab + verschiebung, rest);
+        System.arraycopy(zeilenanfang, ab, zeilenanfang, ab + verschiebung, rest);
+        anzahl = neueAnzahl;
+    }
+
+    /**
+     * Ordnet die Schriftzeichen ab {@code anfang} neu an.
+     * Ab dem ersten unveränderten Schriftzeichen ({@code unveraendertAb}) wird abgebrochen, sobald eine Zeile wieder mit demselben
+     * Schriftzeichen beginnt wie vorher: Die restlichen Schriftzeichen werden dann nur um die Differenz der Zeilen verschoben.
+     */
+    private void anordnen(int anfang, int unveraendertAb) {
+        neuAngeordnetVon = anfang;
+        neuAngeordnetBis = anzahl;
+        zeilenVerschiebung = 0;
+        float zeichenposition = anfang == 0 ? TextAnordnung.ZEILENANFANG : x[anfang - 1];
+        int anzahlZeilen = anfang == 0 ? 0 : zeile[anfang - 1];
+        for (int i = anfang; i < anzahl; i++) {
+            boolean neueZeile = false;
+            if (i > 0 && wortanfang[i]) {
+                //Die Position des letzten Schriftzeichens des Worts wird berechnet, um zu prüfen, ob es die rechte Grenze überschreitet
+                float wortende = zeichenposition;
+                for (int j = i; j < anzahl && (j == i || !wortanfang[j]); j++)
+                    wortende += schritt(j);
+                if (TextAnordnung.ueberschreitetZeile(wortende)) {
+                    zeichenposition = TextAnordnung.ZEILENANFANG;
+                    anzahlZeilen++;
+                    neueZeile = true;
+                }
+            }
+            if (i > 0 && !neueZeile)
+                zeichenposition += schritt(i);
+
+            if (i >= unveraendertAb && neueZeile && zeilenanfang[i]) {
+                // Ab hier ist die Anordnung dieselbe wie vorher, nur die Zeilen können sich verschoben haben
+                neuAngeordnetBis = i;
+                zeilenVerschiebung = anzahlZeilen - zeile[i];
+                if (zeilenVerschiebung != 0)
+                    for (int j = i; j < anzahl; j++)
+                        zeile[j] += zeilenVerschiebung;
+                return;
+            }
+            x[i] = zeichenposition;
+            zeile[i] = anzahlZeilen;
+            zeilenanfang[i] = neueZeile;
+        }
+    }
+
+    private float schritt(int i) {
+        return TextAnordnung.schritt(breite[i - 1], breite[i], kerning[i], wortanfang[i], skalierungsfaktor, abstandsanpassung);
+    }
+
+    /** @return Der aktuelle Text */
+    String getText() {
+        return text;
+    }
+
+    /** @return Die Anzahl der Schriftzeichen (ohne Leerzeichen) */
+    int anzahl() {
+        return anzahl;
+    }
+
+    /** @return Die x-Position eines Schriftzeichens */
+    float x(int i) {
+        return x[i];
+    }
+
+    /** @return Die Zeilennummer eines Schriftzeichens, beginnend mit 0 */
+    int zeile(int i) {
+        return zeile[i];
+    }
+
+    /** @return Das erste Schriftzeichen, das bei der letzten Bearbeitung neu angeordnet wurde */
+    int neuAngeordnetVon() {
+        return neuAngeordnetVon;
+    }
+
+    /** @return Das Ende des bei der letzten Bearbeitung neu angeordneten Bereichs (exklusiv); dahinter hat sich höchstens die Zeile geändert */
+    int neuAngeordnetBis() {
+        return neuAngeordnetBis;
+    }
+
+    /** @return Die Anzahl der Zeilen, um die die Schriftzeichen ab {@link #neuAngeordnetBis()} bei der letzten Bearbeitung verschoben wurden */
+    int zeilenVerschiebung() {
+        return zeilenVerschiebung;
+    }
+
+    /** @return Die Zeichen eines Textes, die keine Leerzeichen sind */
+    static String ohneLeerzeichen(String text) {
+        StringBuilder ergebnis = new StringBuilder();
+        for (int i = 0; i < text.length(); i++)
+            if (!Character.isWhitespace(text.charAt(i)))
+                ergebnis.append(text.charAt(i));
+        return ergebnis.toString();
+    }
+
+    /** Zählt die Zeichen eines Abschnitts, die keine Leerzeichen sind. */
+    static int anzahlSchriftzeichen(String text, int von, int bis) {
+        int ergebnis = 0;
+        for (int i = von; i < bis; i++)
+            if (!Character.isWhitespace(text.charAt(i)))
+                ergebnis++;
+        return ergebnis;
+    }
+
+}
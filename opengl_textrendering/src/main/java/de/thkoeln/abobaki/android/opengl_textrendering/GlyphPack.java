@@ -0,0 +1,355 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * GlyphPack ist ein kompaktes Binärformat für die Schriftzeichen und eine Alternative zur Speicherung in der Room-Datenbank.
+ * <p>
+ * Die Datei wird mit {@link FileChannel#map} in den Speicher eingeblendet. Die Eckpunkte, Normalen und Indizes eines Schriftzeichens
+ * werden als Ausschnitte (FloatBuffer bzw. ShortBuffer) der eingeblendeten Datei zurückgegeben, ohne sie zu kopieren.
+ * Die Suche eines Schriftzeichens ist eine binäre Suche in der Zeichentabelle - ohne SQL-Abfrage und ohne JSON.
+ * Die Maße und das Kerning der Schriftzeichen werden beim Bauen berechnet und liegen ebenfalls in der Datei
+ * (siehe {@link #metriken()}); die Glyph-ID eines Schriftzeichens ist sein Index in der Zeichentabelle.
+ * Die Detailstufen (siehe {@link Detailstufen}) sind weitere Index-Arrays in dieselben Eckpunkte.
+ * <p>
+ * Aufbau der Datei (alle Werte little-endian):
+ * <pre>
+ * Kopf (16 Byte):           int Kennung "GPAK", int Version, int Anzahl der Schriftzeichen, int Position der Kerning-Tabelle
+ * Zeichentabelle (48 Byte pro Schriftzeichen, aufsteigend nach Code Point sortiert):
+ *                           int Code Point, float Breite, float Höhe, int Anzahl der Eckpunkte, int Anzahl der Indizes,
+ *                           int Position der Eckpunkte, int Position der Normalen, int Position der Indizes (in Byte ab Dateianfang),
+ *                           float Oberlänge, float Unterlänge, int Anzahl der Detailstufen, int Position der Detailstufen
+ * Daten:                    pro Schriftzeichen die Eckpunkte (float x, y, z), die Normalen (float x, y, z),
+ *                           die Indizes (unsigned short, drei pro Dreieck, auf 4 Byte aufgefüllt)
+ *                           und die Detailstufen (int Anzahl der Indizes pro Stufe, dann die Indizes aller Stufen
+ *                           als unsigned short, auf 4 Byte aufgefüllt)
+ * Kerning-Tabelle:          Anzahl x Anzahl float, eine Zeile pro linkem und eine Spalte pro rechtem Schriftzeichen
+ * </pre>
+ * Die Klasse ist nicht von Android abhängig. Die Datei wird beim Bauen vom SchriftzeichenDatenbankGenerator erzeugt.
+ */
+public final class GlyphPack {
+
+    /** Die Kennung am Anfang der Datei ("GPAK"). */
+    static final int KENNUNG = 'G' | 'P' << 8 | 'A' << 16 | 'K' << 24;
+
+    /** Die Version des Formats. */
+    static final int VERSION = 3;
+
+    static final int KOPF_GROESSE = 16;
+    static final int EINTRAG_GROESSE = 48;
+
+    /** Die höchste Anzahl von Eckpunkten eines Schriftzeichens, die mit 16-Bit-Indizes möglich ist. */
+    static final int MAX_ECKPUNKTE = 65536;
+
+    private final ByteBuffer daten;
+    private final int anzahl;
+
+    private GlyphPack(ByteBuffer daten) throws IOException {
+        this.daten = daten.duplicate().order(ByteOrder.LITTLE_ENDIAN);
+        if (this.daten.capacity() < KOPF_GROESSE || this.daten.getInt(0) != KENNUNG)
+            throw new IOException("Keine GlyphPack-Datei");
+        if (this.daten.getInt(4) != VERSION)
+            throw new IOException("Nicht unterstützte GlyphPack-Version " + this.daten.getInt(4));
+        anzahl = this.daten.getInt(8);
+        if (anzahl < 0 || KOPF_GROESSE + (long) anzahl * EINTRAG_GROESSE > this.daten.capacity())
+            throw new IOException("Beschädigte Zeichentabelle");
+        if (!imBereich(this.daten.getInt(12), 4L * anzahl * anzahl))
+            throw new IOException("Beschädigte Kerning-Tabelle");
+        for (int i = 0; i < anzahl; i++) {
+            int eintrag = KOPF_GROESSE + i * EINTRAG_GROESSE;
+            long anzahlEckpunkte = this.daten.getInt(eintrag + 12), anzahlIndizes = this.daten.getInt(eintrag + 16);
+            if (anzahlEckpunkte < 0 || anzahlIndizes < 0
+                    || !imBereich(this.daten.getInt(eintrag + 20), 12 * anzahlEckpunkte)
+                    || !imBereich(this.daten.getInt(eintrag + 24), 12 * anzahlEckpunkte)
+                    || !imBereich(this.daten.getInt(eintrag + 28), 2 * anzahlIndizes)
+                    || !detailstufenImBereich(eintrag))
+                throw new IOException("Beschädigter Eintrag " + i + " in der Zeichentabelle");
+        }
+    }
+
+    private boolean imBereich(int position, long laenge) {
+        return position >= 0 && position + laenge <= daten.capacity();
+    }
+
+    private boolean detailstufenImBereich(int eintrag) {
+        int anzahlStufen = daten.getInt(eintrag + 40), position = daten.getInt(eintrag + 44);
+        if (anzahlStufen < 0 || !imBereich(position, 4L * anzahlStufen))
+            return false;
+        long anzahlIndizes = 0;
+        for (int stufe = 0; stufe < anzahlStufen; stufe++) {
+            int anzahl = daten.getInt(position + 4 * stufe);
+            if (anzahl < 0)
+                return false;
+            anzahlIndizes += anzahl;
+        }
+        return imBereich(position + 4 * anzahlStufen, 2 * anzahlIndizes);
+    }
+
+    /**
+     * Blendet eine GlyphPack-Datei in den Speicher ein.
+     * @param datei Die Datei
+     * @return Der GlyphPack
+     * @throws IOException wenn die Datei nicht gelesen werden kann oder kein gültiger GlyphPack ist
+     */
+    public static GlyphPack oeffnen(File datei) throws IOException {
+        try (RandomAccessFile zugriff = new RandomAccessFile(datei, "r");
+             FileChannel kanal = zugriff.getChannel()) {
+            // Die Einblendung bleibt nach dem Schließen des Kanals gültig
+            return new GlyphPack(kanal.map(FileChannel.MapMode.READ_ONLY, 0, kanal.size()));
+        }
+    }
+
+    /**
+     * Öffnet einen GlyphPack, der bereits im Speicher liegt, z.B. einen eingeblendeten Ausschnitt einer Datei.
+     * @param daten Der Inhalt der GlyphPack-Datei (ab Position 0 des Puffers)
+     * @return Der GlyphPack
+     * @throws IOException wenn die Daten kein gültiger GlyphPack sind
+     */
+    public static GlyphPack aus(ByteBuffer daten) throws IOException {
+        return new GlyphPack(daten);
+    }
+
+    /**
+     * @return Die Anzahl der Schriftzeichen
+     */
+    public int anzahl() {
+        return anzahl;
+    }
+
+    /**
+     * Liest die Maße und die Kerning-Tabelle aller Schriftzeichen. Die Glyph-IDs entsprechen {@link Glyph#id()}.
+     * @return Die Tabelle
+     */
+    public SchriftzeichenMetriken metriken() {
+        int[] codePoints = new int[anzahl];
+        float[] breite = new float[anzahl];
+        float[] mitte = new float[anzahl];
+        for (int id = 0; id < anzahl; id++) {
+            Glyph glyph = new Glyph(KOPF_GROESSE + id * EINTRAG_GROESSE);
+            codePoints[id] = glyph.codePoint();
+            breite[id] = glyph.breite();
+            mitte[id] = (glyph.oberlaenge() - glyph.unterlaenge()) / 2;
+        }
+        float[] kerning = new float[anzahl * anzahl];
+        ausschnitt(daten.getInt(12), 4 * kerning.length).asFloatBuffer().get(kerning);
+        return new SchriftzeichenMetriken(codePoints, breite, mitte, kerning);
+    }
+
+    /**
+     * Sucht ein Schriftzeichen in der Zeichentabelle.
+     * @param codePoint Der Unicode-Code-Point des Zeichens
+     * @return Das Schriftzeichen oder null, wenn es nicht im GlyphPack enthalten ist
+     */
+    public Glyph glyph(int codePoint) {
+        int unten = 0, oben = anzahl - 1;
+        while (unten <= oben) {
+            int mitte = (unten + oben) >>> 1;
+            int wert = daten.getInt(KOPF_GROESSE + mitte * EINTRAG_GROESSE);
+            if (wert < codePoint)
+                unten = mitte + 1;
+            else if (wert > codePoint)
+                oben = mitte - 1;
+            else
+                return new Glyph(KOPF_GROESSE + mitte * EINTRAG_GROESSE);
+        }
+        return null;
+    }
+
+    /**
+     * Sucht ein Schriftzeichen in der Zeichentabelle.
+     * @param zeichen Das Zeichen als String (ein Code Point)
+     * @return Das Schriftzeichen oder null, wenn es nicht im GlyphPack enthalten ist
+     */
+    public Glyph glyph(String zeichen) {
+        if (zeichen == null || zeichen.isEmpty() || zeichen.codePointCount(0, zeichen.length()) != 1)
+            return null;
+        return glyph(zeichen.codePointAt(0));
+    }
+
+    /**
+     * Ein Schriftzeichen des GlyphPacks. Die Puffer sind Ausschnitte der eingeblendeten Datei.
+     */
+    public final class Glyph {
+
+        private final int eintrag;
+
+        private Glyph(int eintrag) {
+            this.eintrag = eintrag;
+        }
+
+        /** @return Die Glyph-ID (der Index in der Zeichentabelle) */
+        public int id() {
+            return (eintrag - KOPF_GROESSE) / EINTRAG_GROESSE;
+        }
+
+        /** @return Der Unicode-Code-Point des Zeichens */
+        public int codePoint() {
+            return daten.getInt(eintrag);
+        }
+
+        /** @return Die Breite des Schriftzeichens */
+        public float breite() {
+            return daten.getFloat(eintrag + 4);
+        }
+
+        /** @return Die Höhe des Schriftzeichens */
+        public float hoehe() {
+            return daten.getFloat(eintrag + 8);
+        }
+
+        /** @return Die Höhe über der Grundlinie */
+        public float oberlaenge() {
+            return daten.getFloat(eintrag + 32);
+        }
+
+        /** @return Die Tiefe unter der Grundlinie */
+        public float unterlaenge() {
+            return daten.getFloat(eintrag + 36);
+        }
+
+        /** @return Die Anzahl der Eckpunkte */
+        public int anzahlEckpunkte() {
+            return daten.getInt(eintrag + 12);
+        }
+
+        /** @return Die Eckpunkte (x, y, z hintereinander) */
+        public FloatBuffer eckpunkte() {
+            return ausschnitt(daten.getInt(eintrag + 20), 12 * anzahlEckpunkte()).asFloatBuffer();
+        }
+
+        /** @return Die Normalen der Eckpunkte (x, y, z hintereinander) */
+        public FloatBuffer normalen() {
+            return ausschnitt(daten.getInt(eintrag + 24), 12 * anzahlEckpunkte()).asFloatBuffer();
+        }
+
+        /** @return Die Indizes der Eckpunkte als unsigned short, drei Einträge pro Dreieck */
+        public ShortBuffer indizes() {
+            return ausschnitt(daten.getInt(eintrag + 28), 2 * daten.getInt(eintrag + 16)).asShortBuffer();
+        }
+
+        /** @return Die Indizes der Detailstufen als unsigned short, ein Puffer pro Stufe (siehe {@link Detailstufen}) */
+        public ShortBuffer[] detailstufen() {
+            int anzahlStufen = daten.getInt(eintrag + 40), position = daten.getInt(eintrag + 44);
+            ShortBuffer[] stufen = new ShortBuffer[anzahlStufen];
+            int indizes = position + 4 * anzahlStufen;
+            for (int stufe = 0; stufe < anzahlStufen; stufe++) {
+                int anzahl = daten.getInt(position + 4 * stufe);
+                stufen[stufe] = ausschnitt(indizes, 2 * anzahl).asShortBuffer();
+                indizes += 2 * anzahl;
+            }
+            return stufen;
+        }
+
+    }
+
+    private ByteBuffer ausschnitt(int position, int laenge) {
+        ByteBuffer ausschnitt = daten.duplicate();
+        ausschnitt.position(position).limit(position + laenge);
+        // slice() setzt die Byte-Reihenfolge zurück
+        return ausschnitt.slice().order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    /**
+     * Schreibt die Schriftzeichen im GlyphPack-Format. Die Kerning-Tabelle wird aus den Maßen der Schriftzeichen berechnet.
+     * @param schriftzeichen Die Schriftzeichen. Der modellName jedes Schriftzeichens muss genau ein Zeichen (Code Point) sein.
+     * @param out            Der Ausgabestrom. Er wird nicht geschlossen.
+     * @throws IOException wenn nicht geschrieben werden kann
+     * @throws IllegalArgumentException wenn ein Name kein einzelnes Zeichen ist, doppelt vorkommt
+     *                                  oder ein Schriftzeichen zu viele Eckpunkte für 16-Bit-Indizes hat
+     */
+    public static void schreiben(List<Schriftzeichen> schriftzeichen, OutputStream out) throws IOException {
+        List<Schriftzeichen> sortiert = new ArrayList<>(schriftzeichen);
+        for (Schriftzeichen s : sortiert) {
+            if (s.modellName == null || s.modellName.isEmpty() || s.modellName.codePointCount(0, s.modellName.length()) != 1)
+                throw new IllegalArgumentException("Kein einzelnes Zeichen: " + s.modellName);
+            if (s.eckpunkte.length / 3 > MAX_ECKPUNKTE)
+                throw new IllegalArgumentException("Zu viele Eckpunkte für 16-Bit-Indizes: " + s.modellName);
+        }
+        sortiert.sort(Comparator.comparingInt(s -> s.modellName.codePointAt(0)));
+
+        int[][][] detailstufen = new int[sortiert.size()][][];
+        for (int i = 0; i < detailstufen.length; i++)
+            detailstufen[i] = sortiert.get(i).getDetailstufen();
+
+        int position = KOPF_GROESSE + sortiert.size() * EINTRAG_GROESSE;
+        int kerningPosition = position;
+        for (int i = 0; i < detailstufen.length; i++)
+            kerningPosition += datenGroesse(sortiert.get(i), detailstufen[i]);
+        ByteBuffer kopf = ByteBuffer.allocate(position).order(ByteOrder.LITTLE_ENDIAN);
+        kopf.putInt(KENNUNG).putInt(VERSION).putInt(sortiert.size()).putInt(kerningPosition);
+        int letzterCodePoint = -1;
+        for (int i = 0; i < detailstufen.length; i++) {
+            Schriftzeichen s = sortiert.get(i);
+            int codePoint = s.modellName.codePointAt(0);
+            if (codePoint == letzterCodePoint)
+                throw new IllegalArgumentException("Doppeltes Zeichen: " + s.modellName);
+            letzterCodePoint = codePoint;
+            int eckpunkteGroesse = 4 * s.eckpunkte.length;
+            kopf.putInt(codePoint).putFloat(s.modelBreite).putFloat(s.modelHoehe)
+                    .putInt(s.eckpunkte.length / 3).putInt(s.indizes.length)
+                    .putInt(position).putInt(position + eckpunkteGroesse).putInt(position + 2 * eckpunkteGroesse)
+                    .putFloat(s.getMetrik().oberlaenge).putFloat(s.getMetrik().unterlaenge)
+                    .putInt(detailstufen[i].length).putInt(position + 2 * eckpunkteGroesse + auffuellen(2 * s.indizes.length));
+            position += datenGroesse(s, detailstufen[i]);
+        }
+
+        DataOutputStream ausgabe = new DataOutputStream(out);
+        ausgabe.write(kopf.array());
+        for (int i = 0; i < detailstufen.length; i++) {
+            Schriftzeichen s = sortiert.get(i);
+            ByteBuffer block = ByteBuffer.allocate(datenGroesse(s, detailstufen[i])).order(ByteOrder.LITTLE_ENDIAN);
+            for (float wert : s.eckpunkte)
+                block.putFloat(wert);
+            for (int j = 0; j < s.eckpunkte.length; j++)
+                block.putFloat(s.normalen[j]);
+            for (int index : s.indizes)
+                block.putShort((short) index);
+            block.position(8 * s.eckpunkte.length + auffuellen(2 * s.indizes.length));
+            for (int[] stufe : detailstufen[i])
+                block.putInt(stufe.length);
+            for (int[] stufe : detailstufen[i])
+                for (int index : stufe)
+                    block.putShort((short) index);
+            ausgabe.write(block.array());
+        }
+        String[] namen = new String[sortiert.size()];
+        float[] breite = new float[sortiert.size()];
+        SchriftzeichenMetrik[] metrik = new SchriftzeichenMetrik[sortiert.size()];
+        for (int i = 0; i < namen.length; i++) {
+            namen[i] = sortiert.get(i).modellName;
+            breite[i] = sortiert.get(i).modelBreite;
+            metrik[i] = sortiert.get(i).getMetrik();
+        }
+        ByteBuffer kerning = ByteBuffer.allocate(4 * namen.length * namen.length).order(ByteOrder.LITTLE_ENDIAN);
+        for (float wert : SchriftzeichenMetriken.berechnen(namen, breite, metrik).kerningTabelle())
+            kerning.putFloat(wert);
+        ausgabe.write(kerning.array());
+        ausgabe.flush();
+    }
+
+    /** Die Größe der Daten eines Schriftzeichens in Byte. */
+    private static int datenGroesse(Schriftzeichen s, int[][] detailstufen) {
+        int anzahlDetailIndizes = 0;
+        for (int[] stufe : detailstufen)
+            anzahlDetailIndizes += stufe.length;
+        return 8 * s.eckpunkte.length + auffuellen(2 * s.indizes.length) + 4 * detailstufen.length + auffuellen(2 * anzahlDetailIndizes);
+    }
+
+    /** Rundet eine Länge in Byte auf ein Vielfaches von 4 auf, damit die folgenden float-Werte ausgerichtet sind. */
+    private static int auffuellen(int laenge) {
+        return (laenge + 3) & ~3;
+    }
+
+}
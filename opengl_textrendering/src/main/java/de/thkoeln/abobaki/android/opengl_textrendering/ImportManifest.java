@@ -0,0 +1,105 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collections;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * ImportManifest ordnet jeder OBJ-Datei der Assets den SHA-256-Hash ihres Inhalts zu.
+ * <p>
+ * Das Manifest wird beim Bauen vom SchriftzeichenDatenbankGenerator als Asset {@link #DATEINAME} geschrieben.
+ * {@link SchriftzeichenUtility#initialisierung} vergleicht es mit der Tabelle {@link ManifestEintrag} der Datenbank
+ * und liest nur hinzugekommene oder geänderte Dateien neu ein.
+ * <p>
+ * Dateiformat: UTF-8, eine Zeile pro Datei mit Hash und Dateiname, getrennt durch ein Tabulatorzeichen.
+ * <p>
+ * Die Klasse ist nicht von Android abhängig.
+ */
+public final class ImportManifest {
+
+    /** Der Name der Manifest-Datei in den Assets. */
+    public static final String DATEINAME = "Schriftzeichen.manifest";
+
+    private final Map<String, String> hashes;
+
+    /**
+     * @param hashes Die Hashes der Dateien (Dateiname - Hash)
+     */
+    public ImportManifest(Map<String, String> hashes) {
+        this.hashes = Collections.unmodifiableMap(new TreeMap<>(hashes));
+    }
+
+    /**
+     * @return Die Hashes der Dateien (Dateiname - Hash), sortiert nach Dateiname
+     */
+    public Map<String, String> hashes() {
+        return hashes;
+    }
+
+    /**
+     * Berechnet den SHA-256-Hash eines Dateiinhalts.
+     * @param in Der Inhalt der Datei. Der Strom wird bis zum Ende gelesen, aber nicht geschlossen.
+     * @return Der Hash als Hexadezimalzahl
+     * @throws IOException wenn nicht gelesen werden kann
+     */
+    public static String hash(InputStream in) throws IOException {
+        MessageDigest digest;
+        try {
+            digest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+        byte[] puffer = new byte[8192];
+        int gelesen;
+        while ((gelesen = in.read(puffer)) != -1)
+            digest.update(puffer, 0, gelesen);
+        StringBuilder hex = new StringBuilder(64);
+        for (byte b : digest.digest())
+            hex.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+        return hex.toString();
+    }
+
+    /**
+     * Liest ein Manifest.
+     * @param in Der Inhalt der Manifest-Datei. Der Strom wird nicht geschlossen.
+     * @return Das Manifest
+     * @throws IOException wenn nicht gelesen werden kann oder eine Zeile fehlerhaft ist
+     */
+    public static ImportManifest lesen(InputStream in) throws IOException {
+        Map<String, String> hashes = new TreeMap<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(in, StandardCharsets.UTF_8));
+        String zeile;
+        while ((zeile = reader.readLine()) != null) {
+            if (zeile.isEmpty())
+                continue;
+            int trenner = zeile.indexOf('\t');
+            if (trenner <= 0 || trenner == zeile.length() - 1)
+                throw new IOException("Fehlerhafte Zeile im Manifest: " + zeile);
+            hashes.put(zeile.substring(trenner + 1), zeile.substring(0, trenner));
+        }
+        return new ImportManifest(hashes);
+    }
+
+    /**
+     * Schreibt das Manifest.
+     * @param out Der Ausgabestrom. Er wird nicht geschlossen.
+     * @throws IOException wenn nicht geschrieben werden kann
+     */
+    public void schreiben(OutputStream out) throws IOException {
+        Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+        for (Map.Entry<String, String> eintrag : hashes.entrySet())
+            writer.write(eintrag.getValue() + "\t" + eintrag.getKey() + "\n");
+        writer.flush();
+    }
+
+}
@@ -1,39 +1,131 @@
 package de.thkoeln.abobaki.android.opengl_textrendering;
 
 import androidx.room.TypeConverter;
-import com.google.gson.Gson;
 
-import de.thkoeln.cvogt.android.opengl_utilities.GLTriangleCV;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
 
 /**
  * Konverter ist eine Utility-Klasse, die TypeConveter-Methoden hat.
- * Diese Methoden konvertieren GLTriangleCV-Objekte in JSON-Strings und umgekehrt, damit sie
+ * Diese Methoden konvertieren die Eckpunkte, Normalen und Indizes der Schriftzeichen in BLOBs (byte-Arrays) und umgekehrt, damit sie
  * von Room zur Speicherung in der Datenbank verwendet werden können.
+ * <p>
+ * Aufbau eines BLOBs (little-endian): ein Byte Format-Version ({@link #FORMAT}), ein Byte Typ der Werte
+ * ({@link #TYP_FLOAT}, {@link #TYP_SHORT} oder {@link #TYP_INT}), zwei Bytes 0, ein int mit der Anzahl der Werte, danach die Werte.
+ * Indizes werden als unsigned short gespeichert, wenn alle Werte kleiner als 65536 sind.
  */
 public class Konverter {
 
+    /** Die Version des BLOB-Formats. */
+    static final byte FORMAT = 1;
+
+    static final byte TYP_FLOAT = 1;
+    static final byte TYP_SHORT = 2;
+    static final byte TYP_INT = 3;
+
+    static final int KOPF_GROESSE = 8;
+
     private Konverter() {
         throw new IllegalStateException("Utility class");
     }
 
     /**
-     * Diese Methode wird durch genertieten Klassen benutzt, wenn ein Array von GLTriangleCV-Objekten in Datenbank gespeichert wird.
-     * Diese Methode konvertiert die GLTriangleCV zu den JSON-String durch Google Gson.
-     * @param dreiecke Ein Array von GLTriangleCV-Objekten
-     * @return Ein JSON-String, der das Array von GLTriangleCV-Objekten enthält
+     * Diese Methode wird durch genertieten Klassen benutzt, wenn ein float-Array (Eckpunkte oder Normalen) in Datenbank gespeichert wird.
+     * @param werte Ein Array von float-Werten
+     * @return Ein BLOB, der das Array enthält
      */
     @TypeConverter
-    public static String glTriangleCVZuString(GLTriangleCV[] dreiecke) {
-        return new Gson().toJson(dreiecke);
+    public static byte[] floatArrayZuBlob(float[] werte) {
+        if (werte == null)
+            return null;
+        ByteBuffer blob = kopf(TYP_FLOAT, werte.length, 4);
+        blob.asFloatBuffer().put(werte);
+        return blob.array();
     }
 
     /**
-     * Diese Methode wird benutzt, wenn die JSON-String zu ein Array von GLTriangleCV-Objekten konvertiert wird.
-     * @param wert Ein JSON-String, der das Array von GLTriangleCV-Objekten enthält
-     * @return Ein Array von GLTriangleCV-Objekten
+     * Diese Methode wird benutzt, wenn ein BLOB zu ein float-Array konvertiert wird.
+     * @param blob Ein BLOB, der das float-Array enthält
+     * @return Ein Array von float-Werten
      */
     @TypeConverter
-    public static GLTriangleCV[] stringZuGLTriangleCV(String wert) {
-        return new Gson().fromJson(wert, GLTriangleCV[].class) ;
+    public static float[] blobZuFloatArray(byte[] blob) {
+        if (blob == null)
+            return null;
+        ByteBuffer puffer = lesen(blob);
+        if (blob[1] != TYP_FLOAT)
+            throw new IllegalArgumentException("Kein float-BLOB (Typ " + blob[1] + ")");
+        float[] werte = new float[puffer.getInt(4)];
+        puffer.position(KOPF_GROESSE);
+        puffer.asFloatBuffer().get(werte);
+        return werte;
+    }
+
+    /**
+     * Diese Methode wird durch genertieten Klassen benutzt, wenn ein int-Array (Indizes) in Datenbank gespeichert wird.
+     * @param werte Ein Array von int-Werten
+     * @return Ein BLOB, der das Array enthält
+     */
+    @TypeConverter
+    public static byte[] intArrayZuBlob(int[] werte) {
+        if (werte == null)
+            return null;
+        boolean kurz = true;
+        for (int wert : werte)
+            if (wert < 0 || wert > 0xFFFF) {
+                kurz = false;
+                break;
+            }
+        ByteBuffer blob;
+        if (kurz) {
+            blob = kopf(TYP_SHORT, werte.length, 2);
+            for (int i = 0; i < werte.length; i++)
+                blob.putShort(KOPF_GROESSE + 2 * i, (short) werte[i]);
+        } else {
+            blob = kopf(TYP_INT, werte.length, 4);
+            blob.asIntBuffer().put(werte);
+        }
+        return blob.array();
+    }
+
+    /**
+     * Diese Methode wird benutzt, wenn ein BLOB zu ein int-Array konvertiert wird.
+     * @param blob Ein BLOB, der das int-Array enthält
+     * @return Ein Array von int-Werten
+     */
+    @TypeConverter
+    public static int[] blobZuIntArray(byte[] blob) {
+        if (blob == null)
+            return null;
+        ByteBuffer puffer = lesen(blob);
+        int[] werte = new int[puffer.getInt(4)];
+        if (blob[1] == TYP_SHORT) {
+            for (int i = 0; i < werte.length; i++)
+                werte[i] = puffer.getShort(KOPF_GROESSE + 2 * i) & 0xFFFF;
+        } else if (blob[1] == TYP_INT) {
+            puffer.position(KOPF_GROESSE);
+            puffer.asIntBuffer().get(werte);
+        } else
+            throw new IllegalArgumentException("Kein int-BLOB (Typ " + blob[1] + ")");
+        return werte;
+    }
+
+    /** Legt einen BLOB an und schreibt den Kopf. Die Position steht danach hinter dem Kopf. */
+    private static ByteBuffer kopf(byte typ, int anzahl, int groesse) {
+        ByteBuffer blob = ByteBuffer.allocate(KOPF_GROESSE + anzahl * groesse).order(ByteOrder.LITTLE_ENDIAN);
+        blob.put(FORMAT).put(typ).putShort((short) 0).putInt(anzahl);
+        return blob;
+    }
+
+    /** Prüft den Kopf eines BLOBs. */
+    private static ByteBuffer lesen(byte[] blob) {
+        if (blob.length < KOPF_GROESSE || blob[0] != FORMAT)
+            throw new IllegalArgumentException("Unbekanntes BLOB-Format");
+        ByteBuffer puffer = ByteBuffer.wrap(blob).order(ByteOrder.LITTLE_ENDIAN);
+        int anzahl = puffer.getInt(4);
+        int groesse = blob[1] == TYP_SHORT ? 2 : 4;
+        if (anzahl < 0 || KOPF_GROESSE + (long) anzahl * groesse != blob.length)
+            throw new IllegalArgumentException("Beschädigter BLOB");
+        return puffer;
     }
-}
\ No newline at end of file
+}
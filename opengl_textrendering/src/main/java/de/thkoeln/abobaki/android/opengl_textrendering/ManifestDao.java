@@ -0,0 +1,39 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import androidx.room.Dao;
+import androidx.room.Insert;
+import androidx.room.OnConflictStrategy;
+import androidx.room.Query;
+
+import java.util.List;
+
+/**
+ * Data Access Object Interface (DAO) für die Tabelle der importierten OBJ-Dateien.
+ * Die Implementierung dieses Interfaces wird vom Compiler generiert.
+ *
+ * @see ManifestEintrag
+ */
+@Dao
+public interface ManifestDao {
+
+    /**
+     * @return Alle Einträge der Tabelle.
+     */
+    @Query("SELECT * FROM ManifestEintrag")
+    List<ManifestEintrag> findAlle();
+
+    /**
+     * Fügt Einträge ein. Vorhandene Einträge mit demselben Dateinamen werden ersetzt.
+     * @param eintraege Die Einträge.
+     */
+    @Insert(onConflict = OnConflictStrategy.REPLACE)
+    void insertAll(List<ManifestEintrag> eintraege);
+
+    /**
+     * Löscht die Einträge der angegebenen Dateien.
+     * @param dateiNamen Die Namen der OBJ-Dateien.
+     */
+    @Query("DELETE FROM ManifestEintrag WHERE dateiName IN (:dateiNamen)")
+    void deleteByDateiNamen(List<String> dateiNamen);
+
+}
@@ -0,0 +1,47 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import androidx.annotation.NonNull;
+import androidx.room.ColumnInfo;
+import androidx.room.Entity;
+import androidx.room.PrimaryKey;
+
+/**
+ * Eine Entity-Klasse für die Tabelle der importierten OBJ-Dateien.
+ * Jede Zeile speichert, aus welchem Dateiinhalt (Hash) und mit welcher Version des Imports
+ * ({@link SchriftzeichenImport#FORMAT_VERSION}) das Schriftzeichen einer Datei erzeugt wurde.
+ *
+ * @see ImportManifest
+ */
+@Entity
+public class ManifestEintrag {
+
+    /**
+     * Der Name der OBJ-Datei in den Assets.
+     */
+    @PrimaryKey
+    @NonNull
+    @ColumnInfo(name = "dateiName")
+    public String dateiName;
+
+    /**
+     * Der SHA-256-Hash des Dateiinhalts.
+     */
+    @ColumnInfo(name = "hash")
+    public String hash;
+
+    /**
+     * Die Version des Imports, mit der das Schriftzeichen erzeugt wurde.
+     */
+    @ColumnInfo(name = "formatVersion")
+    public int formatVersion;
+
+    /**
+     * Der Konstruktor der Klasse
+     */
+    public ManifestEintrag(@NonNull String dateiName, String hash, int formatVersion) {
+        this.dateiName = dateiName;
+        this.hash = hash;
+        this.formatVersion = formatVersion;
+    }
+
+}
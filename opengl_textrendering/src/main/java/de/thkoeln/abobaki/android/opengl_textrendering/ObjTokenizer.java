@@ -0,0 +1,290 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+/**
+ * ObjTokenizer liest OBJ-Dateien in einem einzigen Durchlauf direkt aus dem Byte-Strom.
+ * <p>
+ * Im Gegensatz zum zeilenweisen Einlesen mit {@code BufferedReader.readLine()} und {@code String.split()}
+ * werden weder Strings noch Float-Objekte erzeugt: Die Koordinaten werden von einem eigenen Float-Parser
+ * gelesen und in wachsende {@code float[]}- bzw. {@code int[]}-Arrays geschrieben.
+ * Der Begrenzungsrahmen wird im selben Durchlauf berechnet.
+ * <p>
+ * Ausgewertet werden nur die Zeilen "v" (Vertex) und "f" (Face). Faces mit mehr als drei Vertices
+ * werden als Dreiecksfächer zerlegt, Texturkoordinaten und Normalen ("f 1/2/3") werden übersprungen.
+ * Die Klasse ist nicht von Android abhängig und kann daher auch in JVM-Unit-Tests verwendet werden.
+ */
+public final class ObjTokenizer {
+
+    private static final int PUFFER_GROESSE = 8192;
+
+    /**
+     * Zehnerpotenzen, die als double exakt darstellbar sind. Für Zahlen mit höchstens 15 signifikanten Stellen
+     * und einem Exponenten in diesem Bereich ergibt die Division bzw. Multiplikation ein korrekt gerundetes Ergebnis.
+     */
+    private static final double[] ZEHNERPOTENZEN = {
+            1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+            1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+    };
+
+    private final InputStream in;
+    private final byte[] puffer = new byte[PUFFER_GROESSE];
+    private int position;
+    private int limit;
+
+    /** Das aktuell gelesene Zeichen (-1 am Ende des Stroms). */
+    private int c;
+
+    /** Die aktuelle Zeilennummer, nur für Fehlermeldungen. */
+    private int zeile = 1;
+
+    private float[] vertices = new float[3 * 256];
+    private int anzahlVertices;
+    private int[] faces = new int[3 * 512];
+    private int anzahlFaceIndizes;
+    private final float[][] begrenzungsrahmen = {
+            {Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY},
+            {Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY},
+            {Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY}
+    };
+
+    private ObjTokenizer(InputStream in) {
+        this.in = in;
+    }
+
+    /**
+     * Liest eine OBJ-Datei vollständig ein. Der Strom wird nicht geschlossen.
+     * @param in Der Eingabestrom der OBJ-Datei
+     * @return Die Vertices, die Faces und der Begrenzungsrahmen der Datei
+     * @throws IOException wenn der Strom nicht gelesen werden kann oder die Datei fehlerhaft ist
+     */
+    public static Ergebnis parse(InputStream in) throws IOException {
+        return new ObjTokenizer(in).parse();
+    }
+
+    /**
+     * @return Ein leeres Ergebnis ohne Vertices und Faces, z.B. wenn eine Datei nicht gelesen werden konnte
+     */
+    public static Ergebnis leer() {
+        return new Ergebnis(new float[0], 0, new int[0], 0, new float[3][2]);
+    }
+
+    private Ergebnis parse() throws IOException {
+        weiter();
+        while (c != -1) {
+            if (c == 'v') {
+                weiter();
+                if (c == ' ' || c == '\t')
+                    leseVertex();
+            } else if (c == 'f') {
+                weiter();
+                if (c == ' ' || c == '\t')
+                    leseFace();
+            }
+            zeilenendeUeberspringen();
+        }
+        if (anzahlVertices == 0)
+            for (float[] achse : begrenzungsrahmen)
+                achse[0] = achse[1] = 0;
+        return new Ergebnis(vertices, anzahlVertices, faces, anzahlFaceIndizes, begrenzungsrahmen);
+    }
+
+    private void leseVertex() throws IOException {
+        if (3 * anzahlVertices + 3 > vertices.length)
+            vertices = Arrays.copyOf(vertices, vertices.length * 2);
+        int basis = 3 * anzahlVertices;
+        for (int achse = 0; achse < 3; achse++) {
+            float wert = leseFloat();
+            vertices[basis + achse] = wert;
+            if (wert < begrenzungsrahmen[achse][0])
+                begrenzungsrahmen[achse][0] = wert;
+            if (wert > begrenzungsrahmen[achse][1])
+                begrenzungsrahmen[achse][1] = wert;
+        }
+        anzahlVertices++;
+    }
+
+    private void leseFace() throws IOException {
+        int erster = leseIndex();
+        int vorheriger = leseIndex();
+        leerzeichenUeberspringen();
+        do {
+            int aktueller = leseIndex();
+            if (anzahlFaceIndizes + 3 > faces.length)
+                faces = Arrays.copyOf(faces, faces.length * 2);
+            faces[anzahlFaceIndizes++] = erster;
+            faces[anzahlFaceIndizes++] = vorheriger;
+            faces[anzahlFaceIndizes++] = aktueller;
+            vorheriger = aktueller;
+            leerzeichenUeberspringen();
+        } while (c != '\n' && c != '\r' && c != -1);
+    }
+
+    /**
+     * Liest den Vertex-Index eines Face-Eintrags ("7", "7/3" oder "7//2") und gibt ihn nullbasiert zurück.
+     * Negative (relative) Indizes werden auf die bisher gelesenen Vertices bezogen.
+     */
+    private int leseIndex() throws IOException {
+        leerzeichenUeberspringen();
+        boolean negativ = false;
+        if (c == '-') {
+            negativ = true;
+            weiter();
+        }
+        if (c < '0' || c > '9')
+            throw new IOException("Ungültiger Face-Eintrag in Zeile " + zeile);
+        int wert = 0;
+        while (c >= '0' && c <= '9') {
+            wert = wert * 10 + (c - '0');
+            weiter();
+        }
+        // Texturkoordinaten- und Normalen-Indizes werden nicht benötigt
+        while (c != ' ' && c != '\t' && c != '\n' && c != '\r' && c != -1)
+            weiter();
+        int index = negativ ? anzahlVertices - wert : wert - 1;
+        if (index < 0 || index >= anzahlVertices)
+            throw new IOException("Vertex-Index außerhalb des gültigen Bereichs in Zeile " + zeile);
+        return index;
+    }
+
+    /**
+     * Liest eine Dezimalzahl mit optionalem Vorzeichen, Nachkommastellen und Exponenten.
+     * Bis zu 18 signifikante Stellen werden in einem long gesammelt; weitere Stellen werden verworfen.
+     */
+    private float leseFloat() throws IOException {
+        leerzeichenUeberspringen();
+        boolean negativ = false;
+        if (c == '-') {
+            negativ = true;
+            weiter();
+        } else if (c == '+') {
+            weiter();
+        }
+        long mantisse = 0;
+        int signifikanteStellen = 0;
+        int exponent = 0;
+        boolean ziffernGelesen = false;
+        while (c >= '0' && c <= '9') {
+            if (signifikanteStellen < 18) {
+                mantisse = mantisse * 10 + (c - '0');
+                if (mantisse != 0)
+                    signifikanteStellen++;
+            } else {
+                exponent++;
+            }
+            ziffernGelesen = true;
+            weiter();
+        }
+        if (c == '.') {
+            weiter();
+            while (c >= '0' && c <= '9') {
+                if (signifikanteStellen < 18) {
+                    mantisse = mantisse * 10 + (c - '0');
+                    if (mantisse != 0)
+                        signifikanteStellen++;
+                    exponent--;
+                }
+                ziffernGelesen = true;
+                weiter();
+            }
+        }
+        if (!ziffernGelesen)
+            throw new IOException("Ungültige Zahl in Zeile " + zeile);
+        if (c == 'e' || c == 'E') {
+            weiter();
+            boolean exponentNegativ = false;
+            if (c == '-') {
+                exponentNegativ = true;
+                weiter();
+            } else if (c == '+') {
+                weiter();
+            }
+            int wert = 0;
+            while (c >= '0' && c <= '9') {
+                if (wert < 10000)
+                    wert = wert * 10 + (c - '0');
+                weiter();
+            }
+            exponent += exponentNegativ ? -wert : wert;
+        }
+        double ergebnis = mantisse;
+        if (mantisse != 0 && exponent != 0) {
+            if (exponent < 0 && exponent >= -22)
+                ergebnis /= ZEHNERPOTENZEN[-exponent];
+            else if (exponent > 0 && exponent <= 22)
+                ergebnis *= ZEHNERPOTENZEN[exponent];
+            else
+                ergebnis *= Math.pow(10, exponent);
+        }
+        return (float) (negativ ? -ergebnis : ergebnis);
+    }
+
+    private void leerzeichenUeberspringen() throws IOException {
+        while (c == ' ' || c == '\t')
+            weiter();
+    }
+
+    private void zeilenendeUeberspringen() throws IOException {
+        while (c != '\n' && c != -1)
+            weiter();
+        if (c == '\n') {
+            zeile++;
+            weiter();
+        }
+    }
+
+    private void weiter() throws IOException {
+        if (position == limit) {
+            limit = in.read(puffer, 0, puffer.length);
+            position = 0;
+            if (limit <= 0) {
+                limit = 0;
+                c = -1;
+                return;
+            }
+        }
+        c = puffer[position++] & 0xFF;
+    }
+
+    /**
+     * Das Ergebnis des Einlesens. Die Arrays können größer als die tatsächlich belegten Einträge sein;
+     * gültig sind jeweils nur die ersten {@code 3 * anzahlVertices} bzw. {@code anzahlFaceIndizes} Einträge.
+     */
+    public static final class Ergebnis {
+
+        /** Die Koordinaten der Vertices (x, y, z hintereinander). */
+        public final float[] vertices;
+
+        /** Die Anzahl der gelesenen Vertices. */
+        public final int anzahlVertices;
+
+        /** Die nullbasierten Vertex-Indizes der Dreiecke (drei Einträge pro Dreieck). */
+        public final int[] faces;
+
+        /** Die Anzahl der gültigen Einträge in {@link #faces}. */
+        public final int anzahlFaceIndizes;
+
+        /**
+         * Der Begrenzungsrahmen: Jede Zeile entspricht einer Achse (x, y und z),
+         * Spalte 0 enthält den kleinsten und Spalte 1 den größten Wert entlang dieser Achse.
+         */
+        public final float[][] begrenzungsrahmen;
+
+        Ergebnis(float[] vertices, int anzahlVertices, int[] faces, int anzahlFaceIndizes, float[][] begrenzungsrahmen) {
+            this.vertices = vertices;
+            this.anzahlVertices = anzahlVertices;
+            this.faces = faces;
+            this.anzahlFaceIndizes = anzahlFaceIndizes;
+            this.begrenzungsrahmen = begrenzungsrahmen;
+        }
+
+        /**
+         * @return Die Anzahl der Dreiecke
+         */
+        public int anzahlDreiecke() {
+            return anzahlFaceIndizes / 3;
+        }
+    }
+}
@@ -1,17 +1,18 @@
 package de.thkoeln.abobaki.android.opengl_textrendering;
 
 import androidx.room.ColumnInfo;
+import androidx.room.Embedded;
 import androidx.room.Entity;
+import androidx.room.Index;
 import androidx.room.PrimaryKey;
 
-import de.thkoeln.cvogt.android.opengl_utilities.GLTriangleCV;
-
 /**
  * Eine Entity-Klasse, die eine Tabelle in der Datenbank repräsentiert.
  * Die Attribute dieser Klasse entsprechen Spalten in der Tabelle und jedes Objekt repräsentiert eine Zeile in der Tabelle.
+ * Der Name ist eindeutig und indiziert, da alle Abfragen über den Namen erfolgen.
  */
 
-@Entity
+@Entity(indices = {@Index(value = {"modellName"}, unique = true)})
 public class Schriftzeichen {
 
     /**
@@ -21,10 +22,22 @@ public class Schriftzeichen {
     public int id;
 
     /**
-     * Die GLTriangleCV-Objekte, die das Schriftzeichen darstellen.
+     * Die eindeutigen Eckpunkte des Schriftzeichens (x, y, z hintereinander).
+     */
+    @ColumnInfo(name = "eckpunkte")
+    public float[] eckpunkte;
+
+    /**
+     * Die Normalen der Eckpunkte (x, y, z hintereinander).
      */
-    @ColumnInfo(name = "dreiecke")
-    public GLTriangleCV[] dreiecke;
+    @ColumnInfo(name = "normalen")
+    public float[] normalen;
+
+    /**
+     * Die Indizes der Eckpunkte, drei Einträge pro Dreieck.
+     */
+    @ColumnInfo(name = "indizes")
+    public int[] indizes;
 
     /**
      * Der Name des Schriftzeichen
@@ -45,20 +58,54 @@ public class Schriftzeichen {
     public float modelHoehe;
 
     /**
-     * Die Anzahl von Vertices des Schriftzeichens.
+     * Die Anzahl der eindeutigen Eckpunkte des Schriftzeichens.
      */
     @ColumnInfo(name = "vertices")
     public int anzahlVertices;
 
+    /**
+     * Die beim Import berechneten Maße (Spalten oberlaenge, unterlaenge, profilLinks und profilRechts).
+     */
+    @Embedded
+    public SchriftzeichenMetrik metrik;
+
+    /**
+     * Die Index-Arrays der beim Import berechneten Detailstufen, zusammengefasst mit {@link Detailstufen#zusammenfassen(int[][])}.
+     */
+    @ColumnInfo(name = "detailstufen")
+    public int[] detailstufen;
+
     /**
      * Der Konstruktor der Klasse
      */
-    public Schriftzeichen(GLTriangleCV[] dreiecke, float modelBreite, float modelHoehe, String modellName, int anzahlVertices) {
-        this.dreiecke = dreiecke;
+    public Schriftzeichen(float[] eckpunkte, float[] normalen, int[] indizes, float modelBreite, float modelHoehe, String modellName, int anzahlVertices) {
+        this.eckpunkte = eckpunkte;
+        this.normalen = normalen;
+        this.indizes = indizes;
         this.modelBreite = modelBreite;
         this.modelHoehe = modelHoehe;
         this.modellName = modellName;
         this.anzahlVertices = anzahlVertices;
     }
 
+    /**
+     * @return Die Maße des Schriftzeichens. Fehlen sie (z.B. bei einem vor Version 6 der Datenbank gespeicherten Schriftzeichen),
+     *         werden sie aus dem Netz berechnet.
+     */
+    public SchriftzeichenMetrik getMetrik() {
+        if (metrik == null || metrik.profilLinks == null || metrik.profilRechts == null)
+            metrik = SchriftzeichenMetrik.berechnen(modellName, eckpunkte, indizes, modelBreite, modelHoehe);
+        return metrik;
+    }
+
+    /**
+     * @return Die Index-Arrays der Detailstufen (siehe {@link Detailstufen}). Fehlen sie (z.B. bei einem vor Version 7 der Datenbank
+     *         gespeicherten Schriftzeichen), werden sie aus dem Netz berechnet.
+     */
+    public int[][] getDetailstufen() {
+        if (detailstufen == null)
+            detailstufen = Detailstufen.zusammenfassen(Detailstufen.berechnen(eckpunkte, normalen, indizes));
+        return Detailstufen.aufteilen(detailstufen);
+    }
+
 }
@@ -0,0 +1,131 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import android.util.LruCache;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * SchriftzeichenCache hält die zuletzt benutzten Schriftzeichen (Eckpunkte, Normalen, Indizes, Breite und Höhe) im Speicher,
+ * damit sie bei einer erneuten Darstellung nicht wieder aus der Datenbank gelesen werden müssen.
+ * <p>
+ * Der Cache liegt zwischen {@link SchriftzeichenUtility} und {@link SchriftzeichenDao}. Sein Speicherbedarf ist durch ein Budget
+ * in Byte begrenzt; wird es überschritten, werden die am längsten nicht benutzten Schriftzeichen verdrängt.
+ * Der Cache kann von mehreren Threads gleichzeitig benutzt werden.
+ * <p>
+ * Die zurückgegebenen Schriftzeichen werden von allen Aufrufern gemeinsam benutzt und dürfen nicht verändert werden.
+ */
+public final class SchriftzeichenCache {
+
+    /** Das Standard-Budget in Byte. Es reicht für alle mitgelieferten Schriftzeichen. */
+    public static final int STANDARD_BUDGET = 2 * 1024 * 1024;
+
+    private final SchriftzeichenDao dao;
+    private final LruCache<String, Schriftzeichen> cache;
+
+    /**
+     * @param dao    Das DAO, aus dem fehlende Schriftzeichen gelesen werden
+     * @param budget Der höchste Speicherbedarf der Schriftzeichen im Cache in Byte
+     */
+    public SchriftzeichenCache(SchriftzeichenDao dao, int budget) {
+        this.dao = dao;
+        cache = new LruCache<String, Schriftzeichen>(budget) {
+            @Override
+            protected int sizeOf(String name, Schriftzeichen schriftzeichen) {
+                return groesse(schriftzeichen);
+            }
+        };
+    }
+
+    /**
+     * Gibt die Schriftzeichen zu den angegebenen Namen zurück.
+     * Die Schriftzeichen, die nicht im Cache sind, werden mit einer einzigen Abfrage aus der Datenbank gelesen.
+     * @param namen Die Namen der Schriftzeichen
+     * @return Die Schriftzeichen, nach Namen. Namen, zu denen kein Schriftzeichen gespeichert ist, fehlen.
+     */
+    public Map<String, Schriftzeichen> get(Collection<String> namen) {
+        Map<String, Schriftzeichen> ergebnis = new HashMap<>();
+        List<String> fehlend = new ArrayList<>();
+        for (String name : namen) {
+            Schriftzeichen schriftzeichen = cache.get(name);
+            if (schriftzeichen != null)
+                ergebnis.put(name, schriftzeichen);
+            else
+                fehlend.add(name);
+        }
+        if (!fehlend.isEmpty())
+            for (Schriftzeichen schriftzeichen : dao.findByNames(fehlend)) {
+                cache.put(schriftzeichen.modellName, schriftzeichen);
+                ergebnis.put(schriftzeichen.modellName, schriftzeichen);
+            }
+        return ergebnis;
+    }
+
+    /**
+     * Entfernt alle Schriftzeichen aus dem Cache, z.B. nachdem Schriftzeichen neu importiert wurden.
+     */
+    public void leeren() {
+        cache.evictAll();
+    }
+
+    /**
+     * Ändert das Budget. Wird es verkleinert, werden sofort Schriftzeichen verdrängt.
+     * @param budget Der höchste Speicherbedarf der Schriftzeichen im Cache in Byte
+     */
+    public void setBudget(int budget) {
+        cache.resize(budget);
+    }
+
+    /** @return Das Budget in Byte */
+    public int getBudget() {
+        return cache.maxSize();
+    }
+
+    /** @return Der aktuelle Speicherbedarf der Schriftzeichen im Cache in Byte */
+    public int getBelegt() {
+        return cache.size();
+    }
+
+    /** @return Die Anzahl der Anfragen, die aus dem Cache beantwortet wurden */
+    public int getTreffer() {
+        return cache.hitCount();
+    }
+
+    /** @return Die Anzahl der Anfragen, für die die Datenbank gelesen werden musste */
+    public int getFehlgriffe() {
+        return cache.missCount();
+    }
+
+    /** @return Die Anzahl der wegen des Budgets verdrängten Schriftzeichen */
+    public int getVerdraengungen() {
+        return cache.evictionCount();
+    }
+
+    @Override
+    public String toString() {
+        return "SchriftzeichenCache[budget=" + getBudget() + ", belegt=" + getBelegt() + ", treffer=" + getTreffer()
+                + ", fehlgriffe=" + getFehlgriffe() + ", verdraengungen=" + getVerdraengungen() + "]";
+    }
+
+    /**
+     * Schätzt den Speicherbedarf eines Schriftzeichens: die Arrays und ein fester Anteil für die Objekte.
+     */
+    static int groesse(Schriftzeichen schriftzeichen) {
+        int groesse = 64;
+        if (schriftzeichen.eckpunkte != null)
+            groesse += 16 + 4 * schriftzeichen.eckpunkte.length;
+        if (schriftzeichen.normalen != null)
+            groesse += 16 + 4 * schriftzeichen.normalen.length;
+        if (schriftzeichen.indizes != null)
+            groesse += 16 + 4 * schriftzeichen.indizes.length;
+        if (schriftzeichen.metrik != null && schriftzeichen.metrik.profilLinks != null)
+            groesse += 2 * (16 + 4 * SchriftzeichenMetrik.BAENDER);
+        if (schriftzeichen.detailstufen != null)
+            groesse += 16 + 4 * schriftzeichen.detailstufen.length;
+        return groesse;
+    }
+
+}
@@ -1,9 +1,14 @@
 package de.thkoeln.abobaki.android.opengl_textrendering;
 
+import androidx.room.ColumnInfo;
 import androidx.room.Dao;
+import androidx.room.Embedded;
 import androidx.room.Insert;
 import androidx.room.Query;
 
+import java.util.Collection;
+import java.util.List;
+
 /**
  * Data Access Object Interface (DAO) für Schriftzeichen-Objekte.
  * <p>
@@ -22,13 +27,41 @@ public interface SchriftzeichenDao {
     void insert(Schriftzeichen schriftzeichen);
 
     /**
-     * Abfrage-Methode, die die GLTriangleCV-Objekte von Triangles-Spalte mithilfe des angegebenen Schriftzeichennamens zurückgibt.
+     * Fügt mehrere Schriftzeichen-Objekte in einer einzigen Transaktion in die Datenbank ein.
+     * @param schriftzeichen Die Liste der Schriftzeichen-Objekte.
+     */
+    @Insert
+    void insertAll(List<Schriftzeichen> schriftzeichen);
+
+    /**
+     * @param name Der Name des Schriftzeichens.
+     * @return Das Schriftzeichen oder null, wenn es nicht gespeichert ist.
+     */
+    @Query("SELECT * FROM Schriftzeichen WHERE modellName = :name LIMIT 1")
+    Schriftzeichen findByName(String name);
+
+    /**
+     * Liest mehrere Schriftzeichen mit einer Abfrage (über den eindeutigen Index auf modellName).
+     * @param namen Die Namen der Schriftzeichen.
+     * @return Die gespeicherten Schriftzeichen. Namen, zu denen kein Schriftzeichen gespeichert ist, werden übergangen.
+     */
+    @Query("SELECT * FROM Schriftzeichen WHERE modellName IN (:namen)")
+    List<Schriftzeichen> findByNames(Collection<String> namen);
+
+    /**
+     * Abfrage-Methode, die die Eckpunkte des Schriftzeichens mithilfe des angegebenen Schriftzeichennamens zurückgibt.
      *
      * @param name Der Name des Schriftzeichens, nach dem gesucht wird.
-     * @return Array von GLTriangleCV-Objekten als String.
+     * @return Die Koordinaten der Eckpunkte (x, y, z hintereinander).
      */
-    @Query("SELECT dreiecke FROM Schriftzeichen WHERE modellName = :name")
-    String findDreieckeByName(String name);
+    @Query("SELECT eckpunkte FROM Schriftzeichen WHERE modellName = :name")
+    float[] findEckpunkteByName(String name);
+
+    @Query("SELECT normalen FROM Schriftzeichen WHERE modellName = :name")
+    float[] findNormalenByName(String name);
+
+    @Query("SELECT indizes FROM Schriftzeichen WHERE modellName = :name")
+    int[] findIndizesByName(String name);
 
     @Query("SELECT modelBreite FROM Schriftzeichen WHERE modellName = :name")
     float findBreiteByName(String name);
@@ -42,4 +75,38 @@ public interface SchriftzeichenDao {
     @Query("SELECT EXISTS(SELECT 1 FROM Schriftzeichen WHERE modellName=:name)")
     boolean isNameExists(String name);
 
+    /**
+     * @return Die Namen aller gespeicherten Schriftzeichen.
+     */
+    @Query("SELECT modellName FROM Schriftzeichen")
+    List<String> findAlleNamen();
+
+    /**
+     * Liest die Maße aller Schriftzeichen ohne ihre Netze, zum Berechnen der {@link SchriftzeichenMetriken}.
+     * @return Name, Breite und Maße jedes gespeicherten Schriftzeichens.
+     */
+    @Query("SELECT modellName, modelBreite, oberlaenge, unterlaenge, profilLinks, profilRechts FROM Schriftzeichen")
+    List<MetrikEintrag> findAlleMetriken();
+
+    /**
+     * Löscht die Schriftzeichen mit den angegebenen Namen.
+     * @param namen Die Namen der Schriftzeichen.
+     */
+    @Query("DELETE FROM Schriftzeichen WHERE modellName IN (:namen)")
+    void deleteByNames(List<String> namen);
+
+    /**
+     * Ergebnis von {@link #findAlleMetriken()}.
+     */
+    class MetrikEintrag {
+        @ColumnInfo(name = "modellName")
+        public String modellName;
+
+        @ColumnInfo(name = "modelBreite")
+        public float modelBreite;
+
+        @Embedded
+        public SchriftzeichenMetrik metrik;
+    }
+
 }
@@ -1,20 +1,137 @@
 package de.thkoeln.abobaki.android.opengl_textrendering;
 
+import android.database.Cursor;
+
+import androidx.annotation.NonNull;
 import androidx.room.Database;
 import androidx.room.RoomDatabase;
 import androidx.room.TypeConverters;
+import androidx.room.migration.Migration;
+import androidx.sqlite.db.SupportSQLiteDatabase;
+
+import com.google.gson.Gson;
 
 /**
  * Datenbank-Klasse
  * <p>
  * SchriftzeichenDatabase verwaltet die Datenbank für Schriftzeichen-Objekte und legt die Konfiguration der Datenbank fest.
+ * <p>
+ * Version 2: Die Schriftzeichen werden als indizierte Netze (Eckpunkte, Normalen, Indizes) statt als GLTriangleCV-Objekte gespeichert.
+ * <p>
+ * Version 3: Die Tabelle ManifestEintrag speichert die Hashes der importierten OBJ-Dateien.
+ * <p>
+ * Version 4: Eckpunkte, Normalen und Indizes werden als BLOBs statt als JSON-Strings gespeichert (siehe {@link Konverter}).
+ * <p>
+ * Version 5: Eindeutiger Index auf den Namen der Schriftzeichen.
+ * <p>
+ * Version 6: Die beim Import berechneten Maße der Schriftzeichen (siehe {@link SchriftzeichenMetrik}).
+ * <p>
+ * Version 7: Die beim Import berechneten Detailstufen der Schriftzeichen (siehe {@link Detailstufen}).
  *
  * @see Schriftzeichen
  * @see SchriftzeichenDao
+ * @see ManifestEintrag
  * @see Konverter
+ * @see SchriftzeichenSchema
  */
-@Database(entities = {Schriftzeichen.class}, version = 1)
+@Database(entities = {Schriftzeichen.class, ManifestEintrag.class}, version = SchriftzeichenSchema.VERSION)
 @TypeConverters({Konverter.class})
 public abstract class SchriftzeichenDatabase extends RoomDatabase {
     public abstract SchriftzeichenDao schriftzeichendao();
+    public abstract ManifestDao manifestdao();
+
+    /** Die Tabelle der Schriftzeichen in Version 4 und 5. */
+    private static final String SCHRIFTZEICHEN_TABELLE_4 = "CREATE TABLE IF NOT EXISTS `Schriftzeichen` ("
+            + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+            + "`eckpunkte` BLOB, "
+            + "`normalen` BLOB, "
+            + "`indizes` BLOB, "
+            + "`modellName` TEXT, "
+            + "`modelBreite` REAL NOT NULL, "
+            + "`modelHoehe` REAL NOT NULL, "
+            + "`vertices` INTEGER NOT NULL)";
+
+    /**
+     * Migration von Version 3: Die JSON-Strings der Eckpunkte, Normalen und Indizes werden in BLOBs umgewandelt.
+     * Das Manifest bleibt erhalten, daher müssen keine OBJ-Dateien neu eingelesen werden.
+     */
+    static final Migration MIGRATION_3_4 = new Migration(3, 4) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL(SCHRIFTZEICHEN_TABELLE_4.replace("`Schriftzeichen`", "`Schriftzeichen_neu`"));
+            Gson gson = new Gson();
+            try (Cursor alt = db.query("SELECT id, eckpunkte, normalen, indizes, modellName, modelBreite, modelHoehe, vertices FROM Schriftzeichen")) {
+                while (alt.moveToNext())
+                    db.execSQL("INSERT INTO Schriftzeichen_neu (id, eckpunkte, normalen, indizes, modellName, modelBreite, modelHoehe, vertices) VALUES (?, ?, ?, ?, ?, ?, ?, ?)",
+                            new Object[]{alt.getInt(0),
+                                    Konverter.floatArrayZuBlob(gson.fromJson(alt.getString(1), float[].class)),
+                                    Konverter.floatArrayZuBlob(gson.fromJson(alt.getString(2), float[].class)),
+                                    Konverter.intArrayZuBlob(gson.fromJson(alt.getString(3), int[].class)),
+                                    alt.getString(4), alt.getFloat(5), alt.getFloat(6), alt.getInt(7)});
+            }
+            db.execSQL("DROP TABLE Schriftzeichen");
+            db.execSQL("ALTER TABLE Schriftzeichen_neu RENAME TO Schriftzeichen");
+        }
+    };
+
+    /**
+     * Migration von Version 4: Doppelte Namen werden entfernt und der eindeutige Index wird angelegt.
+     */
+    static final Migration MIGRATION_4_5 = new Migration(4, 5) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("DELETE FROM Schriftzeichen WHERE id NOT IN (SELECT MIN(id) FROM Schriftzeichen GROUP BY modellName)");
+            db.execSQL(SchriftzeichenSchema.SCHRIFTZEICHEN_INDEX);
+        }
+    };
+
+    /**
+     * Migration von Version 5: Die Spalten der Maße werden angelegt. Da sich {@link SchriftzeichenImport#FORMAT_VERSION} geändert hat,
+     * liest {@link SchriftzeichenUtility#initialisierung} danach alle OBJ-Dateien neu ein; bis dahin berechnet
+     * {@link Schriftzeichen#getMetrik()} die fehlenden Maße aus dem Netz.
+     */
+    static final Migration MIGRATION_5_6 = new Migration(5, 6) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `Schriftzeichen` ADD COLUMN `oberlaenge` REAL NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `Schriftzeichen` ADD COLUMN `unterlaenge` REAL NOT NULL DEFAULT 0");
+            db.execSQL("ALTER TABLE `Schriftzeichen` ADD COLUMN `profilLinks` BLOB");
+            db.execSQL("ALTER TABLE `Schriftzeichen` ADD COLUMN `profilRechts` BLOB");
+        }
+    };
+
+    /**
+     * Migration von Version 6: Die Spalte der Detailstufen wird angelegt. Wie bei {@link #MIGRATION_5_6} werden danach alle OBJ-Dateien
+     * neu eingelesen; bis dahin berechnet {@link Schriftzeichen#getDetailstufen()} die fehlenden Detailstufen aus dem Netz.
+     */
+    static final Migration MIGRATION_6_7 = new Migration(6, 7) {
+        @Override
+        public void migrate(@NonNull SupportSQLiteDatabase db) {
+            db.execSQL("ALTER TABLE `Schriftzeichen` ADD COLUMN `detailstufen` BLOB");
+        }
+    };
+
+    /**
+     * Migration von Version 1 (GLTriangleCV-Objekte) und 2 (ohne Manifest) auf die aktuelle Version:
+     * Die Tabellen werden leer neu angelegt.
+     * Da das Manifest leer ist, liest {@link SchriftzeichenUtility#initialisierung} danach alle OBJ-Dateien neu ein.
+     */
+    static final Migration MIGRATION_1_AKTUELL = neuAnlegen(1);
+    static final Migration MIGRATION_2_AKTUELL = neuAnlegen(2);
+
+    /** Alle Migrationen. Room verkettet sie bei Bedarf (z.B. 3 - 4 - 5 - 6 - 7). */
+    static final Migration[] MIGRATIONEN = {MIGRATION_1_AKTUELL, MIGRATION_2_AKTUELL, MIGRATION_3_4, MIGRATION_4_5, MIGRATION_5_6, MIGRATION_6_7};
+
+    private static Migration neuAnlegen(int vonVersion) {
+        return new Migration(vonVersion, SchriftzeichenSchema.VERSION) {
+            @Override
+            public void migrate(@NonNull SupportSQLiteDatabase db) {
+                db.execSQL("DROP TABLE IF EXISTS `Schriftzeichen`");
+                db.execSQL("DROP TABLE IF EXISTS `ManifestEintrag`");
+                db.execSQL(SchriftzeichenSchema.SCHRIFTZEICHEN_TABELLE);
+                db.execSQL(SchriftzeichenSchema.SCHRIFTZEICHEN_INDEX);
+                db.execSQL(SchriftzeichenSchema.MANIFEST_TABELLE);
+            }
+        };
+    }
 }
@@ -0,0 +1,547 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * SchriftzeichenExtrusion erzeugt Schriftzeichen aus den Umrissen einer {@link TrueTypeSchrift}, als Alternative zu den OBJ-Dateien:
+ * Jede Schrift liefert alle ihre Zeichen, und die Qualität (Unterteilung der Kurven) kann gegen die Anzahl der Dreiecke abgewogen werden.
+ * <p>
+ * Die Konturen eines Zeichens werden nach ihrer Schachtelung in äußere Konturen und Löcher eingeteilt (gerade bzw. ungerade Anzahl
+ * umschließender Konturen), die Vorderseite wird durch Abschneiden von Ohren (ear clipping) trianguliert, wobei jedes Loch über
+ * eine Brücke mit seiner äußeren Kontur verbunden wird. Die Rückseite ist das Spiegelbild der Vorderseite, die Seitenwände bestehen
+ * aus zwei Dreiecken pro Strecke der Konturen. Das Netz wird wie der Inhalt einer OBJ-Datei weiterverarbeitet
+ * ({@link SchriftzeichenImport}): Die Eckpunkte werden an den Kanten der Vorderseite geteilt und an den gekrümmten Seitenwänden
+ * glatt schattiert, die Maße und die Detailstufen werden berechnet. Anders als bei den OBJ-Dateien ist die Grundlinie bekannt.
+ * <p>
+ * Überlappende Konturen (wie in manchen variablen Schriften) werden nicht vereinigt. Ein Objekt kann gleichzeitig von mehreren Threads
+ * benutzt werden; die erzeugten Schriftzeichen werden z.B. mit einem {@link SchriftzeichenProvider} im Speicher gehalten
+ * (siehe {@link SchriftzeichenUtility#initialisierungMitSchrift}). Die Klasse ist nicht von Android abhängig.
+ */
+public final class SchriftzeichenExtrusion {
+
+    /** Die Größe eines Em in Modell-Einheiten, bei der die Großbuchstaben gängiger Schriften etwa so hoch sind wie die der OBJ-Dateien. */
+    public static final float STANDARD_EM_GROESSE = 0.064f;
+
+    /** Die Tiefe der Schriftzeichen in Modell-Einheiten, wie die der OBJ-Dateien. */
+    public static final float STANDARD_TIEFE = 0.015f;
+
+    /** Die größte Abweichung der Konturen von den Kurven der Schrift in Modell-Einheiten. */
+    public static final float STANDARD_TOLERANZ = 0.0002f;
+
+    /** Der Sinus des Winkels, unter dem zwei aufeinanderfolgende Strecken einer Kontur als eine Gerade gelten. */
+    private static final double GERADE_SINUS = 1e-5;
+
+    private final TrueTypeSchrift schrift;
+    private final float emGroesse;
+    private final float tiefe;
+    private final float toleranz;
+
+    /**
+     * Erzeugt Schriftzeichen in der Größe, Tiefe und Qualität der OBJ-Dateien.
+     * @param schrift Die Schrift
+     */
+    public SchriftzeichenExtrusion(TrueTypeSchrift schrift) {
+        this(schrift, STANDARD_EM_GROESSE, STANDARD_TIEFE, STANDARD_TOLERANZ);
+    }
+
+    /**
+     * @param schrift   Die Schrift
+     * @param emGroesse Die Größe eines Em in Modell-Einheiten
+     * @param tiefe     Die Tiefe der Schriftzeichen (Ausdehnung in z-Richtung) in Modell-Einheiten
+     * @param toleranz  Die größte Abweichung der Konturen von den Kurven in Modell-Einheiten. Größere Werte ergeben weniger Dreiecke.
+     * @throws IllegalArgumentException wenn einer der Werte nicht größer als 0 ist
+     */
+    public SchriftzeichenExtrusion(TrueTypeSchrift schrift, float emGroesse, float tiefe, float toleranz) {
+        if (!(emGroesse > 0) || !(tiefe > 0) || !(toleranz > 0))
+            throw new IllegalArgumentException("Em-Größe " + emGroesse + ", Tiefe " + tiefe + ", Toleranz " + toleranz);
+        this.schrift = schrift;
+        this.emGroesse = emGroesse;
+        this.tiefe = tiefe;
+        this.toleranz = toleranz;
+    }
+
+    /**
+     * Erzeugt ein Schriftzeichen. Die Methode kann als Funktion eines {@link SchriftzeichenProvider} benutzt werden.
+     * @param zeichen Das Zeichen (ein Code Point)
+     * @return Das Schriftzeichen, um den Mittelpunkt seines Begrenzungsrahmens zentriert wie ein importiertes,
+     *         oder null, wenn die Schrift das Zeichen nicht enthält oder es keinen Umriss hat
+     */
+    public Schriftzeichen erzeugen(String zeichen) {
+        if (zeichen == null || zeichen.isEmpty() || zeichen.codePointCount(0, zeichen.length()) != 1)
+            return null;
+        List<float[]> konturen = schrift.umriss(zeichen.codePointAt(0), emGroesse / schrift.getEinheitenProEm(), toleranz);
+        if (konturen == null)
+            return null;
+        ObjTokenizer.Ergebnis netz = extrudieren(konturen, tiefe);
+        if (netz.anzahlDreiecke() == 0)
+            return null;
+        // Die Grundlinie liegt bei y = 0
+        return SchriftzeichenImport.ausNetz(zeichen, netz, -netz.begrenzungsrahmen[1][0]);
+    }
+
+    /**
+     * Erzeugt das Netz eines Zeichens aus seinen Konturen.
+     * @param konturen Die Konturen, jede als Polygon (x0, y0, x1, y1, ...) in beliebiger Richtung
+     * @param tiefe    Die Ausdehnung in z-Richtung; die Vorderseite liegt bei z = tiefe / 2
+     * @return Die Eckpunkte und Dreiecke wie aus einer OBJ-Datei
+     */
+    static ObjTokenizer.Ergebnis extrudieren(List<float[]> konturen, float tiefe) {
+        List<double[]> polygone = new ArrayList<>();
+        for (float[] kontur : konturen) {
+            double[] polygon = bereinigen(kontur);
+            if (polygon.length >= 6 && flaeche(polygon) != 0)
+                polygone.add(polygon);
+        }
+        int anzahl = polygone.size();
+
+        // Eine Kontur innerhalb einer geraden Anzahl von Konturen ist eine äußere Kontur (gegen den Uhrzeigersinn), sonst ein Loch (im Uhrzeigersinn)
+        int[] ebene = new int[anzahl];
+        double[] flaechen = new double[anzahl];
+        for (int i = 0; i < anzahl; i++) {
+            for (int j = 0; j < anzahl; j++)
+                if (i != j && enthaelt(polygone.get(j), polygone.get(i)[0], polygone.get(i)[1]))
+                    ebene[i]++;
+            double flaeche = flaeche(polygone.get(i));
+            if (flaeche > 0 != (ebene[i] % 2 == 0))
+                umkehren(polygone.get(i));
+            flaechen[i] = Math.abs(flaeche);
+        }
+        // Jedes Loch gehört zur kleinsten äußeren Kontur, die es umschließt
+        int[] aussen = new int[anzahl];
+        for (int i = 0; i < anzahl; i++) {
+            aussen[i] = -1;
+            if (ebene[i] % 2 == 1)
+                for (int j = 0; j < anzahl; j++)
+                    if (ebene[j] == ebene[i] - 1 && enthaelt(polygone.get(j), polygone.get(i)[0], polygone.get(i)[1])
+                            && (aussen[i] == -1 || flaechen[j] < flaechen[aussen[i]]))
+                        aussen[i] = j;
+        }
+
+        // Die Punkte aller Konturen werden durchnummeriert: Punkt k liegt vorn bei Position k und hinten bei Position anzahlPunkte + k
+        int[] erster = new int[anzahl + 1];
+        for (int i = 0; i < anzahl; i++)
+            erster[i + 1] = erster[i] + polygone.get(i).length / 2;
+        int anzahlPunkte = erster[anzahl];
+
+        List<Integer> vorderseite = new ArrayList<>();
+        for (int i = 0; i < anzahl; i++) {
+            if (ebene[i] % 2 == 1)
+                continue;
+            Knoten ring = ring(polygone.get(i), erster[i]);
+            List<Knoten> loecher = new ArrayList<>();
+            for (int j = 0; j < anzahl; j++)
+                if (aussen[j] == i)
+                    loecher.add(ring(polygone.get(j), erster[j]));
+            ring = loecherEntfernen(ring, loecher, vorderseite);
+            ohrenAbschneiden(ring, vorderseite, 0);
+        }
+
+        float[] vertices = new float[6 * anzahlPunkte];
+        for (int i = 0; i < anzahl; i++) {
+            double[] polygon = polygone.get(i);
+            for (int k = 0; k < polygon.length / 2; k++) {
+                int vorn = 3 * (erster[i] + k), hinten = 3 * (anzahlPunkte + erster[i] + k);
+                vertices[vorn] = vertices[hinten] = (float) polygon[2 * k];
+                vertices[vorn + 1] = vertices[hinten + 1] = (float) polygon[2 * k + 1];
+                vertices[vorn + 2] = tiefe / 2;
+                vertices[hinten + 2] = -tiefe / 2;
+            }
+        }
+        int[] faces = new int[2 * vorderseite.size() + 6 * anzahlPunkte];
+        int f = 0;
+        for (int d = 0; d < vorderseite.size(); d += 3) {
+            int a = vorderseite.get(d), b = vorderseite.get(d + 1), c = vorderseite.get(d + 2);
+            faces[f++] = a;
+            faces[f++] = b;
+            faces[f++] = c;
+            // Die Rückseite in umgekehrter Reihenfolge, damit sie nach hinten zeigt
+            faces[f++] = anzahlPunkte + a;
+            faces[f++] = anzahlPunkte + c;
+            faces[f++] = anzahlPunkte + b;
+        }
+        // Die Seitenwände: Bei einer äußeren Kontur gegen den Uhrzeigersinn zeigen die Dreiecke (A, D, C) und (A, C, B) nach außen
+        for (int i = 0; i < anzahl; i++)
+            for (int k = erster[i]; k < erster[i + 1]; k++) {
+                int naechster = k + 1 < erster[i + 1] ? k + 1 : erster[i];
+                int a = k, b = naechster, c = anzahlPunkte + naechster, d = anzahlPunkte + k;
+                faces[f++] = a;
+                faces[f++] = d;
+                faces[f++] = c;
+                faces[f++] = a;
+                faces[f++] = c;
+                faces[f++] = b;
+            }
+
+        float[][] begrenzungsrahmen = new float[3][2];
+        for (int achse = 0; achse < 3; achse++) {
+            begrenzungsrahmen[achse][0] = anzahlPunkte > 0 ? Float.POSITIVE_INFINITY : 0;
+            begrenzungsrahmen[achse][1] = anzahlPunkte > 0 ? Float.NEGATIVE_INFINITY : 0;
+        }
+        for (int v = 0; v < vertices.length; v += 3)
+            for (int achse = 0; achse < 3; achse++) {
+                begrenzungsrahmen[achse][0] = Math.min(begrenzungsrahmen[achse][0], vertices[v + achse]);
+                begrenzungsrahmen[achse][1] = Math.max(begrenzungsrahmen[achse][1], vertices[v + achse]);
+            }
+        return new ObjTokenizer.Ergebnis(vertices, 2 * anzahlPunkte, faces, f, begrenzungsrahmen);
+    }
+
+    /** Entfernt doppelte Punkte und Punkte auf einer Geraden zwischen ihren Nachbarn. */
+    private static double[] bereinigen(float[] kontur) {
+        int anzahl = kontur.length / 2;
+        double[] x = new double[anzahl], y = new double[anzahl];
+        for (int i = 0; i < anzahl; i++) {
+            x[i] = kontur[2 * i];
+            y[i] = kontur[2 * i + 1];
+        }
+        boolean geaendert = true;
+        while (geaendert && anzahl >= 3) {
+            geaendert = false;
+            int behalten = 0;
+            for (int i = 0; i < anzahl; i++) {
+                int vorher = behalten > 0 ? behalten - 1 : anzahl - 1, nachher = (i + 1) % anzahl;
+                double ux = x[i] - x[vorher], uy = y[i] - y[vorher], vx = x[nachher] - x[i], vy = y[nachher] - y[i];
+                double laengen = Math.sqrt((ux * ux + uy * uy) * (vx * vx + vy * vy));
+                if (laengen == 0 || Math.abs(ux * vy - uy * vx) <= GERADE_SINUS * laengen) {
+                    geaendert = true;
+                    continue;
+                }
+                x[behalten] = x[i];
+                y[behalten] = y[i];
+                behalten++;
+            }
+            anzahl = behalten;
+        }
+        double[] polygon = new double[anzahl >= 3 ? 2 * anzahl : 0];
+        for (int i = 0; i < polygon.length / 2; i++) {
+            polygon[2 * i] = x[i];
+            polygon[2 * i + 1] = y[i];
+        }
+        return polygon;
+    }
+
+    /** Die vorzeichenbehaftete Fläche eines Polygons: positiv gegen den Uhrzeigersinn. */
+    private static double flaeche(double[] polygon) {
+        double summe = 0;
+        for (int i = 0, j = polygon.length - 2; i < polygon.length; j = i, i += 2)
+            summe += polygon[j] * polygon[i + 1] - polygon[i] * polygon[j + 1];
+        return summe / 2;
+    }
+
+    private static void umkehren(double[] polygon) {
+        for (int i = 0, j = polygon.length - 2; i < j; i += 2, j -= 2) {
+            double x = polygon[i], y = polygon[i + 1];
+            polygon[i] = polygon[j];
+            polygon[i + 1] = polygon[j + 1];
+            polygon[j] = x;
+            polygon[j + 1] = y;
+        }
+    }
+
+    /** Prüft mit der Gerade-Ungerade-Regel, ob ein Punkt in einem Polygon liegt. */
+    private static boolean enthaelt(double[] polygon, double x, double y) {
+        boolean innen = false;
+        for (int i = 0, j = polygon.length - 2; i < polygon.length; j = i, i += 2)
+            if ((polygon[i + 1] > y) != (polygon[j + 1] > y)
+                    && x < (polygon[j] - polygon[i]) * (y - polygon[i + 1]) / (polygon[j + 1] - polygon[i + 1]) + polygon[i])
+                innen = !innen;
+        return innen;
+    }
+
+    // Die Triangulierung arbeitet auf doppelt verketteten Ringen von Knoten. Durch die Brücken zu den Löchern kommen Punkte
+    // mehrfach im Ring vor; alle Kopien haben denselben Index.
+
+    private static final class Knoten {
+
+        final int index;
+        final double x, y;
+        Knoten vorher, nachher;
+
+        Knoten(int index, double x, double y) {
+            this.index = index;
+            this.x = x;
+            this.y = y;
+        }
+    }
+
+    private static Knoten ring(double[] polygon, int ersterIndex) {
+        Knoten letzter = null;
+        for (int k = 0; k < polygon.length / 2; k++) {
+            Knoten knoten = new Knoten(ersterIndex + k, polygon[2 * k], polygon[2 * k + 1]);
+            if (letzter == null) {
+                knoten.vorher = knoten;
+                knoten.nachher = knoten;
+            } else {
+                knoten.nachher = letzter.nachher;
+                knoten.vorher = letzter;
+                letzter.nachher.vorher = knoten;
+                letzter.nachher = knoten;
+            }
+            letzter = knoten;
+        }
+        return letzter;
+    }
+
+    private static void entfernen(Knoten knoten) {
+        knoten.nachher.vorher = knoten.vorher;
+        knoten.vorher.nachher = knoten.nachher;
+    }
+
+    /** Doppelte Fläche des Dreiecks mit umgekehrtem Vorzeichen: negativ, wenn p, q, r gegen den Uhrzeigersinn liegen. */
+    private static double flaeche(Knoten p, Knoten q, Knoten r) {
+        return (q.y - p.y) * (r.x - q.x) - (q.x - p.x) * (r.y - q.y);
+    }
+
+    private static boolean gleich(Knoten p, Knoten q) {
+        return p.x == q.x && p.y == q.y;
+    }
+
+    private static boolean imDreieck(double ax, double ay, double bx, double by, double cx, double cy, double px, double py) {
+        return (cx - px) * (ay - py) >= (ax - px) * (cy - py)
+                && (ax - px) * (by - py) >= (bx - px) * (ay - py)
+                && (bx - px) * (cy - py) >= (cx - px) * (by - py);
+    }
+
+    /** Verbindet die Löcher von links nach rechts über je eine Brücke mit dem äußeren Ring. */
+    private static Knoten loecherEntfernen(Knoten aussen, List<Knoten> loecher, List<Integer> dreiecke) {
+        List<Knoten> linkeste = new ArrayList<>();
+        for (Knoten loch : loecher) {
+            Knoten links = loch, p = loch;
+            do {
+                if (p.x < links.x || p.x == links.x && p.y < links.y)
+                    links = p;
+                p = p.nachher;
+            } while (p != loch);
+            linkeste.add(links);
+        }
+        linkeste.sort((a, b) -> a.x != b.x ? Double.compare(a.x, b.x) : Double.compare(a.y, b.y));
+        for (Knoten loch : linkeste) {
+            Knoten bruecke = brueckeFinden(loch, aussen);
+            if (bruecke == null)
+                continue;
+            Knoten zurueck = teilen(bruecke, loch);
+            filtern(zurueck, zurueck.nachher, dreiecke);
+            aussen = filtern(bruecke, bruecke.nachher, dreiecke);
+        }
+        return aussen;
+    }
+
+    /**
+     * Sucht den Punkt des äußeren Rings, mit dem der linkeste Punkt eines Lochs verbunden wird: Ein Strahl nach links trifft
+     * die nächste Kante; ist deren Endpunkt verdeckt, wird der Punkt im Dreieck aus Lochpunkt, Schnittpunkt und Endpunkt
+     * mit dem kleinsten Winkel zum Strahl gewählt.
+     */
+    private static Knoten brueckeFinden(Knoten loch, Knoten aussen) {
+        Knoten p = aussen, m = null;
+        double hx = loch.x, hy = loch.y, qx = Double.NEGATIVE_INFINITY;
+        do {
+            if (hy <= p.y && hy >= p.nachher.y && p.nachher.y != p.y) {
+                double x = p.x + (hy - p.y) * (p.nachher.x - p.x) / (p.nachher.y - p.y);
+                if (x <= hx && x > qx) {
+                    qx = x;
+                    m = p.x < p.nachher.x ? p : p.nachher;
+                    if (x == hx)
+                        return m;
+                }
+            }
+            p = p.nachher;
+        } while (p != aussen);
+        if (m == null)
+            return null;
+
+        Knoten stopp = m;
+        double mx = m.x, my = m.y, tanMin = Double.POSITIVE_INFINITY;
+        p = m;
+        do {
+            if (hx >= p.x && p.x >= mx && hx != p.x
+                    && imDreieck(hy < my ? hx : qx, hy, mx, my, hy < my ? qx : hx, hy, p.x, p.y)) {
+                double tan = Math.abs(hy - p.y) / (hx - p.x);
+                if (lokalInnen(p, loch) && (tan < tanMin || tan == tanMin && (p.x > m.x
+                        || p.x == m.x && flaeche(m.vorher, m, p.vorher) < 0 && flaeche(p.nachher, m, m.nachher) < 0))) {
+                    m = p;
+                    tanMin = tan;
+                }
+            }
+            p = p.nachher;
+        } while (p != stopp);
+        return m;
+    }
+
+    /**
+     * Verbindet zwei Knoten durch eine Diagonale und teilt den Ring in zwei, bzw. verbindet zwei Ringe zu einem.
+     * @return Die Kopie von b im zweiten Ring
+     */
+    private static Knoten teilen(Knoten a, Knoten b) {
+        Knoten a2 = new Knoten(a.index, a.x, a.y), b2 = new Knoten(b.index, b.x, b.y);
+        Knoten an = a.nachher, bv = b.vorher;
+        a.nachher = b;
+        b.vorher = a;
+        a2.nachher = an;
+        an.vorher = a2;
+        b2.nachher = a2;
+        a2.vorher = b2;
+        bv.nachher = b2;
+        b2.vorher = bv;
+        return b2;
+    }
+
+    /**
+     * Entfernt doppelte Knoten und Knoten ohne Fläche zu ihren Nachbarn. Liegt ein entfernter Punkt auf der Strecke zwischen
+     * seinen Nachbarn, wird das Dreieck ohne Fläche aus den dreien angelegt, damit die Kante zur Seitenwand geschlossen bleibt.
+     */
+    private static Knoten filtern(Knoten start, Knoten ende, List<Integer> dreiecke) {
+        if (start == null)
+            return null;
+        if (ende == null)
+            ende = start;
+        Knoten p = start;
+        boolean nochmal;
+        do {
+            nochmal = false;
+            if (gleich(p, p.nachher) || flaeche(p.vorher, p, p.nachher) == 0) {
+                if (p.index != p.vorher.index && p.index != p.nachher.index && p.vorher.index != p.nachher.index) {
+                    dreiecke.add(p.vorher.index);
+                    dreiecke.add(p.index);
+                    dreiecke.add(p.nachher.index);
+                }
+                entfernen(p);
+                p = ende = p.vorher;
+                if (p == p.nachher)
+                    break;
+                nochmal = true;
+            } else
+                p = p.nachher;
+        } while (nochmal || p != ende);
+        return ende;
+    }
+
+    /**
+     * Schneidet so lange Ohren ab, bis der Ring verbraucht ist. Findet sich kein Ohr mehr, werden zuerst doppelte Knoten entfernt,
+     * dann kleine Selbstüberschneidungen aufgelöst und zuletzt der Ring an einer gültigen Diagonale geteilt.
+     */
+    private static void ohrenAbschneiden(Knoten ohr, List<Integer> dreiecke, int durchgang) {
+        if (ohr == null)
+            return;
+        Knoten stopp = ohr;
+        while (ohr.vorher != ohr.nachher) {
+            Knoten vorher = ohr.vorher, nachher = ohr.nachher;
+            if (istOhr(ohr)) {
+                dreiecke.add(vorher.index);
+                dreiecke.add(ohr.index);
+                dreiecke.add(nachher.index);
+                entfernen(ohr);
+                ohr = nachher.nachher;
+                stopp = nachher.nachher;
+                continue;
+            }
+            ohr = nachher;
+            if (ohr == stopp) {
+                if (durchgang == 0)
+                    ohrenAbschneiden(filtern(ohr, null, dreiecke), dreiecke, 1);
+                else if (durchgang == 1)
+                    ohrenAbschneiden(ueberschneidungenAufloesen(filtern(ohr, null, dreiecke), dreiecke), dreiecke, 2);
+                else
+                    aufteilen(ohr, dreiecke);
+                return;
+            }
+        }
+    }
+
+    /** Ein Knoten ist ein Ohr, wenn er konvex ist und kein anderer Knoten des Rings in seinem Dreieck liegt. */
+    private static boolean istOhr(Knoten ohr) {
+        Knoten a = ohr.vorher, b = ohr, c = ohr.nachher;
+        if (flaeche(a, b, c) >= 0)
+            return false;
+        for (Knoten p = c.nachher; p != a; p = p.nachher)
+            if (!gleich(p, a) && !gleich(p, c) && imDreieck(a.x, a.y, b.x, b.y, c.x, c.y, p.x, p.y) && flaeche(p.vorher, p, p.nachher) >= 0)
+                return false;
+        return true;
+    }
+
+    private static Knoten ueberschneidungenAufloesen(Knoten start, List<Integer> dreiecke) {
+        if (start == null)
+            return null;
+        Knoten p = start;
+        do {
+            Knoten a = p.vorher, b = p.nachher.nachher;
+            if (!gleich(a, b) && schneiden(a, p, p.nachher, b) && lokalInnen(a, b) && lokalInnen(b, a)) {
+                dreiecke.add(a.index);
+                dreiecke.add(p.index);
+                dreiecke.add(b.index);
+                entfernen(p);
+                entfernen(p.nachher);
+                p = start = b;
+            }
+            p = p.nachher;
+        } while (p != start);
+        return filtern(p, null, dreiecke);
+    }
+
+    private static void aufteilen(Knoten start, List<Integer> dreiecke) {
+        Knoten a = start;
+        do {
+            for (Knoten b = a.nachher.nachher; b != a.vorher; b = b.nachher)
+                if (a.index != b.index && gueltigeDiagonale(a, b)) {
+                    Knoten c = teilen(a, b);
+                    a = filtern(a, a.nachher, dreiecke);
+                    c = filtern(c, c.nachher, dreiecke);
+                    ohrenAbschneiden(a, dreiecke, 0);
+                    ohrenAbschneiden(c, dreiecke, 0);
+                    return;
+                }
+            a = a.nachher;
+        } while (a != start);
+    }
+
+    private static boolean gueltigeDiagonale(Knoten a, Knoten b) {
+        return a.nachher.index != b.index && a.vorher.index != b.index && !schneidetRing(a, b)
+                && (lokalInnen(a, b) && lokalInnen(b, a) && mitteInnen(a, b)
+                && (flaeche(a.vorher, a, b.vorher) != 0 || flaeche(a, b.vorher, b) != 0)
+                || gleich(a, b) && flaeche(a.vorher, a, a.nachher) > 0 && flaeche(b.vorher, b, b.nachher) > 0);
+    }
+
+    private static boolean schneiden(Knoten p1, Knoten q1, Knoten p2, Knoten q2) {
+        double o1 = Math.signum(flaeche(p1, q1, p2)), o2 = Math.signum(flaeche(p1, q1, q2));
+        double o3 = Math.signum(flaeche(p2, q2, p1)), o4 = Math.signum(flaeche(p2, q2, q1));
+        return o1 != o2 && o3 != o4
+                || o1 == 0 && aufStrecke(p1, p2, q1) || o2 == 0 && aufStrecke(p1, q2, q1)
+                || o3 == 0 && aufStrecke(p2, p1, q2) || o4 == 0 && aufStrecke(p2, q1, q2);
+    }
+
+    /** Prüft, ob q im achsenparallelen Rechteck der Strecke von p nach r liegt (q liegt bereits auf ihrer Geraden). */
+    private static boolean aufStrecke(Knoten p, Knoten q, Knoten r) {
+        return q.x <= Math.max(p.x, r.x) && q.x >= Math.min(p.x, r.x) && q.y <= Math.max(p.y, r.y) && q.y >= Math.min(p.y, r.y);
+    }
+
+    private static boolean schneidetRing(Knoten a, Knoten b) {
+        Knoten p = a;
+        do {
+            if (p.index != a.index && p.nachher.index != a.index && p.index != b.index && p.nachher.index != b.index
+                    && schneiden(p, p.nachher, a, b))
+                return true;
+            p = p.nachher;
+        } while (p != a);
+        return false;
+    }
+
+    /** Prüft, ob die Diagonale von a nach b bei a ins Innere des Rings zeigt. */
+    private static boolean lokalInnen(Knoten a, Knoten b) {
+        return flaeche(a.vorher, a, a.nachher) < 0
+                ? flaeche(a, b, a.nachher) >= 0 && flaeche(a, a.vorher, b) >= 0
+                : flaeche(a, b, a.vorher) < 0 || flaeche(a, a.nachher, b) < 0;
+    }
+
+    private static boolean mitteInnen(Knoten a, Knoten b) {
+        Knoten p = a;
+        boolean innen = false;
+        double px = (a.x + b.x) / 2, py = (a.y + b.y) / 2;
+        do {
+            if ((p.y > py) != (p.nachher.y > py) && p.nachher.y != p.y
+                    && px < (p.nachher.x - p.x) * (py - p.y) / (p.nachher.y - p.y) + p.x)
+                innen = !innen;
+            p = p.nachher;
+        } while (p != a);
+        return innen;
+    }
+
+}
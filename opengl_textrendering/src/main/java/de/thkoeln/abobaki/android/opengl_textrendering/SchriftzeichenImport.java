@@ -0,0 +1,112 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * SchriftzeichenImport erzeugt aus einer OBJ-Datei ein Schriftzeichen-Objekt, das in der Datenbank gespeichert werden kann.
+ * <p>
+ * Die Klasse ist nicht von Android abhängig. Sie wird zur Laufzeit von {@link SchriftzeichenUtility#objParser}
+ * und beim Bauen der Bibliothek vom SchriftzeichenDatenbankGenerator (src/generator) benutzt,
+ * damit beide Wege dieselben Daten erzeugen.
+ */
+public final class SchriftzeichenImport {
+
+    /**
+     * Die Version des Imports. Sie muss erhöht werden, wenn sich die aus einer OBJ-Datei erzeugten Daten ändern
+     * (z.B. die Berechnung des Netzes), damit bereits importierte Schriftzeichen neu eingelesen werden.
+     */
+    public static final int FORMAT_VERSION = 3;
+
+    private SchriftzeichenImport() {
+        throw new IllegalStateException("Utility class");
+    }
+
+    /**
+     * Liest eine OBJ-Datei und erzeugt daraus das Schriftzeichen.
+     * @param dateiName Name der OBJ-Datei
+     * @param in        Der Inhalt der OBJ-Datei
+     * @return ein Objekt der Entity-Klasse Schriftzeichen
+     * @throws IOException wenn die Datei nicht gelesen werden kann oder fehlerhaft ist
+     */
+    public static Schriftzeichen ausObj(String dateiName, InputStream in) throws IOException {
+        // Die Datei wird in einem Durchlauf gelesen, dabei wird auch der Begrenzungsrahmen berechnet
+        return ausObj(dateiName, ObjTokenizer.parse(in));
+    }
+
+    /**
+     * Erzeugt das Schriftzeichen aus einer bereits eingelesenen OBJ-Datei.
+     * @param dateiName Name der OBJ-Datei
+     * @param obj       Das Ergebnis des ObjTokenizers
+     * @return ein Objekt der Entity-Klasse Schriftzeichen
+     */
+    public static Schriftzeichen ausObj(String dateiName, ObjTokenizer.Ergebnis obj) {
+        return ausNetz(zeichenName(dateiName), obj, Float.NaN);
+    }
+
+    /**
+     * Erzeugt ein Schriftzeichen aus einem Dreiecksnetz, das aus einer OBJ-Datei gelesen oder z.B. von {@link SchriftzeichenExtrusion}
+     * erzeugt wurde. Beide Wege berechnen das Netz, die Maße und die Detailstufen auf dieselbe Weise.
+     * @param name        Der Name des Schriftzeichens (das Zeichen)
+     * @param obj         Die Eckpunkte und Dreiecke
+     * @param unterlaenge Die Tiefe unter der Grundlinie oder NaN, wenn sie nicht bekannt ist (siehe {@link SchriftzeichenMetrik})
+     * @return ein Objekt der Entity-Klasse Schriftzeichen
+     */
+    static Schriftzeichen ausNetz(String name, ObjTokenizer.Ergebnis obj, float unterlaenge) {
+
+        //Array vom Typ float, das aus drei Zeilen und zwei Spalten besteht.
+        //Jede Zeile des Arrays repräsentiert eine Achse des kartesischen Koordinatensystems (x, y und z)
+        //Jede Spalte speichert die Koordinaten des größten und kleinsten Punktes entlang dieser Achse
+        float[][] begrenzungsrahmen = obj.begrenzungsrahmen;
+
+        // x-, y- und z-Koordinaten der Zentrum berechnet
+        // indem jeweils der  Durchschnitt der größten und kleinsten Werte des Begrenzungsrahmens
+        final float[] zentrum = new float[3];
+        zentrum[0] = (begrenzungsrahmen[0][0] + begrenzungsrahmen[0][1]) / 2;
+        zentrum[1] = (begrenzungsrahmen[1][0] + begrenzungsrahmen[1][1]) / 2;
+        zentrum[2] = (begrenzungsrahmen[2][0] + begrenzungsrahmen[2][1]) / 2;
+
+        //Die Dreiecke werden als indiziertes Netz gespeichert, in dem gemeinsame Eckpunkte nur einmal vorkommen.
+        //Dabei wird der Mittelpunkt der Form zu den Ursprung (0,0,0) seines lokalen Koordinatensystems verschoben.
+        SchriftzeichenNetz netz = SchriftzeichenNetz.ausObj(obj, new float[]{-zentrum[0], -zentrum[1], -zentrum[2]});
+
+        // Die Breite und die Höhe des Modells (der 3D-Form) werden berechnet,
+        // indem die Differenz zwischen dem größten und dem kleinsten x-Wert des Begrenzungsrahmens für die Breite
+        // und die Differenz zwischen dem größten und dem kleinsten y-Wert des Begrenzungsrahmens für die Höhe berechnet wird.
+        final float schriftzeichenBreite = Math.abs(begrenzungsrahmen[0][1] - begrenzungsrahmen[0][0]);
+        final float schriftzeichenHoehe = Math.abs(begrenzungsrahmen[1][1] - begrenzungsrahmen[1][0]);
+
+        Schriftzeichen schriftzeichen = new Schriftzeichen(netz.eckpunkte, netz.normalen, netz.indizes, schriftzeichenBreite, schriftzeichenHoehe, name, netz.anzahlEckpunkte());
+        // Oberlänge, Unterlänge und Seitenabstände werden einmal beim Import berechnet und mit dem Netz gespeichert
+        schriftzeichen.metrik = Float.isNaN(unterlaenge)
+                ? SchriftzeichenMetrik.berechnen(name, netz.eckpunkte, netz.indizes, schriftzeichenBreite, schriftzeichenHoehe)
+                : SchriftzeichenMetrik.berechnen(netz.eckpunkte, netz.indizes, schriftzeichenHoehe, unterlaenge);
+        // Ebenso die vereinfachten Netze für kleine Darstellungen
+        schriftzeichen.detailstufen = Detailstufen.zusammenfassen(Detailstufen.berechnen(netz.eckpunkte, netz.normalen, netz.indizes));
+        return schriftzeichen;
+    }
+
+    /**
+     * Der Dateiname wird durch einen neuen Namen ersetzt, der dem entsprechenden Zeichen entspricht.
+     * wie Z.B QuestionMark = ?
+     * @param dateiName Name der OBJ-Datei
+     * @return ein einziges Zeichen, das ein Dateiname ausdrückt
+     */
+    public static String zeichenName(String dateiName) {
+        String schriftzeichenName = null;
+        if (dateiName.startsWith("small_"))
+            schriftzeichenName = dateiName.substring(6, dateiName.length() - 4);
+        else if (dateiName.equals("Colon.obj")) schriftzeichenName = ":";
+        else if (dateiName.equals("ForwardSlash.obj")) schriftzeichenName = "/";
+        else if (dateiName.equals("GreaterThan.obj")) schriftzeichenName = ">";
+        else if (dateiName.equals("SmallerThan.obj")) schriftzeichenName = "<";
+        else if (dateiName.equals("QuestionMark.obj")) schriftzeichenName = "?";
+        else if (dateiName.equals("Dot.obj")) schriftzeichenName = ".";
+        else if (dateiName.equals("asterisk.obj")) schriftzeichenName = "*";
+        else if (dateiName.equals("doubleQuote.obj")) schriftzeichenName = "\"";
+        else if (dateiName.endsWith(".obj"))
+            schriftzeichenName = dateiName.substring(0, dateiName.length() - 4);
+        return schriftzeichenName;
+    }
+
+}
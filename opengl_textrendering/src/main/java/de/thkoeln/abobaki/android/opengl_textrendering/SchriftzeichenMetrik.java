@@ -0,0 +1,171 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import androidx.room.ColumnInfo;
+
+import java.util.Arrays;
+
+/**
+ * SchriftzeichenMetrik enthält die Maße eines Schriftzeichens, die beim Import aus seinem Netz berechnet werden:
+ * Oberlänge und Unterlänge bezogen auf die Grundlinie und die Seitenabstände (bearings) der Kontur in waagerechten Bändern.
+ * <p>
+ * Die Schriftzeichen der OBJ-Dateien sind um den Mittelpunkt ihres Begrenzungsrahmens zentriert und enthalten keine Grundlinie.
+ * Die Schriftzeichen g, j, p, q und y reichen um ein Viertel ihrer Höhe unter die Grundlinie, alle anderen stehen auf ihr.
+ * Diese Regel wird nur beim Import ausgewertet; beim Anordnen wird {@link #mitte()} verwendet.
+ * <p>
+ * Für die Seitenabstände wird der Bereich um die Grundlinie in {@link #BAENDER} Bänder der Höhe {@link #BANDHOEHE} geteilt.
+ * Pro Band wird der Abstand vom linken bzw. rechten Rand des Begrenzungsrahmens bis zur Kontur (Schnitt der Dreiecke mit dem Band)
+ * gespeichert, oder -1, wenn das Schriftzeichen das Band nicht berührt. Aus den Seitenabständen zweier Schriftzeichen
+ * ergibt sich ihr Kerning ({@link #kerning(SchriftzeichenMetrik, SchriftzeichenMetrik)}).
+ * <p>
+ * Die Klasse ist nicht von Android abhängig. Sie wird in den Spalten des Schriftzeichens in der Datenbank gespeichert
+ * (siehe {@link Schriftzeichen#metrik}).
+ */
+public class SchriftzeichenMetrik {
+
+    /** Die Anzahl der Bänder. */
+    public static final int BAENDER = 16;
+
+    /** Die Höhe eines Bandes in Modell-Einheiten. */
+    public static final float BANDHOEHE = 0.005f;
+
+    /** Die Unterkante des untersten Bandes bezogen auf die Grundlinie. Das unterste und oberste Band sind nach außen offen. */
+    public static final float UNTERKANTE = -0.02f;
+
+    /** Der Anteil des kleinsten Abstands zweier Konturen, um den zwei Schriftzeichen zusammengerückt werden. */
+    static final float KERNING_ANTEIL = 0.5f;
+
+    private static final String UNTERLAENGEN = "gjpqy";
+
+    /** Die Höhe über der Grundlinie. */
+    @ColumnInfo(name = "oberlaenge", defaultValue = "0")
+    public float oberlaenge;
+
+    /** Die Tiefe unter der Grundlinie (positiv; negativ bei einem aus einer Schrift erzeugten Schriftzeichen, das über der Grundlinie liegt). */
+    @ColumnInfo(name = "unterlaenge", defaultValue = "0")
+    public float unterlaenge;
+
+    /** Pro Band der Abstand vom linken Rand des Begrenzungsrahmens bis zur Kontur, -1 ohne Kontur im Band. */
+    @ColumnInfo(name = "profilLinks")
+    public float[] profilLinks;
+
+    /** Pro Band der Abstand von der Kontur bis zum rechten Rand des Begrenzungsrahmens, -1 ohne Kontur im Band. */
+    @ColumnInfo(name = "profilRechts")
+    public float[] profilRechts;
+
+    /**
+     * @return Die Höhe des Mittelpunkts über der Grundlinie, um die das zentrierte Schriftzeichen beim Anordnen verschoben wird
+     */
+    public float mitte() {
+        return (oberlaenge - unterlaenge) / 2;
+    }
+
+    /**
+     * Berechnet die Maße eines Schriftzeichens aus seinem (zentrierten) Netz.
+     * @param name      Der Name des Schriftzeichens
+     * @param eckpunkte Die Eckpunkte (x, y, z hintereinander)
+     * @param indizes   Die Indizes der Eckpunkte, drei pro Dreieck
+     * @param breite    Die Breite des Begrenzungsrahmens
+     * @param hoehe     Die Höhe des Begrenzungsrahmens
+     * @return Die Maße
+     */
+    public static SchriftzeichenMetrik berechnen(String name, float[] eckpunkte, int[] indizes, float breite, float hoehe) {
+        boolean mitUnterlaenge = name != null && name.length() == 1 && UNTERLAENGEN.indexOf(name.charAt(0)) >= 0;
+        return berechnen(eckpunkte, indizes, hoehe, mitUnterlaenge ? hoehe / 4 : 0);
+    }
+
+    /**
+     * Berechnet die Maße eines Schriftzeichens, dessen Lage zur Grundlinie bekannt ist, z.B. eines aus einer Schrift erzeugten
+     * (siehe {@link SchriftzeichenExtrusion}).
+     * @param eckpunkte   Die Eckpunkte des zentrierten Netzes (x, y, z hintereinander)
+     * @param indizes     Die Indizes der Eckpunkte, drei pro Dreieck
+     * @param hoehe       Die Höhe des Begrenzungsrahmens
+     * @param unterlaenge Die Tiefe unter der Grundlinie; negativ, wenn das Schriftzeichen über der Grundlinie liegt (z.B. ein Anführungszeichen)
+     * @return Die Maße
+     */
+    static SchriftzeichenMetrik berechnen(float[] eckpunkte, int[] indizes, float hoehe, float unterlaenge) {
+        SchriftzeichenMetrik metrik = new SchriftzeichenMetrik();
+        metrik.unterlaenge = unterlaenge;
+        metrik.oberlaenge = hoehe - metrik.unterlaenge;
+
+        float links = Float.POSITIVE_INFINITY, rechts = Float.NEGATIVE_INFINITY;
+        for (int i = 0; i < eckpunkte.length; i += 3) {
+            links = Math.min(links, eckpunkte[i]);
+            rechts = Math.max(rechts, eckpunkte[i]);
+        }
+        float[] minX = new float[BAENDER];
+        float[] maxX = new float[BAENDER];
+        Arrays.fill(minX, Float.POSITIVE_INFINITY);
+        Arrays.fill(maxX, Float.NEGATIVE_INFINITY);
+
+        // Jedes Dreieck wird in die Ebene projiziert und mit den Bändern geschnitten, die es berührt.
+        // Die x-Ausdehnung des Schnitts ergibt sich aus den Ecken im Band und den Schnittpunkten der Kanten mit den Bandgrenzen.
+        float verschiebung = metrik.mitte();
+        float[] x = new float[3], y = new float[3];
+        for (int d = 0; d + 2 < indizes.length; d += 3) {
+            float unten = Float.POSITIVE_INFINITY, oben = Float.NEGATIVE_INFINITY;
+            for (int e = 0; e < 3; e++) {
+                x[e] = eckpunkte[3 * indizes[d + e]];
+                y[e] = eckpunkte[3 * indizes[d + e] + 1] + verschiebung;
+                unten = Math.min(unten, y[e]);
+                oben = Math.max(oben, y[e]);
+            }
+            for (int band = band(unten); band <= band(oben); band++) {
+                float bandUnten = band == 0 ? Float.NEGATIVE_INFINITY : UNTERKANTE + band * BANDHOEHE;
+                float bandOben = band == BAENDER - 1 ? Float.POSITIVE_INFINITY : UNTERKANTE + (band + 1) * BANDHOEHE;
+                for (int e = 0; e < 3; e++) {
+                    if (y[e] >= bandUnten && y[e] <= bandOben) {
+                        minX[band] = Math.min(minX[band], x[e]);
+                        maxX[band] = Math.max(maxX[band], x[e]);
+                    }
+                    int f = (e + 1) % 3;
+                    for (int g = 0; g < 2; g++) {
+                        float grenze = g == 0 ? bandUnten : bandOben;
+                        if ((y[e] - grenze) * (y[f] - grenze) < 0) {
+                            float schnitt = x[e] + (grenze - y[e]) / (y[f] - y[e]) * (x[f] - x[e]);
+                            minX[band] = Math.min(minX[band], schnitt);
+                            maxX[band] = Math.max(maxX[band], schnitt);
+                        }
+                    }
+                }
+            }
+        }
+
+        metrik.profilLinks = new float[BAENDER];
+        metrik.profilRechts = new float[BAENDER];
+        for (int band = 0; band < BAENDER; band++) {
+            boolean kontur = minX[band] <= maxX[band];
+            metrik.profilLinks[band] = kontur ? minX[band] - links : -1;
+            metrik.profilRechts[band] = kontur ? rechts - maxX[band] : -1;
+        }
+        return metrik;
+    }
+
+    /**
+     * Berechnet das Kerning zweier aufeinanderfolgender Schriftzeichen: Sie werden um {@link #KERNING_ANTEIL} des kleinsten
+     * waagerechten Abstands ihrer Konturen zusammengerückt. Dabei wird jedes Band des linken Schriftzeichens auch mit den
+     * benachbarten Bändern des rechten verglichen, damit sich schräg gegenüberliegende Konturen nicht berühren.
+     * @param links  Das linke Schriftzeichen
+     * @param rechts Das rechte Schriftzeichen
+     * @return Die Änderung des Abstands der Mittelpunkte in Modell-Einheiten (0 oder negativ)
+     */
+    public static float kerning(SchriftzeichenMetrik links, SchriftzeichenMetrik rechts) {
+        if (links == null || rechts == null || links.profilRechts == null || rechts.profilLinks == null)
+            return 0;
+        float kleinsterAbstand = Float.POSITIVE_INFINITY;
+        for (int band = 0; band < BAENDER; band++) {
+            float rechterRand = links.profilRechts[band];
+            if (rechterRand < 0)
+                continue;
+            for (int nachbar = Math.max(0, band - 1); nachbar <= Math.min(BAENDER - 1, band + 1); nachbar++)
+                if (rechts.profilLinks[nachbar] >= 0)
+                    kleinsterAbstand = Math.min(kleinsterAbstand, rechterRand + rechts.profilLinks[nachbar]);
+        }
+        return kleinsterAbstand == Float.POSITIVE_INFINITY ? 0 : -KERNING_ANTEIL * kleinsterAbstand;
+    }
+
+    private static int band(float y) {
+        int band = (int) Math.floor((y - UNTERKANTE) / BANDHOEHE);
+        return Math.max(0, Math.min(BAENDER - 1, band));
+    }
+
+}
@@ -0,0 +1,125 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.util.Arrays;
+
+/**
+ * SchriftzeichenMetriken ist die Tabelle der Maße und des Kernings aller Schriftzeichen einer Schrift, in der beim Anordnen
+ * eines Textes ohne Vergleiche von Strings und ohne Datenbankabfragen nachgeschlagen wird.
+ * <p>
+ * Jedes Schriftzeichen hat eine Nummer (Glyph-ID) von 0 bis {@link #anzahl()} - 1 in der Reihenfolge seines Code Points.
+ * Breite und Mittelpunkt liegen in float-Arrays, die mit der Glyph-ID indiziert werden, das Kerning in einer dichten
+ * Tabelle mit einer Zeile pro linkem und einer Spalte pro rechtem Schriftzeichen. Die Glyph-ID eines Zeichens wird
+ * mit einer binären Suche über die Code Points bestimmt.
+ * <p>
+ * Die Tabelle wird beim Bauen in den {@link GlyphPack} geschrieben (Glyph-ID = Index der Zeichentabelle)
+ * oder nach der Initialisierung der Datenbank aus den gespeicherten {@link SchriftzeichenMetrik}en berechnet.
+ * <p>
+ * Die Klasse ist nicht von Android abhängig.
+ */
+public final class SchriftzeichenMetriken {
+
+    private final int[] codePoints;
+    private final float[] breite;
+    private final float[] mitte;
+    private final float[] kerning;
+
+    SchriftzeichenMetriken(int[] codePoints, float[] breite, float[] mitte, float[] kerning) {
+        this.codePoints = codePoints;
+        this.breite = breite;
+        this.mitte = mitte;
+        this.kerning = kerning;
+    }
+
+    /**
+     * Berechnet die Tabelle aus den Maßen der Schriftzeichen.
+     * @param namen   Die Namen der Schriftzeichen (je ein Code Point)
+     * @param breite  Die Breiten der Schriftzeichen
+     * @param metrik  Die Maße der Schriftzeichen
+     * @return Die Tabelle
+     * @throws IllegalArgumentException wenn ein Name kein einzelnes Zeichen ist oder doppelt vorkommt
+     */
+    public static SchriftzeichenMetriken berechnen(String[] namen, float[] breite, SchriftzeichenMetrik[] metrik) {
+        int anzahl = namen.length;
+        Integer[] reihenfolge = new Integer[anzahl];
+        for (int i = 0; i < anzahl; i++) {
+            if (namen[i] == null || namen[i].isEmpty() || namen[i].codePointCount(0, namen[i].length()) != 1)
+                throw new IllegalArgumentException("Kein einzelnes Zeichen: " + namen[i]);
+            reihenfolge[i] = i;
+        }
+        Arrays.sort(reihenfolge, (a, b) -> Integer.compare(namen[a].codePointAt(0), namen[b].codePointAt(0)));
+
+        int[] codePoints = new int[anzahl];
+        float[] breiten = new float[anzahl];
+        float[] mitten = new float[anzahl];
+        SchriftzeichenMetrik[] sortiert = new SchriftzeichenMetrik[anzahl];
+        for (int id = 0; id < anzahl; id++) {
+            int i = reihenfolge[id];
+            codePoints[id] = namen[i].codePointAt(0);
+            if (id > 0 && codePoints[id] == codePoints[id - 1])
+                throw new IllegalArgumentException("Doppeltes Zeichen: " + namen[i]);
+            breiten[id] = breite[i];
+            mitten[id] = metrik[i].mitte();
+            sortiert[id] = metrik[i];
+        }
+        float[] kerning = new float[anzahl * anzahl];
+        for (int links = 0; links < anzahl; links++)
+            for (int rechts = 0; rechts < anzahl; rechts++)
+                kerning[links * anzahl + rechts] = SchriftzeichenMetrik.kerning(sortiert[links], sortiert[rechts]);
+        return new SchriftzeichenMetriken(codePoints, breiten, mitten, kerning);
+    }
+
+    /**
+     * @return Die Anzahl der Schriftzeichen
+     */
+    public int anzahl() {
+        return codePoints.length;
+    }
+
+    /**
+     * @param codePoint Der Unicode-Code-Point eines Zeichens
+     * @return Die Glyph-ID des Zeichens oder -1, wenn es nicht in der Tabelle enthalten ist
+     */
+    public int id(int codePoint) {
+        int id = Arrays.binarySearch(codePoints, codePoint);
+        return id >= 0 ? id : -1;
+    }
+
+    /**
+     * @param id Eine Glyph-ID
+     * @return Der Code Point des Schriftzeichens
+     */
+    public int codePoint(int id) {
+        return codePoints[id];
+    }
+
+    /**
+     * @param id Eine Glyph-ID
+     * @return Die Breite des Schriftzeichens
+     */
+    public float breite(int id) {
+        return breite[id];
+    }
+
+    /**
+     * @param id Eine Glyph-ID
+     * @return Die Höhe des Mittelpunkts über der Grundlinie (siehe {@link SchriftzeichenMetrik#mitte()})
+     */
+    public float mitte(int id) {
+        return mitte[id];
+    }
+
+    /**
+     * @param links  Die Glyph-ID des linken Schriftzeichens
+     * @param rechts Die Glyph-ID des rechten Schriftzeichens
+     * @return Die Änderung des Abstands der Mittelpunkte (siehe {@link SchriftzeichenMetrik#kerning(SchriftzeichenMetrik, SchriftzeichenMetrik)})
+     */
+    public float kerning(int links, int rechts) {
+        return kerning[links * codePoints.length + rechts];
+    }
+
+    /** Die Kerning-Tabelle zeilenweise, zum Schreiben des GlyphPacks. */
+    float[] kerningTabelle() {
+        return kerning;
+    }
+
+}
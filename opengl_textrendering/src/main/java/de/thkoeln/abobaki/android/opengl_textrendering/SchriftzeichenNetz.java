@@ -0,0 +1,131 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.util.Arrays;
+
+/**
+ * SchriftzeichenNetz ist das indizierte Dreiecksnetz eines Schriftzeichens:
+ * ein Array mit eindeutigen Eckpunkten, die zugehörigen Normalen und ein Index-Array mit drei Einträgen pro Dreieck.
+ * <p>
+ * Die Eckpunkte einer OBJ-Datei werden von mehreren Dreiecken gemeinsam benutzt. Ein Eckpunkt wird nur dann
+ * mehrfach angelegt, wenn die angrenzenden Flächen einen Knick bilden (Winkel zwischen den Flächennormalen
+ * größer als {@link #KNICKWINKEL_GRAD} Grad), z.B. an der Kante zwischen Vorderseite und Seitenwand eines Buchstabens.
+ * Dadurch bleibt die Beleuchtung der ebenen Flächen unverändert, während gekrümmte Seitenwände glatt schattiert werden.
+ * <p>
+ * Die Klasse ist nicht von Android abhängig.
+ */
+public final class SchriftzeichenNetz {
+
+    /** Der Winkel in Grad, ab dem zwei angrenzende Flächen als Knick gelten. */
+    public static final float KNICKWINKEL_GRAD = 30;
+
+    private static final float KNICKWINKEL_KOSINUS = (float) Math.cos(Math.toRadians(KNICKWINKEL_GRAD));
+
+    /** Die Koordinaten der Eckpunkte (x, y, z hintereinander). */
+    public final float[] eckpunkte;
+
+    /** Die normierten Normalen der Eckpunkte (x, y, z hintereinander). */
+    public final float[] normalen;
+
+    /** Die Indizes der Eckpunkte, drei Einträge pro Dreieck. */
+    public final int[] indizes;
+
+    SchriftzeichenNetz(float[] eckpunkte, float[] normalen, int[] indizes) {
+        this.eckpunkte = eckpunkte;
+        this.normalen = normalen;
+        this.indizes = indizes;
+    }
+
+    /**
+     * @return Die Anzahl der Eckpunkte
+     */
+    public int anzahlEckpunkte() {
+        return eckpunkte.length / 3;
+    }
+
+    /**
+     * Erzeugt das Netz aus einer eingelesenen OBJ-Datei.
+     * @param obj          Das Ergebnis des ObjTokenizers
+     * @param verschiebung Der Vektor (x, y, z), um den alle Eckpunkte verschoben werden
+     * @return Das indizierte Netz
+     */
+    public static SchriftzeichenNetz ausObj(ObjTokenizer.Ergebnis obj, float[] verschiebung) {
+        int anzahlDreiecke = obj.anzahlDreiecke();
+        int anzahlEcken = 3 * anzahlDreiecke;
+
+        // Die Flächennormalen der Dreiecke: nicht normiert (Länge = doppelte Fläche) und normiert
+        float[] flaechenNormalen = new float[3 * anzahlDreiecke];
+        float[] einheitsNormalen = new float[3 * anzahlDreiecke];
+        for (int d = 0; d < anzahlDreiecke; d++) {
+            int a = 3 * obj.faces[3 * d], b = 3 * obj.faces[3 * d + 1], c = 3 * obj.faces[3 * d + 2];
+            float ux = obj.vertices[b] - obj.vertices[a], uy = obj.vertices[b + 1] - obj.vertices[a + 1], uz = obj.vertices[b + 2] - obj.vertices[a + 2];
+            float vx = obj.vertices[c] - obj.vertices[a], vy = obj.vertices[c + 1] - obj.vertices[a + 1], vz = obj.vertices[c + 2] - obj.vertices[a + 2];
+            float nx = uy * vz - uz * vy, ny = uz * vx - ux * vz, nz = ux * vy - uy * vx;
+            flaechenNormalen[3 * d] = nx;
+            flaechenNormalen[3 * d + 1] = ny;
+            flaechenNormalen[3 * d + 2] = nz;
+            float laenge = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (laenge > 0) {
+                einheitsNormalen[3 * d] = nx / laenge;
+                einheitsNormalen[3 * d + 1] = ny / laenge;
+                einheitsNormalen[3 * d + 2] = nz / laenge;
+            }
+        }
+
+        // Für jede Position der OBJ-Datei eine verkettete Liste der bereits angelegten Eckpunkte.
+        // Jeder Eckpunkt merkt sich die Normale der ersten Fläche, die ihn angelegt hat (Referenznormale).
+        int[] ersterEckpunkt = new int[obj.anzahlVertices];
+        Arrays.fill(ersterEckpunkt, -1);
+        int[] naechsterEckpunkt = new int[anzahlEcken];
+        int[] position = new int[anzahlEcken];
+        float[] referenzNormalen = new float[3 * anzahlEcken];
+        float[] normalenSummen = new float[3 * anzahlEcken];
+        int[] indizes = new int[anzahlEcken];
+        int anzahlEckpunkte = 0;
+
+        for (int ecke = 0; ecke < anzahlEcken; ecke++) {
+            int d = ecke / 3;
+            int p = obj.faces[ecke];
+            float nx = einheitsNormalen[3 * d], ny = einheitsNormalen[3 * d + 1], nz = einheitsNormalen[3 * d + 2];
+            boolean entartet = nx == 0 && ny == 0 && nz == 0;
+            int eckpunkt = ersterEckpunkt[p];
+            while (eckpunkt != -1) {
+                if (entartet || nx * referenzNormalen[3 * eckpunkt] + ny * referenzNormalen[3 * eckpunkt + 1] + nz * referenzNormalen[3 * eckpunkt + 2] >= KNICKWINKEL_KOSINUS)
+                    break;
+                eckpunkt = naechsterEckpunkt[eckpunkt];
+            }
+            if (eckpunkt == -1) {
+                eckpunkt = anzahlEckpunkte++;
+                position[eckpunkt] = p;
+                referenzNormalen[3 * eckpunkt] = nx;
+                referenzNormalen[3 * eckpunkt + 1] = ny;
+                referenzNormalen[3 * eckpunkt + 2] = nz;
+                naechsterEckpunkt[eckpunkt] = ersterEckpunkt[p];
+                ersterEckpunkt[p] = eckpunkt;
+            }
+            // Flächengewichtete Summe der Normalen aller Flächen, die den Eckpunkt benutzen
+            normalenSummen[3 * eckpunkt] += flaechenNormalen[3 * d];
+            normalenSummen[3 * eckpunkt + 1] += flaechenNormalen[3 * d + 1];
+            normalenSummen[3 * eckpunkt + 2] += flaechenNormalen[3 * d + 2];
+            indizes[ecke] = eckpunkt;
+        }
+
+        float[] eckpunkte = new float[3 * anzahlEckpunkte];
+        float[] normalen = new float[3 * anzahlEckpunkte];
+        for (int e = 0; e < anzahlEckpunkte; e++) {
+            for (int achse = 0; achse < 3; achse++)
+                eckpunkte[3 * e + achse] = obj.vertices[3 * position[e] + achse] + verschiebung[achse];
+            float nx = normalenSummen[3 * e], ny = normalenSummen[3 * e + 1], nz = normalenSummen[3 * e + 2];
+            float laenge = (float) Math.sqrt(nx * nx + ny * ny + nz * nz);
+            if (laenge > 0) {
+                normalen[3 * e] = nx / laenge;
+                normalen[3 * e + 1] = ny / laenge;
+                normalen[3 * e + 2] = nz / laenge;
+            } else {
+                // Eckpunkt, der nur zu entarteten Dreiecken (Fläche 0) gehört
+                normalen[3 * e + 2] = 1;
+            }
+        }
+        return new SchriftzeichenNetz(eckpunkte, normalen, indizes);
+    }
+
+}
@@ -0,0 +1,193 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.Executor;
+import java.util.function.Function;
+
+/**
+ * SchriftzeichenProvider lädt ein Schriftzeichen erst, wenn es zum ersten Mal benötigt wird, und speichert es danach im Speicher.
+ * <p>
+ * Fordern mehrere Threads gleichzeitig dasselbe Schriftzeichen an, wird es nur einmal geladen:
+ * Der erste Thread lädt es, die anderen warten auf sein Ergebnis.
+ * Schlägt das Laden fehl, wird der Fehler an alle wartenden Threads weitergegeben und beim nächsten Aufruf erneut geladen.
+ * <p>
+ * Wie beim {@link SchriftzeichenCache} kann der Speicherbedarf der geladenen Schriftzeichen durch ein Budget in Byte begrenzt werden;
+ * wird es überschritten, werden die am längsten nicht benutzten Schriftzeichen verdrängt und bei Bedarf erneut geladen.
+ * <p>
+ * Die Klasse ist nicht von Android abhängig. Woher ein Schriftzeichen kommt (Datenbank oder OBJ-Datei),
+ * bestimmt die im Konstruktor übergebene Funktion.
+ */
+public final class SchriftzeichenProvider {
+
+    private final Function<String, Schriftzeichen> lader;
+    private final ConcurrentHashMap<String, CompletableFuture<Schriftzeichen>> schriftzeichen = new ConcurrentHashMap<>();
+    // Die fertig geladenen Schriftzeichen in der Reihenfolge ihrer letzten Benutzung (geschützt durch sich selbst)
+    private final LinkedHashMap<String, Eintrag> benutzung = new LinkedHashMap<>(16, 0.75f, true);
+    private long budget;
+    private long belegt;
+    private int verdraengungen;
+
+    /** Ein fertig geladenes Schriftzeichen mit seinem geschätzten Speicherbedarf. */
+    private static final class Eintrag {
+        final CompletableFuture<Schriftzeichen> future;
+        final int groesse;
+
+        Eintrag(CompletableFuture<Schriftzeichen> future, int groesse) {
+            this.future = future;
+            this.groesse = groesse;
+        }
+    }
+
+    /**
+     * Legt einen Provider ohne Budget an, der alle geladenen Schriftzeichen behält.
+     * @param lader Die Funktion, die ein Schriftzeichen zu seinem Namen lädt. Sie gibt null zurück, wenn es das Schriftzeichen nicht gibt.
+     */
+    public SchriftzeichenProvider(Function<String, Schriftzeichen> lader) {
+        this(lader, Long.MAX_VALUE);
+    }
+
+    /**
+     * @param lader  Die Funktion, die ein Schriftzeichen zu seinem Namen lädt. Sie gibt null zurück, wenn es das Schriftzeichen nicht gibt.
+     * @param budget Der höchste Speicherbedarf der geladenen Schriftzeichen in Byte
+     */
+    public SchriftzeichenProvider(Function<String, Schriftzeichen> lader, long budget) {
+        this.lader = lader;
+        this.budget = budget;
+    }
+
+    /**
+     * Gibt ein Schriftzeichen zurück und lädt es, falls es noch nicht geladen wurde.
+     * @param name Der Name des Schriftzeichens (das Zeichen)
+     * @return Das Schriftzeichen oder null, wenn es das Schriftzeichen nicht gibt
+     */
+    public Schriftzeichen get(String name) {
+        CompletableFuture<Schriftzeichen> neu = new CompletableFuture<>();
+        CompletableFuture<Schriftzeichen> vorhanden = schriftzeichen.putIfAbsent(name, neu);
+        if (vorhanden != null) {
+            try {
+                Schriftzeichen geladen = vorhanden.join();
+                synchronized (benutzung) {
+                    benutzung.get(name);
+                }
+                return geladen;
+            } catch (CompletionException e) {
+                if (e.getCause() instanceof RuntimeException)
+                    throw (RuntimeException) e.getCause();
+                throw e;
+            }
+        }
+        try {
+            Schriftzeichen geladen = lader.apply(name);
+            neu.complete(geladen);
+            aufnehmen(name, neu, geladen);
+            return geladen;
+        } catch (RuntimeException e) {
+            schriftzeichen.remove(name, neu);
+            neu.completeExceptionally(e);
+            throw e;
+        }
+    }
+
+    /**
+     * Lädt die Schriftzeichen eines Textes im Hintergrund, damit sie bei der Darstellung bereits vorliegen.
+     * @param text     Der Text
+     * @param executor Der Executor, in dem geladen wird
+     */
+    public void vorladen(String text, Executor executor) {
+        text.codePoints().distinct().forEach(codePoint -> {
+            String name = new String(Character.toChars(codePoint));
+            if (!Character.isWhitespace(codePoint) && !schriftzeichen.containsKey(name))
+                executor.execute(() -> {
+                    try {
+                        get(name);
+                    } catch (RuntimeException ignoriert) {
+                        // Der Fehler tritt beim nächsten Aufruf von get erneut auf
+                    }
+                });
+        });
+    }
+
+    /**
+     * @return Die Anzahl der geladenen oder gerade ladenden Schriftzeichen
+     */
+    public int anzahl() {
+        return schriftzeichen.size();
+    }
+
+    /**
+     * Entfernt alle Schriftzeichen, z.B. nachdem die Schriftzeichen neu importiert wurden. Sie werden beim nächsten Aufruf neu geladen.
+     */
+    public void leeren() {
+        synchronized (benutzung) {
+            schriftzeichen.clear();
+            benutzung.clear();
+            belegt = 0;
+        }
+    }
+
+    /**
+     * Ändert das Budget. Wird es verkleinert, werden sofort Schriftzeichen verdrängt.
+     * @param budget Der höchste Speicherbedarf der geladenen Schriftzeichen in Byte
+     */
+    public void setBudget(long budget) {
+        synchronized (benutzung) {
+            this.budget = budget;
+            verdraengen();
+        }
+    }
+
+    /** @return Das Budget in Byte */
+    public long getBudget() {
+        synchronized (benutzung) {
+            return budget;
+        }
+    }
+
+    /** @return Der aktuelle Speicherbedarf der geladenen Schriftzeichen in Byte */
+    public long getBelegt() {
+        synchronized (benutzung) {
+            return belegt;
+        }
+    }
+
+    /** @return Die Anzahl der wegen des Budgets verdrängten Schriftzeichen */
+    public int getVerdraengungen() {
+        synchronized (benutzung) {
+            return verdraengungen;
+        }
+    }
+
+    /**
+     * Nimmt ein fertig geladenes Schriftzeichen in die Verwaltung des Budgets auf,
+     * sofern es nicht inzwischen durch {@link #leeren()} entfernt wurde.
+     */
+    private void aufnehmen(String name, CompletableFuture<Schriftzeichen> future, Schriftzeichen geladen) {
+        int groesse = geladen != null ? SchriftzeichenCache.groesse(geladen) : 0;
+        synchronized (benutzung) {
+            if (schriftzeichen.get(name) != future)
+                return;
+            benutzung.put(name, new Eintrag(future, groesse));
+            belegt += groesse;
+            verdraengen();
+        }
+    }
+
+    /** Verdrängt die am längsten nicht benutzten Schriftzeichen, bis das Budget eingehalten ist. Aufruf unter der Sperre von benutzung. */
+    private void verdraengen() {
+        Iterator<Map.Entry<String, Eintrag>> eintraege = benutzung.entrySet().iterator();
+        while (belegt > budget && eintraege.hasNext()) {
+            Map.Entry<String, Eintrag> aeltester = eintraege.next();
+            eintraege.remove();
+            // Ein inzwischen neu ladendes Schriftzeichen desselben Namens bleibt erhalten
+            schriftzeichen.remove(aeltester.getKey(), aeltester.getValue().future);
+            belegt -= aeltester.getValue().groesse;
+            verdraengungen++;
+        }
+    }
+
+}
@@ -0,0 +1,48 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+/**
+ * SchriftzeichenSchema enthält die Version und die Tabellen der Schriftzeichen-Datenbank, wie Room sie für die
+ * Entity-Klassen {@link Schriftzeichen} und {@link ManifestEintrag} anlegt.
+ * <p>
+ * Die Tabellen werden von den Migrationen in {@link SchriftzeichenDatabase} und vom SchriftzeichenDatenbankGenerator
+ * (src/generator) angelegt. Sie müssen bei jeder Änderung der Entity-Klassen angepasst werden,
+ * denn Room prüft das Schema nach einer Migration und beim ersten Öffnen der mitgelieferten Datenbank.
+ * <p>
+ * Die Klasse ist nicht von Android abhängig.
+ */
+public final class SchriftzeichenSchema {
+
+    /** Die Version der Datenbank. */
+    public static final int VERSION = 7;
+
+    /** Die Tabelle der Entity-Klasse {@link Schriftzeichen}. */
+    public static final String SCHRIFTZEICHEN_TABELLE = "CREATE TABLE IF NOT EXISTS `Schriftzeichen` ("
+            + "`id` INTEGER PRIMARY KEY AUTOINCREMENT NOT NULL, "
+            + "`eckpunkte` BLOB, "
+            + "`normalen` BLOB, "
+            + "`indizes` BLOB, "
+            + "`modellName` TEXT, "
+            + "`modelBreite` REAL NOT NULL, "
+            + "`modelHoehe` REAL NOT NULL, "
+            + "`vertices` INTEGER NOT NULL, "
+            + "`oberlaenge` REAL NOT NULL DEFAULT 0, "
+            + "`unterlaenge` REAL NOT NULL DEFAULT 0, "
+            + "`profilLinks` BLOB, "
+            + "`profilRechts` BLOB, "
+            + "`detailstufen` BLOB)";
+
+    /** Der eindeutige Index auf den Namen der Schriftzeichen. */
+    public static final String SCHRIFTZEICHEN_INDEX = "CREATE UNIQUE INDEX IF NOT EXISTS `index_Schriftzeichen_modellName` ON `Schriftzeichen` (`modellName`)";
+
+    /** Die Tabelle der Entity-Klasse {@link ManifestEintrag}. */
+    public static final String MANIFEST_TABELLE = "CREATE TABLE IF NOT EXISTS `ManifestEintrag` ("
+            + "`dateiName` TEXT NOT NULL, "
+            + "`hash` TEXT, "
+            + "`formatVersion` INTEGER NOT NULL, "
+            + "PRIMARY KEY(`dateiName`))";
+
+    private SchriftzeichenSchema() {
+        throw new IllegalStateException("Utility class");
+    }
+
+}
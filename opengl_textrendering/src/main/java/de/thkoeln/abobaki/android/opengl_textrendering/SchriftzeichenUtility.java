@@ -2,6 +2,8 @@ package de.thkoeln.abobaki.android.opengl_textrendering;
 
 
 import android.content.Context;
+import android.content.pm.PackageManager;
+import android.content.res.AssetFileDescriptor;
 import android.content.res.AssetManager;
 import android.graphics.Color;
 import android.graphics.Typeface;
@@ -14,20 +16,27 @@ import android.widget.Toast;
 
 import androidx.room.Room;
 
-import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
-import java.io.InputStreamReader;
+import java.io.InputStream;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
 import java.util.ArrayList;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.Objects;
-import java.util.Random;
-import java.util.regex.Matcher;
-import java.util.regex.Pattern;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
-import de.thkoeln.cvogt.android.opengl_utilities.GLAnimatorFactoryCV_DEPRAC;
 import de.thkoeln.cvogt.android.opengl_utilities.GLShapeCV;
-import de.thkoeln.cvogt.android.opengl_utilities.GLTriangleCV;
 import de.thkoeln.cvogt.android.opengl_utilities.GraphicsUtilsCV;
 
 /**
@@ -35,16 +44,36 @@ import de.thkoeln.cvogt.android.opengl_utilities.GraphicsUtilsCV;
  */
 public final class SchriftzeichenUtility {
 
-    private static SchriftzeichenDao schriftzeichenDao;
+    // Die Felder werden vom Thread der Initialisierung im Hintergrund geschrieben und im UI- und GL-Thread gelesen, daher volatile
+    private static volatile SchriftzeichenDao schriftzeichenDao;
+
+    /** Der Cache vor der Datenbank, siehe {@link #setCacheBudget(int)}. Das Budget gilt ebenso für den {@link #provider}. */
+    private static volatile SchriftzeichenCache cache;
+    private static volatile int cacheBudget = SchriftzeichenCache.STANDARD_BUDGET;
+
+    /**
+     * Der Provider, der die Schriftzeichen erst bei Bedarf lädt bzw. erzeugt, wenn die Anwendung mit
+     * {@link #initialisierungBeiBedarf(Context)}, {@link #initialisierungImHintergrund(Context)} oder
+     * {@link #initialisierungMitSchrift(Context, String)} gestartet wurde.
+     */
+    private static volatile SchriftzeichenProvider provider;
+
+    /**
+     * Der TextRenderer der Anwendung, den die Initialisierungsmethoden anlegen (siehe {@link #getTextRenderer()}).
+     * Er wird durch einen neuen ersetzt, wenn sich die Quelle der Schriftzeichen ändert, z.B. nach dem Import im Hintergrund.
+     */
+    private static volatile TextRenderer textRenderer;
+
+    /** Der Name der GlyphPack-Datei in den Assets. Sie wird beim Bauen der Bibliothek erzeugt. */
+    private static final String GLYPH_PACK = "Schriftzeichen.glyphpack";
     private static Toast letzterToast;
 
     /**
-     * Um Verzögerungen wie den Datenbankzugriff während des Aufrufs der Methode "textdarstellen()" zu reduzieren,
-     * werden diese Attribute (breite - hoehe) verwendet, um die Informationen im Voraus zu speichern
-     * und dann von der Methode "textdarstellen()" abzurufen.
+     * Der zuletzt mit {@link #textDarstellen(String, float, float, boolean)} erzeugte Text, auf den sich die veralteten Methoden
+     * {@link #textDarstellen(GLShapeCV[], String, float, float, boolean)}, {@link #tauscheSchriftzeichen} und
+     * {@link #elementEntfernen(int)} beziehen. Neue Anwendungen benutzen stattdessen {@link TextBlock}.
      */
-    private static float[] breite;
-    private static float[] hoehe;
+    private static volatile TextBlock letzterBlock;
 
     private SchriftzeichenUtility() {
         throw new IllegalStateException("Utility class");
@@ -52,172 +81,333 @@ public final class SchriftzeichenUtility {
 
     /**
      * Die Methode initialisierung wird jedes Mal aufgerufen, wenn die App startet,
-     * um sicherzustellen, dass alle vorhandenen OBJ-Dateien in der Datenbank gespeichert sind,
-     * indem der Dateiname der "OBJ-Datei" mit dem in der Datenbank vorhandenen Namen abgeglichen wird.
+     * um sicherzustellen, dass alle vorhandenen OBJ-Dateien in der Datenbank gespeichert sind.
      * Außerdem erfolgt eine Konfiguration der Datenbank, indem die Attribute schriftzei-chenDao initialisiert wird.
+     * <p>
+     * Dazu wird das beim Bauen erzeugte {@link ImportManifest} (Hash jeder OBJ-Datei) mit der Tabelle {@link ManifestEintrag}
+     * verglichen. Stimmen beide überein, ist nichts zu tun. Sonst werden nur die hinzugekommenen oder geänderten Dateien
+     * parallel eingelesen (eine Aufgabe pro Datei, so viele Threads wie Prozessorkerne) und in einer Transaktion gespeichert;
+     * die Schriftzeichen entfernter Dateien werden gelöscht.
+     * <p>
+     * Room erlaubt keine Datenbankzugriffe im UI-Thread. Die Methode muss daher in einem Hintergrund-Thread aufgerufen werden
+     * (siehe {@link #initialisierungImHintergrund(Context)}), ebenso wie danach {@link #textDarstellen(String, boolean)}
+     * und {@link #anzahlVertices(String)}. Im UI-Thread werden stattdessen {@link #textDarstellenAsync(String, boolean)}
+     * und {@link #anzahlVerticesAsync(String)} verwendet.
      * @param context Context der Anwendung
      */
     public static void initialisierung(Context context) {
-        AssetManager assetManager = context.getAssets();
         String database = "SchriftzeichenDatabase";
+        // Beim ersten Start wird die beim Bauen erzeugte Datei SchriftzeichenDatabase.db aus den Assets kopiert.
+        // Eine Datenbank einer älteren Version wird migriert (siehe SchriftzeichenDatabase).
         SchriftzeichenDatabase schriftzeichenDatabase = Room.databaseBuilder(context.getApplicationContext(), SchriftzeichenDatabase.class, database)
-                .allowMainThreadQueries().fallbackToDestructiveMigrationOnDowngrade().build();
+                .createFromAsset(database + ".db")
+                .addMigrations(SchriftzeichenDatabase.MIGRATIONEN)
+                .fallbackToDestructiveMigrationOnDowngrade().build();
         schriftzeichenDao = schriftzeichenDatabase.schriftzeichendao();
+        SchriftzeichenCache neuerCache = new SchriftzeichenCache(schriftzeichenDao, cacheBudget);
+        cache = neuerCache;
+        ManifestDao manifestDao = schriftzeichenDatabase.manifestdao();
         try {
-            String[] files = assetManager.list("");
-            // Jede OBJ-Datei im Assets-Ordner muss mit einem vorhandenen Namen in der Datenbank übereinstimmen.
-            // Falls eine Übereinstimmung auftritt, wird die Datei nicht in der Datenbank gespeichert.
-            // Falls keine Übereinstimmung auftritt, wird die Datei vom Parser gelesen und in der Datenbank gespeichert.
-            for (String dateiName : files)
-                if (dateiName.endsWith(".obj") && !(schriftzeichenDao.isNameExists(SchriftzeichenUtility.returnFileName(dateiName)))) {
-                    schriftzeichenDao.insert(SchriftzeichenUtility.objParser(context, dateiName));
+            Map<String, String> assetHashes = manifestLaden(context).hashes();
+
+            // Vergleich mit den gespeicherten Einträgen: Was übrig bleibt, gehört zu entfernten Dateien
+            Map<String, ManifestEintrag> gespeichert = new HashMap<>();
+            for (ManifestEintrag eintrag : manifestDao.findAlle())
+                gespeichert.put(eintrag.dateiName, eintrag);
+            List<String> geaenderteDateien = new ArrayList<>();
+            for (Map.Entry<String, String> datei : assetHashes.entrySet()) {
+                ManifestEintrag eintrag = gespeichert.remove(datei.getKey());
+                if (eintrag == null || !datei.getValue().equals(eintrag.hash) || eintrag.formatVersion != SchriftzeichenImport.FORMAT_VERSION)
+                    geaenderteDateien.add(datei.getKey());
+            }
+            List<String> entfernteDateien = new ArrayList<>(gespeichert.keySet());
+            if (geaenderteDateien.isEmpty() && entfernteDateien.isEmpty()) {
+                textRendererAnlegen();
+                return;
+            }
+
+            // Eine Datei, die nicht gelesen werden kann, wird ausgelassen: Ihr Schriftzeichen und ihr Manifest-Eintrag bleiben unverändert,
+            // damit sie beim nächsten Start erneut eingelesen wird (statt ein leeres Schriftzeichen mit aktuellem Hash zu speichern)
+            List<Schriftzeichen> neueSchriftzeichen = new ArrayList<>(geaenderteDateien.size());
+            List<String> eingeleseneDateien = new ArrayList<>(geaenderteDateien.size());
+            if (!geaenderteDateien.isEmpty()) {
+                List<Callable<Schriftzeichen>> aufgaben = new ArrayList<>();
+                for (String dateiName : geaenderteDateien)
+                    aufgaben.add(() -> SchriftzeichenUtility.objEinlesen(context, dateiName));
+                ExecutorService pool = Executors.newFixedThreadPool(Math.min(aufgaben.size(), Runtime.getRuntime().availableProcessors()));
+                try {
+                    List<Future<Schriftzeichen>> ergebnisse = pool.invokeAll(aufgaben);
+                    for (int i = 0; i < ergebnisse.size(); i++) {
+                        try {
+                            neueSchriftzeichen.add(ergebnisse.get(i).get());
+                            eingeleseneDateien.add(geaenderteDateien.get(i));
+                        } catch (ExecutionException e) {
+                            if (!(e.getCause() instanceof IOException))
+                                throw e;
+                            Log.e("DEMO_AB", "Error reading file " + geaenderteDateien.get(i) + ": " + e.getCause().getMessage());
+                        }
+                    }
+                } finally {
+                    pool.shutdown();
                 }
+            }
+
+            List<String> alteNamen = new ArrayList<>();
+            for (String dateiName : eingeleseneDateien)
+                alteNamen.add(returnFileName(dateiName));
+            for (String dateiName : entfernteDateien)
+                alteNamen.add(returnFileName(dateiName));
+            List<ManifestEintrag> neueEintraege = new ArrayList<>();
+            for (String dateiName : eingeleseneDateien)
+                neueEintraege.add(new ManifestEintrag(dateiName, assetHashes.get(dateiName), SchriftzeichenImport.FORMAT_VERSION));
+            schriftzeichenDatabase.runInTransaction(() -> {
+                schriftzeichenDao.deleteByNames(alteNamen);
+                schriftzeichenDao.insertAll(neueSchriftzeichen);
+                manifestDao.deleteByDateiNamen(entfernteDateien);
+                manifestDao.insertAll(neueEintraege);
+            });
+            neuerCache.leeren();
+            // Die vom Provider bisher aus den OBJ-Dateien gelesenen Schriftzeichen sind veraltet
+            SchriftzeichenProvider bisherigerProvider = provider;
+            if (bisherigerProvider != null)
+                bisherigerProvider.leeren();
+            textRendererAnlegen();
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
         } catch (Exception e) {
             throw new RuntimeException(e);
         }
     }
 
     /**
-     * Diese Methode liest OBJ-Dateien und dann extrahiert darin enthaltenen 3D-Modelldaten
-     * @param context   Context der Anwendung
-     * @param dateiName Name der ausgewählte Datei
-     * @return ein objekte von Entity-Klasse Schriftzeichen
+     * Legt nach {@link #initialisierung(Context)} den TextRenderer für die Datenbank an bzw. ergänzt den des Providers
+     * um die {@link SchriftzeichenMetriken}. Diese werden aus den beim Import gespeicherten Maßen aller Schriftzeichen berechnet
+     * (ohne ihre Netze zu lesen).
      */
-    public static Schriftzeichen objParser(Context context, String dateiName) {
-
-        int numOfVertices = 0;
-        int positionIndex = 0;
-        int numTriangle = 0;
+    private static void textRendererAnlegen() {
+        List<SchriftzeichenDao.MetrikEintrag> eintraege = schriftzeichenDao.findAlleMetriken();
+        String[] namen = new String[eintraege.size()];
+        float[] breiten = new float[namen.length];
+        SchriftzeichenMetrik[] metrik = new SchriftzeichenMetrik[namen.length];
+        for (int i = 0; i < namen.length; i++) {
+            namen[i] = eintraege.get(i).modellName;
+            breiten[i] = eintraege.get(i).modelBreite;
+            metrik[i] = eintraege.get(i).metrik;
+        }
+        SchriftzeichenMetriken metriken = SchriftzeichenMetriken.berechnen(namen, breiten, metrik);
+        SchriftzeichenProvider aktuellerProvider = provider;
+        textRenderer = aktuellerProvider != null ? new TextRenderer(aktuellerProvider, metriken) : new TextRenderer(cache, metriken);
+    }
 
-        //Array vom Typ float, das aus drei Zeilen und zwei Spalten besteht.
-        //Jede Zeile des Arrays repräsentiert eine Achse des kartesischen Koordinatensystems (x, y und z)
-        //Jede Spalte speichert die Koordinaten des größten und kleinsten Punktes entlang dieser Achse
-        float[][] begrenzungsrahmen = new float[3][2];
+    /**
+     * Alternative zu {@link #initialisierung(Context)}: Es wird nichts im Voraus importiert.
+     * Ein Schriftzeichen wird erst geladen, wenn es zum ersten Mal dargestellt wird - aus der Datenbank, falls diese bereits
+     * initialisiert ist und das Schriftzeichen enthält, sonst aus seiner OBJ-Datei - und danach im Speicher gehalten.
+     * Die Zeit bis zur ersten Darstellung hängt damit nur von den verwendeten Zeichen ab.
+     * @param context Context der Anwendung
+     */
+    public static void initialisierungBeiBedarf(Context context) {
+        // Zuordnung Zeichen - OBJ-Datei (umgekehrt zu returnFileName)
+        Map<String, String> dateiNamen = new HashMap<>();
+        try {
+            for (String dateiName : context.getAssets().list(""))
+                if (dateiName.endsWith(".obj"))
+                    dateiNamen.put(returnFileName(dateiName), dateiName);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        Context anwendung = context.getApplicationContext();
+        provider = new SchriftzeichenProvider(zeichen -> {
+            SchriftzeichenDao dao = schriftzeichenDao;
+            Schriftzeichen gespeichert = dao != null ? dao.findByName(zeichen) : null;
+            if (gespeichert != null)
+                return gespeichert;
+            String dateiName = dateiNamen.get(zeichen);
+            return dateiName != null ? objParser(anwendung, dateiName) : null;
+        }, cacheBudget);
+        textRenderer = new TextRenderer(provider, null);
+    }
 
-        //Die Vertices des Dreiecks.
-        float[][] verticesTriangle = new float[3][3];
+    /**
+     * Wie {@link #initialisierungBeiBedarf(Context)}, zusätzlich wird {@link #initialisierung(Context)} in einem Hintergrund-Thread ausgeführt.
+     * Bis dahin werden die Schriftzeichen aus den OBJ-Dateien geladen, danach aus der Datenbank.
+     * @param context Context der Anwendung
+     */
+    public static void initialisierungImHintergrund(Context context) {
+        initialisierungBeiBedarf(context);
+        Context anwendung = context.getApplicationContext();
+        Thread thread = new Thread(() -> {
+            try {
+                initialisierung(anwendung);
+            } catch (RuntimeException e) {
+                Log.e("DEMO_AB", "Initialisierung der Datenbank fehlgeschlagen: " + e.getMessage());
+            }
+        }, "SchriftzeichenInitialisierung");
+        thread.setDaemon(true);
+        thread.start();
+    }
 
-        ArrayList<Float> verticesZwischenspeicher = new ArrayList<>();
-        ArrayList<String> faces = new ArrayList<>();
+    /**
+     * Liest das beim Bauen erzeugte Manifest aus den Assets.
+     * Fehlt es, werden die Hashes aller OBJ-Dateien der Assets berechnet.
+     */
+    private static ImportManifest manifestLaden(Context context) throws IOException {
+        AssetManager assetManager = context.getAssets();
+        try (InputStream in = assetManager.open(ImportManifest.DATEINAME)) {
+            return ImportManifest.lesen(in);
+        } catch (FileNotFoundException e) {
+            Log.w("DEMO_AB", ImportManifest.DATEINAME + " not found, hashing all assets");
+        }
+        Map<String, String> hashes = new HashMap<>();
+        for (String dateiName : assetManager.list(""))
+            if (dateiName.endsWith(".obj"))
+                try (InputStream in = assetManager.open(dateiName)) {
+                    hashes.put(dateiName, ImportManifest.hash(in));
+                }
+        return new ImportManifest(hashes);
+    }
 
+    /**
+     * Alternative zu {@link #initialisierung(Context)}: Die Schriftzeichen werden nicht aus der Datenbank,
+     * sondern aus dem beim Bauen erzeugten GlyphPack gelesen, der in den Speicher eingeblendet wird.
+     * Es sind weder SQL-Abfragen noch JSON-Konvertierungen nötig.
+     * @param context Context der Anwendung
+     */
+    public static void initialisierungMitGlyphPack(Context context) {
         try {
-            InputStreamReader in = new InputStreamReader(context.getAssets().open(dateiName));
-            BufferedReader reader = new BufferedReader(in);
-            String line;
-
-            //jede zeile von OBJ-Datei wird gelesen
-            while ((line = reader.readLine()) != null) {
-                String[] parts = line.split(" ");
-                if ("v".equals(parts[0])) {
-                    numOfVertices++;
-                    verticesZwischenspeicher.add(Float.valueOf(parts[1]));
-                    verticesZwischenspeicher.add(Float.valueOf(parts[2]));
-                    verticesZwischenspeicher.add(Float.valueOf(parts[3]));
-                } else if ("f".equals(parts[0])) {
-                    faces.add(parts[1]);
-                    faces.add(parts[2]);
-                    faces.add(parts[3]);
+            textRenderer = new TextRenderer(glyphPackEinblenden(context));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    /**
+     * Alternative zu {@link #initialisierung(Context)}: Die Schriftzeichen werden nicht aus den OBJ-Dateien, sondern aus den Umrissen
+     * einer TrueType-Schrift in den Assets erzeugt (siehe {@link SchriftzeichenExtrusion}), in der Größe, Tiefe und Qualität der OBJ-Dateien.
+     * Damit stehen alle Zeichen der Schrift zur Verfügung.
+     * @param context      Context der Anwendung
+     * @param schriftDatei Der Name der TrueType-Datei (.ttf) in den Assets
+     */
+    public static void initialisierungMitSchrift(Context context, String schriftDatei) {
+        initialisierungMitSchrift(context, schriftDatei, SchriftzeichenExtrusion.STANDARD_TIEFE, SchriftzeichenExtrusion.STANDARD_TOLERANZ);
+    }
+
+    /**
+     * Wie {@link #initialisierungMitSchrift(Context, String)}, mit wählbarer Tiefe und Qualität der Schriftzeichen.
+     * Ein Schriftzeichen wird erst erzeugt, wenn es zum ersten Mal dargestellt wird (einige Millisekunden), und danach wie ein
+     * bei Bedarf importiertes Schriftzeichen im Speicher gehalten.
+     * @param context      Context der Anwendung
+     * @param schriftDatei Der Name der TrueType-Datei (.ttf) in den Assets
+     * @param tiefe        Die Tiefe der Schriftzeichen in Modell-Einheiten
+     * @param toleranz     Die größte Abweichung der Konturen von den Kurven der Schrift in Modell-Einheiten; größere Werte ergeben weniger Dreiecke
+     */
+    public static void initialisierungMitSchrift(Context context, String schriftDatei, float tiefe, float toleranz) {
+        TrueTypeSchrift schrift;
+        try (InputStream in = context.getAssets().open(schriftDatei)) {
+            schrift = TrueTypeSchrift.lesen(in);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        SchriftzeichenExtrusion extrusion = new SchriftzeichenExtrusion(schrift, SchriftzeichenExtrusion.STANDARD_EM_GROESSE, tiefe, toleranz);
+        provider = new SchriftzeichenProvider(extrusion::erzeugen, cacheBudget);
+        textRenderer = new TextRenderer(provider, null);
+    }
+
+    /**
+     * Blendet den GlyphPack aus den Assets in den Speicher ein.
+     * Ein unkomprimiert gespeichertes Asset (noCompress in der build.gradle der App) wird direkt aus der APK-Datei eingeblendet.
+     * Ein komprimiertes Asset wird einmal pro Installation in das Dateiverzeichnis der App kopiert und von dort eingeblendet.
+     */
+    private static GlyphPack glyphPackEinblenden(Context context) throws IOException {
+        try (AssetFileDescriptor asset = context.getAssets().openFd(GLYPH_PACK);
+             FileInputStream in = asset.createInputStream();
+             FileChannel kanal = in.getChannel()) {
+            return GlyphPack.aus(kanal.map(FileChannel.MapMode.READ_ONLY, asset.getStartOffset(), asset.getLength()));
+        } catch (FileNotFoundException e) {
+            // Das Asset ist komprimiert und kann nicht als Dateideskriptor geöffnet werden
+            File datei = new File(context.getNoBackupFilesDir(), GLYPH_PACK);
+            long installiert;
+            try {
+                installiert = context.getPackageManager().getPackageInfo(context.getPackageName(), 0).lastUpdateTime;
+            } catch (PackageManager.NameNotFoundException ex) {
+                installiert = Long.MAX_VALUE;
+            }
+            if (!datei.exists() || datei.lastModified() < installiert) {
+                File temp = new File(datei.getPath() + ".tmp");
+                try (InputStream quelle = context.getAssets().open(GLYPH_PACK)) {
+                    Files.copy(quelle, temp.toPath(), StandardCopyOption.REPLACE_EXISTING);
                 }
+                Files.move(temp.toPath(), datei.toPath(), StandardCopyOption.REPLACE_EXISTING);
             }
+            return GlyphPack.oeffnen(datei);
+        }
+    }
+
+    /**
+     * Diese Methode liest OBJ-Dateien und dann extrahiert darin enthaltenen 3D-Modelldaten
+     * @param context   Context der Anwendung
+     * @param dateiName Name der ausgewählte Datei
+     * @return ein objekte von Entity-Klasse Schriftzeichen
+     */
+    public static Schriftzeichen objParser(Context context, String dateiName) {
+        try {
+            return objEinlesen(context, dateiName);
         } catch (FileNotFoundException e) {
             Log.e("DEMO_AB", "File not found: " + e.getMessage());
         } catch (IOException e) {
             Log.e("DEMO_AB", "Error reading file: " + e.getMessage());
         }
+        return SchriftzeichenImport.ausObj(dateiName, ObjTokenizer.leer());
+    }
 
-        final float[] zentrum = new float[3];
-        GLTriangleCV[] triangles = new GLTriangleCV[faces.size() / 3];
-        for (int j = 0; j < 2; j++) {
-            begrenzungsrahmen[0][j] = verticesZwischenspeicher.get(0);
-            begrenzungsrahmen[1][j] = verticesZwischenspeicher.get(1);
-            begrenzungsrahmen[2][j] = verticesZwischenspeicher.get(2);
+    /**
+     * Wie {@link #objParser(Context, String)}, gibt einen Fehler beim Lesen aber weiter, statt ein leeres Schriftzeichen zurückzugeben.
+     * @param context   Context der Anwendung
+     * @param dateiName Name der ausgewählte Datei
+     * @return ein objekte von Entity-Klasse Schriftzeichen
+     * @throws IOException wenn die Datei nicht gelesen werden kann
+     */
+    private static Schriftzeichen objEinlesen(Context context, String dateiName) throws IOException {
+        try (InputStream in = context.getAssets().open(dateiName)) {
+            return SchriftzeichenImport.ausObj(dateiName, in);
         }
+    }
 
-        for (String face : faces) {
-            String[] parts = face.split("/");
-            int index = 3 * (Short.parseShort(parts[0]) - 1);
-            verticesTriangle[positionIndex][0] = verticesZwischenspeicher.get(index++);
-            verticesTriangle[positionIndex][1] = verticesZwischenspeicher.get(index++);
-            verticesTriangle[positionIndex][2] = verticesZwischenspeicher.get(index);
-
-            if (begrenzungsrahmen[0][0] > verticesTriangle[positionIndex][0])
-                begrenzungsrahmen[0][0] = verticesTriangle[positionIndex][0];
-
-            if (begrenzungsrahmen[0][1] < verticesTriangle[positionIndex][0])
-                begrenzungsrahmen[0][1] = verticesTriangle[positionIndex][0];
-
-            if (begrenzungsrahmen[1][0] > verticesTriangle[positionIndex][1])
-                begrenzungsrahmen[1][0] = verticesTriangle[positionIndex][1];
-
-            if (begrenzungsrahmen[1][1] < verticesTriangle[positionIndex][1])
-                begrenzungsrahmen[1][1] = verticesTriangle[positionIndex][1];
-
-            if (begrenzungsrahmen[2][0] > verticesTriangle[positionIndex][2])
-                begrenzungsrahmen[2][0] = verticesTriangle[positionIndex][2];
-
-            if (begrenzungsrahmen[2][1] < verticesTriangle[positionIndex][2])
-                begrenzungsrahmen[2][1] = verticesTriangle[positionIndex][2];
-
-            positionIndex++;
-            if (positionIndex % 3 == 0) {
-                triangles[numTriangle] = new GLTriangleCV("TriangleObj" + numTriangle, verticesTriangle);
-                numTriangle++;
-                positionIndex = 0;
-            }
-        }
+    /**
+     * Legt den höchsten Speicherbedarf des Caches fest, der die aus der Datenbank gelesenen Schriftzeichen im Speicher hält,
+     * bzw. des Providers, der sie bei Bedarf lädt oder erzeugt.
+     * @param budget Das Budget in Byte (Standard: {@link SchriftzeichenCache#STANDARD_BUDGET})
+     */
+    public static void setCacheBudget(int budget) {
+        cacheBudget = budget;
+        SchriftzeichenCache aktuellerCache = cache;
+        if (aktuellerCache != null)
+            aktuellerCache.setBudget(budget);
+        SchriftzeichenProvider aktuellerProvider = provider;
+        if (aktuellerProvider != null)
+            aktuellerProvider.setBudget(budget);
+    }
 
-        // x-, y- und z-Koordinaten der Zentrum berechnet
-        // indem jeweils der  Durchschnitt der größten und kleinsten Werte des Begrenzungsrahmens
-        zentrum[0] = (begrenzungsrahmen[0][0] + begrenzungsrahmen[0][1]) / 2;
-        zentrum[1] = (begrenzungsrahmen[1][0] + begrenzungsrahmen[1][1]) / 2;
-        zentrum[2] = (begrenzungsrahmen[2][0] + begrenzungsrahmen[2][1]) / 2;
+    /**
+     * @return Der Cache vor der Datenbank (z.B. für seine Zähler) oder null, wenn {@link #initialisierung(Context)} noch nicht aufgerufen wurde
+     */
+    public static SchriftzeichenCache getCache() {
+        return cache;
+    }
 
-        //ändert den Mittelpunkt der Form zu den Ursprung (0,0,0) seines lokalen Koordinatensystems,
-        //indem alle Dreiecke des Objekts in Richtung des Zentrums verschoben werden.
-        for (GLTriangleCV triangle : triangles) {
-            triangle.translate(-zentrum[0], -zentrum[1], -zentrum[2]);
-        }
+    /**
+     * @return Der TextRenderer, den die zuletzt aufgerufene Initialisierungsmethode angelegt hat, oder null vor der Initialisierung.
+     *         Mit ihm werden unabhängige {@link TextBlock}-Objekte erzeugt, auch gleichzeitig in mehreren Threads.
+     */
+    public static TextRenderer getTextRenderer() {
+        return textRenderer;
+    }
 
-        // Die Breite und die Höhe des Modells (der 3D-Form) werden berechnet,
-        // indem die Differenz zwischen dem größten und dem kleinsten x-Wert des Begrenzungsrahmens für die Breite
-        // und die Differenz zwischen dem größten und dem kleinsten y-Wert des Begrenzungsrahmens für die Höhe berechnet wird.
-        final float schriftzeichenBreite = Math.abs(begrenzungsrahmen[0][1] - begrenzungsrahmen[0][0]);
-        final float schriftzeichenHoehe = Math.abs(begrenzungsrahmen[1][1] - begrenzungsrahmen[1][0]);
-
-        String fileName = returnFileName(dateiName);
-
-        return new Schriftzeichen(triangles, schriftzeichenBreite, schriftzeichenHoehe, fileName, numOfVertices);
-    }
-
-    /**
-     * Diese Methode konvertiert den eingegebenen Text in ein Array von GLShapeCV-Objekten.
-     * Darüber hinaus werden die Länge und Breite der 3D-Schriftzeichen-Modelle in statischen Attributen gespeichert.
-     * @param text Der eingegebene Text.
-     */
-    private static GLShapeCV[] erzeugeSchriftzeichen(String text) {
-        String eingabeOhneLeerzeichen = leerzeichenEntfernen(text);
-        int len = eingabeOhneLeerzeichen.length();
-        GLShapeCV[] schriftzeichen = new GLShapeCV[len];
-        breite = new float[len];
-        hoehe = new float[len];
-        aeussereSchleife:
-        for (int i = 0; i < len; i++) {
-            String zeichen = charAt(eingabeOhneLeerzeichen, i);
-            breite[i] = schriftzeichenDao.findBreiteByName(zeichen);
-            if ("g".equals(zeichen) || "j".equals(zeichen) || "p".equals(zeichen) || "q".equals(zeichen) || "y".equals(zeichen))
-                hoehe[i] = schriftzeichenDao.findHoeheByName(zeichen) / 4;
-            else
-                hoehe[i] = schriftzeichenDao.findHoeheByName(zeichen) / 2;
-            //Wenn ein Zeichen wiederholt wird, anstatt aus der Datenbank abgerufen zu werden, wird es mit der copy-methode kopiert.
-            for (int j = 0; j < i; j++) {
-                if (Objects.equals(getLinkesWort(schriftzeichen[j].getId()), zeichen)) {
-                    schriftzeichen[i] = schriftzeichen[j].copy(zeichen + "," + i);
-                    continue aeussereSchleife;
-                }
-            }
-            schriftzeichen[i] = new GLShapeCV(zeichen + "," + i, Konverter.stringZuGLTriangleCV(schriftzeichenDao.findDreieckeByName(zeichen)));
-        }
-        return schriftzeichen;
+    private static TextRenderer renderer() {
+        TextRenderer renderer = textRenderer;
+        if (renderer == null)
+            throw new IllegalStateException("SchriftzeichenUtility ist nicht initialisiert");
+        return renderer;
     }
 
     /**
@@ -228,9 +418,7 @@ public final class SchriftzeichenUtility {
      * @return Die 3D-Schriftzeichen-Modellen als Array von GLShapeCV-Objekte
      */
     public static GLShapeCV[] textDarstellen(String text, boolean textAnimation) {
-        GLShapeCV[] glShapeCVS = erzeugeSchriftzeichen(text);
-        textDarstellen(glShapeCVS, text, 6.5f, 0, textAnimation);
-        return glShapeCVS;
+        return textDarstellen(text, 6.5f, 0, textAnimation);
     }
 
     /**
@@ -243,81 +431,87 @@ public final class SchriftzeichenUtility {
      * @return Die 3D-Schriftzeichen-Modellen als Array von GLShapeCV-Objekte
      */
     public static GLShapeCV[] textDarstellen(String text, float skalierungsfaktor, float abstandsanpassung, boolean textAnimation) {
-        GLShapeCV[] glShapeCVS = erzeugeSchriftzeichen(text);
-        textDarstellen(glShapeCVS, text, skalierungsfaktor, abstandsanpassung, textAnimation);
-        return glShapeCVS;
+        TextBlock block = renderer().textDarstellen(text, skalierungsfaktor, abstandsanpassung, textAnimation);
+        letzterBlock = block;
+        return block.getShapes();
     }
 
     /**
-     * Diese Methode setzt die entsprechene Skalierung, Animation usw. für jedes Zeichen und passt diesen Text als TextEditor von schriftzeichen an.
-     * @param glshapeCVs        Die 3D-Schriftzeichen-Modellen als Array von GLShapeCV-Objekte
+     * Wie {@link #textDarstellen(String, boolean)}, aber die Schriftzeichen werden in einem Hintergrund-Thread geladen und erzeugt.
+     * @param text          eingegebene Text
+     * @param textAnimation Wenn true ist, wird eine Animationssequenz gestartet.
+     * @return Ein Future, das die 3D-Schriftzeichen-Modelle liefert
+     */
+    public static CompletableFuture<GLShapeCV[]> textDarstellenAsync(String text, boolean textAnimation) {
+        return textDarstellenAsync(text, 6.5f, 0, textAnimation);
+    }
+
+    /**
+     * Wie {@link #textDarstellen(String, float, float, boolean)}, aber die gesamte Arbeit (Datenbankzugriff, Dekodieren der Schriftzeichen,
+     * Erzeugen der GLShapeCV-Objekte mit ihren Puffern und Anordnen des Textes) wird in einem Hintergrund-Thread ausgeführt.
+     * Der UI-Thread wird dadurch auch bei langen Texten nicht blockiert.
+     * <p>
+     * Das Future wird im Hintergrund-Thread abgeschlossen. Die Schriftzeichen werden z.B. mit Activity.runOnUiThread()
+     * zur GLSurfaceViewCV hinzugefügt. Bei einem unbekannten Zeichen wird das Future mit einer IllegalArgumentException abgeschlossen.
      * @param text              eingegebene Text
      * @param skalierungsfaktor Die Ziel-Skalierungsfaktor der Animation.
      * @param abstandsanpassung Abstand zwischen Wörtern und Zeichen
-     * @param textAnimation     Wenn true ist, wird eine Animationssequenz (die 3D-Modelle aus verschiedenen Orten kommen)
-     *                          gestartet. Wenn false ist, wird der Text ohne diese Animation sofort erstellt.
+     * @param textAnimation     Wenn true ist, wird eine Animationssequenz gestartet.
+     * @return Ein Future, das die 3D-Schriftzeichen-Modelle liefert
      */
-    public static void textDarstellen(GLShapeCV[] glshapeCVs, String text, float skalierungsfaktor, float abstandsanpassung, boolean textAnimation) {
+    public static CompletableFuture<GLShapeCV[]> textDarstellenAsync(String text, float skalierungsfaktor, float abstandsanpassung, boolean textAnimation) {
+        return CompletableFuture.supplyAsync(() -> textDarstellen(text, skalierungsfaktor, abstandsanpassung, textAnimation), TextRenderer.arbeiter());
+    }
 
-        //Grenze der Zeile von Rechts
-        float zeileBegrenzungVonRechts;
-        //Position eines Zeichens
-        float zeichenposition = -2.6f;
-        //wortabstand für den Abstand zwischen Wörtern
-        float wortabstand = (skalierungsfaktor * 0.02f) + abstandsanpassung;
-        //zeichenabstand für den Abstand zwischen Zeichen
-        float zeichenabstand = (skalierungsfaktor * 0.009f) + abstandsanpassung;
-        //zeilenabstand
-        float zeilenabstand = (skalierungsfaktor * 0.059f);
-
-        int anzahlZeilen = 0;
-        int anzahlLeerzeichen = 0;
-        boolean neueZeileErforderlich = false;
-        List<Integer> leerzeichenIndex = letzteZeichenIndices(text);
-
-        for (int i = 0; i < glshapeCVs.length; i++) {
-            int j = i;
-            //Hier wird überprüft, ob das Zeichen nach der Leerzeichen befindet.
-            if (leerzeichenIndex.get(anzahlLeerzeichen) < i) {
-                zeichenposition += wortabstand;
-                zeileBegrenzungVonRechts = zeichenposition;
-                anzahlLeerzeichen++;
-
-                //Die Länge des nächsten Worts wird komplett berechnet und dann wird zu diesen variable
-                // zeileBegrenzungVonRechts hinzufügt.
-                while (leerzeichenIndex.get(anzahlLeerzeichen) >= j && j != 0) {
-                    zeileBegrenzungVonRechts += zeichenabstand + (((breite[j - 1] * skalierungsfaktor) + (breite[j] * skalierungsfaktor)) / 2);
-                    j++;
-                }
+    /**
+     * Wie {@link #textDarstellen(String, float, float, boolean)}, aber die Schriftzeichen werden zu einem {@link TextMesh} zusammengefasst,
+     * das mit einem einzigen Draw-Call gezeichnet wird. Zur GLSurfaceViewCV wird nur {@link TextMesh#getShape()} hinzugefügt.
+     * @param text              eingegebene Text
+     * @param skalierungsfaktor Die Ziel-Skalierungsfaktor der Animation.
+     * @param abstandsanpassung Abstand zwischen Wörtern und Zeichen
+     * @param textAnimation     Wenn true ist, wird eine Animationssequenz gestartet (siehe {@link TextMesh#animatorenStarten()}).
+     * @return Der zusammengefasste Text
+     */
+    public static TextMesh textMeshDarstellen(String text, float skalierungsfaktor, float abstandsanpassung, boolean textAnimation) {
+        return new TextMesh(text, textDarstellen(text, skalierungsfaktor, abstandsanpassung, textAnimation), GraphicsUtilsCV.white);
+    }
 
-                //Hier wird überprüft, ob das Wort die rechte Grenze überschritten hat
-                //wenn ja, wird dann ein neue Zeile hinzufügt und die zeichenPosition zurückgesetzt
-                if (zeileBegrenzungVonRechts > 2.6) {
-                    zeichenposition = -2.6f;
-                    anzahlZeilen++;
-                    neueZeileErforderlich = true;
-                }
-            }
+    /**
+     * Wie {@link #textMeshDarstellen(String, float, float, boolean)}, aber in einem Hintergrund-Thread
+     * (siehe {@link #textDarstellenAsync(String, float, float, boolean)}).
+     * @return Ein Future, das den zusammengefassten Text liefert
+     */
+    public static CompletableFuture<TextMesh> textMeshDarstellenAsync(String text, float skalierungsfaktor, float abstandsanpassung, boolean textAnimation) {
+        return CompletableFuture.supplyAsync(() -> textMeshDarstellen(text, skalierungsfaktor, abstandsanpassung, textAnimation), TextRenderer.arbeiter());
+    }
 
-            if (i != 0 && !neueZeileErforderlich) {
-                zeichenposition += zeichenabstand + (((breite[i - 1] * skalierungsfaktor) + (breite[i] * skalierungsfaktor)) / 2);
-            } else
-                neueZeileErforderlich = false;
-
-            //Wenn true ist, wird eine Animationssequenz gestartet, wenn false ist, wird der Text ohne diese Animation sofort erstellt
-            if (textAnimation) {
-                Random rand = new Random();
-                glshapeCVs[i].setTrans(new float[]{(rand.nextFloat() * 6) - 3, (rand.nextFloat() * 12) - 6, (rand.nextFloat() * 6) - 3});
-                glshapeCVs[i].setScale(skalierungsfaktor);
-                glshapeCVs[i].addAnimator(GLAnimatorFactoryCV_DEPRAC.makeAnimatorTransBezier(new float[]{0, 0, 0},
-                        new float[]{ zeichenposition, (hoehe[i] * skalierungsfaktor) - (anzahlZeilen * zeilenabstand), 0}, -1, 6000, 3500));
-            } else {
-                glshapeCVs[i].setTransX(zeichenposition);
-                glshapeCVs[i].setTransY((hoehe[i] * skalierungsfaktor) - (anzahlZeilen * zeilenabstand));
-                glshapeCVs[i].setScale(skalierungsfaktor);
-            }
+    /**
+     * Wie {@link #anzahlVertices(String)}, aber in einem Hintergrund-Thread.
+     * @param eingabe eingegebene Text
+     * @return Ein Future, das die Anzahl der Vertices liefert
+     */
+    public static CompletableFuture<Integer> anzahlVerticesAsync(String eingabe) {
+        return CompletableFuture.supplyAsync(() -> anzahlVertices(eingabe), TextRenderer.arbeiter());
+    }
 
-        }
+    /**
+     * Diese Methode setzt die entsprechene Skalierung, Animation usw. für jedes Zeichen und passt diesen Text als TextEditor von schriftzeichen an.
+     * Sie bezieht sich immer auf den zuletzt mit {@link #textDarstellen(String, float, float, boolean)} erzeugten Text und ordnet
+     * dessen Schriftzeichen an, auch wenn andere Schriftzeichen oder ein anderer Text übergeben werden.
+     * @param glshapeCVs        Wird ignoriert
+     * @param text              Wird ignoriert
+     * @param skalierungsfaktor Die Ziel-Skalierungsfaktor der Animation.
+     * @param abstandsanpassung Abstand zwischen Wörtern und Zeichen
+     * @param textAnimation     Wenn true ist, wird eine Animationssequenz (die 3D-Modelle aus verschiedenen Orten kommen)
+     *                          gestartet. Wenn false ist, wird der Text ohne diese Animation sofort erstellt.
+     * @deprecated Die übergebenen Schriftzeichen und der Text werden ignoriert, und zwei Texte können so nicht gleichzeitig
+     *             angeordnet werden; stattdessen {@link TextBlock#anordnen(float, float, boolean)} des Textes, der angeordnet werden soll
+     */
+    @Deprecated
+    public static void textDarstellen(GLShapeCV[] glshapeCVs, String text, float skalierungsfaktor, float abstandsanpassung, boolean textAnimation) {
+        TextBlock block = letzterBlock;
+        if (block != null)
+            block.anordnen(skalierungsfaktor, abstandsanpassung, textAnimation);
     }
 
     /**
@@ -327,7 +521,9 @@ public final class SchriftzeichenUtility {
      * @param beruehrteSchriftzeichen Schriftzeichen, die vom Benutzer berührt wurde
      * @param richtung                Richtung, die vom Benutzer augewählt wurde
      * @return der Text wird als String zurückgegeben, nachdem die Zeichen vertauscht werden.
+     * @deprecated Bezieht sich auf den zuletzt erzeugten Text; stattdessen {@link TextBlock#tauschen(GLShapeCV, String)}
      */
+    @Deprecated
     public static String tauscheSchriftzeichen(GLShapeCV[] glShapeCVs, String text, GLShapeCV beruehrteSchriftzeichen, String richtung) {
         int indexBeruhrteZeichen = SchriftzeichenUtility.indexSchriftzeichen(glShapeCVs, beruehrteSchriftzeichen);
         int indexGezielteZeichen;
@@ -342,35 +538,13 @@ public final class SchriftzeichenUtility {
             indexGezielteZeichen = indexBeruhrteZeichen - 1;
         } else return null;
 
-        text = text.trim();
-        List<Integer> whitespaceIndices = SchriftzeichenUtility.indizesLeerzeichen(text);
-        text = SchriftzeichenUtility.leerzeichenEntfernen(text);
-        char[] chars = text.toCharArray();
-
-        char tmp1 = chars[indexBeruhrteZeichen];
-        chars[indexBeruhrteZeichen] = chars[indexGezielteZeichen];
-        chars[indexGezielteZeichen] = tmp1;
-
-        float tmp2 = hoehe[indexBeruhrteZeichen];
-        hoehe[indexBeruhrteZeichen] = hoehe[indexGezielteZeichen];
-        hoehe[indexGezielteZeichen] = tmp2;
-
-        float tmp3 = breite[indexBeruhrteZeichen];
-        breite[indexBeruhrteZeichen] = breite[indexGezielteZeichen];
-        breite[indexGezielteZeichen] = tmp3;
-
-        GLShapeCV tmp4 = glShapeCVs[indexBeruhrteZeichen];
+        TextBlock block = letzterBlock;
+        if (block == null || !block.tauschen(beruehrteSchriftzeichen, richtung))
+            return text;
+        GLShapeCV tmp = glShapeCVs[indexBeruhrteZeichen];
         glShapeCVs[indexBeruhrteZeichen] = glShapeCVs[indexGezielteZeichen];
-        glShapeCVs[indexGezielteZeichen] = tmp4;
-
-        text = new String(chars);
-        StringBuilder sb = new StringBuilder(text);
-        for (int i = 0; i < whitespaceIndices.size(); i++) {
-            int index = whitespaceIndices.get(i);
-            sb.insert(index, " ");
-        }
-        text = sb.toString();
-        return text;
+        glShapeCVs[indexGezielteZeichen] = tmp;
+        return block.getText();
     }
 
     /**
@@ -432,8 +606,9 @@ public final class SchriftzeichenUtility {
      * @param colorString die ausgewählte Farbe
      */
     public static void farbeAendern(GLShapeCV[] glShapeCVS, String colorString) {
+        float[] farbe = getFarbe(colorString);
         for (GLShapeCV glShapeCV : glShapeCVS) {
-            glShapeCV.setTrianglesUniformColor(getFarbe(colorString));
+            glShapeCV.setTrianglesUniformColor(farbe);
         }
     }
 
@@ -444,20 +619,7 @@ public final class SchriftzeichenUtility {
      * @return ein einziges Zeichen, das ein Dateiname ausdrückt
      */
     public static String returnFileName(String dateiName) {
-        String schriftzeichenName = null;
-        if (dateiName.startsWith("small_"))
-            schriftzeichenName = dateiName.substring(6, dateiName.length() - 4);
-        else if (dateiName.equals("Colon.obj")) schriftzeichenName = ":";
-        else if (dateiName.equals("ForwardSlash.obj")) schriftzeichenName = "/";
-        else if (dateiName.equals("GreaterThan.obj")) schriftzeichenName = ">";
-        else if (dateiName.equals("SmallerThan.obj")) schriftzeichenName = "<";
-        else if (dateiName.equals("QuestionMark.obj")) schriftzeichenName = "?";
-        else if (dateiName.equals("Dot.obj")) schriftzeichenName = ".";
-        else if (dateiName.equals("asterisk.obj")) schriftzeichenName = "*";
-        else if (dateiName.equals("doubleQuote.obj")) schriftzeichenName = "\"";
-        else if (dateiName.endsWith(".obj"))
-            schriftzeichenName = dateiName.substring(0, dateiName.length() - 4);
-        return schriftzeichenName;
+        return SchriftzeichenImport.zeichenName(dateiName);
     }
 
     /**
@@ -497,21 +659,6 @@ public final class SchriftzeichenUtility {
         return -1;
     }
 
-    /**
-     * Diese Methode gibt die Indizes der Leerzeichen im Eingabestring zurück
-     * Z.b ("ABC DEF GHI J"): -> = [3, 7, 11]
-     */
-    private static ArrayList<Integer> indizesLeerzeichen(String text) {
-        // https://stackoverflow.com/a/4731081
-        ArrayList<Integer> indizes = new ArrayList<>();
-        Pattern pattern = Pattern.compile("\\S\\s"); // match any non-whitespace character followed by whitespace
-        Matcher matcher = pattern.matcher(text);
-        while (matcher.find()) {
-            indizes.add(matcher.end() - 1); // add the index of the whitespace character
-        }
-        return indizes;
-    }
-
     /**
      * Diese Methode gibt die Indices des letzten Zeichens für jedes zusammenhängende Zeichenfolge zurück, ohne die Indices von Leerzeichen zu berücksichtigen.
      * Z.b ("ABC DEF % GHI"): -> = [2, 5, 6, 8]
@@ -587,21 +734,19 @@ public final class SchriftzeichenUtility {
     }
 
     public static int anzahlVertices(String eingabe) {
-        int anzahl = 0;
-        eingabe = leerzeichenEntfernen(eingabe);
-        for (int i = 0; i < eingabe.length(); i++) {
-            anzahl = anzahl + schriftzeichenDao.findAnzahlVonVerticesByName(charAt(eingabe, i));
-        }
-        return anzahl;
-    }
-
-    private static String leerzeichenEntfernen(String str) {
-        return str.replaceAll("\\s+", "");
+        return renderer().anzahlVertices(eingabe);
     }
 
+    /**
+     * Entfernt ein Schriftzeichen aus dem zuletzt mit {@link #textDarstellen(String, float, float, boolean)} erzeugten Text.
+     * @param index Der Index des Schriftzeichens (ohne Leerzeichen gezählt)
+     * @deprecated Bezieht sich auf den zuletzt erzeugten Text; stattdessen {@link TextBlock#entfernen(GLShapeCV)}
+     */
+    @Deprecated
     public static void elementEntfernen(int index) {
-        hoehe = elementEntfernen(hoehe, index);
-        breite = elementEntfernen(breite, index);
+        TextBlock block = letzterBlock;
+        if (block != null)
+            block.entfernen(index);
     }
 
     public static float[] elementEntfernen(float[] arr, int index) {
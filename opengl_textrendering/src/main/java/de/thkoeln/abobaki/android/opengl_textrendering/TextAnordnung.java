@@ -0,0 +1,174 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+/**
+ * TextAnordnung berechnet die Zeilenumbrüche und die Positionen der Schriftzeichen eines Textes, wie sie
+ * {@link SchriftzeichenUtility#textDarstellen(String, float, float, boolean)} verwendet. Sie benutzt keine Android-Klassen
+ * und kann daher auf dem Entwicklungsrechner getestet werden.
+ * <p>
+ * Die Position eines Schriftzeichens in seiner Zeile ist
+ * {@code ZEILENANFANG + skalierungsfaktor * vorschub + abstandsanpassung * anzahlAbstaende}, wobei sich vorschub und anzahlAbstaende
+ * nicht mit Skalierung und Abstand ändern. Der Konstruktor berechnet beide in einem Durchlauf als fortlaufende Summen vom Anfang des Textes
+ * und merkt sich für jeden Wortanfang das Ende des Wortes. {@link #anordnen(float, float, float[], int[])} braucht dann für jede Skalierung
+ * und jeden Abstand nur noch einen Durchlauf ohne Schleife über die Wörter: Die Breite eines Wortes ist die Differenz zweier Summen.
+ * Ändern sich nur Skalierung oder Abstand (z.B. beim Ziehen einer SeekBar), wird dasselbe Objekt wiederverwendet.
+ * Nur dann ist die TextAnordnung schneller als die bisherige Anordnung (siehe TextAnordnungBenchmark);
+ * für einen neuen Text brauchen Konstruktor und anordnen zusammen etwa so lange wie diese.
+ * <p>
+ * Leerzeichen (alle Zeichen mit {@link Character#isWhitespace(char)}) trennen Wörter; mehrere aufeinanderfolgende Leerzeichen
+ * gelten als ein Wortabstand. Ein Wort, das über {@link #ZEILENENDE} hinausgehen würde, beginnt eine neue Zeile.
+ * <p>
+ * Das Kerning zweier Schriftzeichen innerhalb eines Wortes (siehe {@link SchriftzeichenMetriken#kerning(int, int)}) wird wie die Breiten
+ * mit dem Skalierungsfaktor multipliziert und ist daher Teil des Vorschubs.
+ */
+public final class TextAnordnung {
+
+    /** Die Position des ersten Schriftzeichens einer Zeile. */
+    public static final float ZEILENANFANG = -2.6f;
+    /** Die rechte Grenze einer Zeile. */
+    public static final float ZEILENENDE = 2.6f;
+
+    // Abstände relativ zum Skalierungsfaktor
+    static final float WORTABSTAND = 0.02f;
+    static final float ZEICHENABSTAND = 0.009f;
+    static final float ZEILENABSTAND = 0.059f;
+
+    private final int anzahl;
+    // Fortlaufende Summe der Vorschübe (Anteil, der mit dem Skalierungsfaktor multipliziert wird)
+    private final double[] vorschub;
+    // Fortlaufende Anzahl der Abstände (Anteil, der mit der Abstandsanpassung multipliziert wird)
+    private final int[] abstaende;
+    // Für den Anfang eines Wortes der Index seines letzten Schriftzeichens, sonst -1
+    private final int[] wortende;
+
+    /**
+     * Berechnet die Vorschübe und Wortgrenzen eines Textes ohne Kerning.
+     * @param text   Der Text mit Leerzeichen
+     * @param breite Die Breiten der Schriftzeichen ohne Leerzeichen (Länge wie der Text ohne Leerzeichen)
+     * @throws IllegalArgumentException wenn die Anzahl der Breiten nicht zum Text passt
+     */
+    public TextAnordnung(String text, float[] breite) {
+        this(text, breite, null);
+    }
+
+    /**
+     * Berechnet die Vorschübe und Wortgrenzen eines Textes.
+     * @param text    Der Text mit Leerzeichen
+     * @param breite  Die Breiten der Schriftzeichen ohne Leerzeichen (Länge wie der Text ohne Leerzeichen)
+     * @param kerning Für jedes Schriftzeichen das Kerning zu seinem Vorgänger (wie die Breiten), oder null ohne Kerning.
+     *                Am Anfang eines Wortes wird es nicht berücksichtigt.
+     * @throws IllegalArgumentException wenn die Anzahl der Breiten oder Kerning-Werte nicht zum Text passt
+     */
+    public TextAnordnung(String text, float[] breite, float[] kerning) {
+        anzahl = breite.length;
+        if (kerning != null && kerning.length != anzahl)
+            throw new IllegalArgumentException(anzahl + " Breiten, aber " + kerning.length + " Kerning-Werte");
+        vorschub = new double[anzahl];
+        abstaende = new int[anzahl];
+        wortende = new int[anzahl];
+        int i = 0;
+        int letzterWortanfang = -1;
+        boolean nachLeerzeichen = false;
+        for (int k = 0; k < text.length(); k++) {
+            if (Character.isWhitespace(text.charAt(k))) {
+                nachLeerzeichen = true;
+                continue;
+            }
+            if (i == anzahl)
+                throw new IllegalArgumentException("Mehr Schriftzeichen als Breiten: " + anzahl);
+            wortende[i] = -1;
+            if (i > 0) {
+                boolean wortanfang = nachLeerzeichen;
+                vorschub[i] = vorschub[i - 1] + vorschub(breite[i - 1], breite[i], kerning != null ? kerning[i] : 0, wortanfang);
+                abstaende[i] = abstaende[i - 1] + abstaende(wortanfang);
+                if (wortanfang) {
+                    if (letzterWortanfang >= 0)
+                        wortende[letzterWortanfang] = i - 1;
+                    letzterWortanfang = i;
+                }
+            }
+            nachLeerzeichen = false;
+            i++;
+        }
+        if (i != anzahl)
+            throw new IllegalArgumentException("Text mit " + i + " Schriftzeichen, aber " + anzahl + " Breiten");
+        if (letzterWortanfang >= 0)
+            wortende[letzterWortanfang] = anzahl - 1;
+    }
+
+    /**
+     * @return Die Anzahl der Schriftzeichen (ohne Leerzeichen)
+     */
+    public int anzahlSchriftzeichen() {
+        return anzahl;
+    }
+
+    /**
+     * Ordnet die Schriftzeichen für eine Skalierung und einen Abstand an.
+     * @param skalierungsfaktor Der Skalierungsfaktor der Schriftzeichen
+     * @param abstandsanpassung Abstand zwischen Wörtern und Zeichen
+     * @param x                 Array für die x-Positionen der Schriftzeichen (mindestens so lang wie die Anzahl der Schriftzeichen)
+     * @param zeile             Array für die Zeilennummern der Schriftzeichen, beginnend mit 0
+     * @return Die Anzahl der Zeilen
+     */
+    public int anordnen(float skalierungsfaktor, float abstandsanpassung, float[] x, int[] zeile) {
+        int zeilenanfang = 0;
+        int anzahlZeilen = 0;
+        for (int i = 0; i < anzahl; i++) {
+            //Ein Wort, das die rechte Grenze überschreitet, beginnt eine neue Zeile
+            int ende = wortende[i];
+            if (ende >= 0 && ueberschreitetZeile(position(ende, zeilenanfang, skalierungsfaktor, abstandsanpassung))) {
+                zeilenanfang = i;
+                anzahlZeilen++;
+            }
+            x[i] = position(i, zeilenanfang, skalierungsfaktor, abstandsanpassung);
+            zeile[i] = anzahlZeilen;
+        }
+        return anzahl == 0 ? 0 : anzahlZeilen + 1;
+    }
+
+    /**
+     * @param skalierungsfaktor Der Skalierungsfaktor der Schriftzeichen
+     * @return Der Abstand zwischen zwei Zeilen
+     */
+    public static float zeilenabstand(float skalierungsfaktor) {
+        return skalierungsfaktor * ZEILENABSTAND;
+    }
+
+    /**
+     * Der Abstand zwischen den Mittelpunkten eines Schriftzeichens und seines Vorgängers in derselben Zeile.
+     * Aus diesem Schritt setzt sich jede Anordnung zusammen, auch die fortgeschriebene von {@link FortlaufendeAnordnung}.
+     * @param breiteVorher      Die Breite des Vorgängers
+     * @param breite            Die Breite des Schriftzeichens
+     * @param kerning           Das Kerning zum Vorgänger (nur innerhalb eines Wortes berücksichtigt)
+     * @param wortanfang        true, wenn das Schriftzeichen ein Wort beginnt
+     * @param skalierungsfaktor Der Skalierungsfaktor der Schriftzeichen
+     * @param abstandsanpassung Abstand zwischen Wörtern und Zeichen
+     */
+    static float schritt(float breiteVorher, float breite, float kerning, boolean wortanfang, float skalierungsfaktor, float abstandsanpassung) {
+        return skalierungsfaktor * vorschub(breiteVorher, breite, kerning, wortanfang) + abstandsanpassung * abstaende(wortanfang);
+    }
+
+    /**
+     * @param x Die Position des letzten Schriftzeichens eines Wortes
+     * @return true, wenn das Wort über {@link #ZEILENENDE} hinausgeht und daher eine neue Zeile beginnt
+     */
+    static boolean ueberschreitetZeile(float x) {
+        return x > ZEILENENDE;
+    }
+
+    // Der Anteil eines Schritts, der mit dem Skalierungsfaktor multipliziert wird
+    private static float vorschub(float breiteVorher, float breite, float kerning, boolean wortanfang) {
+        return ZEICHENABSTAND + ((breiteVorher + breite) / 2) + (wortanfang ? WORTABSTAND : kerning);
+    }
+
+    // Die Anzahl der Abstände eines Schritts, die mit der Abstandsanpassung multipliziert werden
+    private static int abstaende(boolean wortanfang) {
+        return wortanfang ? 2 : 1;
+    }
+
+    private float position(int i, int zeilenanfang, float skalierungsfaktor, float abstandsanpassung) {
+        return (float) (ZEILENANFANG + (skalierungsfaktor * (vorschub[i] - vorschub[zeilenanfang]))
+                + ((double) abstandsanpassung * (abstaende[i] - abstaende[zeilenanfang])));
+    }
+
+}
@@ -0,0 +1,184 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.util.Arrays;
+import java.util.Random;
+
+import de.thkoeln.cvogt.android.opengl_utilities.GLAnimatorFactoryCV_DEPRAC;
+import de.thkoeln.cvogt.android.opengl_utilities.GLShapeCV;
+
+/**
+ * TextBlock ist ein Text, dessen Schriftzeichen ein {@link TextRenderer} erzeugt hat, mit allem, was zu seiner Anordnung gehört:
+ * den GLShapeCV-Objekten, den Breiten, Höhen und dem Kerning der Schriftzeichen und der zuletzt benutzten {@link TextAnordnung}.
+ * <p>
+ * Jeder TextBlock hat seine eigenen Arrays. Verschiedene TextBlock-Objekte können daher gleichzeitig in verschiedenen Threads
+ * angeordnet und bearbeitet werden; die Methoden eines TextBlocks sind synchronisiert.
+ * Ändern sich nur Skalierung oder Abstand, wird die TextAnordnung wiederverwendet.
+ */
+public final class TextBlock {
+
+    private final TextRenderer renderer;
+    private String text;
+    private GLShapeCV[] shapes;
+    private float[] breite;
+    private float[] hoehe;
+    private float[] kerning;
+    // Wird nach jeder Änderung des Textes beim nächsten Anordnen neu berechnet
+    private TextAnordnung anordnung;
+
+    TextBlock(TextRenderer renderer, String text, GLShapeCV[] shapes, float[] breite, float[] hoehe, float[] kerning) {
+        this.renderer = renderer;
+        this.text = text;
+        this.shapes = shapes;
+        this.breite = breite;
+        this.hoehe = hoehe;
+        this.kerning = kerning;
+    }
+
+    /**
+     * Diese Methode setzt die entsprechene Skalierung, Animation usw. für jedes Zeichen und ordnet den Text an.
+     * @param skalierungsfaktor Die Ziel-Skalierungsfaktor der Animation.
+     * @param abstandsanpassung Abstand zwischen Wörtern und Zeichen
+     * @param textAnimation     Wenn true ist, wird eine Animationssequenz (die 3D-Modelle aus verschiedenen Orten kommen)
+     *                          gestartet. Wenn false ist, wird der Text ohne diese Animation sofort erstellt.
+     */
+    public synchronized void anordnen(float skalierungsfaktor, float abstandsanpassung, boolean textAnimation) {
+        if (anordnung == null)
+            anordnung = new TextAnordnung(text, breite, kerning);
+        float[] x = new float[shapes.length];
+        int[] zeile = new int[shapes.length];
+        anordnung.anordnen(skalierungsfaktor, abstandsanpassung, x, zeile);
+        float zeilenabstand = TextAnordnung.zeilenabstand(skalierungsfaktor);
+
+        for (int i = 0; i < shapes.length; i++) {
+            float y = (hoehe[i] * skalierungsfaktor) - (zeile[i] * zeilenabstand);
+            //Wenn true ist, wird eine Animationssequenz gestartet, wenn false ist, wird der Text ohne diese Animation sofort erstellt
+            if (textAnimation) {
+                Random rand = new Random();
+                shapes[i].setTrans(new float[]{(rand.nextFloat() * 6) - 3, (rand.nextFloat() * 12) - 6, (rand.nextFloat() * 6) - 3});
+                shapes[i].setScale(skalierungsfaktor);
+                shapes[i].addAnimator(GLAnimatorFactoryCV_DEPRAC.makeAnimatorTransBezier(new float[]{0, 0, 0},
+                        new float[]{x[i], y, 0}, -1, 6000, 3500));
+            } else {
+                shapes[i].setTransX(x[i]);
+                shapes[i].setTransY(y);
+                shapes[i].setScale(skalierungsfaktor);
+            }
+        }
+    }
+
+    /**
+     * Vertauscht ein Schriftzeichen mit seinem linken oder rechten Nachbarn (am Anfang und Ende des Textes mit dem letzten bzw. ersten).
+     * Die Schriftzeichen werden erst beim nächsten {@link #anordnen(float, float, boolean)} an ihre neuen Positionen gesetzt.
+     * @param beruehrteSchriftzeichen Schriftzeichen, die vom Benutzer berührt wurde
+     * @param richtung                "left" oder "right"
+     * @return true, wenn die Schriftzeichen vertauscht wurden
+     */
+    public synchronized boolean tauschen(GLShapeCV beruehrteSchriftzeichen, String richtung) {
+        int index = index(beruehrteSchriftzeichen);
+        if (index < 0)
+            return false;
+        int ziel;
+        if ("left".equals(richtung))
+            ziel = index == 0 ? shapes.length - 1 : index - 1;
+        else if ("right".equals(richtung))
+            ziel = index == shapes.length - 1 ? 0 : index + 1;
+        else
+            return false;
+
+        char[] zeichen = text.toCharArray();
+        int position = position(index), zielPosition = position(ziel);
+        char tmp = zeichen[position];
+        zeichen[position] = zeichen[zielPosition];
+        zeichen[zielPosition] = tmp;
+        text = new String(zeichen);
+        tauschen(shapes, index, ziel);
+        tauschen(breite, index, ziel);
+        tauschen(hoehe, index, ziel);
+        textGeaendert();
+        return true;
+    }
+
+    /**
+     * Entfernt ein Schriftzeichen aus dem Text. Es wird nicht aus der GLSurfaceViewCV entfernt.
+     * @param schriftzeichen Das Schriftzeichen
+     * @return Der bisherige Index des Schriftzeichens oder -1, wenn es nicht zu diesem Text gehört
+     */
+    public synchronized int entfernen(GLShapeCV schriftzeichen) {
+        int index = index(schriftzeichen);
+        if (index >= 0)
+            entfernen(index);
+        return index;
+    }
+
+    /**
+     * Entfernt das Schriftzeichen mit dem angegebenen Index (ohne Leerzeichen gezählt) aus dem Text.
+     * @param index Der Index des Schriftzeichens
+     */
+    public synchronized void entfernen(int index) {
+        if (index < 0 || index >= shapes.length)
+            throw new IndexOutOfBoundsException("Index " + index + " bei " + shapes.length + " Schriftzeichen");
+        int position = position(index);
+        text = text.substring(0, position) + text.substring(position + 1);
+        shapes = ohne(shapes, index);
+        breite = SchriftzeichenUtility.elementEntfernen(breite, index);
+        hoehe = SchriftzeichenUtility.elementEntfernen(hoehe, index);
+        textGeaendert();
+    }
+
+    /**
+     * @param schriftzeichen Ein Schriftzeichen
+     * @return Der Index des Schriftzeichens (ohne Leerzeichen gezählt) oder -1, wenn es nicht zu diesem Text gehört
+     */
+    public synchronized int index(GLShapeCV schriftzeichen) {
+        for (int i = 0; i < shapes.length; i++)
+            if (shapes[i] == schriftzeichen)
+                return i;
+        return -1;
+    }
+
+    /**
+     * @return Der aktuelle Text
+     */
+    public synchronized String getText() {
+        return text;
+    }
+
+    /**
+     * @return Die Schriftzeichen des Textes (ohne Leerzeichen) als neues Array
+     */
+    public synchronized GLShapeCV[] getShapes() {
+        return shapes.clone();
+    }
+
+    private void textGeaendert() {
+        kerning = renderer.kerningBerechnen(TextRenderer.leerzeichenEntfernen(text));
+        anordnung = null;
+    }
+
+    /** Die Position des Schriftzeichens mit dem angegebenen Index im Text mit Leerzeichen. */
+    private int position(int index) {
+        for (int i = 0; i < text.length(); i++)
+            if (!Character.isWhitespace(text.charAt(i)) && index-- == 0)
+                return i;
+        throw new IndexOutOfBoundsException("Index " + index);
+    }
+
+    private static void tauschen(float[] arr, int i, int j) {
+        float tmp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = tmp;
+    }
+
+    private static void tauschen(GLShapeCV[] arr, int i, int j) {
+        GLShapeCV tmp = arr[i];
+        arr[i] = arr[j];
+        arr[j] = tmp;
+    }
+
+    private static GLShapeCV[] ohne(GLShapeCV[] arr, int index) {
+        GLShapeCV[] ergebnis = Arrays.copyOf(arr, arr.length - 1);
+        System.arraycopy(arr, index + 1, ergebnis, index, arr.length - index - 1);
+        return ergebnis;
+    }
+
+}
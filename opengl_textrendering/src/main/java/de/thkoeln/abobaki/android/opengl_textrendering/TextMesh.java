@@ -0,0 +1,178 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+import de.thkoeln.cvogt.android.opengl_utilities.GLMeshCV;
+import de.thkoeln.cvogt.android.opengl_utilities.GLShapeCV;
+
+/**
+ * TextMesh fasst die Schriftzeichen eines Textes zu einem einzigen GLShapeCV-Objekt zusammen, das unabhängig von der Länge
+ * des Textes mit einem einzigen Draw-Call gezeichnet wird.
+ * <p>
+ * Die Eckpunkte aller Schriftzeichen liegen hintereinander in einem dynamischen {@link GLMeshCV}. Eine Tabelle enthält für jedes
+ * Schriftzeichen die Nummer seines ersten Eckpunkts, eine zweite Tabelle (Transformationstabelle) die Modellmatrix,
+ * mit der seine Eckpunkte zuletzt berechnet wurden.
+ * <p>
+ * Die einzelnen Schriftzeichen bleiben als GLShapeCV-Objekte erhalten, werden aber nicht selbst gezeichnet: Sie tragen die Anordnung
+ * aus {@link SchriftzeichenUtility#textDarstellen(String, float, float, boolean)} und ihre Animatoren. Vor jedem Zeichnen wird die
+ * Modellmatrix jedes Schriftzeichens mit der Transformationstabelle verglichen; nur die Eckpunkte der Schriftzeichen, deren Matrix sich
+ * geändert hat, werden neu berechnet und in den Puffer geschrieben. Ein statischer Text kostet pro Bild nur einen Draw-Call.
+ * <p>
+ * Alle Schriftzeichen haben die Farbe des zusammengefassten Shapes (siehe {@link GLShapeCV#setTrianglesUniformColor(float[])}).
+ * Hat der Text mehr als 65536 Eckpunkte, werden 32-Bit-Indizes benötigt (Erweiterung GL_OES_element_index_uint).
+ */
+public final class TextMesh {
+
+    private final GLShapeCV[] schriftzeichen;
+    private final float[][] basisEckpunkte;
+    private final float[][] basisNormalen;
+    private final int[] ersterEckpunkt;
+    private final float[] transformationen;
+    private final GLMeshCV netz;
+    private final GLShapeCV shape;
+
+    // Arbeitsspeicher für abgleichen(), damit pro Bild keine Arrays angelegt werden
+    private final float[] matrix = new float[16];
+    private final float[] eckpunkte;
+    private final float[] normalen;
+
+    /**
+     * Fasst die Schriftzeichen zusammen. Ihre Eckpunkte werden mit ihren aktuellen Modellmatrizen berechnet.
+     * @param id             Die ID des zusammengefassten Shapes
+     * @param schriftzeichen Die angeordneten Schriftzeichen (im Netz-Modus, z.B. von textDarstellen). Sie dürfen nicht zusätzlich
+     *                       zur GLSurfaceViewCV hinzugefügt werden.
+     * @param farbe          Die Farbe des Textes
+     * @throws IllegalArgumentException wenn ein Schriftzeichen kein Netz hat
+     */
+    public TextMesh(String id, GLShapeCV[] schriftzeichen, float[] farbe) {
+        int anzahl = schriftzeichen.length;
+        this.schriftzeichen = schriftzeichen.clone();
+        basisEckpunkte = new float[anzahl][];
+        basisNormalen = new float[anzahl][];
+        ersterEckpunkt = new int[anzahl + 1];
+        transformationen = new float[16 * anzahl];
+
+        // Gleiche Zeichen haben dasselbe Netz, dessen Arrays nur einmal kopiert werden
+        Map<GLMeshCV, Integer> bekannt = new IdentityHashMap<>();
+        int anzahlIndizes = 0, groessteAnzahl = 0;
+        for (int i = 0; i < anzahl; i++) {
+            GLMeshCV glyphNetz = schriftzeichen[i].getMesh();
+            if (glyphNetz == null)
+                throw new IllegalArgumentException("Schriftzeichen ohne Netz: " + schriftzeichen[i].getId());
+            Integer vorhanden = bekannt.get(glyphNetz);
+            if (vorhanden != null) {
+                basisEckpunkte[i] = basisEckpunkte[vorhanden];
+                basisNormalen[i] = basisNormalen[vorhanden];
+            } else {
+                basisEckpunkte[i] = glyphNetz.getVertices();
+                basisNormalen[i] = glyphNetz.getNormals();
+                bekannt.put(glyphNetz, i);
+            }
+            int anzahlEckpunkte = glyphNetz.getNumberOfVertices();
+            ersterEckpunkt[i + 1] = ersterEckpunkt[i] + anzahlEckpunkte;
+            anzahlIndizes += 3 * glyphNetz.getNumberOfTriangles();
+            groessteAnzahl = Math.max(groessteAnzahl, anzahlEckpunkte);
+        }
+        eckpunkte = new float[3 * groessteAnzahl];
+        normalen = new float[3 * groessteAnzahl];
+
+        float[] alleEckpunkte = new float[3 * ersterEckpunkt[anzahl]];
+        float[] alleNormalen = new float[3 * ersterEckpunkt[anzahl]];
+        int[] alleIndizes = new int[anzahlIndizes];
+        int index = 0;
+        for (int i = 0; i < anzahl; i++) {
+            schriftzeichen[i].getModelMatrix(transformationen, 16 * i);
+            transformieren(i, alleEckpunkte, alleNormalen, 3 * ersterEckpunkt[i]);
+            for (int glyphIndex : schriftzeichen[i].getMesh().getIndices())
+                alleIndizes[index++] = ersterEckpunkt[i] + glyphIndex;
+        }
+        netz = new GLMeshCV(alleEckpunkte, alleNormalen, alleIndizes, true);
+        shape = new GLShapeCV(id, netz, farbe);
+        shape.setPreDrawAction(this::abgleichen);
+    }
+
+    /**
+     * @return Das zusammengefasste Shape, das zur GLSurfaceViewCV hinzugefügt wird
+     */
+    public GLShapeCV getShape() {
+        return shape;
+    }
+
+    /**
+     * @return Die Anzahl der Schriftzeichen
+     */
+    public int anzahlSchriftzeichen() {
+        return schriftzeichen.length;
+    }
+
+    /**
+     * Gibt ein Schriftzeichen zurück, z.B. um es zu verschieben oder ihm einen Animator hinzuzufügen.
+     * Änderungen seiner Modellmatrix werden beim nächsten Zeichnen übernommen.
+     * @param index Der Index des Schriftzeichens (ohne Leerzeichen)
+     * @return Das Schriftzeichen
+     */
+    public GLShapeCV getSchriftzeichen(int index) {
+        return schriftzeichen[index];
+    }
+
+    /**
+     * Startet die Animatoren der Schriftzeichen. Muss im UI-Thread aufgerufen werden, z.B. nachdem {@link #getShape()}
+     * zur GLSurfaceViewCV hinzugefügt wurde (dort werden nur die Animatoren des zusammengefassten Shapes gestartet).
+     */
+    public void animatorenStarten() {
+        for (GLShapeCV glyph : schriftzeichen)
+            glyph.startAnimators();
+    }
+
+    /**
+     * Wird vor jedem Zeichnen im OpenGL-Thread aufgerufen und berechnet die Eckpunkte der Schriftzeichen neu,
+     * deren Modellmatrix sich seit dem letzten Aufruf geändert hat.
+     */
+    private void abgleichen() {
+        for (int i = 0; i < schriftzeichen.length; i++) {
+            schriftzeichen[i].getModelMatrix(matrix, 0);
+            boolean geaendert = false;
+            for (int j = 0; j < 16; j++)
+                if (matrix[j] != transformationen[16 * i + j]) {
+                    geaendert = true;
+                    break;
+                }
+            if (!geaendert)
+                continue;
+            System.arraycopy(matrix, 0, transformationen, 16 * i, 16);
+            transformieren(i, eckpunkte, normalen, 0);
+            netz.setVertices(ersterEckpunkt[i], eckpunkte, normalen, ersterEckpunkt[i + 1] - ersterEckpunkt[i]);
+        }
+    }
+
+    /**
+     * Berechnet die Eckpunkte und Normalen eines Schriftzeichens mit seiner Matrix aus der Transformationstabelle.
+     * Die Normalen werden mit dem 3x3-Anteil der Matrix gedreht und wieder normiert.
+     */
+    private void transformieren(int i, float[] zielEckpunkte, float[] zielNormalen, int ziel) {
+        float[] m = transformationen;
+        int o = 16 * i;
+        float[] e = basisEckpunkte[i], n = basisNormalen[i];
+        for (int k = 0; k < e.length; k += 3) {
+            float x = e[k], y = e[k + 1], z = e[k + 2];
+            zielEckpunkte[ziel + k] = m[o] * x + m[o + 4] * y + m[o + 8] * z + m[o + 12];
+            zielEckpunkte[ziel + k + 1] = m[o + 1] * x + m[o + 5] * y + m[o + 9] * z + m[o + 13];
+            zielEckpunkte[ziel + k + 2] = m[o + 2] * x + m[o + 6] * y + m[o + 10] * z + m[o + 14];
+            float nx = n[k], ny = n[k + 1], nz = n[k + 2];
+            float tx = m[o] * nx + m[o + 4] * ny + m[o + 8] * nz;
+            float ty = m[o + 1] * nx + m[o + 5] * ny + m[o + 9] * nz;
+            float tz = m[o + 2] * nx + m[o + 6] * ny + m[o + 10] * nz;
+            float laenge = (float) Math.sqrt(tx * tx + ty * ty + tz * tz);
+            if (laenge > 0) {
+                tx /= laenge;
+                ty /= laenge;
+                tz /= laenge;
+            }
+            zielNormalen[ziel + k] = tx;
+            zielNormalen[ziel + k + 1] = ty;
+            zielNormalen[ziel + k + 2] = tz;
+        }
+    }
+
+}
@@ -0,0 +1,359 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import android.graphics.Bitmap;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import de.thkoeln.cvogt.android.opengl_utilities.GLMeshCV;
+import de.thkoeln.cvogt.android.opengl_utilities.GLShapeCV;
+import de.thkoeln.cvogt.android.opengl_utilities.GLTriangleCV;
+import de.thkoeln.cvogt.android.opengl_utilities.GraphicsUtilsCV;
+
+/**
+ * TextRenderer erzeugt {@link TextBlock}-Objekte aus den Schriftzeichen einer Quelle: einem {@link GlyphPack},
+ * einem {@link SchriftzeichenProvider} oder einem {@link SchriftzeichenCache} vor der Datenbank.
+ * <p>
+ * Ein TextRenderer wird nach dem Erzeugen nicht mehr verändert. Alles, was zu einem Text gehört (Schriftzeichen, Breiten, Höhen,
+ * Kerning und Anordnung), liegt in seinem TextBlock. Daher können mehrere Texte gleichzeitig in verschiedenen Threads erzeugt
+ * und angeordnet werden, z.B. viele unabhängige Beschriftungen einer Szene mit {@link #textDarstellenAsync(String, float, float, boolean)}
+ * auf allen Prozessorkernen.
+ * <p>
+ * Der TextRenderer, den die Initialisierungsmethoden von {@link SchriftzeichenUtility} anlegen, wird mit
+ * {@link SchriftzeichenUtility#getTextRenderer()} abgefragt. Werden die Schriftzeichen aus der Datenbank gelesen, dürfen die Methoden
+ * nicht im UI-Thread aufgerufen werden.
+ */
+public final class TextRenderer {
+
+    /**
+     * Die Threads, in denen die asynchronen Methoden die Schriftzeichen laden und die TextBlock-Objekte erzeugen.
+     * Der Pool wird beim ersten Aufruf angelegt und von allen TextRenderern geteilt.
+     */
+    private static ExecutorService arbeiter;
+
+    private final GlyphPack glyphPack;
+    private final SchriftzeichenProvider provider;
+    private final SchriftzeichenCache cache;
+    private final SchriftzeichenMetriken metriken;
+    // Werden beim ersten flach dargestellten Text berechnet
+    private DistanzfeldAtlas distanzfeldAtlas;
+    private Bitmap distanzfeldBitmap;
+
+    /**
+     * Ein TextRenderer, der die Schriftzeichen aus einem eingeblendeten GlyphPack liest.
+     * @param glyphPack Der GlyphPack
+     */
+    public TextRenderer(GlyphPack glyphPack) {
+        this(glyphPack, null, null, glyphPack.metriken());
+    }
+
+    /**
+     * Ein TextRenderer, der die Schriftzeichen bei Bedarf lädt.
+     * @param provider Der Provider
+     * @param metriken Die Maße und das Kerning aller Schriftzeichen oder null; dann werden die Maße der geladenen Schriftzeichen verwendet
+     */
+    public TextRenderer(SchriftzeichenProvider provider, SchriftzeichenMetriken metriken) {
+        this(null, provider, null, metriken);
+    }
+
+    /**
+     * Ein TextRenderer, der die Schriftzeichen aus der Datenbank liest.
+     * @param cache    Der Cache vor der Datenbank
+     * @param metriken Die Maße und das Kerning aller Schriftzeichen oder null; dann werden die Maße der geladenen Schriftzeichen verwendet
+     */
+    public TextRenderer(SchriftzeichenCache cache, SchriftzeichenMetriken metriken) {
+        this(null, null, cache, metriken);
+    }
+
+    private TextRenderer(GlyphPack glyphPack, SchriftzeichenProvider provider, SchriftzeichenCache cache, SchriftzeichenMetriken metriken) {
+        this.glyphPack = glyphPack;
+        this.provider = provider;
+        this.cache = cache;
+        this.metriken = metriken;
+    }
+
+    /**
+     * Erzeugt die Schriftzeichen eines Textes, ohne sie anzuordnen.
+     * @param text Der Text
+     * @return Der TextBlock
+     * @throws IllegalArgumentException wenn ein Zeichen nicht in der Quelle enthalten ist
+     */
+    public TextBlock erzeugen(String text) {
+        String ohneLeerzeichen = leerzeichenEntfernen(text);
+        float[] breite = new float[ohneLeerzeichen.length()];
+        float[] hoehe = new float[ohneLeerzeichen.length()];
+        GLShapeCV[] shapes = erzeugeSchriftzeichen(ohneLeerzeichen, breite, hoehe);
+        return new TextBlock(this, text, shapes, breite, hoehe, kerningBerechnen(ohneLeerzeichen));
+    }
+
+    /**
+     * Erzeugt die Schriftzeichen eines Textes und ordnet sie an (siehe {@link TextBlock#anordnen(float, float, boolean)}).
+     * @param text              eingegebene Text
+     * @param skalierungsfaktor Die Ziel-Skalierungsfaktor der Animation.
+     * @param abstandsanpassung Abstand zwischen Wörtern und Zeichen
+     * @param textAnimation     Wenn true ist, wird eine Animationssequenz (die 3D-Modelle aus verschiedenen Orten kommen)
+     *                          gestartet. Wenn false ist, wird der Text ohne diese Animation sofort erstellt.
+     * @return Der angeordnete TextBlock
+     */
+    public TextBlock textDarstellen(String text, float skalierungsfaktor, float abstandsanpassung, boolean textAnimation) {
+        TextBlock block = erzeugen(text);
+        block.anordnen(skalierungsfaktor, abstandsanpassung, textAnimation);
+        return block;
+    }
+
+    /**
+     * Wie {@link #textDarstellen(String, float, float, boolean)}, aber in einem Hintergrund-Thread.
+     * Mehrere Aufrufe werden parallel ausgeführt. Bei einem unbekannten Zeichen wird das Future mit einer IllegalArgumentException abgeschlossen.
+     * @return Ein Future, das den angeordneten TextBlock liefert
+     */
+    public CompletableFuture<TextBlock> textDarstellenAsync(String text, float skalierungsfaktor, float abstandsanpassung, boolean textAnimation) {
+        return CompletableFuture.supplyAsync(() -> textDarstellen(text, skalierungsfaktor, abstandsanpassung, textAnimation), arbeiter());
+    }
+
+    /**
+     * Stellt einen Text flach dar, z.B. als weit entfernte oder zweidimensionale Beschriftung: jedes Schriftzeichen als Rechteck
+     * aus zwei Dreiecken mit dem {@link DistanzfeldAtlas} als Textur, alle Schriftzeichen in einem einzigen GLShapeCV-Objekt,
+     * das mit einem einzigen Zeichenaufruf gezeichnet wird. Die Schriftzeichen liegen in der xy-Ebene an denselben Positionen
+     * wie die der dreidimensionalen Texte von {@link TextBlock#anordnen(float, float, boolean)}.
+     * <p>
+     * Beim ersten Aufruf wird der Atlas aus allen Schriftzeichen der Quelle berechnet.
+     * @param text              eingegebene Text
+     * @param skalierungsfaktor Der Skalierungsfaktor
+     * @param abstandsanpassung Abstand zwischen Wörtern und Zeichen
+     * @param farbe             Die Farbe der Schriftzeichen (RGBA)
+     * @return Das GLShapeCV-Objekt mit allen Schriftzeichen
+     * @throws IllegalArgumentException wenn der Text leer ist oder ein Zeichen nicht in der Quelle enthalten ist
+     * @throws IllegalStateException    wenn die Maße der Schriftzeichen nicht bekannt sind
+     */
+    public GLShapeCV flachDarstellen(String text, float skalierungsfaktor, float abstandsanpassung, float[] farbe) {
+        if (metriken == null)
+            throw new IllegalStateException("Flache Texte benötigen die SchriftzeichenMetriken");
+        String ohneLeerzeichen = leerzeichenEntfernen(text);
+        int len = ohneLeerzeichen.length();
+        if (len == 0)
+            throw new IllegalArgumentException("Leerer Text");
+        DistanzfeldAtlas atlas = getDistanzfeldAtlas();
+        Bitmap bitmap;
+        synchronized (this) {
+            if (distanzfeldBitmap == null)
+                distanzfeldBitmap = Bitmap.createBitmap(atlas.argb(), atlas.getBreite(), atlas.getHoehe(), Bitmap.Config.ARGB_8888);
+            bitmap = distanzfeldBitmap;
+        }
+
+        float[] breite = new float[len];
+        int[] atlasIndex = new int[len];
+        for (int i = 0; i < len; i++) {
+            int id = metriken.id(ohneLeerzeichen.charAt(i));
+            atlasIndex[i] = atlas.index(ohneLeerzeichen.charAt(i));
+            if (id < 0 || atlasIndex[i] < 0)
+                throw new IllegalArgumentException("Kein Schriftzeichen: " + ohneLeerzeichen.charAt(i));
+            breite[i] = metriken.breite(id);
+        }
+        float[] x = new float[len];
+        int[] zeile = new int[len];
+        new TextAnordnung(text, breite, kerningBerechnen(ohneLeerzeichen)).anordnen(skalierungsfaktor, abstandsanpassung, x, zeile);
+        float zeilenabstand = TextAnordnung.zeilenabstand(skalierungsfaktor);
+
+        GLTriangleCV[] dreiecke = new GLTriangleCV[2 * len];
+        float[] rechteck = new float[4], uv = new float[4];
+        for (int i = 0; i < len; i++) {
+            float y = metriken.mitte(metriken.id(ohneLeerzeichen.charAt(i))) * skalierungsfaktor - zeile[i] * zeilenabstand;
+            atlas.rechteck(atlasIndex[i], rechteck);
+            atlas.texturKoordinaten(atlasIndex[i], uv);
+            float links = x[i] + rechteck[0] * skalierungsfaktor, unten = y + rechteck[1] * skalierungsfaktor;
+            float rechts = x[i] + rechteck[2] * skalierungsfaktor, oben = y + rechteck[3] * skalierungsfaktor;
+            // v wächst in der Bitmap nach unten
+            dreiecke[2 * i] = new GLTriangleCV(ohneLeerzeichen.charAt(i) + "," + i,
+                    new float[][]{{links, unten, 0}, {rechts, unten, 0}, {rechts, oben, 0}}, bitmap,
+                    new float[]{uv[0], uv[3], uv[2], uv[3], uv[2], uv[1]});
+            dreiecke[2 * i + 1] = new GLTriangleCV(ohneLeerzeichen.charAt(i) + "," + i,
+                    new float[][]{{links, unten, 0}, {rechts, oben, 0}, {links, oben, 0}}, bitmap,
+                    new float[]{uv[0], uv[3], uv[2], uv[1], uv[0], uv[1]});
+        }
+        GLShapeCV shape = new GLShapeCV(text, dreiecke);
+        shape.setSignedDistanceFieldColor(farbe);
+        return shape;
+    }
+
+    /**
+     * Gibt den Atlas mit den Distanzfeldern aller Schriftzeichen der Quelle zurück und berechnet ihn beim ersten Aufruf.
+     * Die Schriftzeichen werden dabei aus dem GlyphPack gelesen oder anhand der {@link SchriftzeichenMetriken} geladen.
+     * @return Der Atlas
+     * @throws IllegalStateException wenn die Schriftzeichen nicht aus dem GlyphPack gelesen werden und die Metriken nicht bekannt sind
+     */
+    public synchronized DistanzfeldAtlas getDistanzfeldAtlas() {
+        if (distanzfeldAtlas != null)
+            return distanzfeldAtlas;
+        if (glyphPack != null)
+            distanzfeldAtlas = DistanzfeldAtlas.berechnen(glyphPack);
+        else {
+            if (metriken == null)
+                throw new IllegalStateException("Der Atlas benötigt die SchriftzeichenMetriken");
+            List<String> namen = new ArrayList<>();
+            for (int id = 0; id < metriken.anzahl(); id++)
+                namen.add(new String(Character.toChars(metriken.codePoint(id))));
+            List<Schriftzeichen> schriftzeichen = new ArrayList<>();
+            if (provider != null) {
+                for (String name : namen) {
+                    Schriftzeichen geladen = provider.get(name);
+                    if (geladen != null)
+                        schriftzeichen.add(geladen);
+                }
+            } else
+                schriftzeichen.addAll(cache.get(namen).values());
+            distanzfeldAtlas = DistanzfeldAtlas.berechnen(schriftzeichen);
+        }
+        return distanzfeldAtlas;
+    }
+
+    /**
+     * @param eingabe eingegebene Text
+     * @return Die Anzahl der Vertices der Schriftzeichen des Textes
+     */
+    public int anzahlVertices(String eingabe) {
+        int anzahl = 0;
+        eingabe = leerzeichenEntfernen(eingabe);
+        Map<String, Schriftzeichen> ausDatenbank = glyphPack == null && provider == null ? ausDatenbankLaden(eingabe) : null;
+        for (int i = 0; i < eingabe.length(); i++) {
+            String zeichen = SchriftzeichenUtility.charAt(eingabe, i);
+            if (glyphPack != null) {
+                GlyphPack.Glyph glyph = glyphPack.glyph(zeichen);
+                anzahl = anzahl + (glyph != null ? glyph.anzahlEckpunkte() : 0);
+            } else {
+                Schriftzeichen geladen = provider != null ? provider.get(zeichen) : ausDatenbank.get(zeichen);
+                anzahl = anzahl + (geladen != null ? geladen.anzahlVertices : 0);
+            }
+        }
+        return anzahl;
+    }
+
+    /**
+     * @return Die Maße und das Kerning aller Schriftzeichen oder null, wenn sie nicht bekannt sind
+     */
+    public SchriftzeichenMetriken getMetriken() {
+        return metriken;
+    }
+
+    /**
+     * Diese Methode konvertiert den eingegebenen Text in ein Array von GLShapeCV-Objekten.
+     * Darüber hinaus werden die Breite und die Höhe des Mittelpunkts über der Grundlinie (siehe {@link SchriftzeichenMetrik#mitte()})
+     * der 3D-Schriftzeichen-Modelle in die übergebenen Arrays geschrieben.
+     * @param eingabeOhneLeerzeichen Der eingegebene Text ohne Leerzeichen.
+     * @param breite                 Array für die Breiten der Schriftzeichen (Länge wie der Text)
+     * @param hoehe                  Array für die Höhen der Schriftzeichen (Länge wie der Text)
+     */
+    GLShapeCV[] erzeugeSchriftzeichen(String eingabeOhneLeerzeichen, float[] breite, float[] hoehe) {
+        int len = eingabeOhneLeerzeichen.length();
+        GLShapeCV[] schriftzeichen = new GLShapeCV[len];
+        // Alle benötigten Schriftzeichen werden mit einer einzigen Abfrage aus der Datenbank gelesen
+        Map<String, Schriftzeichen> ausDatenbank = glyphPack == null && provider == null ? ausDatenbankLaden(eingabeOhneLeerzeichen) : null;
+        Map<String, GLMeshCV> netze = new HashMap<>();
+        for (int i = 0; i < len; i++) {
+            String zeichen = SchriftzeichenUtility.charAt(eingabeOhneLeerzeichen, i);
+            GlyphPack.Glyph glyph = null;
+            Schriftzeichen geladen = null;
+            if (glyphPack != null) {
+                glyph = glyphPack.glyph(zeichen);
+                if (glyph == null)
+                    throw new IllegalArgumentException("Kein Schriftzeichen im GlyphPack: " + zeichen);
+            } else {
+                geladen = provider != null ? provider.get(zeichen) : ausDatenbank.get(zeichen);
+                if (geladen == null)
+                    throw new IllegalArgumentException("Kein Schriftzeichen: " + zeichen);
+            }
+            if (glyph != null) {
+                breite[i] = glyph.breite();
+                hoehe[i] = metriken != null ? metriken.mitte(glyph.id()) : (glyph.oberlaenge() - glyph.unterlaenge()) / 2;
+            } else {
+                breite[i] = geladen.modelBreite;
+                hoehe[i] = geladen.getMetrik().mitte();
+            }
+            //Alle Vorkommen eines Zeichens benutzen dasselbe Netz, dessen Puffer nur einmal angelegt werden.
+            //Jedes GLShapeCV-Objekt hat nur seine eigene Modellmatrix und Farbe.
+            GLMeshCV netz = netze.get(zeichen);
+            if (netz == null) {
+                //Mit den Detailstufen, die gezeichnet werden, wenn das Schriftzeichen auf dem Bildschirm klein ist
+                if (glyph != null)
+                    // Die Daten werden direkt aus der eingeblendeten Datei gelesen
+                    netz = new GLMeshCV(glyph.eckpunkte(), glyph.normalen(), glyph.indizes(), glyph.detailstufen());
+                else
+                    netz = new GLMeshCV(geladen.eckpunkte, geladen.normalen, geladen.indizes, geladen.getDetailstufen());
+                netze.put(zeichen, netz);
+            }
+            schriftzeichen[i] = new GLShapeCV(zeichen + "," + i, netz, GraphicsUtilsCV.white);
+        }
+        return schriftzeichen;
+    }
+
+    /**
+     * Bestimmt das Kerning aufeinanderfolgender Schriftzeichen eines Textes, in der Tabelle der {@link SchriftzeichenMetriken}
+     * oder, wenn sie fehlt, aus den Maßen der geladenen Schriftzeichen.
+     * @param eingabeOhneLeerzeichen Der Text ohne Leerzeichen
+     * @return Für jedes Schriftzeichen das Kerning zu seinem Vorgänger in Modell-Einheiten (0 für das erste)
+     */
+    float[] kerningBerechnen(String eingabeOhneLeerzeichen) {
+        int len = eingabeOhneLeerzeichen.length();
+        float[] kerning = new float[len];
+        if (metriken != null) {
+            int vorgaenger = -1;
+            for (int i = 0; i < len; i++) {
+                int id = metriken.id(eingabeOhneLeerzeichen.charAt(i));
+                if (i > 0 && vorgaenger >= 0 && id >= 0)
+                    kerning[i] = metriken.kerning(vorgaenger, id);
+                vorgaenger = id;
+            }
+        } else if (provider != null) {
+            SchriftzeichenMetrik vorgaenger = null;
+            for (int i = 0; i < len; i++) {
+                Schriftzeichen geladen = provider.get(SchriftzeichenUtility.charAt(eingabeOhneLeerzeichen, i));
+                SchriftzeichenMetrik metrik = geladen != null ? geladen.getMetrik() : null;
+                if (i > 0)
+                    kerning[i] = SchriftzeichenMetrik.kerning(vorgaenger, metrik);
+                vorgaenger = metrik;
+            }
+        }
+        return kerning;
+    }
+
+    /**
+     * Liest alle Schriftzeichen eines Textes aus dem Cache. Die fehlenden werden mit einer einzigen Abfrage aus der Datenbank gelesen.
+     * @param text Der Text ohne Leerzeichen
+     * @return Die Schriftzeichen, nach Namen
+     */
+    private Map<String, Schriftzeichen> ausDatenbankLaden(String text) {
+        Set<String> namen = new HashSet<>();
+        for (int i = 0; i < text.length(); i++)
+            namen.add(SchriftzeichenUtility.charAt(text, i));
+        return cache.get(namen);
+    }
+
+    /**
+     * Gibt den Pool für die asynchronen Methoden zurück und legt ihn beim ersten Aufruf an:
+     * so viele Daemon-Threads wie Prozessorkerne, damit die Anwendung beim Beenden nicht auf sie wartet.
+     */
+    static synchronized Executor arbeiter() {
+        if (arbeiter == null) {
+            AtomicInteger nummer = new AtomicInteger();
+            arbeiter = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors(), aufgabe -> {
+                Thread thread = new Thread(aufgabe, "SchriftzeichenArbeiter-" + nummer.incrementAndGet());
+                thread.setDaemon(true);
+                return thread;
+            });
+        }
+        return arbeiter;
+    }
+
+    static String leerzeichenEntfernen(String str) {
+        return str.replaceAll("\\s+", "");
+    }
+
+}
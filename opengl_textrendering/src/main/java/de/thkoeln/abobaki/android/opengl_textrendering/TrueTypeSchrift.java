@@ -0,0 +1,491 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * TrueTypeSchrift liest die Umrisse der Schriftzeichen aus einer TrueType-Datei (.ttf), aus denen
+ * {@link SchriftzeichenExtrusion} die 3D-Schriftzeichen erzeugt.
+ * <p>
+ * Gelesen werden nur die Tabellen, die für die Umrisse nötig sind: head (Einheiten pro Em, Format von loca), maxp (Anzahl der Glyphen),
+ * cmap (Zuordnung Code Point - Glyphe, Format 4 und 12), loca und glyf (einfache und zusammengesetzte Glyphen).
+ * Die quadratischen Bézier-Kurven der Umrisse werden in Strecken unterteilt, die höchstens um eine vorgegebene Toleranz von der Kurve abweichen.
+ * Hinting-Anweisungen werden ignoriert. Schriften mit kubischen Kurven (OpenType/CFF) und Schriftsammlungen (.ttc) werden nicht unterstützt.
+ * <p>
+ * Die Daten werden nur mit absoluten Zugriffen gelesen. Ein Objekt kann daher gleichzeitig von mehreren Threads benutzt werden.
+ * Die Klasse ist nicht von Android abhängig.
+ */
+public final class TrueTypeSchrift {
+
+    /** Die höchste Schachtelungstiefe zusammengesetzter Glyphen. */
+    private static final int MAX_TIEFE = 8;
+
+    private final ByteBuffer daten;
+    private final int einheitenProEm;
+    private final boolean langeOffsets;
+    private final int anzahlGlyphen;
+    private final int loca;
+    private final int glyf;
+    private final int glyfLaenge;
+    private final int cmap;
+    private final int cmapFormat;
+
+    private TrueTypeSchrift(ByteBuffer daten) throws IOException {
+        this.daten = daten.duplicate().order(ByteOrder.BIG_ENDIAN);
+        if (this.daten.capacity() < 12)
+            throw new IOException("Keine TrueType-Datei");
+        int version = this.daten.getInt(0);
+        if (version != 0x00010000 && version != 0x74727565) // 1.0 oder "true"
+            throw new IOException(version == 0x4F54544F ? "OpenType-Schriften mit CFF-Umrissen werden nicht unterstützt" : "Keine TrueType-Datei");
+        int head = tabelle("head", 54), maxp = tabelle("maxp", 6);
+        loca = tabelle("loca", 0);
+        glyf = tabelle("glyf", 0);
+        glyfLaenge = laenge("glyf");
+        einheitenProEm = this.daten.getShort(head + 18) & 0xFFFF;
+        langeOffsets = this.daten.getShort(head + 50) != 0;
+        anzahlGlyphen = this.daten.getShort(maxp + 4) & 0xFFFF;
+        if (einheitenProEm == 0 || !imBereich(loca, (long) (anzahlGlyphen + 1) * (langeOffsets ? 4 : 2)))
+            throw new IOException("Beschädigte Tabellen head, maxp oder loca");
+
+        // Bevorzugt wird die Tabelle für alle Unicode-Zeichen (Format 12), sonst die für die Basic Multilingual Plane (Format 4)
+        int tabellenCmap = tabelle("cmap", 4);
+        int anzahlTabellen = this.daten.getShort(tabellenCmap + 2) & 0xFFFF;
+        int gefunden = -1, gefundenesFormat = -1;
+        for (int i = 0; i < anzahlTabellen; i++) {
+            int eintrag = tabellenCmap + 4 + 8 * i;
+            if (!imBereich(eintrag, 8))
+                break;
+            int plattform = this.daten.getShort(eintrag) & 0xFFFF, kodierung = this.daten.getShort(eintrag + 2) & 0xFFFF;
+            int position = tabellenCmap + this.daten.getInt(eintrag + 4);
+            if (!(plattform == 0 || plattform == 3 && (kodierung == 1 || kodierung == 10)) || !imBereich(position, 2))
+                continue;
+            int format = this.daten.getShort(position) & 0xFFFF;
+            if (format == 12 && gefundenesFormat != 12 || format == 4 && gefundenesFormat == -1) {
+                gefunden = position;
+                gefundenesFormat = format;
+            }
+        }
+        if (gefunden == -1)
+            throw new IOException("Keine Unicode-Tabelle (cmap Format 4 oder 12)");
+        cmap = gefunden;
+        cmapFormat = gefundenesFormat;
+        if (!imBereich(cmap, cmapFormat == 12 ? 16 + 12L * (this.daten.getInt(cmap + 12) & 0xFFFFFFFFL) : 14 + 8L * ((this.daten.getShort(cmap + 6) & 0xFFFF) / 2)))
+            throw new IOException("Beschädigte cmap-Tabelle");
+    }
+
+    /**
+     * Öffnet eine TrueType-Datei und blendet sie in den Speicher ein.
+     * @param datei Die Datei
+     * @return Die Schrift
+     * @throws IOException wenn die Datei nicht gelesen werden kann oder keine unterstützte TrueType-Datei ist
+     */
+    public static TrueTypeSchrift oeffnen(File datei) throws IOException {
+        try (RandomAccessFile zugriff = new RandomAccessFile(datei, "r");
+             FileChannel kanal = zugriff.getChannel()) {
+            return new TrueTypeSchrift(kanal.map(FileChannel.MapMode.READ_ONLY, 0, kanal.size()));
+        }
+    }
+
+    /**
+     * Liest eine TrueType-Datei vollständig ein, z.B. aus den Assets.
+     * @param in Der Inhalt der Datei
+     * @return Die Schrift
+     * @throws IOException wenn der Inhalt nicht gelesen werden kann oder keine unterstützte TrueType-Datei ist
+     */
+    public static TrueTypeSchrift lesen(InputStream in) throws IOException {
+        ByteArrayOutputStream inhalt = new ByteArrayOutputStream();
+        byte[] puffer = new byte[8192];
+        for (int gelesen; (gelesen = in.read(puffer)) != -1; )
+            inhalt.write(puffer, 0, gelesen);
+        return new TrueTypeSchrift(ByteBuffer.wrap(inhalt.toByteArray()));
+    }
+
+    /**
+     * Öffnet eine TrueType-Datei, die bereits im Speicher liegt.
+     * @param daten Der Inhalt der Datei (ab Position 0 des Puffers)
+     * @return Die Schrift
+     * @throws IOException wenn die Daten keine unterstützte TrueType-Datei sind
+     */
+    public static TrueTypeSchrift aus(ByteBuffer daten) throws IOException {
+        return new TrueTypeSchrift(daten);
+    }
+
+    /**
+     * @return Die Anzahl der Schrift-Einheiten pro Em, auf die sich alle Koordinaten der Datei beziehen
+     */
+    public int getEinheitenProEm() {
+        return einheitenProEm;
+    }
+
+    /**
+     * @param codePoint Der Unicode-Code-Point eines Zeichens
+     * @return true, wenn die Schrift eine Glyphe für das Zeichen enthält
+     */
+    public boolean enthaelt(int codePoint) {
+        return glyphIndex(codePoint) > 0;
+    }
+
+    /**
+     * Liest den Umriss eines Zeichens.
+     * @param codePoint  Der Unicode-Code-Point des Zeichens
+     * @param skalierung Der Faktor, mit dem die Koordinaten (in Schrift-Einheiten) multipliziert werden
+     * @param toleranz   Die größte Abweichung der Strecken von den Kurven nach der Skalierung (größer als 0)
+     * @return Die Konturen, jede als Polygon (x0, y0, x1, y1, ...) ohne Wiederholung des ersten Punkts, die Grundlinie bei y = 0;
+     *         eine leere Liste für ein Zeichen ohne Umriss (z.B. ein Leerzeichen) oder null, wenn die Schrift das Zeichen nicht enthält
+     */
+    public List<float[]> umriss(int codePoint, float skalierung, float toleranz) {
+        if (!(toleranz > 0))
+            throw new IllegalArgumentException("Toleranz " + toleranz);
+        int glyphe = glyphIndex(codePoint);
+        if (glyphe <= 0)
+            return null;
+        List<float[]> konturen = new ArrayList<>();
+        glypheLesen(glyphe, new float[]{skalierung, 0, 0, skalierung, 0, 0}, toleranz, konturen, 0);
+        return konturen;
+    }
+
+    /**
+     * Sucht die Glyphe eines Zeichens in der cmap-Tabelle.
+     * @return Der Index der Glyphe oder 0 (.notdef), wenn die Schrift das Zeichen nicht enthält
+     */
+    int glyphIndex(int codePoint) {
+        if (cmapFormat == 12) {
+            long anzahlGruppen = daten.getInt(cmap + 12) & 0xFFFFFFFFL;
+            long unten = 0, oben = anzahlGruppen - 1;
+            while (unten <= oben) {
+                long mitte = (unten + oben) >>> 1;
+                int gruppe = cmap + 16 + (int) (12 * mitte);
+                long start = daten.getInt(gruppe) & 0xFFFFFFFFL, ende = daten.getInt(gruppe + 4) & 0xFFFFFFFFL;
+                if (codePoint < start)
+                    oben = mitte - 1;
+                else if (codePoint > ende)
+                    unten = mitte + 1;
+                else
+                    return gueltig(daten.getInt(gruppe + 8) + (int) (codePoint - start));
+            }
+            return 0;
+        }
+        if (codePoint > 0xFFFF)
+            return 0;
+        int anzahlSegmente = (daten.getShort(cmap + 6) & 0xFFFF) / 2;
+        int endCodes = cmap + 14, startCodes = endCodes + 2 * anzahlSegmente + 2;
+        int deltas = startCodes + 2 * anzahlSegmente, rangeOffsets = deltas + 2 * anzahlSegmente;
+        // Die Segmente sind aufsteigend nach ihrem letzten Code sortiert
+        int unten = 0, oben = anzahlSegmente - 1;
+        while (unten < oben) {
+            int mitte = (unten + oben) >>> 1;
+            if ((daten.getShort(endCodes + 2 * mitte) & 0xFFFF) < codePoint)
+                unten = mitte + 1;
+            else
+                oben = mitte;
+        }
+        if (anzahlSegmente == 0 || (daten.getShort(endCodes + 2 * unten) & 0xFFFF) < codePoint
+                || (daten.getShort(startCodes + 2 * unten) & 0xFFFF) > codePoint)
+            return 0;
+        int start = daten.getShort(startCodes + 2 * unten) & 0xFFFF;
+        int delta = daten.getShort(deltas + 2 * unten);
+        int rangeOffset = daten.getShort(rangeOffsets + 2 * unten) & 0xFFFF;
+        if (rangeOffset == 0)
+            return gueltig((codePoint + delta) & 0xFFFF);
+        int position = rangeOffsets + 2 * unten + rangeOffset + 2 * (codePoint - start);
+        if (!imBereich(position, 2))
+            return 0;
+        int glyphe = daten.getShort(position) & 0xFFFF;
+        return glyphe == 0 ? 0 : gueltig((glyphe + delta) & 0xFFFF);
+    }
+
+    private int gueltig(int glyphe) {
+        return glyphe > 0 && glyphe < anzahlGlyphen ? glyphe : 0;
+    }
+
+    /**
+     * Liest eine Glyphe und hängt ihre Konturen an die Liste an.
+     * @param transformation Die affine Abbildung (a, b, c, d, e, f): x' = a x + c y + e, y' = b x + d y + f
+     */
+    private void glypheLesen(int glyphe, float[] transformation, float toleranz, List<float[]> konturen, int tiefe) {
+        int anfang, ende;
+        if (langeOffsets) {
+            anfang = daten.getInt(loca + 4 * glyphe);
+            ende = daten.getInt(loca + 4 * glyphe + 4);
+        } else {
+            anfang = 2 * (daten.getShort(loca + 2 * glyphe) & 0xFFFF);
+            ende = 2 * (daten.getShort(loca + 2 * glyphe + 2) & 0xFFFF);
+        }
+        // Eine Glyphe ohne Daten hat keinen Umriss
+        if (ende <= anfang || anfang < 0 || ende > glyfLaenge)
+            return;
+        int position = glyf + anfang;
+        int anzahlKonturen = daten.getShort(position);
+        if (anzahlKonturen >= 0)
+            einfacheGlypheLesen(position, anzahlKonturen, glyf + ende, transformation, toleranz, konturen);
+        else if (tiefe < MAX_TIEFE)
+            zusammengesetzteGlypheLesen(position + 10, glyf + ende, transformation, toleranz, konturen, tiefe);
+    }
+
+    private void einfacheGlypheLesen(int position, int anzahlKonturen, int ende, float[] t, float toleranz, List<float[]> konturen) {
+        int endpunkte = position + 10;
+        if (anzahlKonturen == 0 || !imBereich(endpunkte, 2L * anzahlKonturen + 2) || endpunkte + 2 * anzahlKonturen + 2 > ende)
+            return;
+        int anzahlPunkte = (daten.getShort(endpunkte + 2 * (anzahlKonturen - 1)) & 0xFFFF) + 1;
+        int p = endpunkte + 2 * anzahlKonturen;
+        p += 2 + (daten.getShort(p) & 0xFFFF); // Hinting-Anweisungen
+
+        // Die Flags werden mit ihren Wiederholungen gelesen, danach die x- und die y-Koordinaten (Differenzen zum vorigen Punkt)
+        byte[] flags = new byte[anzahlPunkte];
+        for (int i = 0; i < anzahlPunkte; ) {
+            if (p >= ende)
+                return;
+            byte flag = daten.get(p++);
+            flags[i++] = flag;
+            if ((flag & 0x08) != 0 && p < ende)
+                for (int wiederholung = daten.get(p++) & 0xFF; wiederholung > 0 && i < anzahlPunkte; wiederholung--)
+                    flags[i++] = flag;
+        }
+        int[] x = new int[anzahlPunkte], y = new int[anzahlPunkte];
+        p = koordinatenLesen(flags, x, p, ende, 0x02, 0x10);
+        p = koordinatenLesen(flags, y, p, ende, 0x04, 0x20);
+        if (p < 0)
+            return;
+
+        int erster = 0;
+        for (int k = 0; k < anzahlKonturen; k++) {
+            int letzter = daten.getShort(endpunkte + 2 * k) & 0xFFFF;
+            if (letzter >= anzahlPunkte || letzter < erster)
+                return;
+            float[] kontur = konturUnterteilen(flags, x, y, erster, letzter, t, toleranz);
+            if (kontur.length >= 6)
+                konturen.add(kontur);
+            erster = letzter + 1;
+        }
+    }
+
+    /**
+     * Liest die x- oder y-Koordinaten einer einfachen Glyphe.
+     * @return Die Position nach den Koordinaten oder -1, wenn die Glyphe über ihr Ende hinausgeht
+     */
+    private int koordinatenLesen(byte[] flags, int[] werte, int p, int ende, int kurz, int gleichOderPositiv) {
+        int wert = 0;
+        for (int i = 0; i < flags.length; i++) {
+            if ((flags[i] & kurz) != 0) {
+                if (p >= ende)
+                    return -1;
+                int betrag = daten.get(p++) & 0xFF;
+                wert += (flags[i] & gleichOderPositiv) != 0 ? betrag : -betrag;
+            } else if ((flags[i] & gleichOderPositiv) == 0) {
+                if (p + 2 > ende)
+                    return -1;
+                wert += daten.getShort(p);
+                p += 2;
+            }
+            werte[i] = wert;
+        }
+        return p;
+    }
+
+    /**
+     * Wandelt eine Kontur aus Punkten auf der Kurve und Kontrollpunkten in ein Polygon um.
+     * Zwischen zwei aufeinanderfolgenden Kontrollpunkten liegt implizit ein Punkt auf der Kurve in ihrer Mitte.
+     */
+    private static float[] konturUnterteilen(byte[] flags, int[] x, int[] y, int erster, int letzter, float[] t, float toleranz) {
+        int anzahl = letzter - erster + 1;
+        float[] px = new float[anzahl], py = new float[anzahl];
+        boolean[] aufKurve = new boolean[anzahl];
+        for (int i = 0; i < anzahl; i++) {
+            int punkt = erster + i;
+            px[i] = t[0] * x[punkt] + t[2] * y[punkt] + t[4];
+            py[i] = t[1] * x[punkt] + t[3] * y[punkt] + t[5];
+            aufKurve[i] = (flags[punkt] & 0x01) != 0;
+        }
+        // Der Anfang ist ein Punkt auf der Kurve, notfalls die Mitte zwischen zwei Kontrollpunkten
+        int anfang = -1;
+        for (int i = 0; i < anzahl && anfang == -1; i++)
+            if (aufKurve[i])
+                anfang = i;
+        // Die Anzahl der übrigen Punkte, bevor die Kontur zum Anfang zurückkehrt
+        int uebrige = anzahl;
+        float startX, startY;
+        if (anfang == -1) {
+            anfang = 0;
+            startX = (px[0] + px[anzahl - 1]) / 2;
+            startY = (py[0] + py[anzahl - 1]) / 2;
+        } else {
+            startX = px[anfang];
+            startY = py[anfang];
+            anfang = (anfang + 1) % anzahl;
+            uebrige = anzahl - 1;
+        }
+
+        Punkte polygon = new Punkte(2 * anzahl + 2);
+        polygon.hinzufuegen(startX, startY);
+        float letztesX = startX, letztesY = startY;
+        boolean kontrollpunkt = false;
+        float kontrollX = 0, kontrollY = 0;
+        for (int n = 0; n <= uebrige; n++) {
+            float zielX, zielY;
+            boolean zielAufKurve;
+            if (n == uebrige) {
+                // Zurück zum Anfang
+                zielX = startX;
+                zielY = startY;
+                zielAufKurve = true;
+            } else {
+                int i = (anfang + n) % anzahl;
+                zielX = px[i];
+                zielY = py[i];
+                zielAufKurve = aufKurve[i];
+            }
+            if (!zielAufKurve) {
+                if (kontrollpunkt) {
+                    float mitteX = (kontrollX + zielX) / 2, mitteY = (kontrollY + zielY) / 2;
+                    kurveUnterteilen(polygon, letztesX, letztesY, kontrollX, kontrollY, mitteX, mitteY, toleranz);
+                    letztesX = mitteX;
+                    letztesY = mitteY;
+                }
+                kontrollX = zielX;
+                kontrollY = zielY;
+                kontrollpunkt = true;
+            } else {
+                if (kontrollpunkt)
+                    kurveUnterteilen(polygon, letztesX, letztesY, kontrollX, kontrollY, zielX, zielY, toleranz);
+                else
+                    polygon.hinzufuegen(zielX, zielY);
+                letztesX = zielX;
+                letztesY = zielY;
+                kontrollpunkt = false;
+            }
+        }
+        // Der letzte Punkt ist wieder der erste
+        return Arrays.copyOf(polygon.werte, Math.max(polygon.laenge - 2, 0));
+    }
+
+    /**
+     * Die Anzahl der Strecken, in die eine quadratische Bézier-Kurve unterteilt wird: Bei n gleich langen Parameter-Abschnitten
+     * weicht jede Strecke höchstens |P0 - 2 P1 + P2| / (4 n²) von der Kurve ab.
+     */
+    static int anzahlStrecken(float x0, float y0, float x1, float y1, float x2, float y2, float toleranz) {
+        float dx = x0 - 2 * x1 + x2, dy = y0 - 2 * y1 + y2;
+        double abweichung = Math.sqrt(dx * dx + dy * dy) / 4;
+        return Math.max(1, Math.min(64, (int) Math.ceil(Math.sqrt(abweichung / toleranz))));
+    }
+
+    /** Hängt die Endpunkte der Strecken einer Kurve (ohne ihren Anfang) an das Polygon an. */
+    private static void kurveUnterteilen(Punkte polygon, float x0, float y0, float x1, float y1, float x2, float y2, float toleranz) {
+        int n = anzahlStrecken(x0, y0, x1, y1, x2, y2, toleranz);
+        for (int i = 1; i <= n; i++) {
+            float s = (float) i / n, r = 1 - s;
+            polygon.hinzufuegen(r * r * x0 + 2 * r * s * x1 + s * s * x2, r * r * y0 + 2 * r * s * y1 + s * s * y2);
+        }
+    }
+
+    /** Die Koordinaten eines wachsenden Polygons (x0, y0, x1, y1, ...). */
+    private static final class Punkte {
+
+        float[] werte;
+        int laenge;
+
+        Punkte(int kapazitaet) {
+            werte = new float[2 * kapazitaet];
+        }
+
+        void hinzufuegen(float x, float y) {
+            if (laenge + 2 > werte.length)
+                werte = Arrays.copyOf(werte, 2 * werte.length + 2);
+            werte[laenge++] = x;
+            werte[laenge++] = y;
+        }
+    }
+
+    private void zusammengesetzteGlypheLesen(int p, int ende, float[] t, float toleranz, List<float[]> konturen, int tiefe) {
+        while (p + 4 <= ende) {
+            int flags = daten.getShort(p) & 0xFFFF, glyphe = daten.getShort(p + 2) & 0xFFFF;
+            p += 4;
+            float e, f;
+            if ((flags & 0x0001) != 0) { // ARG_1_AND_2_ARE_WORDS
+                e = daten.getShort(p);
+                f = daten.getShort(p + 2);
+                p += 4;
+            } else {
+                e = daten.get(p);
+                f = daten.get(p + 1);
+                p += 2;
+            }
+            // Die Verschiebung über die Zuordnung von Punkten (ARGS_ARE_XY_VALUES nicht gesetzt) wird nicht unterstützt
+            if ((flags & 0x0002) == 0)
+                e = f = 0;
+            float a = 1, b = 0, c = 0, d = 1;
+            if ((flags & 0x0008) != 0) { // WE_HAVE_A_SCALE
+                a = d = f2Dot14(p);
+                p += 2;
+            } else if ((flags & 0x0040) != 0) { // WE_HAVE_AN_X_AND_Y_SCALE
+                a = f2Dot14(p);
+                d = f2Dot14(p + 2);
+                p += 4;
+            } else if ((flags & 0x0080) != 0) { // WE_HAVE_A_TWO_BY_TWO
+                a = f2Dot14(p);
+                b = f2Dot14(p + 2);
+                c = f2Dot14(p + 4);
+                d = f2Dot14(p + 6);
+                p += 8;
+            }
+            if (p > ende)
+                return;
+            // Die Abbildung der Komponente gefolgt von der Abbildung der zusammengesetzten Glyphe
+            float[] komponente = {
+                    t[0] * a + t[2] * b, t[1] * a + t[3] * b,
+                    t[0] * c + t[2] * d, t[1] * c + t[3] * d,
+                    t[0] * e + t[2] * f + t[4], t[1] * e + t[3] * f + t[5]};
+            if (glyphe < anzahlGlyphen)
+                glypheLesen(glyphe, komponente, toleranz, konturen, tiefe + 1);
+            if ((flags & 0x0020) == 0) // MORE_COMPONENTS
+                return;
+        }
+    }
+
+    private float f2Dot14(int position) {
+        return daten.getShort(position) / 16384f;
+    }
+
+    /**
+     * Sucht eine Tabelle im Verzeichnis der Datei.
+     * @return Die Position der Tabelle
+     * @throws IOException wenn die Tabelle fehlt oder kürzer als die Mindestlänge ist
+     */
+    private int tabelle(String name, int mindestLaenge) throws IOException {
+        int eintrag = eintrag(name);
+        int position = daten.getInt(eintrag + 8), laenge = daten.getInt(eintrag + 12);
+        if (laenge < mindestLaenge || !imBereich(position, laenge))
+            throw new IOException("Beschädigte Tabelle " + name);
+        return position;
+    }
+
+    private int laenge(String name) throws IOException {
+        return daten.getInt(eintrag(name) + 12);
+    }
+
+    private int eintrag(String name) throws IOException {
+        int kennung = name.charAt(0) << 24 | name.charAt(1) << 16 | name.charAt(2) << 8 | name.charAt(3);
+        int anzahlTabellen = daten.getShort(4) & 0xFFFF;
+        for (int i = 0; i < anzahlTabellen; i++) {
+            int eintrag = 12 + 16 * i;
+            if (!imBereich(eintrag, 16))
+                break;
+            if (daten.getInt(eintrag) == kennung)
+                return eintrag;
+        }
+        throw new IOException("Tabelle " + name + " fehlt");
+    }
+
+    private boolean imBereich(int position, long laenge) {
+        return position >= 0 && laenge >= 0 && position + laenge <= daten.capacity();
+    }
+
+}
@@ -0,0 +1,140 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit-Tests für Detailstufen, die auf dem Entwicklungsrechner (JVM) ausgeführt werden.
+ */
+public class DetailstufenTest {
+
+    private static Schriftzeichen importieren(String dateiName) throws IOException {
+        try (InputStream in = new FileInputStream(new File(ObjTokenizerTest.ASSETS, dateiName))) {
+            return SchriftzeichenImport.ausObj(dateiName, in);
+        }
+    }
+
+    /** Zählt, wie oft jede Kante (zwischen zwei Positionen) in den Dreiecken vorkommt. */
+    private static Map<String, Integer> kanten(float[] eckpunkte, int[] indizes) {
+        Map<String, Integer> kanten = new HashMap<>();
+        for (int d = 0; d < indizes.length; d += 3)
+            for (int k = 0; k < 3; k++) {
+                String a = position(eckpunkte, indizes[d + k]), b = position(eckpunkte, indizes[d + (k + 1) % 3]);
+                kanten.merge(a.compareTo(b) < 0 ? a + "|" + b : b + "|" + a, 1, Integer::sum);
+            }
+        return kanten;
+    }
+
+    private static String position(float[] eckpunkte, int eckpunkt) {
+        return eckpunkte[3 * eckpunkt] + "," + eckpunkte[3 * eckpunkt + 1] + "," + eckpunkte[3 * eckpunkt + 2];
+    }
+
+    @Test
+    public void stufenWerdenKleinerUndBleibenGeschlossen() throws IOException {
+        for (String dateiName : new String[]{"O.obj", "small_g.obj", "small_e.obj"}) {
+            Schriftzeichen s = importieren(dateiName);
+            int[][] stufen = s.getDetailstufen();
+            assertEquals(Detailstufen.ANTEILE.length, stufen.length);
+            boolean geschlossen = Collections.max(kanten(s.eckpunkte, s.indizes).values()) == 2
+                    && Collections.min(kanten(s.eckpunkte, s.indizes).values()) == 2;
+            int vorher = s.indizes.length;
+            for (int i = 0; i < stufen.length; i++) {
+                int[] stufe = stufen[i];
+                assertEquals(0, stufe.length % 3);
+                assertTrue(dateiName + " Stufe " + (i + 1), stufe.length < vorher);
+                assertTrue(stufe.length > 0);
+                for (int index : stufe)
+                    assertTrue(index >= 0 && index < s.anzahlVertices);
+                for (int d = 0; d < stufe.length; d += 3) {
+                    assertNotEquals(position(s.eckpunkte, stufe[d]), position(s.eckpunkte, stufe[d + 1]));
+                    assertNotEquals(position(s.eckpunkte, stufe[d + 1]), position(s.eckpunkte, stufe[d + 2]));
+                    assertNotEquals(position(s.eckpunkte, stufe[d]), position(s.eckpunkte, stufe[d + 2]));
+                }
+                // Ein geschlossenes Netz bleibt geschlossen: Jede Kante gehört zu genau zwei Dreiecken
+                if (geschlossen)
+                    for (int anzahl : kanten(s.eckpunkte, stufe).values())
+                        assertEquals(dateiName + " Stufe " + (i + 1), 2, anzahl);
+                vorher = stufe.length;
+            }
+        }
+    }
+
+    @Test
+    public void ebeneFlaecheWirdVereinfacht() {
+        // Ein ebenes Gitter aus 20 x 20 Quadraten, dessen Rand erhalten bleiben muss
+        int n = 21;
+        float[] eckpunkte = new float[3 * n * n];
+        float[] normalen = new float[3 * n * n];
+        for (int i = 0; i < n * n; i++) {
+            eckpunkte[3 * i] = i % n;
+            eckpunkte[3 * i + 1] = i / n;
+            normalen[3 * i + 2] = 1;
+        }
+        int[] indizes = new int[6 * (n - 1) * (n - 1)];
+        int position = 0;
+        for (int y = 0; y < n - 1; y++)
+            for (int x = 0; x < n - 1; x++) {
+                int a = y * n + x;
+                int[] quadrat = {a, a + 1, a + n + 1, a, a + n + 1, a + n};
+                System.arraycopy(quadrat, 0, indizes, position, 6);
+                position += 6;
+            }
+        int[][] stufen = Detailstufen.berechnen(eckpunkte, normalen, indizes);
+        for (int i = 0; i < stufen.length; i++) {
+            assertTrue(stufen[i].length <= Detailstufen.ANTEILE[i] * indizes.length);
+            // Die Fläche und die Ausrichtung bleiben gleich
+            float flaeche = 0;
+            for (int d = 0; d < stufen[i].length; d += 3) {
+                int a = 3 * stufen[i][d], b = 3 * stufen[i][d + 1], c = 3 * stufen[i][d + 2];
+                float z = (eckpunkte[b] - eckpunkte[a]) * (eckpunkte[c + 1] - eckpunkte[a + 1])
+                        - (eckpunkte[b + 1] - eckpunkte[a + 1]) * (eckpunkte[c] - eckpunkte[a]);
+                assertTrue(z > 0);
+                flaeche += z / 2;
+            }
+            assertEquals((n - 1) * (n - 1), flaeche, 1e-3f);
+        }
+    }
+
+    @Test
+    public void zusammenfassenUndAufteilen() {
+        int[][] stufen = {{0, 1, 2, 2, 1, 3}, {}, {4, 5, 6}};
+        int[][] ergebnis = Detailstufen.aufteilen(Detailstufen.zusammenfassen(stufen));
+        assertEquals(stufen.length, ergebnis.length);
+        for (int i = 0; i < stufen.length; i++)
+            assertArrayEquals(stufen[i], ergebnis[i]);
+    }
+
+    @Test
+    public void glyphPackEnthaeltDetailstufen() throws IOException {
+        Schriftzeichen o = importieren("O.obj");
+        Schriftzeichen a = importieren("A.obj");
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GlyphPack.schreiben(Arrays.asList(o, a), out);
+        GlyphPack pack = GlyphPack.aus(ByteBuffer.wrap(out.toByteArray()));
+        for (Schriftzeichen s : new Schriftzeichen[]{o, a}) {
+            int[][] erwartet = s.getDetailstufen();
+            ShortBuffer[] stufen = pack.glyph(s.modellName).detailstufen();
+            assertEquals(erwartet.length, stufen.length);
+            for (int i = 0; i < stufen.length; i++) {
+                assertEquals(erwartet[i].length, stufen[i].remaining());
+                for (int index : erwartet[i])
+                    assertEquals(index, stufen[i].get() & 0xFFFF);
+            }
+            assertEquals(s.indizes.length, pack.glyph(s.modellName).indizes().remaining());
+        }
+    }
+
+}
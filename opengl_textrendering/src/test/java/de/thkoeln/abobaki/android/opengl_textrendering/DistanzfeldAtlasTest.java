@@ -0,0 +1,70 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit-Tests für DistanzfeldAtlas, die auf dem Entwicklungsrechner (JVM) ausgeführt werden.
+ */
+public class DistanzfeldAtlasTest {
+
+    private static DistanzfeldAtlas atlas(String... dateiNamen) throws IOException {
+        List<Schriftzeichen> schriftzeichen = new ArrayList<>();
+        for (String dateiName : dateiNamen)
+            try (InputStream in = new FileInputStream(new File(ObjTokenizerTest.ASSETS, dateiName))) {
+                schriftzeichen.add(SchriftzeichenImport.ausObj(dateiName, in));
+            }
+        return DistanzfeldAtlas.berechnen(schriftzeichen);
+    }
+
+    /** Der Wert des Texels an der relativen Position (0 bis 1) in der Zelle eines Schriftzeichens. */
+    private static int wert(DistanzfeldAtlas atlas, char zeichen, float u, float v) {
+        float[] uv = new float[4];
+        atlas.texturKoordinaten(atlas.index(zeichen), uv);
+        int x = (int) ((uv[0] + u * (uv[2] - uv[0])) * atlas.getBreite());
+        int y = (int) ((uv[1] + v * (uv[3] - uv[1])) * atlas.getHoehe());
+        return atlas.getWerte()[y * atlas.getBreite() + x] & 0xFF;
+    }
+
+    @Test
+    public void innenUndAussen() throws IOException {
+        DistanzfeldAtlas atlas = atlas("H.obj", "O.obj");
+        // Die Mitte des Querbalkens des H liegt innen, die Ecken der Zelle außen
+        assertTrue(wert(atlas, 'H', 0.5f, 0.5f) > 128);
+        assertTrue(wert(atlas, 'H', 0.01f, 0.01f) < 128);
+        assertTrue(wert(atlas, 'H', 0.99f, 0.99f) < 128);
+        // Das Loch des O liegt außen
+        assertTrue(wert(atlas, 'O', 0.5f, 0.5f) < 128);
+        assertEquals(0, wert(atlas, 'O', 0.01f, 0.01f));
+    }
+
+    @Test
+    public void aufbau() throws IOException {
+        DistanzfeldAtlas atlas = atlas("O.obj", "H.obj", "A.obj");
+        assertEquals(3, atlas.anzahl());
+        assertEquals(0, atlas.getHoehe() & (atlas.getHoehe() - 1));
+        assertEquals(-1, atlas.index('Z'));
+        float[] uv = new float[4], rechteck = new float[4];
+        for (char zeichen : new char[]{'A', 'H', 'O'}) {
+            int index = atlas.index(zeichen);
+            assertTrue(index >= 0);
+            atlas.texturKoordinaten(index, uv);
+            for (float wert : uv)
+                assertTrue(wert >= 0 && wert <= 1);
+            assertTrue(uv[0] < uv[2] && uv[1] < uv[3]);
+            // Das Rechteck hat dasselbe Seitenverhältnis wie die Zelle im Atlas
+            atlas.rechteck(index, rechteck);
+            assertEquals((uv[2] - uv[0]) * atlas.getBreite() / ((uv[3] - uv[1]) * atlas.getHoehe()),
+                    (rechteck[2] - rechteck[0]) / (rechteck[3] - rechteck[1]), 1e-3f);
+        }
+    }
+
+}
@@ -0,0 +1,108 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit-Tests für die FortlaufendeAnordnung, die auf dem Entwicklungsrechner (JVM) ausgeführt werden:
+ * Nach jeder Bearbeitung muss die fortgeschriebene Anordnung der vollständigen TextAnordnung des neuen Textes entsprechen.
+ */
+public class FortlaufendeAnordnungTest {
+
+    private static final float TOLERANZ = 1e-4f;
+
+    @Test
+    public void einfuegenLoeschenUndErsetzenWieVollstaendigeAnordnung() {
+        Random zufall = new Random(3);
+        for (int durchlauf = 0; durchlauf < 20; durchlauf++) {
+            float skalierungsfaktor = 1 + zufall.nextFloat() * 9;
+            float abstandsanpassung = zufall.nextFloat() * 0.05f;
+            FortlaufendeAnordnung anordnung = new FortlaufendeAnordnung(skalierungsfaktor, abstandsanpassung);
+            String anfangstext = TextAnordnungTest.zufallsText(zufall, 1 + zufall.nextInt(300));
+            bearbeiten(anordnung, 0, 0, anfangstext);
+            pruefen(anordnung, skalierungsfaktor, abstandsanpassung);
+            for (int bearbeitung = 0; bearbeitung < 100; bearbeitung++) {
+                String text = anordnung.getText();
+                int index = zufall.nextInt(text.length() + 1);
+                switch (zufall.nextInt(3)) {
+                    case 0:
+                        bearbeiten(anordnung, index, 0, zufallsZeichen(zufall, 1 + zufall.nextInt(6)));
+                        break;
+                    case 1:
+                        bearbeiten(anordnung, index, Math.min(zufall.nextInt(6), text.length() - index), "");
+                        break;
+                    default:
+                        if (index < text.length())
+                            bearbeiten(anordnung, index, 1, zufallsZeichen(zufall, 1));
+                }
+                pruefen(anordnung, skalierungsfaktor, abstandsanpassung);
+            }
+        }
+    }
+
+    @Test
+    public void zeilenDahinterWerdenNurVerschoben() {
+        // Ein langes Wort am Anfang schiebt den Rest um eine Zeile nach unten, ohne dass er neu angeordnet wird
+        FortlaufendeAnordnung anordnung = new FortlaufendeAnordnung(5, 0);
+        String text = TextAnordnungTest.zufallsText(new Random(11), 2000);
+        bearbeiten(anordnung, 0, 0, text);
+        int zeilen = anordnung.zeile(anordnung.anzahl() - 1);
+        bearbeiten(anordnung, 0, 0, "wwwwwwwwwwwwwwwwww ");
+        assertTrue(anordnung.neuAngeordnetBis() < anordnung.anzahl() / 2);
+        assertEquals(zeilen + 1, anordnung.zeile(anordnung.anzahl() - 1));
+        pruefen(anordnung, 5, 0);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void falscheAnzahlBreiten() {
+        new FortlaufendeAnordnung(1, 0).bearbeiten(0, 0, "ab c", new float[2], FortlaufendeAnordnungTest::kerningBerechnen);
+    }
+
+    private static void bearbeiten(FortlaufendeAnordnung anordnung, int index, int laenge, String neu) {
+        anordnung.bearbeiten(index, laenge, neu, breiten(FortlaufendeAnordnung.ohneLeerzeichen(neu)),
+                FortlaufendeAnordnungTest::kerningBerechnen);
+    }
+
+    /** Vergleicht die fortgeschriebene Anordnung mit der vollständigen Anordnung des aktuellen Textes. */
+    private static void pruefen(FortlaufendeAnordnung anordnung, float skalierungsfaktor, float abstandsanpassung) {
+        String text = anordnung.getText();
+        String ohneLeerzeichen = FortlaufendeAnordnung.ohneLeerzeichen(text);
+        assertEquals(text, ohneLeerzeichen.length(), anordnung.anzahl());
+        float[] x = new float[ohneLeerzeichen.length()];
+        int[] zeile = new int[ohneLeerzeichen.length()];
+        new TextAnordnung(text, breiten(ohneLeerzeichen), kerningBerechnen(ohneLeerzeichen))
+                .anordnen(skalierungsfaktor, abstandsanpassung, x, zeile);
+        for (int i = 0; i < x.length; i++) {
+            assertEquals(text + " (Zeile von Schriftzeichen " + i + ")", zeile[i], anordnung.zeile(i));
+            assertEquals(text + " (x von Schriftzeichen " + i + ")", x[i], anordnung.x(i), TOLERANZ);
+        }
+    }
+
+    /** Zeichen ohne Leerzeichen oder mit Leerzeichen, damit auch Wörter getrennt und zusammengefügt werden. */
+    private static String zufallsZeichen(Random zufall, int laenge) {
+        StringBuilder zeichen = new StringBuilder();
+        for (int i = 0; i < laenge; i++)
+            zeichen.append(zufall.nextInt(5) == 0 ? ' ' : (char) ('a' + zufall.nextInt(26)));
+        return zeichen.toString();
+    }
+
+    /** Feste Breiten je Zeichen (etwa 0.02 bis 0.12), damit die Breiten nach einer Bearbeitung dieselben sind. */
+    private static float[] breiten(String ohneLeerzeichen) {
+        float[] breite = new float[ohneLeerzeichen.length()];
+        for (int i = 0; i < breite.length; i++)
+            breite[i] = 0.02f + (ohneLeerzeichen.charAt(i) * 37 % 11) * 0.01f;
+        return breite;
+    }
+
+    /** Ein Kerning, das nur vom Zeichenpaar abhängt, wie {@link TextRenderer#kerningBerechnen(String)}. */
+    static float[] kerningBerechnen(String ohneLeerzeichen) {
+        float[] kerning = new float[ohneLeerzeichen.length()];
+        for (int i = 1; i < kerning.length; i++)
+            kerning[i] = ((ohneLeerzeichen.charAt(i - 1) * 31 + ohneLeerzeichen.charAt(i)) % 7 - 3) * 0.003f;
+        return kerning;
+    }
+
+}
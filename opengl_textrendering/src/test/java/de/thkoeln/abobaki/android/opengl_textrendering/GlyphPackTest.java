@@ -0,0 +1,198 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit-Tests für das GlyphPack-Format (Version 3), die auf dem Entwicklungsrechner (JVM) ausgeführt werden:
+ * Die geschriebenen Schriftzeichen müssen aus der eingeblendeten Datei unverändert zurückkommen.
+ */
+public class GlyphPackTest {
+
+    @Rule
+    public final TemporaryFolder ordner = new TemporaryFolder();
+
+    private static Schriftzeichen importieren(String dateiName) throws IOException {
+        try (InputStream in = new FileInputStream(new File(ObjTokenizerTest.ASSETS, dateiName))) {
+            return SchriftzeichenImport.ausObj(dateiName, in);
+        }
+    }
+
+    /** Schriftzeichen in anderer Reihenfolge als nach Code Point sortiert. */
+    private static List<Schriftzeichen> schriftzeichen() throws IOException {
+        List<Schriftzeichen> schriftzeichen = new ArrayList<>();
+        for (String dateiName : new String[]{"V.obj", "A.obj", "small_g.obj", "0.obj", "!.obj", "O.obj"})
+            schriftzeichen.add(importieren(dateiName));
+        return schriftzeichen;
+    }
+
+    private static byte[] schreiben(List<Schriftzeichen> schriftzeichen) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GlyphPack.schreiben(schriftzeichen, out);
+        return out.toByteArray();
+    }
+
+    @Test
+    public void schreibenUndOeffnen() throws IOException {
+        List<Schriftzeichen> schriftzeichen = schriftzeichen();
+        File datei = ordner.newFile("schriftzeichen.gpak");
+        try (OutputStream out = new FileOutputStream(datei)) {
+            GlyphPack.schreiben(schriftzeichen, out);
+        }
+        GlyphPack pack = GlyphPack.oeffnen(datei);
+
+        assertEquals(schriftzeichen.size(), pack.anzahl());
+        for (Schriftzeichen s : schriftzeichen) {
+            GlyphPack.Glyph glyph = pack.glyph(s.modellName);
+            assertNotNull(s.modellName, glyph);
+            assertEquals(s.modellName.codePointAt(0), glyph.codePoint());
+            assertEquals(s.modelBreite, glyph.breite(), 0);
+            assertEquals(s.modelHoehe, glyph.hoehe(), 0);
+            assertEquals(s.getMetrik().oberlaenge, glyph.oberlaenge(), 0);
+            assertEquals(s.getMetrik().unterlaenge, glyph.unterlaenge(), 0);
+            assertEquals(s.eckpunkte.length / 3, glyph.anzahlEckpunkte());
+            assertArrayEquals(s.eckpunkte, lesen(glyph.eckpunkte()), 0);
+            assertArrayEquals(s.normalen, lesen(glyph.normalen()), 0);
+            assertArrayEquals(s.indizes, lesen(glyph.indizes()));
+            int[][] detailstufen = s.getDetailstufen();
+            ShortBuffer[] stufen = glyph.detailstufen();
+            assertEquals(detailstufen.length, stufen.length);
+            for (int i = 0; i < stufen.length; i++)
+                assertArrayEquals(detailstufen[i], lesen(stufen[i]));
+        }
+    }
+
+    @Test
+    public void binaereSucheFindetJedesZeichenUndKeinFehlendes() throws IOException {
+        List<Schriftzeichen> schriftzeichen = schriftzeichen();
+        GlyphPack pack = GlyphPack.aus(ByteBuffer.wrap(schreiben(schriftzeichen)));
+        int[] codePoints = new int[schriftzeichen.size()];
+        for (int i = 0; i < codePoints.length; i++)
+            codePoints[i] = schriftzeichen.get(i).modellName.codePointAt(0);
+        Arrays.sort(codePoints);
+        // Die Glyph-ID ist der Index in der nach Code Point sortierten Zeichentabelle
+        for (int id = 0; id < codePoints.length; id++)
+            assertEquals(id, pack.glyph(codePoints[id]).id());
+        assertNull(pack.glyph(codePoints[0] - 1));
+        assertNull(pack.glyph(codePoints[codePoints.length - 1] + 1));
+        assertNull(pack.glyph('B'));
+        assertNull(pack.glyph(""));
+        assertNull(pack.glyph("AV"));
+        assertNull(GlyphPack.aus(ByteBuffer.wrap(schreiben(new ArrayList<>()))).glyph('A'));
+    }
+
+    @Test
+    public void ausschnitteSindUnabhaengig() throws IOException {
+        Schriftzeichen a = importieren("A.obj");
+        GlyphPack.Glyph glyph = GlyphPack.aus(ByteBuffer.wrap(schreiben(Arrays.asList(a, importieren("V.obj"))))).glyph("A");
+        // Jeder Aufruf liefert einen neuen Ausschnitt genau über den Daten des Schriftzeichens
+        FloatBuffer eckpunkte = glyph.eckpunkte();
+        assertEquals(0, eckpunkte.position());
+        assertEquals(a.eckpunkte.length, eckpunkte.remaining());
+        eckpunkte.get(new float[eckpunkte.remaining()]);
+        assertEquals(a.eckpunkte.length, glyph.eckpunkte().remaining());
+        assertEquals(a.eckpunkte[0], glyph.eckpunkte().get(0), 0);
+        assertEquals(a.normalen[0], glyph.normalen().get(0), 0);
+        assertEquals(a.indizes.length, glyph.indizes().remaining());
+    }
+
+    @Test
+    public void kerningTabelle() throws IOException {
+        List<Schriftzeichen> schriftzeichen = schriftzeichen();
+        GlyphPack pack = GlyphPack.aus(ByteBuffer.wrap(schreiben(schriftzeichen)));
+        String[] namen = new String[schriftzeichen.size()];
+        float[] breite = new float[namen.length];
+        SchriftzeichenMetrik[] metrik = new SchriftzeichenMetrik[namen.length];
+        for (int i = 0; i < namen.length; i++) {
+            namen[i] = schriftzeichen.get(i).modellName;
+            breite[i] = schriftzeichen.get(i).modelBreite;
+            metrik[i] = schriftzeichen.get(i).getMetrik();
+        }
+        SchriftzeichenMetriken erwartet = SchriftzeichenMetriken.berechnen(namen, breite, metrik);
+        SchriftzeichenMetriken metriken = pack.metriken();
+        assertEquals(namen.length, metriken.anzahl());
+        for (String links : namen)
+            for (String rechts : namen) {
+                int l = metriken.id(links.codePointAt(0)), r = metriken.id(rechts.codePointAt(0));
+                assertEquals(pack.glyph(links).id(), l);
+                assertEquals(links + rechts, erwartet.kerning(erwartet.id(links.codePointAt(0)), erwartet.id(rechts.codePointAt(0))),
+                        metriken.kerning(l, r), 0);
+            }
+        // A und V rücken zusammen
+        assertTrue(metriken.kerning(metriken.id('A'), metriken.id('V')) < 0);
+    }
+
+    @Test
+    public void abgeschnittenerKopfWirdAbgelehnt() throws IOException {
+        byte[] daten = schreiben(schriftzeichen());
+        ablehnen(Arrays.copyOf(daten, GlyphPack.KOPF_GROESSE - 1));
+        // Die Zeichentabelle passt nicht mehr in die Datei
+        ablehnen(Arrays.copyOf(daten, GlyphPack.KOPF_GROESSE + GlyphPack.EINTRAG_GROESSE));
+        // Die Kerning-Tabelle am Ende fehlt
+        ablehnen(Arrays.copyOf(daten, daten.length - 4));
+    }
+
+    @Test
+    public void falscheKennungOderVersionWirdAbgelehnt() throws IOException {
+        byte[] daten = schreiben(schriftzeichen());
+        ByteBuffer falscheKennung = ByteBuffer.wrap(daten.clone()).order(ByteOrder.LITTLE_ENDIAN);
+        falscheKennung.putInt(0, 'G' | 'L' << 8 | 'T' << 16 | 'F' << 24);
+        ablehnen(falscheKennung.array());
+        for (int version : new int[]{GlyphPack.VERSION - 1, GlyphPack.VERSION + 1}) {
+            ByteBuffer falscheVersion = ByteBuffer.wrap(daten.clone()).order(ByteOrder.LITTLE_ENDIAN);
+            falscheVersion.putInt(4, version);
+            ablehnen(falscheVersion.array());
+        }
+        // Big-endian geschrieben ist die Kennung eine andere
+        ByteBuffer bigEndian = ByteBuffer.wrap(daten.clone());
+        bigEndian.putInt(0, GlyphPack.KENNUNG);
+        ablehnen(bigEndian.array());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void doppeltesZeichenWirdNichtGeschrieben() throws IOException {
+        schreiben(Arrays.asList(importieren("A.obj"), importieren("A.obj")));
+    }
+
+    private static void ablehnen(byte[] daten) {
+        try {
+            GlyphPack.aus(ByteBuffer.wrap(daten));
+            fail("GlyphPack mit " + daten.length + " Byte wurde nicht abgelehnt");
+        } catch (IOException erwartet) {
+            // abgelehnt
+        }
+    }
+
+    private static float[] lesen(FloatBuffer puffer) {
+        float[] werte = new float[puffer.remaining()];
+        puffer.get(werte);
+        return werte;
+    }
+
+    /** Liest die Indizes als unsigned short. */
+    private static int[] lesen(ShortBuffer puffer) {
+        int[] werte = new int[puffer.remaining()];
+        for (int i = 0; i < werte.length; i++)
+            werte[i] = puffer.get() & 0xFFFF;
+        return werte;
+    }
+
+}
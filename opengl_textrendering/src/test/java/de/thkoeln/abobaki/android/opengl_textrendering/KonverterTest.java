@@ -0,0 +1,82 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Arrays;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit-Tests für die BLOB-Konverter der Datenbank, die auf dem Entwicklungsrechner (JVM) ausgeführt werden.
+ */
+public class KonverterTest {
+
+    @Test
+    public void schriftzeichenUnveraendert() throws IOException {
+        Schriftzeichen s;
+        try (InputStream in = new FileInputStream(new File(ObjTokenizerTest.ASSETS, "A.obj"))) {
+            s = SchriftzeichenImport.ausObj("A.obj", in);
+        }
+        assertNotNull(s.detailstufen);
+        assertArrayEquals(s.eckpunkte, Konverter.blobZuFloatArray(Konverter.floatArrayZuBlob(s.eckpunkte)), 0);
+        assertArrayEquals(s.normalen, Konverter.blobZuFloatArray(Konverter.floatArrayZuBlob(s.normalen)), 0);
+        assertArrayEquals(s.indizes, Konverter.blobZuIntArray(Konverter.intArrayZuBlob(s.indizes)));
+        assertArrayEquals(s.detailstufen, Konverter.blobZuIntArray(Konverter.intArrayZuBlob(s.detailstufen)));
+        assertArrayEquals(s.metrik.profilLinks, Konverter.blobZuFloatArray(Konverter.floatArrayZuBlob(s.metrik.profilLinks)), 0);
+        // Die Indizes eines Schriftzeichens passen in 16 Bit: Der BLOB braucht zwei Byte pro Index
+        assertEquals(Konverter.KOPF_GROESSE + 2 * s.indizes.length, Konverter.intArrayZuBlob(s.indizes).length);
+    }
+
+    @Test
+    public void besondereWerte() {
+        float[] floats = {0f, -0f, Float.NaN, Float.POSITIVE_INFINITY, Float.NEGATIVE_INFINITY, Float.MIN_VALUE, -Float.MAX_VALUE};
+        float[] gelesen = Konverter.blobZuFloatArray(Konverter.floatArrayZuBlob(floats));
+        for (int i = 0; i < floats.length; i++)
+            assertEquals(Float.floatToRawIntBits(floats[i]), Float.floatToRawIntBits(gelesen[i]));
+
+        int[] kurz = {0, 1, 0xFFFF};
+        assertArrayEquals(kurz, Konverter.blobZuIntArray(Konverter.intArrayZuBlob(kurz)));
+        // Werte außerhalb von unsigned short werden als int gespeichert
+        int[] lang = {0, 0x10000, -1, Integer.MAX_VALUE};
+        byte[] blob = Konverter.intArrayZuBlob(lang);
+        assertEquals(Konverter.TYP_INT, blob[1]);
+        assertArrayEquals(lang, Konverter.blobZuIntArray(blob));
+
+        assertArrayEquals(new float[0], Konverter.blobZuFloatArray(Konverter.floatArrayZuBlob(new float[0])), 0);
+        assertArrayEquals(new int[0], Konverter.blobZuIntArray(Konverter.intArrayZuBlob(new int[0])));
+        assertNull(Konverter.floatArrayZuBlob(null));
+        assertNull(Konverter.blobZuFloatArray(null));
+        assertNull(Konverter.intArrayZuBlob(null));
+        assertNull(Konverter.blobZuIntArray(null));
+    }
+
+    @Test
+    public void beschaedigteBlobsWerdenAbgelehnt() {
+        byte[] blob = Konverter.floatArrayZuBlob(new float[]{1, 2, 3});
+        ablehnen(Arrays.copyOf(blob, blob.length - 1), true);
+        ablehnen(Arrays.copyOf(blob, Konverter.KOPF_GROESSE - 1), true);
+        byte[] falschesFormat = blob.clone();
+        falschesFormat[0] = Konverter.FORMAT + 1;
+        ablehnen(falschesFormat, true);
+        // Ein float-BLOB ist kein int-BLOB und umgekehrt
+        ablehnen(blob, false);
+        ablehnen(Konverter.intArrayZuBlob(new int[]{1, 2, 3}), true);
+    }
+
+    private static void ablehnen(byte[] blob, boolean alsFloat) {
+        try {
+            if (alsFloat)
+                Konverter.blobZuFloatArray(blob);
+            else
+                Konverter.blobZuIntArray(blob);
+            fail("BLOB mit " + blob.length + " Byte wurde nicht abgelehnt");
+        } catch (IllegalArgumentException erwartet) {
+            // abgelehnt
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.file.Files;
+import java.util.ArrayList;
+
+/**
+ * Vergleicht die Laufzeit des ObjTokenizers mit dem bisherigen zeilenweisen Einlesen
+ * (readLine, split und ArrayList<Float>) für alle Schriftzeichen-Dateien in src/main/assets.
+ * Die Dateien werden vorab in den Speicher geladen, damit nur das Parsen gemessen wird.
+ * Die Ergebnisse werden auf der Konsole ausgegeben.
+ * <p>
+ * Kein Unit-Test, damit gradlew test nicht die Laufzeit der Messung bezahlt: Der Benchmark wird über {@link #main(String[])}
+ * gestartet, mit dem Modulverzeichnis opengl_textrendering als Arbeitsverzeichnis (wie bei den Unit-Tests).
+ * Die Korrektheit des ObjTokenizers prüft ObjTokenizerTest.
+ */
+public class ObjTokenizerBenchmark {
+
+    private static final int AUFWAERMEN = 20;
+    private static final int DURCHLAEUFE = 50;
+
+    public static void main(String[] args) throws IOException {
+        File[] dateien = ObjTokenizerTest.ASSETS.listFiles((verzeichnis, name) -> name.endsWith(".obj"));
+        if (dateien == null)
+            throw new IOException("Verzeichnis nicht gefunden: " + ObjTokenizerTest.ASSETS.getAbsolutePath());
+        byte[][] inhalte = new byte[dateien.length][];
+        for (int i = 0; i < dateien.length; i++)
+            inhalte[i] = Files.readAllBytes(dateien[i].toPath());
+
+        long pruefsumme = 0;
+        for (int i = 0; i < AUFWAERMEN; i++) {
+            pruefsumme += alleMitBisherigemParser(inhalte);
+            pruefsumme += alleMitTokenizer(inhalte);
+        }
+
+        long start = System.nanoTime();
+        for (int i = 0; i < DURCHLAEUFE; i++)
+            pruefsumme += alleMitBisherigemParser(inhalte);
+        long dauerBisher = System.nanoTime() - start;
+
+        start = System.nanoTime();
+        for (int i = 0; i < DURCHLAEUFE; i++)
+            pruefsumme += alleMitTokenizer(inhalte);
+        long dauerTokenizer = System.nanoTime() - start;
+
+        System.out.printf("OBJ-Parser (%d Dateien, %d Durchläufe): bisher %.2f ms, ObjTokenizer %.2f ms pro Durchlauf, Faktor %.1f (Prüfsumme %d)%n",
+                dateien.length, DURCHLAEUFE,
+                dauerBisher / 1e6 / DURCHLAEUFE, dauerTokenizer / 1e6 / DURCHLAEUFE,
+                (double) dauerBisher / dauerTokenizer, pruefsumme);
+    }
+
+    private static long alleMitTokenizer(byte[][] inhalte) throws IOException {
+        long summe = 0;
+        for (byte[] inhalt : inhalte) {
+            ObjTokenizer.Ergebnis ergebnis = ObjTokenizer.parse(new ByteArrayInputStream(inhalt));
+            summe += ergebnis.anzahlVertices + ergebnis.anzahlFaceIndizes;
+        }
+        return summe;
+    }
+
+    private static long alleMitBisherigemParser(byte[][] inhalte) throws IOException {
+        long summe = 0;
+        for (byte[] inhalt : inhalte)
+            summe += bisherigerParser(inhalt);
+        return summe;
+    }
+
+    /**
+     * Das Einlesen, wie es bis zur Einführung des ObjTokenizers in SchriftzeichenUtility.objParser erfolgte.
+     */
+    private static int bisherigerParser(byte[] inhalt) throws IOException {
+        ArrayList<Float> verticesZwischenspeicher = new ArrayList<>();
+        ArrayList<String> faces = new ArrayList<>();
+        BufferedReader reader = new BufferedReader(new InputStreamReader(new ByteArrayInputStream(inhalt)));
+        String line;
+        while ((line = reader.readLine()) != null) {
+            String[] parts = line.split(" ");
+            if ("v".equals(parts[0])) {
+                verticesZwischenspeicher.add(Float.valueOf(parts[1]));
+                verticesZwischenspeicher.add(Float.valueOf(parts[2]));
+                verticesZwischenspeicher.add(Float.valueOf(parts[3]));
+            } else if ("f".equals(parts[0])) {
+                faces.add(parts[1]);
+                faces.add(parts[2]);
+                faces.add(parts[3]);
+            }
+        }
+        int summe = verticesZwischenspeicher.size() / 3;
+        for (String face : faces) {
+            String[] parts = face.split("/");
+            int index = 3 * (Short.parseShort(parts[0]) - 1);
+            summe += verticesZwischenspeicher.get(index) != null ? 1 : 0;
+        }
+        return summe;
+    }
+
+}
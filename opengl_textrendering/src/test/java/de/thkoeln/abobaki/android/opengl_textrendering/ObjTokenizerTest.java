@@ -0,0 +1,168 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit-Tests für den ObjTokenizer, die auf dem Entwicklungsrechner (JVM) ausgeführt werden.
+ */
+public class ObjTokenizerTest {
+
+    static final File ASSETS = new File("src/main/assets");
+
+    private static ObjTokenizer.Ergebnis parse(String obj) throws IOException {
+        return ObjTokenizer.parse(new ByteArrayInputStream(obj.getBytes(StandardCharsets.US_ASCII)));
+    }
+
+    @Test
+    public void einfachesDreieck() throws IOException {
+        ObjTokenizer.Ergebnis ergebnis = parse("# Kommentar\nv 0 0 0\nv 1.5 0 -2\nv 0 2.25 0\nf 1 2 3\n");
+        assertEquals(3, ergebnis.anzahlVertices);
+        assertEquals(1, ergebnis.anzahlDreiecke());
+        assertEquals(1.5f, ergebnis.vertices[3], 0);
+        assertEquals(-2f, ergebnis.vertices[5], 0);
+        assertEquals(2.25f, ergebnis.vertices[7], 0);
+        assertEquals(0, ergebnis.faces[0]);
+        assertEquals(1, ergebnis.faces[1]);
+        assertEquals(2, ergebnis.faces[2]);
+    }
+
+    @Test
+    public void begrenzungsrahmen() throws IOException {
+        ObjTokenizer.Ergebnis ergebnis = parse("v -1 2 3\nv 4 -5 6\nv 0 0 -7\n");
+        float[][] rahmen = ergebnis.begrenzungsrahmen;
+        assertEquals(-1f, rahmen[0][0], 0);
+        assertEquals(4f, rahmen[0][1], 0);
+        assertEquals(-5f, rahmen[1][0], 0);
+        assertEquals(2f, rahmen[1][1], 0);
+        assertEquals(-7f, rahmen[2][0], 0);
+        assertEquals(6f, rahmen[2][1], 0);
+    }
+
+    @Test
+    public void leereDatei() throws IOException {
+        ObjTokenizer.Ergebnis ergebnis = parse("");
+        assertEquals(0, ergebnis.anzahlVertices);
+        assertEquals(0, ergebnis.anzahlDreiecke());
+        assertEquals(0f, ergebnis.begrenzungsrahmen[0][0], 0);
+        assertEquals(0f, ergebnis.begrenzungsrahmen[0][1], 0);
+    }
+
+    @Test
+    public void windowsZeilenendenUndTabs() throws IOException {
+        ObjTokenizer.Ergebnis ergebnis = parse("v\t1 2 3\r\nv 4  5 6 \r\nv 7 8 9\r\nf 1 2 3 \r\n");
+        assertEquals(3, ergebnis.anzahlVertices);
+        assertEquals(1, ergebnis.anzahlDreiecke());
+        assertEquals(5f, ergebnis.vertices[4], 0);
+        assertEquals(9f, ergebnis.vertices[8], 0);
+    }
+
+    @Test
+    public void textur_und_normalenIndizesWerdenIgnoriert() throws IOException {
+        ObjTokenizer.Ergebnis ergebnis = parse("v 0 0 0\nv 1 0 0\nv 0 1 0\nvt 0 0\nvn 0 0 1\nf 1/1/1 2//1 3/1\n");
+        assertEquals(3, ergebnis.anzahlVertices);
+        assertEquals(1, ergebnis.anzahlDreiecke());
+        assertArrayEquals(new int[]{0, 1, 2}, Arrays.copyOf(ergebnis.faces, 3));
+    }
+
+    @Test
+    public void negativeIndizes() throws IOException {
+        ObjTokenizer.Ergebnis ergebnis = parse("v 0 0 0\nv 1 0 0\nv 0 1 0\nf -3 -2 -1\n");
+        assertArrayEquals(new int[]{0, 1, 2}, Arrays.copyOf(ergebnis.faces, 3));
+    }
+
+    @Test
+    public void vieleckeWerdenTrianguliert() throws IOException {
+        ObjTokenizer.Ergebnis ergebnis = parse("v 0 0 0\nv 1 0 0\nv 1 1 0\nv 0 1 0\nf 1 2 3 4\n");
+        assertEquals(2, ergebnis.anzahlDreiecke());
+        assertArrayEquals(new int[]{0, 1, 2, 0, 2, 3}, Arrays.copyOf(ergebnis.faces, 6));
+    }
+
+    @Test
+    public void zahlenformate() throws IOException {
+        ObjTokenizer.Ergebnis ergebnis = parse("v +1.25e2 -3.5E-3 .5\nv 0.000001 123456789.123 -0\n");
+        assertEquals(125f, ergebnis.vertices[0], 0);
+        assertEquals(-0.0035f, ergebnis.vertices[1], 0);
+        assertEquals(0.5f, ergebnis.vertices[2], 0);
+        assertEquals(0.000001f, ergebnis.vertices[3], 0);
+        assertEquals(123456789.123f, ergebnis.vertices[4], 0);
+        assertEquals(0f, ergebnis.vertices[5], 0);
+    }
+
+    @Test
+    public void vieleVerticesVergroessernDieArrays() throws IOException {
+        StringBuilder obj = new StringBuilder();
+        for (int i = 0; i < 5000; i++)
+            obj.append("v ").append(i).append(" 0 0\n");
+        for (int i = 1; i <= 4998; i++)
+            obj.append("f ").append(i).append(' ').append(i + 1).append(' ').append(i + 2).append('\n');
+        ObjTokenizer.Ergebnis ergebnis = parse(obj.toString());
+        assertEquals(5000, ergebnis.anzahlVertices);
+        assertEquals(4998, ergebnis.anzahlDreiecke());
+        assertEquals(4999f, ergebnis.vertices[3 * 4999], 0);
+        assertEquals(4999, ergebnis.faces[3 * 4997 + 2]);
+    }
+
+    @Test(expected = IOException.class)
+    public void indexAusserhalbDesBereichs() throws IOException {
+        parse("v 0 0 0\nv 1 0 0\nf 1 2 3\n");
+    }
+
+    @Test(expected = IOException.class)
+    public void ungueltigeZahl() throws IOException {
+        parse("v 0 x 0\n");
+    }
+
+    /**
+     * Vergleicht das Ergebnis des Tokenizers für alle Schriftzeichen-Dateien mit einem einfachen
+     * zeilenweisen Referenz-Parser, der die Zahlen mit {@link Float#parseFloat(String)} liest.
+     */
+    @Test
+    public void alleAssetsStimmenMitReferenzUeberein() throws IOException {
+        File[] dateien = ASSETS.listFiles((verzeichnis, name) -> name.endsWith(".obj"));
+        assertNotNull("Verzeichnis nicht gefunden: " + ASSETS.getAbsolutePath(), dateien);
+        assertTrue(dateien.length > 0);
+        for (File datei : dateien) {
+            List<Float> vertices = new ArrayList<>();
+            List<Integer> faces = new ArrayList<>();
+            try (BufferedReader reader = new BufferedReader(new FileReader(datei))) {
+                String line;
+                while ((line = reader.readLine()) != null) {
+                    String[] parts = line.trim().split("\\s+");
+                    if ("v".equals(parts[0])) {
+                        for (int i = 1; i <= 3; i++)
+                            vertices.add(Float.parseFloat(parts[i]));
+                    } else if ("f".equals(parts[0])) {
+                        for (int i = 1; i <= 3; i++)
+                            faces.add(Integer.parseInt(parts[i].split("/")[0]) - 1);
+                    }
+                }
+            }
+            ObjTokenizer.Ergebnis ergebnis;
+            try (InputStream in = new FileInputStream(datei)) {
+                ergebnis = ObjTokenizer.parse(in);
+            }
+            String name = datei.getName();
+            assertEquals(name, vertices.size() / 3, ergebnis.anzahlVertices);
+            assertEquals(name, faces.size(), ergebnis.anzahlFaceIndizes);
+            for (int i = 0; i < vertices.size(); i++)
+                assertEquals(name + " Vertex-Koordinate " + i, vertices.get(i), ergebnis.vertices[i], 0);
+            for (int i = 0; i < faces.size(); i++)
+                assertEquals(name + " Face-Index " + i, (int) faces.get(i), ergebnis.faces[i]);
+        }
+    }
+
+}
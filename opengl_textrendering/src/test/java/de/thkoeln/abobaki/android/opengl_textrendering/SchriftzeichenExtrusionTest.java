@@ -0,0 +1,198 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit-Tests für TrueTypeSchrift und SchriftzeichenExtrusion, die auf dem Entwicklungsrechner (JVM) ausgeführt werden.
+ * Die Schrift wird im Test erzeugt: 1000 Einheiten pro Em, die Konturen im Uhrzeigersinn wie in TrueType-Dateien üblich.
+ */
+public class SchriftzeichenExtrusionTest {
+
+    /** Die Glyphen der Testschrift: 0 .notdef, 1 'I', 2 'O', 3 'D', 4 'J' (zusammengesetzt aus 'I'), 5 ' '. */
+    private static final int[] ZEICHEN = {' ', 'D', 'I', 'J', 'O'};
+    private static final int[] GLYPHEN = {5, 3, 1, 4, 2};
+
+    /** Eine einfache Glyphe: pro Kontur x, y und 1 (auf der Kurve) oder 0 (Kontrollpunkt) für jeden Punkt. */
+    private static byte[] einfacheGlyphe(int[]... konturen) {
+        int anzahlPunkte = 0;
+        for (int[] kontur : konturen)
+            anzahlPunkte += kontur.length / 3;
+        ByteBuffer glyphe = ByteBuffer.allocate(12 + 2 * konturen.length + 5 * anzahlPunkte);
+        glyphe.putShort((short) konturen.length).putShort((short) 0).putShort((short) 0).putShort((short) 1000).putShort((short) 1000);
+        int ende = -1;
+        for (int[] kontur : konturen)
+            glyphe.putShort((short) (ende += kontur.length / 3));
+        glyphe.putShort((short) 0);
+        for (int[] kontur : konturen)
+            for (int i = 2; i < kontur.length; i += 3)
+                glyphe.put((byte) kontur[i]);
+        // Koordinaten als Differenzen zum vorigen Punkt (16 Bit)
+        for (int achse = 0; achse < 2; achse++) {
+            int vorher = 0;
+            for (int[] kontur : konturen)
+                for (int i = achse; i < kontur.length; i += 3) {
+                    glyphe.putShort((short) (kontur[i] - vorher));
+                    vorher = kontur[i];
+                }
+        }
+        return glyphe.array();
+    }
+
+    private static TrueTypeSchrift schrift() throws IOException {
+        byte[][] glyphen = {
+                new byte[0],
+                einfacheGlyphe(new int[]{100, 0, 1, 100, 700, 1, 300, 700, 1, 300, 0, 1}),
+                einfacheGlyphe(new int[]{0, 0, 1, 0, 700, 1, 600, 700, 1, 600, 0, 1},
+                        new int[]{200, 200, 1, 400, 200, 1, 400, 500, 1, 200, 500, 1}),
+                einfacheGlyphe(new int[]{0, 0, 1, 0, 700, 1, 300, 700, 1, 600, 350, 0, 300, 0, 1}),
+                // 'I' um 50 Einheiten nach rechts verschoben (ARG_1_AND_2_ARE_WORDS, ARGS_ARE_XY_VALUES)
+                ByteBuffer.allocate(18).putShort((short) -1).putShort((short) 0).putShort((short) 0).putShort((short) 1000).putShort((short) 1000)
+                        .putShort((short) 0x0003).putShort((short) 1).putShort((short) 50).putShort((short) 0).array(),
+                new byte[0]};
+        ByteBuffer glyf = ByteBuffer.allocate(1000), loca = ByteBuffer.allocate(2 * glyphen.length + 2);
+        for (byte[] glyphe : glyphen) {
+            loca.putShort((short) (glyf.position() / 2));
+            glyf.put(glyphe);
+            if (glyf.position() % 2 == 1)
+                glyf.put((byte) 0);
+        }
+        loca.putShort((short) (glyf.position() / 2));
+
+        int anzahlSegmente = ZEICHEN.length + 1;
+        ByteBuffer cmap = ByteBuffer.allocate(12 + 16 + 8 * anzahlSegmente);
+        cmap.putShort((short) 0).putShort((short) 1).putShort((short) 3).putShort((short) 1).putInt(12);
+        cmap.putShort((short) 4).putShort((short) (16 + 8 * anzahlSegmente)).putShort((short) 0).putShort((short) (2 * anzahlSegmente))
+                .putShort((short) 0).putShort((short) 0).putShort((short) 0);
+        for (int zeichen : ZEICHEN)
+            cmap.putShort((short) zeichen);
+        cmap.putShort((short) 0xFFFF).putShort((short) 0);
+        for (int zeichen : ZEICHEN)
+            cmap.putShort((short) zeichen);
+        cmap.putShort((short) 0xFFFF);
+        for (int i = 0; i < ZEICHEN.length; i++)
+            cmap.putShort((short) (GLYPHEN[i] - ZEICHEN[i]));
+        cmap.putShort((short) 1);
+        for (int i = 0; i < anzahlSegmente; i++)
+            cmap.putShort((short) 0);
+
+        ByteBuffer head = ByteBuffer.allocate(54).putShort(18, (short) 1000).putShort(50, (short) 0);
+        ByteBuffer maxp = ByteBuffer.allocate(6).putInt(0x00005000).putShort((short) glyphen.length);
+        Map<String, byte[]> tabellen = new HashMap<>();
+        tabellen.put("cmap", cmap.array());
+        tabellen.put("glyf", java.util.Arrays.copyOf(glyf.array(), glyf.position()));
+        tabellen.put("head", head.array());
+        tabellen.put("loca", loca.array());
+        tabellen.put("maxp", maxp.array());
+
+        ByteBuffer datei = ByteBuffer.allocate(12 + 16 * tabellen.size() + 2000);
+        datei.putInt(0x00010000).putShort((short) tabellen.size()).putShort((short) 0).putShort((short) 0).putShort((short) 0);
+        int position = 12 + 16 * tabellen.size();
+        for (Map.Entry<String, byte[]> tabelle : tabellen.entrySet()) {
+            datei.put(tabelle.getKey().getBytes()).putInt(0).putInt(position).putInt(tabelle.getValue().length);
+            System.arraycopy(tabelle.getValue(), 0, datei.array(), position, tabelle.getValue().length);
+            position += (tabelle.getValue().length + 3) & ~3;
+        }
+        return TrueTypeSchrift.aus(ByteBuffer.wrap(java.util.Arrays.copyOf(datei.array(), position)));
+    }
+
+    /** Prüft, ob jede Kante (zwischen zwei Positionen) zu genau zwei Dreiecken gehört. */
+    private static boolean geschlossen(Schriftzeichen s) {
+        Map<String, Integer> kanten = new HashMap<>();
+        for (int d = 0; d < s.indizes.length; d += 3)
+            for (int k = 0; k < 3; k++) {
+                String a = position(s.eckpunkte, s.indizes[d + k]), b = position(s.eckpunkte, s.indizes[d + (k + 1) % 3]);
+                kanten.merge(a.compareTo(b) < 0 ? a + "|" + b : b + "|" + a, 1, Integer::sum);
+            }
+        for (int anzahl : kanten.values())
+            if (anzahl != 2)
+                return false;
+        return true;
+    }
+
+    private static String position(float[] eckpunkte, int eckpunkt) {
+        return eckpunkte[3 * eckpunkt] + "," + eckpunkte[3 * eckpunkt + 1] + "," + eckpunkte[3 * eckpunkt + 2];
+    }
+
+    /** Die Fläche der Dreiecke, die nach vorn zeigen. */
+    private static float vorderseite(Schriftzeichen s) {
+        float flaeche = 0;
+        for (int d = 0; d < s.indizes.length; d += 3) {
+            int a = 3 * s.indizes[d], b = 3 * s.indizes[d + 1], c = 3 * s.indizes[d + 2];
+            float z = (s.eckpunkte[b] - s.eckpunkte[a]) * (s.eckpunkte[c + 1] - s.eckpunkte[a + 1])
+                    - (s.eckpunkte[b + 1] - s.eckpunkte[a + 1]) * (s.eckpunkte[c] - s.eckpunkte[a]);
+            if (s.eckpunkte[a + 2] > 0 && s.eckpunkte[b + 2] > 0 && s.eckpunkte[c + 2] > 0)
+                flaeche += z / 2;
+        }
+        return flaeche;
+    }
+
+    @Test
+    public void umrisseMitKurven() throws IOException {
+        TrueTypeSchrift schrift = schrift();
+        assertEquals(1000, schrift.getEinheitenProEm());
+        assertTrue(schrift.enthaelt('D'));
+        assertFalse(schrift.enthaelt('X'));
+        assertNull(schrift.umriss('X', 1, 1));
+        assertTrue(schrift.umriss(' ', 1, 1).isEmpty());
+
+        // Die Kurve von (300, 700) über (600, 350) nach (300, 0) wird in 13 Strecken unterteilt (|P0 - 2 P1 + P2| / 4 = 150)
+        List<float[]> umriss = schrift.umriss('D', 1, 1);
+        assertEquals(1, umriss.size());
+        assertEquals(2 * (3 + 13), umriss.get(0).length);
+        float rechts = 0;
+        for (int i = 0; i < umriss.get(0).length; i += 2)
+            rechts = Math.max(rechts, umriss.get(0)[i]);
+        // Der Scheitel der Kurve liegt bei x = 450
+        assertTrue(rechts <= 450 && rechts >= 449);
+        // Eine größere Toleranz ergibt weniger Punkte
+        assertEquals(2 * (3 + 4), schrift.umriss('D', 1, 10).get(0).length);
+
+        // Die zusammengesetzte Glyphe ist die verschobene einfache
+        float[] i = schrift.umriss('I', 1, 1).get(0), j = schrift.umriss('J', 1, 1).get(0);
+        assertEquals(i.length, j.length);
+        for (int k = 0; k < i.length; k += 2) {
+            assertEquals(i[k] + 50, j[k], 0);
+            assertEquals(i[k + 1], j[k + 1], 0);
+        }
+    }
+
+    @Test
+    public void extrusion() throws IOException {
+        SchriftzeichenExtrusion extrusion = new SchriftzeichenExtrusion(schrift(), 1, 0.1f, 0.001f);
+        assertNull(extrusion.erzeugen("X"));
+        assertNull(extrusion.erzeugen(" "));
+        for (String zeichen : new String[]{"I", "O", "D", "J"}) {
+            Schriftzeichen s = extrusion.erzeugen(zeichen);
+            assertEquals(zeichen, s.modellName);
+            assertTrue(zeichen, geschlossen(s));
+            float vorn = Float.NEGATIVE_INFINITY, hinten = Float.POSITIVE_INFINITY;
+            for (int k = 2; k < s.eckpunkte.length; k += 3) {
+                vorn = Math.max(vorn, s.eckpunkte[k]);
+                hinten = Math.min(hinten, s.eckpunkte[k]);
+            }
+            assertEquals(0.05f, vorn, 1e-6f);
+            assertEquals(-0.05f, hinten, 1e-6f);
+            // Alle Schriftzeichen stehen auf der Grundlinie
+            assertEquals(0, s.getMetrik().unterlaenge, 1e-6f);
+            assertEquals(0.7f, s.getMetrik().oberlaenge, 1e-6f);
+            assertEquals(Detailstufen.ANTEILE.length, s.getDetailstufen().length);
+        }
+        Schriftzeichen i = extrusion.erzeugen("I"), o = extrusion.erzeugen("O");
+        assertEquals(0.2f, i.modelBreite, 1e-6f);
+        assertEquals(0.7f, i.modelHoehe, 1e-6f);
+        assertEquals(0.2f * 0.7f, vorderseite(i), 1e-5f);
+        // Das Loch des O bleibt frei
+        assertEquals(0.6f * 0.7f - 0.2f * 0.3f, vorderseite(o), 1e-5f);
+        // Vorder- und Rückseite mit je zwei Dreiecken pro Viereck, Seitenwände mit zwei Dreiecken pro Strecke
+        assertEquals(2 * 2 + 2 * 4, i.indizes.length / 3);
+    }
+
+}
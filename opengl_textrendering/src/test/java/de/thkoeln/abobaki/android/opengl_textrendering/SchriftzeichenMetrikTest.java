@@ -0,0 +1,102 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit-Tests für SchriftzeichenMetrik und SchriftzeichenMetriken, die auf dem Entwicklungsrechner (JVM) ausgeführt werden.
+ */
+public class SchriftzeichenMetrikTest {
+
+    private static Schriftzeichen importieren(String dateiName) throws IOException {
+        try (InputStream in = new FileInputStream(new File(ObjTokenizerTest.ASSETS, dateiName))) {
+            return SchriftzeichenImport.ausObj(dateiName, in);
+        }
+    }
+
+    /** Ein Rechteck (zwei Dreiecke) um den Ursprung, wie ein zentriertes Schriftzeichen. */
+    private static SchriftzeichenMetrik rechteck(float breite, float hoehe) {
+        float b = breite / 2, h = hoehe / 2;
+        float[] eckpunkte = {-b, -h, 0, b, -h, 0, b, h, 0, -b, h, 0};
+        return SchriftzeichenMetrik.berechnen("I", eckpunkte, new int[]{0, 1, 2, 0, 2, 3}, breite, hoehe);
+    }
+
+    @Test
+    public void unterlaengeNurFuerGjpqy() throws IOException {
+        Schriftzeichen g = importieren("small_g.obj");
+        Schriftzeichen a = importieren("small_a.obj");
+        // Wie bisher beim Anordnen: g reicht um ein Viertel seiner Höhe unter die Grundlinie, a steht auf ihr
+        assertEquals(g.modelHoehe / 4, g.metrik.mitte(), 1e-6f);
+        assertEquals(a.modelHoehe / 2, a.metrik.mitte(), 1e-6f);
+        assertEquals(0, a.metrik.unterlaenge, 0);
+    }
+
+    @Test
+    public void rechteckeHabenKeinKerning() {
+        SchriftzeichenMetrik links = rechteck(0.05f, 0.07f);
+        SchriftzeichenMetrik rechts = rechteck(0.03f, 0.07f);
+        // Das Rechteck steht auf der Grundlinie: Die Bänder darunter berührt es nicht, alle anderen bis an den Rand
+        for (int band = 0; band < SchriftzeichenMetrik.BAENDER; band++) {
+            boolean unterGrundlinie = SchriftzeichenMetrik.UNTERKANTE + (band + 1) * SchriftzeichenMetrik.BANDHOEHE <= 0;
+            assertEquals(unterGrundlinie ? -1 : 0, links.profilRechts[band], 1e-6f);
+            assertEquals(unterGrundlinie ? -1 : 0, rechts.profilLinks[band], 1e-6f);
+        }
+        assertEquals(0, SchriftzeichenMetrik.kerning(links, rechts), 1e-6f);
+    }
+
+    @Test
+    public void schraegeKonturenRueckenZusammen() throws IOException {
+        Schriftzeichen a = importieren("A.obj");
+        Schriftzeichen v = importieren("V.obj");
+        Schriftzeichen h = importieren("H.obj");
+        float av = SchriftzeichenMetrik.kerning(a.metrik, v.metrik);
+        float hh = SchriftzeichenMetrik.kerning(h.metrik, h.metrik);
+        assertTrue("AV: " + av, av < 0);
+        assertTrue("AV " + av + ", HH " + hh, av < hh);
+        // Die Schriftzeichen dürfen sich nicht überlappen
+        assertTrue(-av < (a.modelBreite + v.modelBreite) / 2);
+    }
+
+    @Test
+    public void glyphPackEnthaeltMetrikenUndKerning() throws IOException {
+        List<Schriftzeichen> schriftzeichen = new ArrayList<>();
+        for (String dateiName : new String[]{"V.obj", "A.obj", "small_g.obj", "H.obj"})
+            schriftzeichen.add(importieren(dateiName));
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        GlyphPack.schreiben(schriftzeichen, out);
+        GlyphPack pack = GlyphPack.aus(ByteBuffer.wrap(out.toByteArray()));
+        SchriftzeichenMetriken metriken = pack.metriken();
+
+        String[] namen = new String[schriftzeichen.size()];
+        float[] breite = new float[namen.length];
+        SchriftzeichenMetrik[] metrik = new SchriftzeichenMetrik[namen.length];
+        for (int i = 0; i < namen.length; i++) {
+            namen[i] = schriftzeichen.get(i).modellName;
+            breite[i] = schriftzeichen.get(i).modelBreite;
+            metrik[i] = schriftzeichen.get(i).metrik;
+        }
+        SchriftzeichenMetriken erwartet = SchriftzeichenMetriken.berechnen(namen, breite, metrik);
+
+        assertEquals(erwartet.anzahl(), metriken.anzahl());
+        for (String name : namen) {
+            int id = metriken.id(name.codePointAt(0));
+            assertEquals(pack.glyph(name).id(), id);
+            assertEquals(erwartet.id(name.codePointAt(0)), id);
+            assertEquals(erwartet.mitte(id), metriken.mitte(id), 0);
+            for (int rechts = 0; rechts < metriken.anzahl(); rechts++)
+                assertEquals(erwartet.kerning(id, rechts), metriken.kerning(id, rechts), 0);
+        }
+        assertEquals(-1, metriken.id('x'));
+    }
+
+}
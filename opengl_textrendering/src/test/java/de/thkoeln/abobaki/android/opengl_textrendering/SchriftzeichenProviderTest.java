@@ -0,0 +1,183 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit-Tests für den SchriftzeichenProvider, die auf dem Entwicklungsrechner (JVM) ausgeführt werden.
+ */
+public class SchriftzeichenProviderTest {
+
+    /** Die Anzahl der Threads, die gleichzeitig dasselbe Schriftzeichen anfordern. */
+    private static final int THREADS = 8;
+
+    /** Zählt die Ladevorgänge je Name. */
+    private final Map<String, AtomicInteger> ladevorgaenge = new ConcurrentHashMap<>();
+
+    private Schriftzeichen laden(String name) {
+        ladevorgaenge.computeIfAbsent(name, n -> new AtomicInteger()).incrementAndGet();
+        return schriftzeichen(name);
+    }
+
+    private int ladevorgaenge(String name) {
+        AtomicInteger anzahl = ladevorgaenge.get(name);
+        return anzahl != null ? anzahl.get() : 0;
+    }
+
+    @Test
+    public void budgetVerdraengtDasAmLaengstenNichtBenutzteSchriftzeichen() {
+        int groesse = SchriftzeichenCache.groesse(schriftzeichen("A"));
+        SchriftzeichenProvider provider = new SchriftzeichenProvider(this::laden, 2 * groesse);
+        provider.get("A");
+        provider.get("B");
+        provider.get("A");
+        provider.get("C");
+        assertEquals(2 * groesse, provider.getBelegt());
+        assertEquals(1, provider.getVerdraengungen());
+        provider.get("A");
+        provider.get("B");
+        assertEquals(1, ladevorgaenge("A"));
+        assertEquals(2, ladevorgaenge("B"));
+    }
+
+    @Test
+    public void leerenLaedtNeu() {
+        SchriftzeichenProvider provider = new SchriftzeichenProvider(this::laden);
+        Schriftzeichen vorher = provider.get("A");
+        provider.leeren();
+        assertEquals(0, provider.anzahl());
+        assertEquals(0, provider.getBelegt());
+        assertNotSame(vorher, provider.get("A"));
+        assertEquals(2, ladevorgaenge("A"));
+    }
+
+    @Test
+    public void gleichzeitigeAufrufeLadenEinmal() throws Exception {
+        CountDownLatch gestartet = new CountDownLatch(1), freigabe = new CountDownLatch(1);
+        SchriftzeichenProvider provider = new SchriftzeichenProvider(name -> {
+            gestartet.countDown();
+            warten(freigabe);
+            return laden(name);
+        });
+        List<Aufruf> aufrufe = gleichzeitigAufrufen(provider, "A", gestartet);
+        freigabe.countDown();
+        Schriftzeichen erstes = aufrufe.get(0).ergebnis();
+        assertNotNull(erstes);
+        for (Aufruf aufruf : aufrufe)
+            assertSame(erstes, aufruf.ergebnis());
+        assertEquals(1, ladevorgaenge("A"));
+        assertEquals(1, provider.anzahl());
+    }
+
+    @Test
+    public void fehlgeschlagenesLadenWirdBeimNaechstenAufrufWiederholt() throws Exception {
+        CountDownLatch gestartet = new CountDownLatch(1), freigabe = new CountDownLatch(1);
+        AtomicInteger versuche = new AtomicInteger();
+        SchriftzeichenProvider provider = new SchriftzeichenProvider(name -> {
+            if (versuche.incrementAndGet() == 1) {
+                gestartet.countDown();
+                warten(freigabe);
+                throw new IllegalStateException("Datenbank nicht erreichbar");
+            }
+            return laden(name);
+        });
+        List<Aufruf> aufrufe = gleichzeitigAufrufen(provider, "A", gestartet);
+        freigabe.countDown();
+        // Der Fehler wird an alle wartenden Aufrufe weitergegeben, ohne dass sie selbst laden
+        for (Aufruf aufruf : aufrufe) {
+            aufruf.beenden();
+            assertTrue(aufruf.fehler instanceof IllegalStateException);
+        }
+        assertEquals(1, versuche.get());
+        assertEquals(0, provider.anzahl());
+        // Der Fehler bleibt nicht gespeichert: Der nächste Aufruf lädt erneut
+        assertNotNull(provider.get("A"));
+        assertEquals(2, versuche.get());
+        assertEquals(1, ladevorgaenge("A"));
+    }
+
+    /** Ein Aufruf von get in einem eigenen Thread. */
+    private static final class Aufruf extends Thread {
+        private final SchriftzeichenProvider provider;
+        private final String name;
+        private volatile Schriftzeichen geladen;
+        private volatile RuntimeException fehler;
+
+        Aufruf(SchriftzeichenProvider provider, String name) {
+            this.provider = provider;
+            this.name = name;
+            setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            try {
+                geladen = provider.get(name);
+            } catch (RuntimeException e) {
+                fehler = e;
+            }
+        }
+
+        void beenden() throws InterruptedException {
+            join(5000);
+            assertFalse("Der Aufruf ist nicht beendet", isAlive());
+        }
+
+        Schriftzeichen ergebnis() throws InterruptedException {
+            beenden();
+            if (fehler != null)
+                throw fehler;
+            return geladen;
+        }
+    }
+
+    /**
+     * Startet einen Aufruf, wartet, bis sein Lader gestartet ist, und startet dann weitere Aufrufe desselben Namens.
+     * Kehrt erst zurück, wenn alle weiteren Aufrufe auf das Ergebnis des ersten warten.
+     */
+    private static List<Aufruf> gleichzeitigAufrufen(SchriftzeichenProvider provider, String name, CountDownLatch gestartet)
+            throws InterruptedException {
+        List<Aufruf> aufrufe = new ArrayList<>();
+        Aufruf erster = new Aufruf(provider, name);
+        aufrufe.add(erster);
+        erster.start();
+        assertTrue(gestartet.await(5, TimeUnit.SECONDS));
+        for (int i = 1; i < THREADS; i++) {
+            Aufruf aufruf = new Aufruf(provider, name);
+            aufrufe.add(aufruf);
+            aufruf.start();
+        }
+        long ende = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        for (Aufruf aufruf : aufrufe.subList(1, aufrufe.size()))
+            while (aufruf.getState() != Thread.State.WAITING) {
+                assertTrue("Der Aufruf wartet nicht auf den ersten", System.nanoTime() < ende);
+                Thread.sleep(1);
+            }
+        return aufrufe;
+    }
+
+    private static void warten(CountDownLatch freigabe) {
+        try {
+            if (!freigabe.await(5, TimeUnit.SECONDS))
+                throw new IllegalStateException("Keine Freigabe");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException(e);
+        }
+    }
+
+    /** Ein Schriftzeichen aus einem Dreieck. */
+    static Schriftzeichen schriftzeichen(String name) {
+        return new Schriftzeichen(new float[9], new float[9], new int[]{0, 1, 2}, 1, 1, name, 3);
+    }
+
+}
@@ -0,0 +1,72 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import java.util.Random;
+
+/**
+ * Vergleicht die Laufzeit der TextAnordnung mit der bisherigen Anordnung in SchriftzeichenUtility.textDarstellen
+ * für einen Text mit 10000 Zeichen: einmal mit neuem Text (Konstruktor und anordnen) und einmal nur mit neuer Skalierung,
+ * wie beim Ziehen der SeekBar in TextDesignActivity. Die Ergebnisse werden auf der Konsole ausgegeben.
+ * <p>
+ * Jede Variante wird vor ihrer Messung getrennt aufgewärmt, damit der JIT-Compiler sie vollständig übersetzt hat;
+ * mit zu wenigen Aufwärmdurchläufen misst der Benchmark vor allem den Interpreter.
+ * <p>
+ * Kein Unit-Test, damit gradlew test nicht die Laufzeit der Messung bezahlt: Der Benchmark wird über {@link #main(String[])} gestartet.
+ * Die Korrektheit der TextAnordnung prüft TextAnordnungTest.
+ */
+public class TextAnordnungBenchmark {
+
+    private static final int LAENGE = 10000;
+    private static final int AUFWAERMEN = 1000;
+    private static final int DURCHLAEUFE = 200;
+
+    private static final int BISHER = 0, NEUER_TEXT = 1, NEUE_SKALIERUNG = 2;
+
+    private static String text;
+    private static float[] breite, x;
+    private static int[] zeile;
+    private static TextAnordnung anordnung;
+    private static double pruefsumme;
+
+    public static void main(String[] args) {
+        Random zufall = new Random(1);
+        text = TextAnordnungTest.zufallsText(zufall, LAENGE);
+        breite = TextAnordnungTest.zufallsBreiten(zufall, text);
+        x = new float[breite.length];
+        zeile = new int[breite.length];
+        anordnung = new TextAnordnung(text, breite);
+
+        double dauerBisher = messen(BISHER);
+        double dauerNeuerText = messen(NEUER_TEXT);
+        double dauerNeueSkalierung = messen(NEUE_SKALIERUNG);
+
+        System.out.printf("Anordnung (%d Zeichen, %d Durchläufe): bisher %.3f ms, TextAnordnung %.3f ms mit neuem Text, "
+                        + "%.3f ms nur mit neuer Skalierung pro Durchlauf (Prüfsumme %.1f)%n",
+                text.length(), DURCHLAEUFE, dauerBisher, dauerNeuerText, dauerNeueSkalierung, pruefsumme);
+    }
+
+    /** @return Die mittlere Dauer eines Durchlaufs der Variante in ms, nach dem Aufwärmen */
+    private static double messen(int variante) {
+        for (int i = 0; i < AUFWAERMEN; i++)
+            durchlauf(variante, i);
+        long start = System.nanoTime();
+        for (int i = 0; i < DURCHLAEUFE; i++)
+            durchlauf(variante, i);
+        return (System.nanoTime() - start) / 1e6 / DURCHLAEUFE;
+    }
+
+    private static void durchlauf(int variante, int i) {
+        float skalierung = 4 + (i % 50) * 0.1f;
+        switch (variante) {
+            case BISHER:
+                TextAnordnungTest.bisherigeAnordnung(text, breite, skalierung, 0, x, zeile);
+                break;
+            case NEUER_TEXT:
+                new TextAnordnung(text, breite).anordnen(skalierung, 0, x, zeile);
+                break;
+            default:
+                anordnung.anordnen(skalierung, 0, x, zeile);
+        }
+        pruefsumme += x[x.length - 1];
+    }
+
+}
@@ -0,0 +1,175 @@
+package de.thkoeln.abobaki.android.opengl_textrendering;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+/**
+ * Unit-Tests für die TextAnordnung, die auf dem Entwicklungsrechner (JVM) ausgeführt werden.
+ */
+public class TextAnordnungTest {
+
+    private static final float TOLERANZ = 1e-4f;
+
+    @Test
+    public void einzeiligerText() {
+        // "AB C": A bei -2.6, B um einen Zeichenabstand und die halben Breiten weiter, C zusätzlich um einen Wortabstand
+        TextAnordnung anordnung = new TextAnordnung("AB C", new float[]{0.1f, 0.2f, 0.3f});
+        float[] x = new float[3];
+        int[] zeile = new int[3];
+        assertEquals(1, anordnung.anordnen(2f, 0.5f, x, zeile));
+        assertEquals(-2.6f, x[0], TOLERANZ);
+        assertEquals(-2.6f + 2f * (0.009f + 0.15f) + 0.5f, x[1], TOLERANZ);
+        assertEquals(x[1] + 2f * (0.02f + 0.009f + 0.25f) + 2 * 0.5f, x[2], TOLERANZ);
+        assertArrayEquals(new int[]{0, 0, 0}, zeile);
+    }
+
+    @Test
+    public void umbruchVorDemWortDasNichtPasst() {
+        // Jedes Wort ist bei Skalierung 1 etwa 2.4 breit: Zwei Wörter passen in eine Zeile, das dritte nicht
+        float[] breite = new float[6];
+        Arrays.fill(breite, 1.2f);
+        TextAnordnung anordnung = new TextAnordnung("AA BB CC", breite);
+        float[] x = new float[6];
+        int[] zeile = new int[6];
+        assertEquals(2, anordnung.anordnen(1f, 0, x, zeile));
+        assertArrayEquals(new int[]{0, 0, 0, 0, 1, 1}, zeile);
+        assertEquals(TextAnordnung.ZEILENANFANG, x[4], 0);
+    }
+
+    @Test
+    public void mehrereLeerzeichenSindEinWortabstand() {
+        float[] breite = {0.1f, 0.2f, 0.3f};
+        float[] einfach = new float[3], mehrfach = new float[3];
+        new TextAnordnung("AB C", breite).anordnen(6.5f, 0, einfach, new int[3]);
+        new TextAnordnung(" AB \t  C\n", breite).anordnen(6.5f, 0, mehrfach, new int[3]);
+        assertArrayEquals(einfach, mehrfach, 0);
+    }
+
+    @Test
+    public void leererText() {
+        TextAnordnung anordnung = new TextAnordnung("   ", new float[0]);
+        assertEquals(0, anordnung.anzahlSchriftzeichen());
+        assertEquals(0, anordnung.anordnen(6.5f, 0, new float[0], new int[0]));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void falscheAnzahlBreiten() {
+        new TextAnordnung("ABC", new float[2]);
+    }
+
+    @Test
+    public void gleichesErgebnisWieBisherigeAnordnung() {
+        Random zufall = new Random(42);
+        for (int durchlauf = 0; durchlauf < 200; durchlauf++) {
+            String text = zufallsText(zufall, 1 + zufall.nextInt(400));
+            float[] breite = zufallsBreiten(zufall, text);
+            float skalierungsfaktor = 1 + zufall.nextFloat() * 9;
+            float abstandsanpassung = zufall.nextFloat() * 0.2f;
+            float[] erwartetX = new float[breite.length];
+            int[] erwarteteZeile = new int[breite.length];
+            bisherigeAnordnung(text, breite, skalierungsfaktor, abstandsanpassung, erwartetX, erwarteteZeile);
+            float[] x = new float[breite.length];
+            int[] zeile = new int[breite.length];
+            new TextAnordnung(text, breite).anordnen(skalierungsfaktor, abstandsanpassung, x, zeile);
+            assertArrayEquals(text, erwarteteZeile, zeile);
+            assertArrayEquals(text, erwartetX, x, TOLERANZ);
+        }
+    }
+
+    @Test
+    public void wiederverwendungFuerAndereSkalierung() {
+        Random zufall = new Random(7);
+        String text = zufallsText(zufall, 2000);
+        float[] breite = zufallsBreiten(zufall, text);
+        TextAnordnung anordnung = new TextAnordnung(text, breite);
+        float[] x = new float[breite.length], neuX = new float[breite.length];
+        int[] zeile = new int[breite.length], neueZeile = new int[breite.length];
+        for (float skalierungsfaktor = 1; skalierungsfaktor < 10; skalierungsfaktor += 0.37f) {
+            anordnung.anordnen(skalierungsfaktor, 0.01f, x, zeile);
+            new TextAnordnung(text, breite).anordnen(skalierungsfaktor, 0.01f, neuX, neueZeile);
+            assertArrayEquals(neueZeile, zeile);
+            assertArrayEquals(neuX, x, 0);
+        }
+    }
+
+    /** Ein Text aus Wörtern mit 1 bis 8 Zeichen, getrennt durch ein Leerzeichen. */
+    static String zufallsText(Random zufall, int laenge) {
+        StringBuilder text = new StringBuilder();
+        while (text.length() < laenge) {
+            if (text.length() > 0)
+                text.append(' ');
+            int wortlaenge = 1 + zufall.nextInt(8);
+            for (int i = 0; i < wortlaenge; i++)
+                text.append((char) ('a' + zufall.nextInt(26)));
+        }
+        return text.toString();
+    }
+
+    /** Breiten wie die der Schriftzeichen-Modelle (etwa 0.02 bis 0.12). */
+    static float[] zufallsBreiten(Random zufall, String text) {
+        float[] breite = new float[text.replaceAll("\\s+", "").length()];
+        for (int i = 0; i < breite.length; i++)
+            breite[i] = 0.02f + zufall.nextFloat() * 0.1f;
+        return breite;
+    }
+
+    /**
+     * Die Anordnung, wie sie bis zur Einführung der TextAnordnung in SchriftzeichenUtility.textDarstellen erfolgte
+     * (für Texte mit einzelnen Leerzeichen zwischen den Wörtern).
+     */
+    static void bisherigeAnordnung(String text, float[] breite, float skalierungsfaktor, float abstandsanpassung, float[] x, int[] zeile) {
+        float zeileBegrenzungVonRechts;
+        float zeichenposition = -2.6f;
+        float wortabstand = (skalierungsfaktor * 0.02f) + abstandsanpassung;
+        float zeichenabstand = (skalierungsfaktor * 0.009f) + abstandsanpassung;
+        int anzahlZeilen = 0;
+        int anzahlLeerzeichen = 0;
+        boolean neueZeileErforderlich = false;
+        List<Integer> leerzeichenIndex = letzteZeichenIndices(text);
+
+        for (int i = 0; i < breite.length; i++) {
+            int j = i;
+            if (leerzeichenIndex.get(anzahlLeerzeichen) < i) {
+                zeichenposition += wortabstand;
+                zeileBegrenzungVonRechts = zeichenposition;
+                anzahlLeerzeichen++;
+                while (leerzeichenIndex.get(anzahlLeerzeichen) >= j && j != 0) {
+                    zeileBegrenzungVonRechts += zeichenabstand + (((breite[j - 1] * skalierungsfaktor) + (breite[j] * skalierungsfaktor)) / 2);
+                    j++;
+                }
+                if (zeileBegrenzungVonRechts > 2.6) {
+                    zeichenposition = -2.6f;
+                    anzahlZeilen++;
+                    neueZeileErforderlich = true;
+                }
+            }
+            if (i != 0 && !neueZeileErforderlich) {
+                zeichenposition += zeichenabstand + (((breite[i - 1] * skalierungsfaktor) + (breite[i] * skalierungsfaktor)) / 2);
+            } else
+                neueZeileErforderlich = false;
+            x[i] = zeichenposition;
+            zeile[i] = anzahlZeilen;
+        }
+    }
+
+    /** Wie SchriftzeichenUtility.letzteZeichenIndices (ohne Android-Abhängigkeiten der Klasse). */
+    private static List<Integer> letzteZeichenIndices(String text) {
+        List<Integer> indizes = new ArrayList<>();
+        int anzahl = -1;
+        for (int i = 0; i < text.length(); i++) {
+            if (text.charAt(i) == ' ')
+                indizes.add(anzahl);
+            else
+                anzahl++;
+        }
+        indizes.add(anzahl);
+        return indizes;
+    }
+
+}
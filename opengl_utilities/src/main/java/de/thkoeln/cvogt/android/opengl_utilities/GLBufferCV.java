@@ -0,0 +1,192 @@
+// This work is provided under GPLv3, the GNU General Public License 3
+//   http://www.gnu.org/licenses/gpl-3.0.html
+
+package de.thkoeln.cvogt.android.opengl_utilities;
+
+import android.opengl.GLES20;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+
+/**
+ * Class for an OpenGL buffer object (VBO) that keeps the vertex data or vertex indices of a shape or mesh in GPU memory.
+ * <P>
+ * The data are held in a direct buffer in the Java heap as before (e.g. to be modified by the control thread of a shape),
+ * but they are passed to OpenGL only when the buffer object is bound for the first time and after they have been modified,
+ * and not on every frame. Modifications must be announced by modified(), such that only the modified range is uploaded again.
+ * <P>
+ * The usage hint tells OpenGL how often the data will change:
+ * GL_STATIC_DRAW for data that are uploaded once (e.g. glyph meshes), GL_DYNAMIC_DRAW for data that are modified repeatedly
+ * (e.g. by control threads or dynamic meshes).
+ * <P>
+ * The buffer object is created in the OpenGL context of the thread that binds it for the first time.
+ * If this context is lost (see GLStateCacheCV.reset()), the buffer object is created anew from the data.
+ * release() frees the GPU memory (the deletion is done by the rendering thread, see GLStateCacheCV.deleteReleasedBuffers());
+ * if the buffer is bound again afterwards, it is uploaded anew.
+ * @see de.thkoeln.cvogt.android.opengl_utilities.GLStateCacheCV
+ */
+
+public final class GLBufferCV {
+
+    /** The target of the buffer object (GL_ARRAY_BUFFER or GL_ELEMENT_ARRAY_BUFFER). */
+
+    private final int target;
+
+    /** The usage hint (GL_STATIC_DRAW or GL_DYNAMIC_DRAW). */
+
+    private int usage;
+
+    /** The data (a direct buffer with position 0). */
+
+    private Buffer data;
+
+    /** The name of the buffer object or 0 if it has not been created yet or has been released. */
+
+    private int name;
+
+    /** The state cache of the OpenGL context in which the buffer object has been created. */
+
+    private GLStateCacheCV context;
+
+    /** The generation of this context (see GLStateCacheCV.getGeneration()). */
+
+    private int generation;
+
+    /** The size of the data store of the buffer object in bytes or -1 if it has to be (re)allocated by glBufferData(). */
+
+    private int uploadedBytes = -1;
+
+    /** The range of modified elements that must be uploaded again (first element and end element, exclusive); empty if first>=end. */
+
+    private int firstModified, endModified;
+
+    /**
+     * Constructor.
+     * @param target GLES20.GL_ARRAY_BUFFER for vertex data or GLES20.GL_ELEMENT_ARRAY_BUFFER for vertex indices.
+     * @param usage GLES20.GL_STATIC_DRAW or GLES20.GL_DYNAMIC_DRAW.
+     * @param data The data (a direct FloatBuffer, IntBuffer, ShortBuffer, or ByteBuffer whose elements from position 0 to the limit are uploaded).
+     */
+
+    public GLBufferCV(int target, int usage, Buffer data) {
+        this.target = target;
+        this.usage = usage;
+        this.data = data;
+    }
+
+    /**
+     * @return The data of the buffer.
+     */
+
+    synchronized public Buffer getData() {
+        return data;
+    }
+
+    /**
+     * Replaces the data of the buffer. They will be uploaded completely before the next draw call.
+     * @param data The new data (see constructor).
+     */
+
+    synchronized public void setData(Buffer data) {
+        this.data = data;
+        uploadedBytes = -1;
+    }
+
+    /**
+     * Sets the usage hint. If it changes, the data store of the buffer object is allocated anew with the new hint.
+     * @param usage GLES20.GL_STATIC_DRAW or GLES20.GL_DYNAMIC_DRAW.
+     */
+
+    synchronized public void setUsage(int usage) {
+        if (this.usage==usage) return;
+        this.usage = usage;
+        uploadedBytes = -1;
+    }
+
+    /**
+     * Announces that elements of the data have been modified, such that they will be uploaded again before the next draw call.
+     * @param first The index of the first modified element (e.g. of the first float value in a FloatBuffer).
+     * @param count The number of modified elements.
+     */
+
+    synchronized public void modified(int first, int count) {
+        if (count<=0) return;
+        if (firstModified>=endModified) {
+            firstModified = first;
+            endModified = first+count;
+        }
+          else {
+            firstModified = Math.min(firstModified, first);
+            endModified = Math.max(endModified, first+count);
+        }
+    }
+
+    /**
+     * Binds the buffer object to its target, after creating it and uploading the data if required.
+     * To be called in the rendering thread.
+     * @param state The state cache of the OpenGL context of the current thread.
+     */
+
+    synchronized public void bind(GLStateCacheCV state) {
+        if (name==0||context!=state||generation!=state.getGeneration()) {
+            // the buffer object has not been created yet, has been released, or belongs to a context that is no longer current
+            if (name!=0)
+                context.deleteBuffer(name, generation);
+            int[] names = new int[1];
+            GLES20.glGenBuffers(1, names, 0);
+            name = names[0];
+            context = state;
+            generation = state.getGeneration();
+            uploadedBytes = -1;
+        }
+        state.bindBuffer(target, name);
+        int elementSize = elementSize(data);
+        int bytes = data.limit()*elementSize;
+        if (uploadedBytes!=bytes) {
+            GLES20.glBufferData(target, bytes, data, usage);
+            uploadedBytes = bytes;
+        }
+          else if (firstModified<endModified) {
+            Buffer range = duplicate(data);
+            range.position(firstModified);
+            GLES20.glBufferSubData(target, firstModified*elementSize, (endModified-firstModified)*elementSize, range);
+        }
+        firstModified = endModified = 0;
+    }
+
+    /**
+     * Frees the buffer object in GPU memory. The data remain, such that the buffer can still be used.
+     * May be called from any thread.
+     */
+
+    synchronized public void release() {
+        if (name!=0)
+            context.deleteBuffer(name, generation);
+        name = 0;
+        context = null;
+    }
+
+    /**
+     * @return The size of the elements of a buffer in bytes.
+     */
+
+    private static int elementSize(Buffer buffer) {
+        if (buffer instanceof FloatBuffer||buffer instanceof IntBuffer) return 4;
+        if (buffer instanceof ShortBuffer) return 2;
+        return 1;
+    }
+
+    /**
+     * @return A duplicate of a buffer (with an independent position).
+     */
+
+    private static Buffer duplicate(Buffer buffer) {
+        if (buffer instanceof FloatBuffer) return ((FloatBuffer)buffer).duplicate();
+        if (buffer instanceof IntBuffer) return ((IntBuffer)buffer).duplicate();
+        if (buffer instanceof ShortBuffer) return ((ShortBuffer)buffer).duplicate();
+        return ((ByteBuffer)buffer).duplicate();
+    }
+
+}
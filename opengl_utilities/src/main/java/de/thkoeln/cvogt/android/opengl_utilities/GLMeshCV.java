@@ -0,0 +1,629 @@
+// This work is provided under GPLv3, the GNU General Public License 3
+//   http://www.gnu.org/licenses/gpl-3.0.html
+
+package de.thkoeln.cvogt.android.opengl_utilities;
+
+import android.opengl.GLES20;
+import android.opengl.Matrix;
+
+import java.nio.Buffer;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+import java.util.HashMap;
+
+/**
+ * Class for the immutable geometry of a shape in indexed-mesh mode, i.e. the unique vertices, their normals, and the vertex indices of the triangles.
+ * <P>
+ * A mesh can be shared by any number of shapes of class <I>GLShapeCV</I> (flyweight pattern).
+ * Each of these shapes has its own model matrix and color, but all of them draw from the same direct buffers, which are filled only once
+ * by the constructor of the mesh. E.g., a text in which the letter 'e' occurs 200 times needs only one copy of the geometry of the 'e'.
+ * The buffers are uploaded into buffer objects in GPU memory (see GLBufferCV) when the mesh is drawn for the first time,
+ * and released when the last shape of the mesh is removed from its surface view.
+ * The coordinates and normals of a vertex are stored one after the other in one buffer,
+ * with the normals (and the colors, see below) packed as specified by the vertex layout of the mesh (see GLVertexLayoutCV).
+ * <P>
+ * The mesh also keeps the per-vertex color buffers for the colors of its shapes, such that shapes with the same color share one buffer.
+ * <P>
+ * As the mesh must not be modified, methods of <I>GLShapeCV</I> that change the coordinate values of a shape (e.g. moveCenterTo() or flip())
+ * give the shape a new mesh and leave the shared mesh unchanged.
+ * <P>
+ * The only exception are dynamic meshes (see the constructor with the 'dynamic' parameter):
+ * The coordinates and normals of a range of their vertices can be replaced by setVertices(), while the triangles remain unchanged.
+ * This allows, e.g., to combine many objects into one mesh that is drawn with a single draw call
+ * and to move individual objects by updating only their part of the buffers.
+ * <P>
+ * A mesh can optionally have simplified levels of detail, i.e. additional index arrays that draw fewer triangles from the same vertices.
+ * When a shape of the mesh is drawn, the level is selected from the projected height of the mesh on the screen (see getDetailLevel()),
+ * such that, e.g., the letters of a text far away from the camera are drawn with only a fraction of their triangles.
+ * @see de.thkoeln.cvogt.android.opengl_utilities.GLShapeCV
+ */
+
+public final class GLMeshCV {
+
+    /** The maximum number of color buffers kept by a mesh. If more colors are used, the buffers are built anew. */
+
+    private static final int MAX_COLORS_BUFFERS = 16;
+
+    /**
+     * The minimum projected heights of the mesh (as fractions of the viewport height) for drawing the full mesh
+     * and the detail levels 1, 2, ... If the mesh is smaller, the next level is drawn.
+     */
+
+    private static final float[] DETAIL_LEVEL_HEIGHTS = { 0.1f, 0.05f, 0.025f };
+
+    /** The coordinates of the unique vertices of the mesh (x, y, and z of each vertex in a row). */
+
+    private final float[] vertices;
+
+    /** The normals of the vertices (three values per vertex). */
+
+    private final float[] normals;
+
+    /** The vertex indices of the triangles (three indices per triangle). */
+
+    private final int[] indices;
+
+    /** The layout of 'vertexData' and of the color buffers, i.e. the data types of the normals and colors. */
+
+    private final GLVertexLayoutCV layout;
+
+    /** The size of a vertex in 'vertexData' in bytes. */
+
+    private final int stride;
+
+    /** Buffer to pass the vertex coordinates and normals to the graphics hardware (interleaved, see 'layout'). */
+
+    private final ByteBuffer vertexData;
+
+    /**
+     * Buffer to pass the vertex indices of the triangles to the graphics hardware.
+     * A ShortBuffer if the mesh has at most 65536 vertices, an IntBuffer otherwise (see 'indexType').
+     */
+
+    private final Buffer indicesBuffer;
+
+    /** The OpenGL type of the entries of 'indicesBuffer' (GL_UNSIGNED_SHORT or GL_UNSIGNED_INT). */
+
+    private final int indexType;
+
+    /** The vertex indices of the triangles of the simplified levels of detail (one array per level, three indices per triangle). */
+
+    private final int[][] detailIndices;
+
+    /** Buffers to pass the vertex indices of the levels of detail to the graphics hardware (with the same type as 'indicesBuffer'). */
+
+    private final Buffer[] detailIndicesBuffers;
+
+    /** The bounding box of the vertices: minimum and maximum x, y, and z values. */
+
+    private final float[] boundingBox = new float[6];
+
+    /**
+     * Scratch arrays of getDetailLevel() for the bottom and top points of the bounding box and their projections.
+     * getDetailLevel() is only called in the GL thread, hence the arrays can be shared by all calls.
+     */
+
+    private final float[] detailLevelPoint = new float[4], detailLevelBottom = new float[4], detailLevelTop = new float[4];
+
+    /** Specifies if the vertices of the mesh can be modified by setVertices(). */
+
+    private final boolean dynamic;
+
+    /** The per-vertex color buffers of the mesh, with the color values (as a string) as keys. */
+
+    private final HashMap<String,GLBufferCV> colorsBuffers = new HashMap<>();
+
+    /** The buffer objects for 'vertexData', 'indicesBuffer', and 'detailIndicesBuffers' (GL_DYNAMIC_DRAW for the vertices of dynamic meshes). */
+
+    private final GLBufferCV vertexVBO, indicesVBO;
+
+    private final GLBufferCV[] detailIndicesVBOs;
+
+    /** The number of shapes of the mesh that are attached to a surface view (see addUser()). */
+
+    private int users;
+
+    /**
+     * Constructor for a mesh whose data are passed in arrays.
+     * @param vertices The coordinates of the vertices (x, y, and z of each vertex in a row). A clone of this array will be stored.
+     * @param normals The normals of the vertices (three values per vertex) or null if the normals shall be calculated from the triangles. A clone of this array will be stored.
+     * @param indices The vertex indices of the triangles (three indices per triangle). A clone of this array will be stored.
+     */
+
+    public GLMeshCV(float[] vertices, float[] normals, int[] indices) {
+        this(vertices,normals,indices,false);
+    }
+
+    /**
+     * Constructor for a mesh whose data are passed in arrays that can optionally be made dynamic.
+     * @param vertices The coordinates of the vertices (x, y, and z of each vertex in a row). A clone of this array will be stored.
+     * @param normals The normals of the vertices (three values per vertex) or null if the normals shall be calculated from the triangles. A clone of this array will be stored.
+     * @param indices The vertex indices of the triangles (three indices per triangle). A clone of this array will be stored.
+     * @param dynamic true if the vertices shall be modifiable by setVertices().
+     */
+
+    public GLMeshCV(float[] vertices, float[] normals, int[] indices, boolean dynamic) {
+        this(vertices,normals,indices,new int[0][],dynamic);
+    }
+
+    /**
+     * Constructor for a mesh with simplified levels of detail whose data are passed in arrays.
+     * @param vertices The coordinates of the vertices (x, y, and z of each vertex in a row). A clone of this array will be stored.
+     * @param normals The normals of the vertices (three values per vertex) or null if the normals shall be calculated from the triangles. A clone of this array will be stored.
+     * @param indices The vertex indices of the triangles (three indices per triangle). A clone of this array will be stored.
+     * @param detailLevels The vertex indices of the triangles of the levels of detail, one array per level with decreasing numbers of triangles.
+     *                     The indices refer to the same vertices as 'indices'. Clones of these arrays will be stored.
+     */
+
+    public GLMeshCV(float[] vertices, float[] normals, int[] indices, int[][] detailLevels) {
+        this(vertices,normals,indices,detailLevels,false);
+    }
+
+    private GLMeshCV(float[] vertices, float[] normals, int[] indices, int[][] detailLevels, boolean dynamic) {
+        this(vertices,normals,indices,detailLevels,dynamic,GLVertexLayoutCV.getDefault());
+    }
+
+    private GLMeshCV(float[] vertices, float[] normals, int[] indices, int[][] detailLevels, boolean dynamic, GLVertexLayoutCV layout) {
+        this(FloatBuffer.wrap(vertices),normals!=null&&normals.length==vertices.length?FloatBuffer.wrap(normals):null,IntBuffer.wrap(indices),wrap(detailLevels),dynamic,layout);
+    }
+
+    /**
+     * Constructor for a mesh whose data are passed in buffers, e.g. slices of a memory-mapped file.
+     * The remaining elements of the buffers are copied into the mesh, the positions of the buffers are not changed.
+     * @param vertices The coordinates of the vertices (x, y, and z of each vertex in a row).
+     * @param normals The normals of the vertices (three values per vertex) or null if the normals shall be calculated from the triangles.
+     * @param indices The vertex indices of the triangles (three indices per triangle) - an IntBuffer or a ShortBuffer with unsigned 16-bit indices.
+     */
+
+    public GLMeshCV(FloatBuffer vertices, FloatBuffer normals, Buffer indices) {
+        this(vertices,normals,indices,new Buffer[0]);
+    }
+
+    /**
+     * Constructor for a mesh with simplified levels of detail whose data are passed in buffers, e.g. slices of a memory-mapped file.
+     * The remaining elements of the buffers are copied into the mesh, the positions of the buffers are not changed.
+     * @param vertices The coordinates of the vertices (x, y, and z of each vertex in a row).
+     * @param normals The normals of the vertices (three values per vertex) or null if the normals shall be calculated from the triangles.
+     * @param indices The vertex indices of the triangles (three indices per triangle) - an IntBuffer or a ShortBuffer with unsigned 16-bit indices.
+     * @param detailLevels The vertex indices of the triangles of the levels of detail, one buffer per level with decreasing numbers of triangles
+     *                     (IntBuffers or ShortBuffers as for 'indices'). The indices refer to the same vertices as 'indices'.
+     */
+
+    public GLMeshCV(FloatBuffer vertices, FloatBuffer normals, Buffer indices, Buffer[] detailLevels) {
+        this(vertices,normals,indices,detailLevels,false,GLVertexLayoutCV.getDefault());
+    }
+
+    private GLMeshCV(FloatBuffer vertices, FloatBuffer normals, Buffer indices, Buffer[] detailLevels, boolean dynamic, GLVertexLayoutCV layout) {
+        this.dynamic = dynamic;
+        this.layout = layout;
+        this.vertices = new float[vertices.remaining()];
+        vertices.duplicate().get(this.vertices);
+        this.indices = toIntArray(indices);
+        detailIndices = new int[detailLevels.length][];
+        for (int i=0; i<detailLevels.length; i++)
+            detailIndices[i] = toIntArray(detailLevels[i]);
+        if (normals!=null&&normals.remaining()==this.vertices.length) {
+            this.normals = new float[this.vertices.length];
+            normals.duplicate().get(this.normals);
+        }
+          else
+            this.normals = calculateNormals(this.vertices,this.indices);
+        stride = layout.getStride(true,false,false);
+        vertexData = GLVertexLayoutCV.allocate(getNumberOfVertices(),stride);
+        putVertices(0,this.vertices,this.normals,getNumberOfVertices());
+        // indices up to 65535 fit into unsigned shorts, which all OpenGL ES 2.0 devices support;
+        // larger meshes need the OES_element_index_uint extension (checked in GLShapeCV.initOpenGLPrograms())
+        indexType = getNumberOfVertices()<=65536 ? GLES20.GL_UNSIGNED_SHORT : GLES20.GL_UNSIGNED_INT;
+        indicesBuffer = makeIndicesBuffer(this.indices,indexType);
+        detailIndicesBuffers = new Buffer[detailIndices.length];
+        for (int i=0; i<detailIndices.length; i++)
+            detailIndicesBuffers[i] = makeIndicesBuffer(detailIndices[i],indexType);
+        int usage = dynamic ? GLES20.GL_DYNAMIC_DRAW : GLES20.GL_STATIC_DRAW;
+        vertexVBO = new GLBufferCV(GLES20.GL_ARRAY_BUFFER,usage,vertexData);
+        indicesVBO = new GLBufferCV(GLES20.GL_ELEMENT_ARRAY_BUFFER,GLES20.GL_STATIC_DRAW,indicesBuffer);
+        detailIndicesVBOs = new GLBufferCV[detailIndices.length];
+        for (int i=0; i<detailIndices.length; i++)
+            detailIndicesVBOs[i] = new GLBufferCV(GLES20.GL_ELEMENT_ARRAY_BUFFER,GLES20.GL_STATIC_DRAW,detailIndicesBuffers[i]);
+        if (this.vertices.length>0) {
+            for (int j=0; j<3; j++)
+                boundingBox[2*j] = boundingBox[2*j+1] = this.vertices[j];
+            for (int i=3; i<this.vertices.length; i++) {
+                int j = i%3;
+                boundingBox[2*j] = Math.min(boundingBox[2*j],this.vertices[i]);
+                boundingBox[2*j+1] = Math.max(boundingBox[2*j+1],this.vertices[i]);
+            }
+        }
+    }
+
+    /**
+     * Internal auxiliary method to write the coordinates and normals of a range of vertices into 'vertexData'.
+     * @param firstVertex The number of the first vertex.
+     * @param vertices The coordinates, starting at index 0.
+     * @param normals The normals, starting at index 0.
+     * @param numberOfVertices The number of vertices.
+     */
+
+    private void putVertices(int firstVertex, float[] vertices, float[] normals, int numberOfVertices) {
+        for (int i=0; i<numberOfVertices; i++) {
+            int offset = (firstVertex+i)*stride;
+            GLVertexLayoutCV.putPosition(vertexData,offset,vertices,3*i);
+            layout.putNormal(vertexData,offset+GLVertexLayoutCV.POSITION_SIZE,normals,3*i);
+        }
+    }
+
+    /**
+     * Internal auxiliary method to copy the remaining indices of an index buffer into an array.
+     * @param indices An IntBuffer or a ShortBuffer with unsigned 16-bit indices. Its position is not changed.
+     * @return The indices.
+     */
+
+    private static int[] toIntArray(Buffer indices) {
+        int[] result = new int[indices.remaining()];
+        if (indices instanceof IntBuffer)
+            ((IntBuffer)indices).duplicate().get(result);
+          else if (indices instanceof ShortBuffer) {
+            ShortBuffer shortIndices = ((ShortBuffer)indices).duplicate();
+            for (int i=0; i<result.length; i++)
+                result[i] = shortIndices.get() & 0xFFFF;
+          }
+          else throw new IllegalArgumentException("Mesh: indices must be an IntBuffer or a ShortBuffer");
+        return result;
+    }
+
+    /**
+     * Internal auxiliary method to wrap index arrays into buffers.
+     * @param indices The index arrays.
+     * @return IntBuffers backed by the arrays.
+     */
+
+    private static Buffer[] wrap(int[][] indices) {
+        Buffer[] buffers = new Buffer[indices.length];
+        for (int i=0; i<indices.length; i++)
+            buffers[i] = IntBuffer.wrap(indices[i]);
+        return buffers;
+    }
+
+    /**
+     * Internal auxiliary method to make a direct buffer in native byte order filled with vertex indices.
+     * @param indices The indices.
+     * @param indexType The OpenGL type of the entries of the buffer (GL_UNSIGNED_SHORT or GL_UNSIGNED_INT).
+     * @return A ShortBuffer or an IntBuffer with its read index set to the first element.
+     */
+
+    private static Buffer makeIndicesBuffer(int[] indices, int indexType) {
+        if (indexType==GLES20.GL_UNSIGNED_SHORT) {
+            ByteBuffer bbInd = ByteBuffer.allocateDirect(indices.length * 2);
+            bbInd.order(ByteOrder.nativeOrder());
+            ShortBuffer shortIndices = bbInd.asShortBuffer();
+            for (int index : indices)
+                shortIndices.put((short)index);
+            shortIndices.position(0);
+            return shortIndices;
+        }
+        ByteBuffer bbInd = ByteBuffer.allocateDirect(indices.length * 4);
+        bbInd.order(ByteOrder.nativeOrder());
+        IntBuffer intIndices = bbInd.asIntBuffer();
+        intIndices.put(indices);
+        intIndices.position(0);
+        return intIndices;
+    }
+
+    /**
+     * Auxiliary method to calculate the normals of the vertices of a mesh
+     * as the sum of the surface normals of all triangles sharing the vertex (weighted by the triangle areas), normalized to length 1.
+     * @param vertices The vertex coordinates of the mesh.
+     * @param indices The vertex indices of the mesh triangles.
+     * @return The normals (three values per vertex).
+     */
+
+    private static float[] calculateNormals(float[] vertices, int[] indices) {
+        float[] normals = new float[vertices.length];
+        for (int i=0; i+2<indices.length; i+=3) {
+            int a = 3*indices[i], b = 3*indices[i+1], c = 3*indices[i+2];
+            float[] vec1 = { vertices[b]-vertices[a], vertices[b+1]-vertices[a+1], vertices[b+2]-vertices[a+2] };
+            float[] vec2 = { vertices[c]-vertices[a], vertices[c+1]-vertices[a+1], vertices[c+2]-vertices[a+2] };
+            float[] normal = GraphicsUtilsCV.crossProduct3D(vec1,vec2);
+            for (int j=0; j<3; j++) {
+                normals[a+j] += normal[j];
+                normals[b+j] += normal[j];
+                normals[c+j] += normal[j];
+            }
+        }
+        for (int i=0; i<normals.length; i+=3) {
+            float length = (float) Math.sqrt(normals[i]*normals[i]+normals[i+1]*normals[i+1]+normals[i+2]*normals[i+2]);
+            if (length>0)
+                for (int j=0; j<3; j++)
+                    normals[i+j] /= length;
+        }
+        return normals;
+    }
+
+    /**
+     * @return The number of vertices of the mesh.
+     */
+
+    public int getNumberOfVertices() {
+        return vertices.length/3;
+    }
+
+    /**
+     * @return The number of triangles of the mesh.
+     */
+
+    public int getNumberOfTriangles() {
+        return indices.length/3;
+    }
+
+    /**
+     * @return The number of simplified levels of detail of the mesh (0 if the mesh is always drawn completely).
+     */
+
+    public int getNumberOfDetailLevels() {
+        return detailIndices.length;
+    }
+
+    /**
+     * Selects the level of detail for drawing a shape of the mesh.
+     * The level is determined by the projected height of the bounding box of the mesh, measured along the vertical line through its center.
+     * Must only be called in the GL thread, as it uses the scratch arrays of the mesh.
+     * @param mvpMatrix The model/view/projection matrix of the shape.
+     * @return 0 for the full mesh, 1 to getNumberOfDetailLevels() for the simplified levels.
+     */
+
+    public int getDetailLevel(float[] mvpMatrix) {
+        if (detailIndices.length==0)
+            return 0;
+        float centerX = (boundingBox[0]+boundingBox[1])/2, centerZ = (boundingBox[4]+boundingBox[5])/2;
+        float[] point = detailLevelPoint, bottom = detailLevelBottom, top = detailLevelTop;
+        point[0] = centerX;
+        point[2] = centerZ;
+        point[3] = 1;
+        point[1] = boundingBox[2];
+        Matrix.multiplyMV(bottom,0,mvpMatrix,0,point,0);
+        point[1] = boundingBox[3];
+        Matrix.multiplyMV(top,0,mvpMatrix,0,point,0);
+        if (bottom[3]<=0||top[3]<=0)   // (partly) behind the camera
+            return 0;
+        // the viewport spans 2 units in normalized device coordinates
+        float height = Math.abs(top[1]/top[3]-bottom[1]/bottom[3])/2;
+        int level = 0;
+        while (level<detailIndices.length&&level<DETAIL_LEVEL_HEIGHTS.length&&height<DETAIL_LEVEL_HEIGHTS[level])
+            level++;
+        return level;
+    }
+
+    /**
+     * @return true if the vertices of the mesh can be modified by setVertices().
+     */
+
+    public boolean isDynamic() {
+        return dynamic;
+    }
+
+    /**
+     * Replaces the coordinates and normals of a range of vertices of a dynamic mesh.
+     * Only this range of the buffers is rewritten. The triangles, i.e. the indices, remain unchanged.
+     * <BR>
+     * All shapes that share the mesh are affected. To avoid that a frame is drawn from partly updated buffers,
+     * the method should be called on the OpenGL thread, e.g. from the pre-draw action of a shape (see GLShapeCV.setPreDrawAction()).
+     * @param firstVertex The number of the first vertex to be replaced.
+     * @param vertices The new coordinates (x, y, and z of each vertex in a row), starting at index 0.
+     * @param normals The new normals (three values per vertex), starting at index 0.
+     * @param numberOfVertices The number of vertices to be replaced.
+     * @throws IllegalStateException if the mesh is not dynamic.
+     * @throws IndexOutOfBoundsException if the range exceeds the vertices of the mesh.
+     */
+
+    synchronized public void setVertices(int firstVertex, float[] vertices, float[] normals, int numberOfVertices) {
+        if (!dynamic)
+            throw new IllegalStateException("Mesh is not dynamic");
+        if (firstVertex<0||numberOfVertices<0||firstVertex+numberOfVertices>getNumberOfVertices())
+            throw new IndexOutOfBoundsException("Vertices "+firstVertex+" to "+(firstVertex+numberOfVertices-1)+" of "+getNumberOfVertices());
+        System.arraycopy(vertices,0,this.vertices,3*firstVertex,3*numberOfVertices);
+        System.arraycopy(normals,0,this.normals,3*firstVertex,3*numberOfVertices);
+        // absolute writes, such that the position of the buffer passed to OpenGL remains 0
+        putVertices(firstVertex,vertices,normals,numberOfVertices);
+        // only the modified range is uploaded into the buffer object before the next draw call
+        vertexVBO.modified(firstVertex*stride,numberOfVertices*stride);
+    }
+
+    /**
+     * @return A copy of the vertex coordinates (x, y, and z of each vertex in a row).
+     */
+
+    public float[] getVertices() {
+        return vertices.clone();
+    }
+
+    /**
+     * @return A copy of the vertex normals (three values per vertex).
+     */
+
+    public float[] getNormals() {
+        return normals.clone();
+    }
+
+    /**
+     * @return A copy of the vertex indices of the triangles (three indices per triangle).
+     */
+
+    public int[] getIndices() {
+        return indices.clone();
+    }
+
+    /**
+     * Gets a coordinate value of a vertex without copying the vertex array.
+     * @param i The index of the value in the vertex array (3*vertex number + dimension).
+     * @return The coordinate value.
+     */
+
+    float getVertexValue(int i) {
+        return vertices[i];
+    }
+
+    /**
+     * Gets a vertex index without copying the index array.
+     * @param i The index of the value in the index array (3*triangle number + vertex number in the triangle).
+     * @return The vertex number.
+     */
+
+    int getIndex(int i) {
+        return indices[i];
+    }
+
+    /** @return The vertex layout of the mesh. */
+
+    public GLVertexLayoutCV getVertexLayout() {
+        return layout;
+    }
+
+    /** @return The size of a vertex in the vertex buffer in bytes (coordinates and normal). */
+
+    int getVertexStride() {
+        return stride;
+    }
+
+    /** @return The buffer with the interleaved vertex coordinates and normals (shared by all shapes of the mesh). */
+
+    ByteBuffer getVertexData() {
+        return vertexData;
+    }
+
+    /** @return The buffer with the vertex indices of the triangles (shared by all shapes of the mesh). */
+
+    Buffer getIndicesBuffer() {
+        return indicesBuffer;
+    }
+
+    /**
+     * @param level 0 for the full mesh, 1 to getNumberOfDetailLevels() for the simplified levels.
+     * @return The buffer with the vertex indices of the triangles of the level (shared by all shapes of the mesh).
+     */
+
+    Buffer getIndicesBuffer(int level) {
+        return level==0 ? indicesBuffer : detailIndicesBuffers[level-1];
+    }
+
+    /** @return The buffer object with the interleaved vertex coordinates and normals (shared by all shapes of the mesh). */
+
+    GLBufferCV getVertexVBO() {
+        return vertexVBO;
+    }
+
+    /**
+     * @param level 0 for the full mesh, 1 to getNumberOfDetailLevels() for the simplified levels.
+     * @return The buffer object with the vertex indices of the triangles of the level (shared by all shapes of the mesh).
+     */
+
+    GLBufferCV getIndicesVBO(int level) {
+        return level==0 ? indicesVBO : detailIndicesVBOs[level-1];
+    }
+
+    /**
+     * @param level 0 for the full mesh, 1 to getNumberOfDetailLevels() for the simplified levels.
+     * @return The number of vertex indices of the triangles of the level.
+     */
+
+    int getNumberOfIndices(int level) {
+        return level==0 ? indices.length : detailIndices[level-1].length;
+    }
+
+    /** @return The OpenGL type of the entries of the index buffer (GL_UNSIGNED_SHORT or GL_UNSIGNED_INT). */
+
+    int getIndexType() {
+        return indexType;
+    }
+
+    /**
+     * Gets a buffer that assigns a color to all vertices of the mesh.
+     * The buffer is built on the first request and then shared by all shapes of the mesh with this color.
+     * @param color The color (RGBA).
+     * @return The buffer object with one color per vertex (with the color type of the vertex layout, without gaps).
+     */
+
+    synchronized GLBufferCV getColorsBuffer(float[] color) {
+        String key = Arrays.toString(color);
+        GLBufferCV buffer = colorsBuffers.get(key);
+        if (buffer==null) {
+            if (colorsBuffers.size()>=MAX_COLORS_BUFFERS) {
+                // shapes that still use one of these buffers upload it again when they are drawn
+                for (GLBufferCV oldBuffer : colorsBuffers.values())
+                    oldBuffer.release();
+                colorsBuffers.clear();
+            }
+            int vertexCount = getNumberOfVertices(), colorSize = layout.getColorSize();
+            ByteBuffer colors = GLVertexLayoutCV.allocate(vertexCount,colorSize);
+            for (int i=0; i<vertexCount; i++)
+                layout.putColor(colors,i*colorSize,color,0);
+            buffer = new GLBufferCV(GLES20.GL_ARRAY_BUFFER,GLES20.GL_STATIC_DRAW,colors);
+            colorsBuffers.put(key,buffer);
+        }
+        return buffer;
+    }
+
+    /**
+     * Registers a shape of the mesh that has been attached to a surface view. To be called by GLShapeCV.
+     */
+
+    synchronized void addUser() {
+        users++;
+    }
+
+    /**
+     * Unregisters a shape of the mesh that has been removed from its surface view. To be called by GLShapeCV.
+     * When the last shape has been removed, the buffer objects of the mesh are released.
+     */
+
+    synchronized void removeUser() {
+        if (users>0&&--users==0) {
+            vertexVBO.release();
+            indicesVBO.release();
+            for (GLBufferCV buffer : detailIndicesVBOs)
+                buffer.release();
+            for (GLBufferCV buffer : colorsBuffers.values())
+                buffer.release();
+        }
+    }
+
+    /**
+     * Makes a new mesh with all vertices translated by the same vector. This mesh remains unchanged.
+     * @param transX x component of the translation vector.
+     * @param transY y component of the translation vector.
+     * @param transZ z component of the translation vector.
+     * @return The new mesh.
+     */
+
+    public GLMeshCV translated(float transX, float transY, float transZ) {
+        float[] newVertices = vertices.clone();
+        for (int i=0; i<newVertices.length; i+=3) {
+            newVertices[i] += transX;
+            newVertices[i+1] += transY;
+            newVertices[i+2] += transZ;
+        }
+        return new GLMeshCV(newVertices,normals,indices,detailIndices,dynamic,layout);
+    }
+
+    /**
+     * Makes a new mesh that is flipped/mirrored in the x, y, and/or z dimension. This mesh remains unchanged.
+     * @param flipX Specifies if the mesh shall be flipped in the x dimension.
+     * @param flipY Specifies if the mesh shall be flipped in the y dimension.
+     * @param flipZ Specifies if the mesh shall be flipped in the z dimension.
+     * @return The new mesh.
+     */
+
+    public GLMeshCV flipped(boolean flipX, boolean flipY, boolean flipZ) {
+        float[] newVertices = vertices.clone();
+        float[] newNormals = normals.clone();
+        for (int i=0; i<newVertices.length; i+=3) {
+            if (flipX) { newVertices[i] = -newVertices[i]; newNormals[i] = -newNormals[i]; }
+            if (flipY) { newVertices[i+1] = -newVertices[i+1]; newNormals[i+1] = -newNormals[i+1]; }
+            if (flipZ) { newVertices[i+2] = -newVertices[i+2]; newNormals[i+2] = -newNormals[i+2]; }
+        }
+        return new GLMeshCV(newVertices,newNormals,indices,detailIndices,dynamic,layout);
+    }
+
+}
@@ -35,18 +35,18 @@ public class GLPlatformCV {
 
     // uniformly colored shapes
     //
-    // TODO Der folgende Code allein funktioniert so nicht. Daher werden bis auf weiteres auch einfarbige Shapes mit dem OpenGL-Code für Farbgradienten gerendert.
-    // Zu Lösung die Klasse GLShapeCV entsprechend erweitern. Grundlegende Unterscheidung, die dabei zu treffen ist:
-    // 1.) Shapes, die aus mehreren Dreiecken bestehen, von denen jedes "uniformly colored" ist und die alle dieselbe Farbe haben.
-    //   > dann könnte dieser Code hier verwendet werden
-    //   > das könnte evtl. zu einer Beschleunigung führen (aber sicher ist das nicht)
+    // Der folgende Code allein funktioniert so nicht (u.a. fehlt die Beleuchtung). Einfarbige Shapes werden daher mit der Variante UNIFORM_COLOR
+    // von vertexShader und fragmentShader gerendert (siehe unten). Grundlegende Unterscheidung, die GLShapeCV dabei trifft:
+    // 1.) Shapes, die aus mehreren Dreiecken bestehen, von denen jedes "uniformly colored" ist und die alle dieselbe Farbe haben (auch Shapes im indexed-mesh mode).
+    //   > die Farbe wird als Uniform uColor übergeben, die Vertex-Puffer enthalten keine Farben
+    //   > eine Farbänderung setzt nur diese vier Werte (kein Neuaufbau der Puffer)
     //      - Messung (8.9.22 auf Samsung S21) in der App OpenGLAndroid, Klassen ShapeTriangleBasic vs. ShapeTriangleMulticolor vs. ShapeCubeMVPColor:
     //        > drawArrays()-Aufruf bei einem einheitlich gefärbten Dreieck, ohne MVP-Matrix: 20-60 Mikrosekunden
     //        > drawArrays()-Aufruf bei einem Dreieck mit Farbverlauf, ohne MVP-Matrix: 4-8 Milli(!!)sekunden
     //        > ABER(!!) drawArrays()-Aufruf bei Würfel mit 12 Dreiecken mit Farbverläufen, mit MVP-Matrix: 30-60 Mikrosekunden
     //                     [ähnliche Zeitwerte in dieser App OpenGLUtilities für Würfels mit 12 unterschiedlich, aber jeweils einheitlich gefärbten Dreiecken]
     // 2.) Shapes, die aus mehreren Dreiecken bestehen, von denen jedes "uniformly colored" ist, die aber unterschiedliche Farben haben.
-    //   > wie sähe entsprechender Code aus??
+    //   > werden wie Shapes mit Farbverläufen mit Farben pro Eckpunkt gerendert (Variante VARYING_COLOR), ebenso die Linien aller Shapes
 
     public static String vertexShaderUniformColor =
         "uniform mat4 uMVPMatrix;" +
@@ -63,7 +63,7 @@ public class GLPlatformCV {
         "}";
 
     /**
-     * OpenGL ES code: vertex shader for colored shapes (shapes with triangles of different colors and possibly color gradients, currently also for shapes with a uniform color).
+     * OpenGL ES code: vertex shader for colored shapes (shapes with triangles of different colors and possibly color gradients).
      */
 
     public static String vertexShaderVaryingColor =
@@ -151,6 +151,143 @@ public class GLPlatformCV {
                     "  gl_FragColor = texture2D( sTexture, vTexCoord );" +
                     "}";
 
+    /**
+     * OpenGL ES code: vertex shader for all variants (see shaderSource()).
+     * The variant is selected by the preprocessor symbols VARYING_COLOR, UNIFORM_COLOR, TEXTURED, SIGNED_DISTANCE_FIELD, and LIGHTING.
+     * With lighting, the light intensity is calculated per vertex as by vertexShaderVaryingColorLighting.
+     * For varying colors, it is applied to the vertex colors; for uniform colors and textures, it is passed to the fragment shader.
+     * The normals and colors may be passed as normalized bytes or shorts (see GLVertexLayoutCV), which the hardware converts into floats.
+     * Hence they are declared with medium and low precision, and the normals are normalized after the transformation,
+     * as a packed normal does not have exactly the length 1.
+     * (Preprocessor directives need line breaks.)
+     */
+
+    public static final String vertexShader =
+            "attribute vec4 aPosition;\n" +
+            "uniform mat4 uMVPMatrix;\n" +
+            "#ifdef VARYING_COLOR\n" +
+            "attribute lowp vec4 aColor;\n" +
+            "varying vec4 vColor;\n" +
+            "#endif\n" +
+            "#ifdef TEXTURED\n" +
+            "attribute vec2 aTexCoord;\n" +
+            "varying vec2 vTexCoord;\n" +
+            "#endif\n" +
+            "#ifdef LIGHTING\n" +
+            "attribute mediump vec3 aNormal;\n" +
+            "uniform mat4 uVMatrix;\n" +
+            "uniform mat4 uMVMatrix;\n" +
+            "uniform vec3 uPointLightPos;\n" +
+            "uniform vec3 uDirectionalLightVector;\n" +
+            "uniform float uRelativePointLightShare;\n" +
+            "#ifdef VARYING_COLOR\n" +
+            "uniform float uAmbientLight;\n" +
+            "#else\n" +
+            "varying float vDiffuse;\n" +
+            "#endif\n" +
+            "#endif\n" +
+            "void main() {\n" +
+            "#ifdef LIGHTING\n" +
+            "  vec3 pointLightPosEyeSpace = vec3(uVMatrix * vec4(uPointLightPos,1.0));\n" +
+            "  vec3 directionalLightVectorEyeSpace = vec3(uVMatrix * vec4(uDirectionalLightVector,0.0));\n" +
+            "  vec3 modelViewVertex = vec3(uMVMatrix * aPosition);\n" +
+            "  vec3 modelViewNormal = normalize(vec3(uMVMatrix * vec4(aNormal, 0.0)));\n" +
+            "  float pointLightDistance = length(pointLightPosEyeSpace - modelViewVertex);\n" +
+            "  vec3 pointLightVector = normalize(pointLightPosEyeSpace - modelViewVertex);\n" +
+            "  float pointLightDiffuse = max(dot(modelViewNormal, pointLightVector), 0.005);\n" +
+            "  pointLightDiffuse = pointLightDiffuse * (1.0 / (1.0 + (0.001 * pointLightDistance * pointLightDistance)));\n" +
+            "  float directionalLightDiffuse = max(dot(modelViewNormal, directionalLightVectorEyeSpace), 0.01);\n" +
+            "  float diffuse = uRelativePointLightShare * pointLightDiffuse + (1.0-uRelativePointLightShare) * directionalLightDiffuse;\n" +
+            "#endif\n" +
+            "#ifdef VARYING_COLOR\n" +
+            "  vColor = aColor;\n" +
+            "#ifdef LIGHTING\n" +
+            "  vColor = min(vColor * diffuse + uAmbientLight, 1.0);\n" +
+            "#endif\n" +
+            "#elif defined(LIGHTING)\n" +
+            "  vDiffuse = diffuse;\n" +
+            "#endif\n" +
+            "#ifdef TEXTURED\n" +
+            "  vTexCoord = aTexCoord;\n" +
+            "#endif\n" +
+            "  gl_Position = uMVPMatrix * aPosition;\n" +
+            "}\n";
+
+    /**
+     * OpenGL ES code: fragment shader for all variants (see vertexShader and shaderSource()).
+     * In the SIGNED_DISTANCE_FIELD variant, the texture is a signed distance field, e.g. a glyph atlas for flat text.
+     * Its alpha channel holds the distance to the outline (0.5 = on the outline, greater values inside).
+     * The fragments are drawn in the uniform color uColor with an alpha value that blends smoothly across the outline.
+     * The width of the transition is one screen pixel if the device supports OES_standard_derivatives, a fixed value otherwise.
+     */
+
+    public static final String fragmentShader =
+            "#if defined(SIGNED_DISTANCE_FIELD) && defined(GL_OES_standard_derivatives)\n" +
+            "#extension GL_OES_standard_derivatives : enable\n" +
+            "#endif\n" +
+            "precision mediump float;\n" +
+            "#ifdef VARYING_COLOR\n" +
+            "varying vec4 vColor;\n" +
+            "#endif\n" +
+            "#if defined(UNIFORM_COLOR) || defined(SIGNED_DISTANCE_FIELD)\n" +
+            "uniform vec4 uColor;\n" +
+            "#endif\n" +
+            "#ifdef TEXTURED\n" +
+            "varying vec2 vTexCoord;\n" +
+            "uniform sampler2D sTexture;\n" +
+            "#endif\n" +
+            "#if defined(LIGHTING) && !defined(VARYING_COLOR)\n" +
+            "varying float vDiffuse;\n" +
+            "uniform float uAmbientLight;\n" +
+            "#endif\n" +
+            "void main() {\n" +
+            "#ifdef VARYING_COLOR\n" +
+            "  vec4 color = vColor;\n" +
+            "#elif defined(TEXTURED)\n" +
+            "  vec4 color = texture2D( sTexture, vTexCoord );\n" +
+            "#else\n" +
+            "  vec4 color = uColor;\n" +
+            "#endif\n" +
+            "#ifdef SIGNED_DISTANCE_FIELD\n" +
+            "#ifdef GL_OES_standard_derivatives\n" +
+            "  float smoothing = 0.7 * fwidth(color.a);\n" +
+            "#else\n" +
+            "  float smoothing = 0.06;\n" +
+            "#endif\n" +
+            "  float alpha = smoothstep(0.5 - smoothing, 0.5 + smoothing, color.a);\n" +
+            "  if (alpha <= 0.0) discard;\n" +
+            "  color = vec4(uColor.rgb, uColor.a * alpha);\n" +
+            "#endif\n" +
+            "#if defined(LIGHTING) && !defined(VARYING_COLOR)\n" +
+            "  color = min(color * vDiffuse + uAmbientLight, 1.0);\n" +
+            "#endif\n" +
+            "  gl_FragColor = color;\n" +
+            "}\n";
+
+    /**
+     * Auxiliary method to select a variant of the vertex or fragment shader by preceding its code with the corresponding #define directives.
+     * @param shaderCode vertexShader or fragmentShader.
+     * @param coloringType The coloring type (COLORING_UNIFORM, COLORING_VARYING, or COLORING_TEXTURED).
+     * @param signedDistanceField true if the texture is a signed distance field (only for COLORING_TEXTURED).
+     * @param lighting true for the variant with lighting.
+     * @return The code of the variant.
+     */
+
+    public static String shaderSource(String shaderCode, int coloringType, boolean signedDistanceField, boolean lighting) {
+        StringBuilder source = new StringBuilder();
+        switch (coloringType) {
+            case COLORING_UNIFORM: source.append("#define UNIFORM_COLOR\n"); break;
+            case COLORING_VARYING: source.append("#define VARYING_COLOR\n"); break;
+            case COLORING_TEXTURED: source.append("#define TEXTURED\n"); break;
+            default: throw new IllegalArgumentException("Unknown coloring type "+coloringType);
+        }
+        if (signedDistanceField)
+            source.append("#define SIGNED_DISTANCE_FIELD\n");
+        if (lighting)
+            source.append("#define LIGHTING\n");
+        return source.append(shaderCode).toString();
+    }
+
     /**
      * Auxiliary method to compile shader code
      */
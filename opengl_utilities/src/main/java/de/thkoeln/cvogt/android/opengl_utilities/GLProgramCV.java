@@ -0,0 +1,186 @@
+// This work is provided under GPLv3, the GNU General Public License 3
+//   http://www.gnu.org/licenses/gpl-3.0.html
+
+package de.thkoeln.cvogt.android.opengl_utilities;
+
+import android.opengl.GLES20;
+import android.util.Log;
+
+import java.util.Arrays;
+
+/**
+ * Class for a linked OpenGL ES program together with the locations of its attributes and uniforms.
+ * <P>
+ * The locations are resolved once when the program is linked, such that the draw() method of a shape
+ * needs no calls of glGetAttribLocation() and glGetUniformLocation().
+ * A location is -1 if the shaders of the program do not use the respective attribute or uniform.
+ * <P>
+ * The program also remembers the last values of the uniforms that are usually the same for all shapes of a frame
+ * (view matrix, lighting parameters, color). The corresponding set methods pass a value to OpenGL only if it has changed.
+ * The matrices that differ from shape to shape (MVP and MV matrix) are always passed.
+ * <P>
+ * Objects of this class must only be used in the thread of the OpenGL context in which they have been created.
+ * @see de.thkoeln.cvogt.android.opengl_utilities.GLStateCacheCV
+ */
+
+public final class GLProgramCV {
+
+    /** The ID of the OpenGL program. */
+
+    final int id;
+
+    /** The locations of the vertex attributes (coordinates, colors, normals, and texture coordinates). */
+
+    final int aPosition, aColor, aNormal, aTexCoord;
+
+    /** The locations of the uniforms for the matrices. */
+
+    final int uMVPMatrix, uVMatrix, uMVMatrix;
+
+    /** The locations of the uniforms for the lighting. */
+
+    final int uPointLightPos, uDirectionalLightVector, uRelativePointLightShare, uAmbientLight;
+
+    /** The location of the uniform for the color (e.g. of signed distance field textures). */
+
+    final int uColor;
+
+    /**
+     * The last values passed to the cached uniforms: view matrix (16 values), point light position (3), directional light vector (3),
+     * relative point light share (1), ambient light (1), color (4). NaN if no value has been passed yet, which differs from every value.
+     */
+
+    private final float[] lastValues = new float[28];
+
+    private static final int LAST_V_MATRIX = 0, LAST_POINT_LIGHT_POS = 16, LAST_DIRECTIONAL_LIGHT_VECTOR = 19,
+            LAST_RELATIVE_POINT_LIGHT_SHARE = 22, LAST_AMBIENT_LIGHT = 23, LAST_COLOR = 24;
+
+    private GLProgramCV(int id) {
+        this.id = id;
+        aPosition = GLES20.glGetAttribLocation(id, "aPosition");
+        aColor = GLES20.glGetAttribLocation(id, "aColor");
+        aNormal = GLES20.glGetAttribLocation(id, "aNormal");
+        aTexCoord = GLES20.glGetAttribLocation(id, "aTexCoord");
+        uMVPMatrix = GLES20.glGetUniformLocation(id, "uMVPMatrix");
+        uVMatrix = GLES20.glGetUniformLocation(id, "uVMatrix");
+        uMVMatrix = GLES20.glGetUniformLocation(id, "uMVMatrix");
+        uPointLightPos = GLES20.glGetUniformLocation(id, "uPointLightPos");
+        uDirectionalLightVector = GLES20.glGetUniformLocation(id, "uDirectionalLightVector");
+        uRelativePointLightShare = GLES20.glGetUniformLocation(id, "uRelativePointLightShare");
+        uAmbientLight = GLES20.glGetUniformLocation(id, "uAmbientLight");
+        uColor = GLES20.glGetUniformLocation(id, "uColor");
+        Arrays.fill(lastValues, Float.NaN);
+    }
+
+    /**
+     * Links a program from two compiled shaders and resolves its locations.
+     * To be called in the thread of the OpenGL context, e.g. from the onSurfaceCreated() method of a renderer.
+     * @param vertexShader The ID of the compiled vertex shader.
+     * @param fragmentShader The ID of the compiled fragment shader.
+     * @return The program or null if it could not be linked.
+     */
+
+    public static GLProgramCV link(int vertexShader, int fragmentShader) {
+        int id = GLES20.glCreateProgram();
+        GLES20.glAttachShader(id, vertexShader);
+        GLES20.glAttachShader(id, fragmentShader);
+        GLES20.glLinkProgram(id);
+        final int[] linkStatus = new int[1];
+        GLES20.glGetProgramiv(id, GLES20.GL_LINK_STATUS, linkStatus, 0);
+        if (linkStatus[0]!=1) {
+            Log.e("GLDEMO", "Linking error: " + GLES20.glGetProgramInfoLog(id));
+            GLES20.glDeleteProgram(id);
+            return null;
+        }
+        return new GLProgramCV(id);
+    }
+
+    /**
+     * Bitmask of the attribute arrays to be enabled, for GLStateCacheCV.setVertexAttribArrays().
+     * @param location The location of an attribute.
+     * @return The bit for the location or 0 if the location is -1.
+     */
+
+    static int attribBit(int location) {
+        return location<0 ? 0 : 1<<location;
+    }
+
+    /**
+     * Passes the MVP matrix to the program (if it uses it).
+     * @param matrix The matrix.
+     */
+
+    void setMVPMatrix(float[] matrix) {
+        if (uMVPMatrix!=-1)
+            GLES20.glUniformMatrix4fv(uMVPMatrix, 1, false, matrix, 0);
+    }
+
+    /**
+     * Passes the MV matrix to the program (if it uses it).
+     * @param matrix The matrix.
+     */
+
+    void setMVMatrix(float[] matrix) {
+        if (uMVMatrix!=-1)
+            GLES20.glUniformMatrix4fv(uMVMatrix, 1, false, matrix, 0);
+    }
+
+    /**
+     * Passes the view matrix to the program (if it uses it and the matrix has changed since the last call).
+     * @param matrix The matrix.
+     */
+
+    void setVMatrix(float[] matrix) {
+        if (uVMatrix!=-1&&changed(matrix, LAST_V_MATRIX, 16))
+            GLES20.glUniformMatrix4fv(uVMatrix, 1, false, matrix, 0);
+    }
+
+    /**
+     * Passes the lighting parameters to the program (each only if the program uses it and its value has changed since the last call).
+     * @param pointLightPos The position of the point light source (x, y, and z coordinates).
+     * @param directionalLightVector The vector of the directional light, already inverted (x, y, and z coordinates).
+     * @param relativePointLightShare The relative point light share of the total amount of point light and directional light.
+     * @param ambientLight The additional contribution of the ambient light.
+     */
+
+    void setLighting(float[] pointLightPos, float[] directionalLightVector, float relativePointLightShare, float ambientLight) {
+        if (uPointLightPos!=-1&&changed(pointLightPos, LAST_POINT_LIGHT_POS, 3))
+            GLES20.glUniform3f(uPointLightPos, pointLightPos[0], pointLightPos[1], pointLightPos[2]);
+        if (uDirectionalLightVector!=-1&&changed(directionalLightVector, LAST_DIRECTIONAL_LIGHT_VECTOR, 3))
+            GLES20.glUniform3f(uDirectionalLightVector, directionalLightVector[0], directionalLightVector[1], directionalLightVector[2]);
+        if (uRelativePointLightShare!=-1&&lastValues[LAST_RELATIVE_POINT_LIGHT_SHARE]!=relativePointLightShare) {
+            lastValues[LAST_RELATIVE_POINT_LIGHT_SHARE] = relativePointLightShare;
+            GLES20.glUniform1f(uRelativePointLightShare, relativePointLightShare);
+        }
+        if (uAmbientLight!=-1&&lastValues[LAST_AMBIENT_LIGHT]!=ambientLight) {
+            lastValues[LAST_AMBIENT_LIGHT] = ambientLight;
+            GLES20.glUniform1f(uAmbientLight, ambientLight);
+        }
+    }
+
+    /**
+     * Passes the color to the program (if it uses it and the color has changed since the last call).
+     * @param color The color (RGBA).
+     */
+
+    void setColor(float[] color) {
+        if (uColor!=-1&&changed(color, LAST_COLOR, 4))
+            GLES20.glUniform4fv(uColor, 1, color, 0);
+    }
+
+    /**
+     * Compares values with the last values of a uniform and stores them.
+     * @return true if at least one value differs.
+     */
+
+    private boolean changed(float[] values, int offset, int length) {
+        boolean changed = false;
+        for (int i = 0; i < length; i++)
+            if (lastValues[offset+i]!=values[i]) {
+                lastValues[offset+i] = values[i];
+                changed = true;
+            }
+        return changed;
+    }
+
+}
@@ -0,0 +1,100 @@
+// This work is provided under GPLv3, the GNU General Public License 3
+//   http://www.gnu.org/licenses/gpl-3.0.html
+
+package de.thkoeln.cvogt.android.opengl_utilities;
+
+import android.opengl.GLES20;
+
+/**
+ * Class for the OpenGL programs shared by all shapes.
+ * <P>
+ * There is one program per shader variant, i.e. per combination of coloring type (uniform, varying, textured, signed distance field)
+ * and lighting (see GLPlatformCV.shaderSource()). It is compiled and linked when a shape needs it for the first time
+ * and then used by all shapes with the same variant. E.g., the 300 letters of a text are drawn with two programs (with and without lighting)
+ * instead of two programs of their own each.
+ * <P>
+ * The programs belong to the OpenGL context of the thread that draws, i.e. the rendering thread of a surface view.
+ * Hence there is one object of this class per thread, to be obtained by current().
+ * It must be reset by reset() when the context has been (re)created, i.e. in the onSurfaceCreated() method of the renderer,
+ * as the programs of the previous context no longer exist.
+ * @see de.thkoeln.cvogt.android.opengl_utilities.GLProgramCV
+ * @see de.thkoeln.cvogt.android.opengl_utilities.GLPlatformCV#shaderSource(String, int, boolean, boolean)
+ */
+
+public final class GLProgramRegistryCV {
+
+    /** The objects of the threads. */
+
+    private static final ThreadLocal<GLProgramRegistryCV> registries = new ThreadLocal<GLProgramRegistryCV>() {
+        @Override
+        protected GLProgramRegistryCV initialValue() {
+            return new GLProgramRegistryCV();
+        }
+    };
+
+    /** The programs of the variants (index see variant()), null if not yet built. */
+
+    private final GLProgramCV[] programs = new GLProgramCV[16];
+
+    /** Information whether the program of a variant could not be built, such that it is not tried again. */
+
+    private final boolean[] failed = new boolean[16];
+
+    private GLProgramRegistryCV() {
+    }
+
+    /**
+     * @return The object for the OpenGL context of the current thread.
+     */
+
+    public static GLProgramRegistryCV current() {
+        return registries.get();
+    }
+
+    /**
+     * Forgets the programs such that they will be built anew when they are needed.
+     * To be called when the OpenGL context has been (re)created.
+     */
+
+    public void reset() {
+        for (int i = 0; i < programs.length; i++) {
+            programs[i] = null;
+            failed[i] = false;
+        }
+    }
+
+    /**
+     * Returns the program of a shader variant. The program is built when it is requested for the first time.
+     * @param coloringType The coloring type (GLPlatformCV.COLORING_UNIFORM, COLORING_VARYING, or COLORING_TEXTURED).
+     * @param signedDistanceField true if the texture is a signed distance field (only for COLORING_TEXTURED).
+     * @param lighting true for the variant with lighting.
+     * @return The program or null if it could not be compiled or linked.
+     */
+
+    public GLProgramCV getProgram(int coloringType, boolean signedDistanceField, boolean lighting) {
+        int variant = variant(coloringType, signedDistanceField, lighting);
+        if (programs[variant]==null&&!failed[variant]) {
+            int vertexShader = GLPlatformCV.loadShader(GLES20.GL_VERTEX_SHADER,
+                    GLPlatformCV.shaderSource(GLPlatformCV.vertexShader, coloringType, signedDistanceField, lighting));
+            int fragmentShader = GLPlatformCV.loadShader(GLES20.GL_FRAGMENT_SHADER,
+                    GLPlatformCV.shaderSource(GLPlatformCV.fragmentShader, coloringType, signedDistanceField, lighting));
+            programs[variant] = GLProgramCV.link(vertexShader, fragmentShader);
+            failed[variant] = programs[variant]==null;
+            // the shaders are no longer needed, they will be deleted together with the program
+            GLES20.glDeleteShader(vertexShader);
+            GLES20.glDeleteShader(fragmentShader);
+        }
+        return programs[variant];
+    }
+
+    /**
+     * @return The index of a shader variant in the 'programs' array.
+     */
+
+    private static int variant(int coloringType, boolean signedDistanceField, boolean lighting) {
+        if (coloringType<GLPlatformCV.COLORING_UNIFORM||coloringType>GLPlatformCV.COLORING_TEXTURED)
+            throw new IllegalArgumentException("Unknown coloring type "+coloringType);
+        return coloringType*4+(signedDistanceField?2:0)+(lighting?1:0);
+    }
+
+}
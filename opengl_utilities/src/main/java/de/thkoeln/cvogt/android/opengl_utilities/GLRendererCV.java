@@ -135,10 +135,14 @@ public class GLRendererCV implements GLSurfaceView.Renderer {
      * Method called by the runtime system when the associated surface view has been initialized.
      * Colors the background black and compiles the OpenGL programs of the shapes to be displayed (i.e. the shapes attached to the associated surface view).
      * Prepares the textures for textured shapes.
+     * Resets the state cache of the rendering thread, as the state of the new OpenGL context is unknown,
+     * and its program registry, as the programs of the previous context no longer exist.
      */
 
     @Override
     public void onSurfaceCreated(GL10 unused, EGLConfig config) {
+        GLStateCacheCV.current().reset();
+        GLProgramRegistryCV.current().reset();
         ArrayList<GLShapeCV> shapesToRender = surfaceView.getShapesToRender();
         for (GLShapeCV shape : shapesToRender) {
             shape.initOpenGLPrograms();
@@ -170,6 +174,8 @@ public class GLRendererCV implements GLSurfaceView.Renderer {
         GLES20.glEnable(GLES20.GL_DEPTH_TEST);  // such that fragments in the front ...
         GLES20.glDepthFunc(GLES20.GL_LESS);     // ... hide fragments in the back
         GLES20.glDepthMask( true );
+        // delete the buffer objects of the shapes and meshes that have been removed since the last frame
+        GLStateCacheCV.current().deleteReleasedBuffers();
         // draw the shapes based on the current view projection matrix
         ArrayList<GLShapeCV> shapesToRender = surfaceView.getShapesToRender();
         // start = (new Date()).getTime();
@@ -17,10 +17,11 @@ import android.opengl.GLUtils;
 import android.opengl.Matrix;
 import android.util.Log;
 
+import java.nio.Buffer;
 import java.nio.ByteBuffer;
-import java.nio.ByteOrder;
 import java.nio.FloatBuffer;
 import java.util.ArrayList;
+import java.util.Arrays;
 
 /**
  * Class to define shapes, i.e. 2D or 3D objects, that can be rendered by a renderer of class <I>GLRendererCV</I> on a view of class <I>GLSurfaceViewCV</I>.
@@ -80,15 +81,27 @@ public class GLShapeCV {
     /**
      * Bitmaps specifying the triangle textures if the triangles are textured.
      * The array is initialized by the constructor from the texture bitmaps of the triangles.
+     * Triangles with the same bitmap object share one entry, such that e.g. the quads of a text drawn from a glyph atlas need only one texture.
      * Only valid if the triangles are textured, i.e. not colored.
      */
 
     private Bitmap[] textureBitmaps;
 
+    /** For each triangle the index of its texture in 'textureBitmaps' and 'textureNames'. Only valid if the triangles are textured, i.e. not colored. */
+
+    private int[] textureOfTriangle;
+
     /** IDs of the textures. Only valid if the triangles are textured, i.e. not colored. */
 
     private int[] textureNames;
 
+    /**
+     * If not null, the texture of the shape is a signed distance field (see the SIGNED_DISTANCE_FIELD variant of GLPlatformCV.fragmentShader)
+     * that is drawn in this color (RGBA). Only valid if the triangles are textured, i.e. not colored.
+     */
+
+    private float[] signedDistanceFieldColor;
+
     /**
      * Bitmaps specifying the uv coordinates for the triangle textures if the triangles a textured.
      * The array is initialized by the constructor from the uv coordinates of the triangles.
@@ -179,80 +192,117 @@ public class GLShapeCV {
 
     private ControlThread controlThread;
 
-    /** The IDs of the OpenGL ES program to draw this shape (without lighting). */
+    /** The OpenGL ES program to draw this shape (without lighting), shared with all shapes of the same shader variant. */
 
-    private int openGLprogramWithoutLighting;
+    private GLProgramCV openGLprogramWithoutLighting;
 
-    /** The IDs of the OpenGL ES program to draw this shape (with lighting). */
+    /** The OpenGL ES program to draw this shape (with lighting), shared with all shapes of the same shader variant. Null if there is none for the coloring type of the shape. */
 
-    private int openGLprogramWithLighting;
+    private GLProgramCV openGLprogramWithLighting;
 
     /**
-     * Information whether the OpenGL programs have been compiled.
-     * If not, the renderer will compile the program in its onDrawFrame() method,
-     * i.e. call the initOpenGLPrograms() method of this shape.
+     * The OpenGL ES programs to draw the lines of this shape (without and with lighting).
+     * Lines always have per-vertex colors. If the triangles are drawn with another shader variant (uniform color or texture),
+     * these are the programs of the variant for varying colors, otherwise the same as above. Null if the shape has no lines.
      */
 
-    private boolean isCompiled;
+    private GLProgramCV openGLprogramForLinesWithoutLighting, openGLprogramForLinesWithLighting;
 
-    /** The Open GL ES vertex shader code (without lighting). */
+    /** The coloring type of the shader variant of 'openGLprogramWithoutLighting' and 'openGLprogramWithLighting' (see programColoringType()), -1 if not compiled yet. */
 
-    private String vertexShaderCodeWithoutLighting;
+    private int compiledColoringType = -1;
 
-    /** The Open GL ES vertex shader code (with lighting). */
+    /** Auxiliary arrays for the draw() method, allocated only once: the MVP matrix, the MV matrix, and the inverted directional light vector. */
 
-    private String vertexShaderCodeLighting;
+    private final float[] mvpMatrix = new float[16], mvMatrix = new float[16], invertedDirectionalLightVector = new float[3];
 
-    /** The Open GL ES fragment shader codes. */
+    /**
+     * Information whether the OpenGL programs have been compiled.
+     * If not, the renderer will compile the program in its onDrawFrame() method,
+     * i.e. call the initOpenGLPrograms() method of this shape.
+     */
 
-    private String fragmentShaderCode;
+    private boolean isCompiled;
 
     /**
-     * Buffer to pass the vertex coordinates of the triangles to the graphics hardware.
-     * Only valid if the shape has triangles, i.e. the 'triangles' attribute is not null.
+     * The layout of the vertex buffers of the shape, i.e. the data types in which the normals and colors are stored.
+     * In indexed-mesh mode, the triangles are drawn with the layout of the mesh instead.
      */
 
-    private FloatBuffer triangleVerticesBuffer;
+    private GLVertexLayoutCV vertexLayout = GLVertexLayoutCV.getDefault();
 
     /**
-     * Buffer to pass the surface normals of the triangles to the graphics hardware
-     * that are needed to calculate the light reflected by the shape's surfaces.
-     * Only valid if the shape has triangles, i.e. the 'triangles' attribute is not null.
+     * Buffer to pass the vertices of the triangles to the graphics hardware.
+     * For each vertex, its coordinates, the surface normal of its triangle (that is needed to calculate the light reflected by the shape's surfaces),
+     * and its color values or uv coordinates are stored one after the other with the data types of 'vertexLayout'.
+     * The buffer is initialized by the method setModelMatrixAndBuffers() from the triangles and used by the draw() method.
+     * In indexed-mesh mode, this is the buffer of the mesh with the coordinates and normals of its unique vertices.
+     * Only valid if the shape has triangles, i.e. the 'triangles' or the 'mesh' attribute is not null.
      */
 
-    private FloatBuffer triangleNormalsBuffer;
+    private ByteBuffer triangleVertexData;
 
     /**
-     * Buffer to pass the end vertex coordinates of the lines to the graphics hardware.
+     * Buffer to pass the end points of the lines to the graphics hardware.
+     * For each end point, its coordinates and color values are stored one after the other with the data types of 'vertexLayout'.
      * Only valid if the shape has lines, i.e. the 'lines' attribute is not null.
      */
 
-    private FloatBuffer lineVerticesBuffer;
+    private ByteBuffer lineVertexData;
+
+    /** The sizes of a vertex in 'triangleVertexData' and 'lineVertexData' in bytes. */
+
+    private int triangleStride, lineStride;
+
+    /**
+     * The buffer objects in GPU memory for the buffers above, from which the draw() method draws.
+     * They are uploaded when the shape is drawn for the first time after they have been set or modified
+     * and released when the shape is removed from its surface view.
+     * In indexed-mesh mode, the buffer object of the mesh is used for the triangles instead (see triangleVBO()).
+     */
+
+    private GLBufferCV triangleVBO, lineVBO;
+
+    /** Indexed-mesh mode: the buffer object of the mesh with the per-vertex colors for 'meshColor'. */
+
+    private GLBufferCV meshColorsVBO;
+
+    /** The usage hint for the buffer objects: GL_STATIC_DRAW, or GL_DYNAMIC_DRAW if the buffers are modified by a control thread. */
+
+    private int bufferUsage = GLES20.GL_STATIC_DRAW;
 
     /**
-     * Buffer to pass the color values of the triangles to the graphics hardware.
-     * The buffer is initialized by the method setModelMatrixAndBuffers() from the color values of the triangles
-     * and used by the draw() method.
-     * Only valid if the shape has triangles, i.e. the 'triangles' attribute is not null.
+     * Indexed-mesh mode: the geometry of the shape, i.e. the unique vertices, their normals, and the vertex indices of the triangles.
+     * A vertex shared by several triangles is stored only once. The mesh is immutable and may be shared with other shapes,
+     * e.g. with the copies made by copy(); its buffers are used directly by the draw() method.
+     * <BR>
+     * This attribute is null if the shape is defined by GLTriangleCV objects (i.e. by the 'triangles' attribute).
      */
 
-    private FloatBuffer triangleColorsBuffer;
+    private GLMeshCV mesh;
+
+    /** Indexed-mesh mode: the uniform color of the mesh (RGBA). Only valid if 'mesh' is not null. */
+
+    private float[] meshColor;
 
     /**
-     * Buffer to pass the uv coordinates to the graphics hardware.
-     * Only valid if the shape has textured triangles.
+     * The color of all triangles if they have the same uniform color (in indexed-mesh mode: 'meshColor'), null otherwise.
+     * If not null, the triangles are drawn with the shader variant for uniform colors, i.e. the color is passed to the shader as the uniform uColor
+     * and the vertex buffers contain no colors. A new color then only needs to be copied into this array (see setTrianglesUniformColor()).
      */
 
-    private FloatBuffer uvBuffer;
+    private float[] uniformColor;
+
+    /** Specifies that the triangles shall have per-vertex colors even if they have the same uniform color, e.g. because a control thread morphs their colors. */
+
+    private boolean perVertexColors;
 
     /**
-     * Buffer to pass the color values of the lines to the graphics hardware.
-     * The buffer is initialized by the method setModelMatrixAndBuffers() from the color values of the triangles
-     * and used by the draw() method.
-     * Only valid if the shape has lines, i.e. the 'lines' attribute is not null.
+     * An optional action that is executed by the draw() method on the OpenGL thread before the shape is drawn,
+     * e.g. to update the buffers of a dynamic mesh (see GLMeshCV.setVertices()). null if there is no such action.
      */
 
-    private FloatBuffer lineColorsBuffer;
+    private Runnable preDrawAction;
 
     /**
      * The constructor will prepare the OpenGL code to be executed for this shape with the corresponding attribute values ('vertexBuffer' etc.).
@@ -348,6 +398,90 @@ public class GLShapeCV {
 
     }
 
+    /**
+     * Constructor for a shape in indexed-mesh mode, i.e. a shape whose triangles share their vertices.
+     * Each vertex is stored only once and the triangles are drawn with glDrawElements(),
+     * which saves memory and vertex shader work compared to a shape built from GLTriangleCV objects.
+     * The mesh has a uniform color.
+     * <BR>
+     * The OpenGL code is not compiled by the constructor but by a later separate call of initOpenGLPrograms() (see the other constructors).
+     * @param id The ID of the shape.
+     * @param vertices The coordinates of the vertices (x, y, and z of each vertex in a row). A clone of this array will be stored.
+     * @param normals The normals of the vertices (three values per vertex) or null if the normals shall be calculated from the triangles. A clone of this array will be stored.
+     * @param indices The vertex indices of the triangles (three indices per triangle). A clone of this array will be stored.
+     * @param color The color of the mesh. If not valid, the mesh will be white.
+     */
+
+    public GLShapeCV(String id, float[] vertices, float[] normals, int[] indices, float[] color) {
+        this(id,new GLMeshCV(vertices,normals,indices),color);
+    }
+
+    /**
+     * Constructor for a shape in indexed-mesh mode whose data are passed in buffers, e.g. slices of a memory-mapped file.
+     * The remaining elements of the buffers are copied into the shape, the positions of the buffers are not changed.
+     * Apart from that, the constructor corresponds to the constructor with arrays.
+     * @param id The ID of the shape.
+     * @param vertices The coordinates of the vertices (x, y, and z of each vertex in a row).
+     * @param normals The normals of the vertices (three values per vertex) or null if the normals shall be calculated from the triangles.
+     * @param indices The vertex indices of the triangles (three indices per triangle) - an IntBuffer or a ShortBuffer with unsigned 16-bit indices.
+     * @param color The color of the mesh. If not valid, the mesh will be white.
+     */
+
+    public GLShapeCV(String id, FloatBuffer vertices, FloatBuffer normals, Buffer indices, float[] color) {
+        this(id,new GLMeshCV(vertices,normals,indices),color);
+    }
+
+    /**
+     * Constructor for a shape in indexed-mesh mode that shares its geometry with other shapes.
+     * The mesh is not copied: all shapes made from the same mesh draw from the same buffers
+     * and only have their own model matrix and color.
+     * @param id The ID of the shape.
+     * @param mesh The geometry of the shape.
+     * @param color The color of the mesh. If not valid, the mesh will be white.
+     */
+
+    public GLShapeCV(String id, GLMeshCV mesh, float[] color) {
+
+        this.id = id;
+
+        // prepare the matrices, the rotation axis and the rotation angle
+
+        modelMatrix = new float[16];
+        scalingMatrix = new float[16];
+        rotationMatrix = new float[16];
+        translationMatrix = new float[16];
+        Matrix.setIdentityM(modelMatrix,0);
+        Matrix.setIdentityM(scalingMatrix,0);
+        Matrix.setIdentityM(rotationMatrix,0);
+        Matrix.setIdentityM(translationMatrix,0);
+
+        // set the mesh building this shape
+
+        this.mesh = mesh;
+        if (GLShapeFactoryCV.isValidColorArray(color))
+            meshColor = color.clone();
+          else
+            meshColor = GraphicsUtilsCV.white.clone();
+
+        // prepare the list of animators
+
+        animators = new ArrayList<Animator>();
+
+        controlThread = null;
+
+        // set the model matrix and the buffers
+
+        setModelMatrixAndBuffers();
+
+        // calculate and store the intrinsic sizes in the three dimensions
+
+        intrinsicSize = new float[3];
+        intrinsicSize[0] = calculateIntrinsicSize(0);
+        intrinsicSize[1] = calculateIntrinsicSize(1);
+        intrinsicSize[2] = calculateIntrinsicSize(2);
+
+    }
+
     /*
     private float[] makeNormalsArray(float[] coordinates) {
         float[] normals = new float[coordinates.length];
@@ -375,11 +509,20 @@ public class GLShapeCV {
 
     /**
      * Makes a deep copy of this shape, i.e. makes a new shape with copies of all the triangles and lines.
+     * A shape in indexed-mesh mode shares its immutable mesh with the copy.
      * @param id The id of the new shape.
      * @return A reference to the new shape.
      */
 
     synchronized public GLShapeCV copy(String id) {
+        if (mesh!=null) {
+            // the copy shares the immutable mesh, i.e. its geometry buffers are not rebuilt
+            GLShapeCV copy = new GLShapeCV(id,mesh,meshColor);
+            if (lines!=null)
+                copy.addLines(getLines());
+            copy.setLineWidth(lineWidth);
+            return copy;
+        }
         return new GLShapeCV(id,triangles,lines,lineWidth);
     }
 
@@ -394,107 +537,252 @@ public class GLShapeCV {
 
         buildModelMatrix();
 
-        // prepare the buffers with the vertex coordinates
-
-        final int BYTES_PER_FLOAT = 4;
-
-        if (triangles!=null) {
-            float[] triangleCoordinates = coordinateArrayFromTriangles();
-            ByteBuffer bbTri = ByteBuffer.allocateDirect(triangleCoordinates.length * BYTES_PER_FLOAT);
-            bbTri.order(ByteOrder.nativeOrder());
-            triangleVerticesBuffer = bbTri.asFloatBuffer();
-            // long start = System.nanoTime();
-            triangleVerticesBuffer.put(triangleCoordinates);
-            // Log.v("GLDEMO",">>> put "+id+" ("+getNumberOfTriangles() +" triangles): "+(System.nanoTime()-start));
-            triangleVerticesBuffer.position(0);
-        }
-
-        if (lines!=null) {
-            float[] linesCoordinates = coordinateArrayFromLines();
-            ByteBuffer bbLin = ByteBuffer.allocateDirect(linesCoordinates.length * BYTES_PER_FLOAT);
-            bbLin.order(ByteOrder.nativeOrder());
-            lineVerticesBuffer = bbLin.asFloatBuffer();
-            lineVerticesBuffer.put(linesCoordinates);
-            lineVerticesBuffer.position(0);
-        }
-
-        // prepare the buffer with the triangle normals
-
-        if (triangles!=null) {
-            float[] normals = normalsArrayFromTriangles();
-            ByteBuffer bbNorm = ByteBuffer.allocateDirect(normals.length * BYTES_PER_FLOAT);
-            bbNorm.order(ByteOrder.nativeOrder());
-            triangleNormalsBuffer = bbNorm.asFloatBuffer();
-            // long start = System.nanoTime();
-            triangleNormalsBuffer.put(normals);
-            // Log.v("GLDEMO",">>> put "+id+" ("+getNumberOfTriangles() +" triangles): "+(System.nanoTime()-start));
-            triangleNormalsBuffer.position(0);
-
-        }
-
         // determine the coloring type:
         // - if there exist triangles: the coloring type of the first triangle (assuming that all triangles have the same coloring type)
         // - if there exist lines but no triangles: COLORING_UNIFORM
-        // (note that the current version of this class draws no lines if there exist textured triangles.)
+        // (note that the lines are always drawn with per-vertex colors, see initOpenGLPrograms().)
 
         if (triangles!=null)
             coloringType = triangles[0].getColoringType();
         else
             coloringType = GLPlatformCV.COLORING_UNIFORM;
 
+        // triangles that all have the same uniform color are drawn with this color as a uniform of the shader,
+        // triangles with different colors (e.g. the faces of a cube) with per-vertex colors
+
+        if (perVertexColors)
+            uniformColor = null;
+          else if (mesh!=null)
+            uniformColor = meshColor;
+          else
+            uniformColor = commonUniformColor();
+
+        // prepare the buffer with the triangle vertices:
+        // the coordinates, the normal, and the color or the uv coordinates of each vertex are stored one after the other
+        // with the data types of the vertex layout, such that the hardware fetches a vertex from one contiguous block of memory
+
         if (triangles!=null) {
-            // set colors or textures for the triangles
-            switch (coloringType) {
-                case GLPlatformCV.COLORING_UNIFORM:
-                    // TODO: Hier auf Basis des Codes von GLPlatformCV.vertexShaderUniform programmieren, sobald dieser funktioniert
-                case GLPlatformCV.COLORING_VARYING:
-                    float[] triangleColors = colorArrayFromTriangles();
-                    ByteBuffer bbColTriangles = ByteBuffer.allocateDirect(triangleColors.length * BYTES_PER_FLOAT);
-                    bbColTriangles.order(ByteOrder.nativeOrder());  // native byte order of the device
-                    triangleColorsBuffer = bbColTriangles.asFloatBuffer();
-                    triangleColorsBuffer.put(triangleColors);
-                    triangleColorsBuffer.position(0);  // set read index to the first buffer element
-                    break;
-                case GLPlatformCV.COLORING_TEXTURED:
-                    int uvIndex = 0;
-                    uvCoordinates = new float[triangles.length * 6];
-                    for (GLTriangleCV triangle : triangles) {
-                        float[] uvCoordinatesTriangle = triangle.getUvCoordinates();
-                        for (int i = 0; i < 6; i++)
-                            uvCoordinates[uvIndex++] = uvCoordinatesTriangle[i];
+            boolean textured = coloringType==GLPlatformCV.COLORING_TEXTURED;
+            boolean colors = !textured&&uniformColor==null;
+            triangleStride = vertexLayout.getStride(true,colors,textured);
+            int vertexCount = triangles.length*3;
+            float[] triangleCoordinates = coordinateArrayFromTriangles();
+            float[] normals = normalsArrayFromTriangles();
+            float[] colorsOrUV = null;
+            if (textured) {
+                int uvIndex = 0;
+                uvCoordinates = new float[triangles.length * 6];
+                for (GLTriangleCV triangle : triangles) {
+                    float[] uvCoordinatesTriangle = triangle.getUvCoordinates();
+                    for (int i = 0; i < 6; i++)
+                        uvCoordinates[uvIndex++] = uvCoordinatesTriangle[i];
+                }
+                colorsOrUV = uvCoordinates;
+            }
+              else if (colors)
+                colorsOrUV = colorArrayFromTriangles();
+            triangleVertexData = GLVertexLayoutCV.allocate(vertexCount,triangleStride);
+            int attributeOffset = GLVertexLayoutCV.POSITION_SIZE+vertexLayout.getNormalSize();
+            // long start = System.nanoTime();
+            for (int i = 0; i < vertexCount; i++) {
+                int offset = i*triangleStride;
+                GLVertexLayoutCV.putPosition(triangleVertexData,offset,triangleCoordinates,3*i);
+                vertexLayout.putNormal(triangleVertexData,offset+GLVertexLayoutCV.POSITION_SIZE,normals,3*i);
+                if (textured) {
+                    triangleVertexData.putFloat(offset+attributeOffset,colorsOrUV[2*i]);
+                    triangleVertexData.putFloat(offset+attributeOffset+4,colorsOrUV[2*i+1]);
+                }
+                  else if (colors)
+                    vertexLayout.putColor(triangleVertexData,offset+attributeOffset,colorsOrUV,4*i);
+            }
+            // Log.v("GLDEMO",">>> put "+id+" ("+getNumberOfTriangles() +" triangles): "+(System.nanoTime()-start));
+            triangleVBO = arrayBuffer(triangleVBO,triangleVertexData);
+            if (textured) {
+                ArrayList<Bitmap> bitmaps = new ArrayList<>();
+                textureOfTriangle = new int[triangles.length];
+                for (int i = 0; i < triangles.length; i++) {
+                    Bitmap bitmap = triangles[i].getTexture();
+                    int texture = i>0&&triangles[i-1].getTexture()==bitmap ? textureOfTriangle[i-1] : bitmaps.indexOf(bitmap);
+                    if (texture==-1) {
+                        texture = bitmaps.size();
+                        bitmaps.add(bitmap);
                     }
-                    ByteBuffer bbUV = ByteBuffer.allocateDirect(uvCoordinates.length * BYTES_PER_FLOAT);
-                    bbUV.order(ByteOrder.nativeOrder());
-                    uvBuffer = bbUV.asFloatBuffer();
-                    uvBuffer.put(uvCoordinates);
-                    uvBuffer.position(0);
-                    textureBitmaps = new Bitmap[triangles.length];
-                    for (int i = 0; i < triangles.length; i++)
-                        textureBitmaps[i] = triangles[i].getTexture();
-                    textureNames = new int[textureBitmaps.length];
-                    break;
+                    textureOfTriangle[i] = texture;
+                }
+                textureBitmaps = bitmaps.toArray(new Bitmap[0]);
+                textureNames = new int[textureBitmaps.length];
             }
+        }
 
+        if (mesh!=null) {
+            // indexed-mesh mode: the buffers with the unique vertices, their normals and (if needed) colors are those of the shared mesh
+            triangleVertexData = mesh.getVertexData();
+            triangleStride = mesh.getVertexStride();
+            if (uniformColor==null)
+                setMeshColorsBuffer();
+              else
+                meshColorsVBO = null;
         }
 
-        if (lines!=null&&coloringType!=GLPlatformCV.COLORING_TEXTURED) {
-            // set colors for the lines
+        // prepare the buffer with the line vertices: the coordinates and the color of each end point
+
+        if (lines!=null) {
+            lineStride = vertexLayout.getStride(false,true,false);
+            float[] linesCoordinates = coordinateArrayFromLines();
             float[] lineColors = colorArrayFromLines();
-            ByteBuffer bbColLines = ByteBuffer.allocateDirect(lineColors.length * BYTES_PER_FLOAT);
-            bbColLines.order(ByteOrder.nativeOrder());
-            lineColorsBuffer = bbColLines.asFloatBuffer();
-            lineColorsBuffer.put(lineColors);
             // for (int i=0; i<lineColors.length/4; i++)
             //     Log.v("DEMO","--------- "+lineColors[i*4]+" "+lineColors[i*4+1]+" "+lineColors[i*4+2]+" "+lineColors[i*4+3]+" ");
-            lineColorsBuffer.position(0);
+            lineVertexData = GLVertexLayoutCV.allocate(lines.length*2,lineStride);
+            for (int i = 0; i < lines.length*2; i++) {
+                int offset = i*lineStride;
+                GLVertexLayoutCV.putPosition(lineVertexData,offset,linesCoordinates,3*i);
+                vertexLayout.putColor(lineVertexData,offset+GLVertexLayoutCV.POSITION_SIZE,lineColors,4*i);
+            }
+            lineVBO = arrayBuffer(lineVBO,lineVertexData);
         }
 
+        // if another shader variant is needed now (e.g. because triangles with other colors or lines have been added),
+        // the renderer gets the programs anew before the shape is drawn the next time
+
+        if (isCompiled&&(compiledColoringType!=programColoringType()||lines!=null&&openGLprogramForLinesWithoutLighting==null))
+            isCompiled = false;
+
         // long duration = System.nanoTime() - start;
         // Log.v("GLDEMO",">>> Put buffers: "+duration+" ns");
         // Log.v("GLDEMO",">>> Put Buffers: "+duration/1000000+" ms");
 
     }
 
+    /**
+     * Internal auxiliary method to check if all triangles of the shape have the same uniform color.
+     * @return A copy of this color or null if the triangles have different colors, color gradients, or textures.
+     */
+
+    synchronized private float[] commonUniformColor() {
+        if (triangles==null) return null;
+        float[] color = triangles[0].getUniformColor();
+        if (color==null) return null;
+        for (int i = 1; i < triangles.length; i++)
+            if (!Arrays.equals(color,triangles[i].getUniformColor()))
+                return null;
+        return color;
+    }
+
+    /**
+     * Internal auxiliary method to determine the shader variant for the triangles of the shape.
+     * @return The coloring type of the variant (GLPlatformCV.COLORING_UNIFORM, COLORING_VARYING, or COLORING_TEXTURED) or -1 if the coloring type of the shape is undefined.
+     */
+
+    synchronized private int programColoringType() {
+        switch (coloringType) {
+            case GLPlatformCV.COLORING_UNIFORM:
+                if (uniformColor!=null)
+                    return GLPlatformCV.COLORING_UNIFORM;
+                // triangles with different uniform colors and shapes with lines only are drawn with per-vertex colors
+            case GLPlatformCV.COLORING_VARYING:
+                return GLPlatformCV.COLORING_VARYING;
+            case GLPlatformCV.COLORING_TEXTURED:
+                return GLPlatformCV.COLORING_TEXTURED;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Internal auxiliary method to switch the shape to per-vertex colors (see 'perVertexColors'), i.e. to rebuild its buffers with colors.
+     */
+
+    synchronized private void setPerVertexColors() {
+        if (perVertexColors) return;
+        perVertexColors = true;
+        setModelMatrixAndBuffers();
+    }
+
+    /**
+     * Internal auxiliary method to set the 'meshColorsVBO' of a shape in indexed-mesh mode,
+     * i.e. to assign the mesh color to all vertices.
+     * The buffer is shared with all other shapes of the same mesh and color.
+     */
+
+    synchronized private void setMeshColorsBuffer() {
+        meshColorsVBO = mesh.getColorsBuffer(meshColor);
+    }
+
+    /**
+     * Internal auxiliary method to pass new data to a buffer object of the shape, which is made if it does not exist yet.
+     * @param vbo The buffer object or null.
+     * @param data The new data.
+     * @return The buffer object.
+     */
+
+    synchronized private GLBufferCV arrayBuffer(GLBufferCV vbo, ByteBuffer data) {
+        if (vbo==null)
+            return new GLBufferCV(GLES20.GL_ARRAY_BUFFER,bufferUsage,data);
+        vbo.setData(data);
+        return vbo;
+    }
+
+    /** @return The buffer object with the triangle vertices (in indexed-mesh mode: of the mesh). */
+
+    synchronized private GLBufferCV triangleVBO() {
+        return mesh!=null ? mesh.getVertexVBO() : triangleVBO;
+    }
+
+    /** @return The vertex layout of the triangle vertices (in indexed-mesh mode: of the mesh). */
+
+    synchronized private GLVertexLayoutCV triangleLayout() {
+        return mesh!=null ? mesh.getVertexLayout() : vertexLayout;
+    }
+
+    /**
+     * Internal auxiliary method to replace the mesh of the shape.
+     * While the shape is attached to a surface view, it is registered as a user of its mesh, such that the mesh can release its buffer objects
+     * when it is no longer drawn.
+     * @param newMesh The new mesh or null.
+     */
+
+    synchronized private void replaceMesh(GLMeshCV newMesh) {
+        if (surfaceView!=null) {
+            if (mesh!=null) mesh.removeUser();
+            if (newMesh!=null) newMesh.addUser();
+        }
+        mesh = newMesh;
+    }
+
+    /**
+     * Releases the buffer objects of the shape (those of its mesh are released by the mesh when its last shape has been removed, see replaceMesh()).
+     * Called when the shape is removed from its surface view. If the shape is drawn again, the buffer objects are uploaded anew.
+     */
+
+    synchronized private void releaseGLBuffers() {
+        for (GLBufferCV vbo : new GLBufferCV[] { triangleVBO, lineVBO })
+            if (vbo!=null)
+                vbo.release();
+    }
+
+    /**
+     * Sets the usage hint of the buffer objects of the shape.
+     * @param usage GLES20.GL_STATIC_DRAW or GLES20.GL_DYNAMIC_DRAW.
+     */
+
+    synchronized private void setBufferUsage(int usage) {
+        bufferUsage = usage;
+        for (GLBufferCV vbo : new GLBufferCV[] { triangleVBO, lineVBO })
+            if (vbo!=null)
+                vbo.setUsage(usage);
+    }
+
+    /**
+     * Copies the model matrix of the shape, i.e. the combination of its scaling, rotation, and translation, into an array
+     * (without allocating a new array, such that the method can be called for many shapes on every frame).
+     * @param result The array to receive the matrix (16 values in column-major order).
+     * @param offset The index of the first matrix value in the array.
+     */
+
+    synchronized public void getModelMatrix(float[] result, int offset) {
+        System.arraycopy(modelMatrix,0,result,offset,16);
+    }
+
     /**
      * Internal auxiliary method to build the model matrix (i.e. the 'modelMatrix' attribute) from the scaling, rotation, and translation matrix attributes of the shape.
      * For details, see the note in the introductory text on the order of transformation operations.
@@ -508,7 +796,9 @@ public class GLShapeCV {
     }
 
     /**
-     * To set the shaders and to compile and link the OpenGL program from these shader coders.
+     * To set the OpenGL programs for the coloring type of the shape.
+     * The programs are shared by all shapes with the same shader variant (see GLProgramRegistryCV),
+     * i.e. they are compiled and linked only for the first of these shapes.
      * This method will be called from the onSurfaceCreated() method of the renderer that shall render the shade.
      * An earlier call (esp. from the shape constructor) will lead to an OpenGL link and/or compile error.
      * For textured shapes, always to be called together with initOpenGLPrograms().
@@ -516,67 +806,48 @@ public class GLShapeCV {
 
     synchronized public void initOpenGLPrograms() {
 
-        switch (coloringType) {
-            case GLPlatformCV.COLORING_UNIFORM:
-                // TODO: Hier Code von GLPlatformCV.vertexShaderUniformColor zuweisen, sobald er funktioniert
-                // vertexShaderCode = GLPlatformCV.vertexShaderUniformColor;
-                // fragmentShaderCode = GLPlatformCV.fragmentShaderUniformColor;
-                // break;
-            case GLPlatformCV.COLORING_VARYING:
-                vertexShaderCodeWithoutLighting = GLPlatformCV.vertexShaderVaryingColor;
-                vertexShaderCodeLighting = GLPlatformCV.vertexShaderVaryingColorLighting;
-                fragmentShaderCode = GLPlatformCV.fragmentShaderVaryingColor;
-                break;
-            case GLPlatformCV.COLORING_TEXTURED:
-                vertexShaderCodeWithoutLighting = GLPlatformCV.vertexShaderTextured;
-                vertexShaderCodeLighting = null;
-                fragmentShaderCode = GLPlatformCV.fragmentShaderTextured;
-                break;
-            default:
-                return;
+        // shapes whose triangles all have the same uniform color use the variant for COLORING_UNIFORM, to which the color is passed as a uniform
+
+        int programColoringType = programColoringType();
+
+        if (programColoringType==-1)
+            return;
+
+        // meshes with more than 65536 vertices are drawn with 32-bit indices, which OpenGL ES 2.0 supports only as an extension
+
+        if (mesh!=null&&mesh.getIndexType()==GLES20.GL_UNSIGNED_INT) {
+            String extensions = GLES20.glGetString(GLES20.GL_EXTENSIONS);
+            if (extensions==null||!extensions.contains("GL_OES_element_index_uint"))
+                Log.e("GLDEMO", "Shape "+id+": "+mesh.getNumberOfVertices()+" vertices, but GL_OES_element_index_uint is not supported");
         }
 
-        // create OpenGL shaders
+        // get the programs of the shader variants (the locations of their attributes and uniforms have been resolved when they were linked);
+        // signed distance field textures are drawn without lighting
 
-        int vertexShader = GLPlatformCV.loadShader(GLES20.GL_VERTEX_SHADER,this.vertexShaderCodeWithoutLighting);
-        int vertexShaderLighting;
-        if (this.vertexShaderCodeLighting!=null)
-            vertexShaderLighting = GLPlatformCV.loadShader(GLES20.GL_VERTEX_SHADER,this.vertexShaderCodeLighting);
-         else vertexShaderLighting = -1;
-        int fragmentShader = GLPlatformCV.loadShader(GLES20.GL_FRAGMENT_SHADER,this.fragmentShaderCode);
+        GLProgramRegistryCV programs = GLProgramRegistryCV.current();
+        boolean signedDistanceField = coloringType==GLPlatformCV.COLORING_TEXTURED&&signedDistanceFieldColor!=null;
 
-        // create the programs
+        openGLprogramWithoutLighting = programs.getProgram(programColoringType, signedDistanceField, false);
+        openGLprogramWithLighting = signedDistanceField ? null : programs.getProgram(programColoringType, false, true);
+        compiledColoringType = programColoringType;
 
-        openGLprogramWithoutLighting = GLES20.glCreateProgram();
-        GLES20.glAttachShader(openGLprogramWithoutLighting, vertexShader);
-        GLES20.glAttachShader(openGLprogramWithoutLighting, fragmentShader);
-        GLES20.glLinkProgram(openGLprogramWithoutLighting);
+        // the lines need per-vertex colors, i.e. the variant for COLORING_VARYING
 
-        // debug information to see if the OpenGL code has been linked successfully
-        final int[] linkStatus = new int[1];
-        GLES20.glGetProgramiv(openGLprogramWithoutLighting, GLES20.GL_LINK_STATUS, linkStatus, 0);
-        if (linkStatus[0]==1) {
-            // Log.v("GLDEMO", ">>> Linking successful");
-            isCompiled = true;
+        if (lines==null) {
+            openGLprogramForLinesWithoutLighting = null;
+            openGLprogramForLinesWithLighting = null;
         }
-        else {
-            // Log.v("GLDEMO2", ">>> Linking error: " + GLES20.glGetProgramInfoLog(openGLprogram));
+          else if (programColoringType==GLPlatformCV.COLORING_VARYING) {
+            openGLprogramForLinesWithoutLighting = openGLprogramWithoutLighting;
+            openGLprogramForLinesWithLighting = openGLprogramWithLighting;
         }
-
-        if (vertexShaderLighting==-1) {
-            openGLprogramWithLighting = -1;
-            return;
+          else {
+            openGLprogramForLinesWithoutLighting = programs.getProgram(GLPlatformCV.COLORING_VARYING, false, false);
+            openGLprogramForLinesWithLighting = programs.getProgram(GLPlatformCV.COLORING_VARYING, false, true);
         }
 
-        openGLprogramWithLighting = GLES20.glCreateProgram();
-        GLES20.glAttachShader(openGLprogramWithLighting, vertexShaderLighting);
-        GLES20.glAttachShader(openGLprogramWithLighting, fragmentShader);
-        GLES20.glLinkProgram(openGLprogramWithLighting);
-
-        // debug information to see if the OpenGL code has been linked successfully
-        GLES20.glGetProgramiv(openGLprogramWithLighting, GLES20.GL_LINK_STATUS, linkStatus, 0);
-        if (linkStatus[0]!=1)
-            isCompiled = false;
+        isCompiled = openGLprogramWithoutLighting!=null&&(signedDistanceField||openGLprogramWithLighting!=null)
+                &&(lines==null||openGLprogramForLinesWithoutLighting!=null&&openGLprogramForLinesWithLighting!=null);
 
     }
 
@@ -589,7 +860,7 @@ public class GLShapeCV {
         if (coloringType==GLPlatformCV.COLORING_TEXTURED) {
             GLES20.glGenTextures(textureNames.length, textureNames, 0);
             for (int i = 0; i < textureBitmaps.length; i++) {
-                GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textureNames[i]);
+                GLStateCacheCV.current().bindTexture(textureNames[i]);
                 GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MIN_FILTER, GLES20.GL_LINEAR);
                 GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_MAG_FILTER, GLES20.GL_LINEAR);
                 GLES20.glTexParameteri(GLES20.GL_TEXTURE_2D, GLES20.GL_TEXTURE_WRAP_S, GLES20.GL_CLAMP_TO_EDGE);
@@ -728,7 +999,7 @@ public class GLShapeCV {
 
     /**
      * The method to be called by a renderer to draw the shape, optionally with lighting.
-     * (NB: lighting does not work for lines and for textured shapes yet)
+     * (NB: lighting does not work for lines and for signed distance field textures yet)
      * Lighting is only applied if at least one of the parameters pointLightPos and directionalLightVector is not null.
      * @param vpMatrix The view/projection matrix to be passed by the renderer. It will be multiplied with the model matrix of the shape.
      * @param vMatrix The view matrix to be passed by the renderer (only required if lighting is applied, may be null otherwise).
@@ -740,9 +1011,13 @@ public class GLShapeCV {
 
     synchronized public void draw(float[] vpMatrix, float[] vMatrix, float[] pointLightPos, float[] directionalLightVector, float relativePointLightShare, float ambientLight) {
 
-        boolean withLighting = (pointLightPos!=null)||(directionalLightVector!=null);
+        if (preDrawAction!=null)
+            preDrawAction.run();
+
+        // shapes without a program for lighting (currently signed distance field textures) are drawn without lighting
+        boolean withLighting = ((pointLightPos!=null)||(directionalLightVector!=null))&&openGLprogramWithLighting!=null;
         
-        int openGLprogram;
+        GLProgramCV openGLprogram;
         
         if (withLighting)
             openGLprogram = this.openGLprogramWithLighting;
@@ -760,137 +1035,138 @@ public class GLShapeCV {
             }
         }
 
-        GLES20.glUseProgram(openGLprogram);
+        // The state cache skips the OpenGL calls for the program, the attribute arrays, the textures, and blending
+        // if they are already set, e.g. by the previous shape - the letters of a text are usually drawn with the same state.
+
+        GLStateCacheCV state = GLStateCacheCV.current();
+
+        state.useProgram(openGLprogram);
         
         // set some fundamental constants
 
         final int COORDS_PER_VERTEX = 3;  // coordinates (3 = three-dimensional space)
-        final int COLORS_PER_VERTEX = 4;  // number of color values per vertex (4 = RGBA)
-        final int BYTES_PER_FLOAT = 4;
         final int triangleVertexCount = triangles!=null?triangles.length*3:0;    // total number of triangle vertices
         final int lineVertexCount = lines!=null?lines.length*2:0;    // total number of lines vertices
 
-        // calculate the MVP matrix and the MV matrix from the model matrix of the shape and the view/projection and view matrices from the renderer
-
-        float[] mvpMatrix = new float[16];
-        float[] mvMatrix = new float[16];
+        // calculate the MVP matrix from the model matrix of the shape and the view/projection matrix from the renderer
+        // and, with lighting, the MV matrix and the inverted directional light vector
 
-        Matrix.multiplyMM(mvMatrix, 0, vMatrix, 0, modelMatrix, 0);
         Matrix.multiplyMM(mvpMatrix, 0, vpMatrix, 0, modelMatrix, 0);
 
-        // pass the matrices to the program
-
-        int mvpMatrixHandle = GLES20.glGetUniformLocation(openGLprogram, "uMVPMatrix");
-        GLES20.glUniformMatrix4fv(mvpMatrixHandle, 1, false, mvpMatrix, 0);
-
-        int vMatrixHandle = GLES20.glGetUniformLocation(openGLprogram, "uVMatrix");
-        GLES20.glUniformMatrix4fv(vMatrixHandle, 1, false, vMatrix, 0);
-
-        int mvMatrixHandle = GLES20.glGetUniformLocation(openGLprogram, "uMVMatrix");
-        GLES20.glUniformMatrix4fv(mvMatrixHandle, 1, false, mvMatrix, 0);
-
-        if (withLighting) {   // pass lighting-related values to the hardware
-
-            if (triangles!=null) {
-                int normalHandle = GLES20.glGetAttribLocation(openGLprogram, "aNormal");
-                GLES20.glVertexAttribPointer(normalHandle, 3, GLES20.GL_FLOAT, false, 0, triangleNormalsBuffer);
-                GLES20.glEnableVertexAttribArray(normalHandle);
-            }
-
-            int pointLightPosHandle = GLES20.glGetUniformLocation(openGLprogram, "uPointLightPos");
-            GLES20.glUniform3f(pointLightPosHandle, pointLightPos[0], pointLightPos[1], pointLightPos[2]);
+        if (withLighting) {
+            Matrix.multiplyMM(mvMatrix, 0, vMatrix, 0, modelMatrix, 0);
+            for (int i = 0; i < 3; i++)
+                invertedDirectionalLightVector[i] = -directionalLightVector[i];
+        }
 
-            int directionalLightVectorHandle = GLES20.glGetUniformLocation(openGLprogram, "uDirectionalLightVector");
-            GLES20.glUniform3f(directionalLightVectorHandle, -directionalLightVector[0], -directionalLightVector[1], -directionalLightVector[2]);
+        // pass them and the lighting-related values to the program
 
-            int relativePointLightShareHandle = GLES20.glGetUniformLocation(openGLprogram, "uRelativePointLightShare");
-            GLES20.glUniform1f(relativePointLightShareHandle, relativePointLightShare);
+        passUniforms(openGLprogram, withLighting, vMatrix, pointLightPos, relativePointLightShare, ambientLight);
 
-            int ambientLightHandle = GLES20.glGetUniformLocation(openGLprogram, "uAmbientLight");
-            GLES20.glUniform1f(ambientLightHandle, ambientLight);
+        // the attribute array for the normals (only with lighting)
 
-        }
+        int normalBit = withLighting ? setNormalPointer(openGLprogram, state) : 0;
 
-        int positionHandle = GLES20.glGetAttribLocation(openGLprogram, "aPosition");
+        int positionHandle = openGLprogram.aPosition;
 
         // draw the triangles
 
-        if (triangles!=null&&triangles.length>0) {     // Zeichnen der 12 Dreiecke eines Würfels: ca. 8-10 Mikrosek. (Zeitmessung 8.6.22)
+        if (getNumberOfTriangles()>0) {     // Zeichnen der 12 Dreiecke eines Würfels: ca. 8-10 Mikrosek. (Zeitmessung 8.6.22)
             // zum Vergleich: Zeichen von 96000 Dreiecken: ca. 2 Millisek.
             // connect the 'vertexBuffer' attribute containing the triangle vertex coordinates with the aPosition attribute
             // = pass the triangle coordinates to the graphics hardware
 
             // pass the vertex coordinates to the hardware
+            // (the buffer objects are uploaded only when the shape is drawn for the first time or the data have been modified)
 
-            GLES20.glVertexAttribPointer(positionHandle, COORDS_PER_VERTEX, GLES20.GL_FLOAT, false,0, triangleVerticesBuffer);
-            GLES20.glEnableVertexAttribArray(positionHandle);
+            triangleVBO().bind(state);
+            GLES20.glVertexAttribPointer(positionHandle, COORDS_PER_VERTEX, GLES20.GL_FLOAT, false, triangleStride, 0);
 
-            GLES20.glVertexAttribPointer(positionHandle, COORDS_PER_VERTEX,
-                    GLES20.GL_FLOAT, false,
-                    0, triangleVerticesBuffer);
+            // the offset of the colors or uv coordinates in the interleaved triangle vertices
+
+            int attributeOffset = GLVertexLayoutCV.POSITION_SIZE+triangleLayout().getNormalSize();
+
+            // the transparent surroundings of the outlines of signed distance field textures are blended with the fragments behind them
+            state.setBlending(coloringType==GLPlatformCV.COLORING_TEXTURED&&signedDistanceFieldColor!=null);
 
             switch (coloringType) {
 
                 case GLPlatformCV.COLORING_UNIFORM:
-                    // TODO: Hier auf Basis des Codes von GLPlatformCV.vertexShaderUniform programmieren, sobald dieser funktioniert
-                    // Dann auch den Fall berücksichtigen, dass alle Triangles jeweils eine einheitliche Farbe haben, diese Farben aber unterschiedlich sind
-                    // colorHandle = GLES20.glGetUniformLocation(openGLprogram, "vColor");  // für einfarbige Würfel
-                    // GLES20.glUniform4fv(colorHandle, 1, colorArray, 0);
-                    // break;
                 case GLPlatformCV.COLORING_VARYING:
-                    int colorHandle = GLES20.glGetAttribLocation(openGLprogram, "aColor");
-                    GLES20.glVertexAttribPointer(colorHandle, COLORS_PER_VERTEX, GLES20.GL_FLOAT, false, COLORS_PER_VERTEX*BYTES_PER_FLOAT, triangleColorsBuffer);
-                    GLES20.glEnableVertexAttribArray(colorHandle);
+                    int colorBit;
+                    if (uniformColor!=null) {
+                        // all triangles have the same color: it is passed as the uniform uColor
+                        // (and only if it differs from the color of the shape drawn before, e.g. not for the other letters of a text)
+                        openGLprogram.setColor(uniformColor);
+                        colorBit = 0;
+                    }
+                      else {
+                        // triangles with different colors or color gradients (e.g. the faces of a cube): per-vertex colors
+                        int colorHandle = openGLprogram.aColor;
+                        if (mesh!=null) {   // indexed-mesh mode: the colors are in a separate buffer of the mesh, without gaps
+                            meshColorsVBO.bind(state);
+                            mesh.getVertexLayout().setColorPointer(colorHandle, 0, 0);
+                        }
+                          else
+                            vertexLayout.setColorPointer(colorHandle, triangleStride, attributeOffset);
+                        colorBit = GLProgramCV.attribBit(colorHandle);
+                    }
+                    state.setVertexAttribArrays(GLProgramCV.attribBit(positionHandle)|colorBit|normalBit);
                     // draw the shape
                     // long start = System.nanoTime();
-                    GLES20.glDrawArrays(GLES20.GL_TRIANGLES, 0, triangleVertexCount);
+                    if (mesh!=null) {   // indexed-mesh mode: every vertex is processed only once by the vertex shader
+                        // a shape that is small on the screen is drawn with a simplified level of detail, if the mesh has one
+                        int level = mesh.getDetailLevel(mvpMatrix);
+                        mesh.getIndicesVBO(level).bind(state);
+                        GLES20.glDrawElements(GLES20.GL_TRIANGLES, mesh.getNumberOfIndices(level), mesh.getIndexType(), 0);
+                    }
+                      else
+                        GLES20.glDrawArrays(GLES20.GL_TRIANGLES, 0, triangleVertexCount);
                     // long duration = System.nanoTime() - start;
                     // Log.v("GLDEMO",">>> "+triangles.length+" triangles "+(duration/1000)+" microsec");
-                    // deactivate the attribute arrays
-                    GLES20.glDisableVertexAttribArray(positionHandle);
-                    GLES20.glDisableVertexAttribArray(colorHandle);
                     break;
                 case GLPlatformCV.COLORING_TEXTURED:
-                    int textureHandle = GLES20.glGetAttribLocation(openGLprogram, "aTexCoord");
-                    // buffer for the uv coordinates
-                    ByteBuffer bbUV = ByteBuffer.allocateDirect(uvCoordinates.length * BYTES_PER_FLOAT);
-                    bbUV.order(ByteOrder.nativeOrder());
-                    uvBuffer = bbUV.asFloatBuffer();
-                    uvBuffer.put(uvCoordinates);
-                    uvBuffer.position(0);
-                    GLES20.glVertexAttribPointer(textureHandle, 2, GLES20.GL_FLOAT, false, 2*BYTES_PER_FLOAT, uvBuffer);
-                    GLES20.glEnableVertexAttribArray(textureHandle);
-                    for (int i = 0; i < triangles.length; i++) {   // draw the triangles one by one, setting the texture anew for each individual triangle
-                        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, textureNames[i]);
-                        GLES20.glDrawArrays(GLES20.GL_TRIANGLES, 3 * i, 3);
+                    int textureHandle = openGLprogram.aTexCoord;
+                    // the uv coordinates have been written into the triangle vertices by setModelMatrixAndBuffers()
+                    GLES20.glVertexAttribPointer(textureHandle, 2, GLES20.GL_FLOAT, false, triangleStride, attributeOffset);
+                    state.setVertexAttribArrays(GLProgramCV.attribBit(positionHandle)|GLProgramCV.attribBit(textureHandle)|normalBit);
+                    if (signedDistanceFieldColor!=null)
+                        openGLprogram.setColor(signedDistanceFieldColor);
+                    for (int first = 0; first < triangles.length; ) {   // draw consecutive triangles with the same texture with one call
+                        int last = first;
+                        while (last+1 < triangles.length && textureOfTriangle[last+1] == textureOfTriangle[first])
+                            last++;
+                        state.bindTexture(textureNames[textureOfTriangle[first]]);
+                        GLES20.glDrawArrays(GLES20.GL_TRIANGLES, 3 * first, 3 * (last - first + 1));
+                        first = last + 1;
                     }
-                    // disable the vertex array
-                    GLES20.glDisableVertexAttribArray(positionHandle);
-                    GLES20.glDisableVertexAttribArray(textureHandle);
                     break;
             }
 
         }
 
         // draw the lines
-
-        // if (coloringType==GLPlatformCV.COLORING_TEXTURED) return;  // Current version of this class: Lines only for colored triangles.
+        // (with per-vertex colors, i.e. with the program for varying colors if the triangles have been drawn with another program)
 
         if (lines!=null) {        // Zeichnen der Kantenlinien eines Würfels: ca. 7-10 Mikrosek. (Zeitmessung 8.6.22)
-            // positionHandle = GLES20.glGetAttribLocation(openGLprogram, "aPosition");
-            GLES20.glDisableVertexAttribArray(positionHandle);
+            GLProgramCV lineProgram = withLighting ? openGLprogramForLinesWithLighting : openGLprogramForLinesWithoutLighting;
+            if (lineProgram!=openGLprogram) {
+                openGLprogram = lineProgram;
+                state.useProgram(openGLprogram);
+                passUniforms(openGLprogram, withLighting, vMatrix, pointLightPos, relativePointLightShare, ambientLight);
+                positionHandle = openGLprogram.aPosition;
+                normalBit = withLighting ? setNormalPointer(openGLprogram, state) : 0;
+            }
+            state.setBlending(false);
+            lineVBO.bind(state);
             GLES20.glVertexAttribPointer(positionHandle, COORDS_PER_VERTEX,
                     GLES20.GL_FLOAT, false,
-                    0, lineVerticesBuffer);
-            GLES20.glEnableVertexAttribArray(positionHandle);
-            int colorHandle = GLES20.glGetAttribLocation(openGLprogram, "aColor");
-            GLES20.glDisableVertexAttribArray(colorHandle);
-            GLES20.glVertexAttribPointer(colorHandle, COLORS_PER_VERTEX, GLES20.GL_FLOAT, false, COLORS_PER_VERTEX*BYTES_PER_FLOAT, lineColorsBuffer);
-            GLES20.glEnableVertexAttribArray(colorHandle);
+                    lineStride, 0);
+            int colorHandle = openGLprogram.aColor;
+            vertexLayout.setColorPointer(colorHandle, lineStride, GLVertexLayoutCV.POSITION_SIZE);
+            state.setVertexAttribArrays(GLProgramCV.attribBit(positionHandle)|GLProgramCV.attribBit(colorHandle)|normalBit);
             GLES20.glLineWidth(lineWidth);
             GLES20.glDrawArrays(GLES20.GL_LINES, 0, lineVertexCount);
-            GLES20.glDisableVertexAttribArray(positionHandle);
-            GLES20.glDisableVertexAttribArray(colorHandle);
         }
 
         /*
@@ -905,10 +1181,63 @@ public class GLShapeCV {
 
     }
 
+    /**
+     * Auxiliary method for draw() to pass the matrices and, with lighting, the lighting-related values to a program.
+     * The MV matrix differs from shape to shape, the view matrix and the light values are only passed if they have changed (see GLProgramCV).
+     */
+
+    private void passUniforms(GLProgramCV program, boolean withLighting, float[] vMatrix, float[] pointLightPos, float relativePointLightShare, float ambientLight) {
+        program.setMVPMatrix(mvpMatrix);
+        if (withLighting) {
+            program.setMVMatrix(mvMatrix);
+            program.setVMatrix(vMatrix);
+            program.setLighting(pointLightPos, invertedDirectionalLightVector, relativePointLightShare, ambientLight);
+        }
+    }
+
+    /**
+     * Auxiliary method for draw() to connect the normal attribute of a program with the normals,
+     * which follow the coordinates in the interleaved triangle vertices.
+     * @return The bit of the attribute for GLStateCacheCV.setVertexAttribArrays() or 0 if the shape has no triangles.
+     */
+
+    private int setNormalPointer(GLProgramCV program, GLStateCacheCV state) {
+        if (getNumberOfTriangles()==0||program.aNormal<0) return 0;
+        triangleVBO().bind(state);
+        triangleLayout().setNormalPointer(program.aNormal, triangleStride, GLVertexLayoutCV.POSITION_SIZE);
+        return GLProgramCV.attribBit(program.aNormal);
+    }
+
     synchronized public void setId(String id) {
         this.id = id;
     }
 
+    /**
+     * Specifies that the texture of the shape is a signed distance field, e.g. a glyph atlas, and sets the color in which it is drawn.
+     * Only the outlines encoded in the texture are drawn, with smooth edges at any scale; the rest of the triangles is transparent.
+     * If the shape is switched between normal and signed-distance-field texturing after its programs have been compiled,
+     * they will be compiled anew before the next frame.
+     * @param color The color (RGBA) or null to draw the texture as a normal image.
+     * @return false if the shape is not textured, true otherwise.
+     */
+
+    synchronized public boolean setSignedDistanceFieldColor(float[] color) {
+        if (coloringType!=GLPlatformCV.COLORING_TEXTURED)
+            return false;
+        if ((color==null)!=(signedDistanceFieldColor==null))
+            isCompiled = false;
+        signedDistanceFieldColor = color!=null ? color.clone() : null;
+        return true;
+    }
+
+    /**
+     * @return A copy of the color in which the signed distance field texture of the shape is drawn, or null if the texture is drawn as a normal image.
+     */
+
+    synchronized public float[] getSignedDistanceFieldColor() {
+        return signedDistanceFieldColor!=null ? signedDistanceFieldColor.clone() : null;
+    }
+
     synchronized public String getId() {
         return id;
     }
@@ -917,7 +1246,21 @@ public class GLShapeCV {
         return isCompiled;
     }
 
+    /**
+     * Sets the surface view to which the shape is attached. To be called by GLSurfaceViewCV when the shape is added or removed.
+     * When the shape is removed, i.e. the surface view is set to null, its buffer objects in GPU memory are released.
+     * @param surfaceView The surface view or null.
+     */
+
     synchronized public void setSurfaceView(GLSurfaceViewCV surfaceView) {
+        if (mesh!=null&&(this.surfaceView==null)!=(surfaceView==null)) {
+            if (surfaceView!=null)
+                mesh.addUser();
+              else
+                mesh.removeUser();
+        }
+        if (surfaceView==null)
+            releaseGLBuffers();
         this.surfaceView = surfaceView;
     }
 
@@ -927,11 +1270,13 @@ public class GLShapeCV {
 
     /**
      * Gets an array with copies of all triangles of the shape.
+     * For a shape in indexed-mesh mode, the triangles are built from the mesh.
      * @return An array with copies of the triangles.
      */
 
     synchronized public GLTriangleCV[] getTriangles() {
         // long start = System.nanoTime();
+        if (mesh!=null) return trianglesFromMesh();
         if (triangles==null) return null;
         GLTriangleCV[] trianglesCopy = new GLTriangleCV[triangles.length];
         for (int i=0; i<triangles.length; i++)
@@ -947,10 +1292,31 @@ public class GLShapeCV {
      */
 
     synchronized public int getNumberOfTriangles() {
+        if (mesh!=null) return mesh.getNumberOfTriangles();
         if (triangles==null) return 0;
         return triangles.length;
     }
 
+    /**
+     * Gets the mesh of a shape in indexed-mesh mode. The mesh is immutable and is returned without copying,
+     * e.g. to make more shapes with the same geometry.
+     * @return The mesh or null if the shape is defined by GLTriangleCV objects.
+     */
+
+    synchronized public GLMeshCV getMesh() {
+        return mesh;
+    }
+
+    /**
+     * Sets an action that is executed by the draw() method on the OpenGL thread each time before the shape is drawn,
+     * e.g. to update the buffers of a dynamic mesh (see GLMeshCV.setVertices()).
+     * @param preDrawAction The action or null if there shall be no such action.
+     */
+
+    synchronized public void setPreDrawAction(Runnable preDrawAction) {
+        this.preDrawAction = preDrawAction;
+    }
+
     /**
      * Adds a triangle to the shape.
      * @param newTriangle The triangle to be added.
@@ -973,12 +1339,15 @@ public class GLShapeCV {
 
     /**
      * Adds triangles to the shape.
+     * A shape in indexed-mesh mode is converted into a shape with GLTriangleCV objects before.
      * @param newTriangles The triangles to be added.
      * @param makeCopies Specifies if the triangles of 'newTriangles' shall be copied before adding them.
      */
 
     synchronized public void addTriangles(GLTriangleCV[] newTriangles, boolean makeCopies) {
         if (newTriangles==null||newTriangles.length==0) return;
+        if (mesh!=null)
+            convertMeshToTriangles();
         if (triangles==null) {
             if (makeCopies)
                 triangles = newTriangles.clone();
@@ -1085,16 +1454,41 @@ public class GLShapeCV {
         return this.lineWidth;
     }
 
+    /**
+     * Sets the layout of the vertex buffers of the shape, i.e. the data types in which the normals and colors are stored (see GLVertexLayoutCV),
+     * and builds the buffers anew. In indexed-mesh mode, the triangles keep the layout of the mesh.
+     * @param layout The layout.
+     */
+
+    synchronized public void setVertexLayout(GLVertexLayoutCV layout) {
+        if (layout==null||layout==vertexLayout) return;
+        vertexLayout = layout;
+        setModelMatrixAndBuffers();
+    }
+
+    /**
+     * @return The layout of the vertex buffers of the shape.
+     */
+
+    synchronized public GLVertexLayoutCV getVertexLayout() {
+        return vertexLayout;
+    }
+
     /**
      * Gets an array with copies of the vertices of all triangles and lines of the shape.
+     * For a shape in indexed-mesh mode, each mesh vertex is contained only once.
      * @return A two-dimensional array containing float triples with the x, y, and z coordinates of the vertices in model coordinate space.
      * This array may contain duplicates.
      */
 
     synchronized public float[][] getVertices() {
         if (getNumberOfTriangles()==0&&getNumberOfLines()==0) return null;
-        float[][] vertices = new float[getNumberOfTriangles()*3+getNumberOfLines()*2][3];
+        int triangleVertexCount = mesh!=null ? mesh.getNumberOfVertices() : getNumberOfTriangles()*3;
+        float[][] vertices = new float[triangleVertexCount+getNumberOfLines()*2][3];
         int i = 0;
+        if (mesh!=null)
+            for (int j=0; j<3*mesh.getNumberOfVertices(); j+=3)
+                vertices[i++] = new float[] { mesh.getVertexValue(j), mesh.getVertexValue(j+1), mesh.getVertexValue(j+2) };
         if (triangles!=null)
             for (GLTriangleCV triangle : triangles) {
                 float[][] v = triangle.getVertices();
@@ -1112,17 +1506,29 @@ public class GLShapeCV {
 
     /**
      * Sets all triangle colors to the same uniform color.
+     * If the triangles already have a uniform color that is passed to the shader as a uniform (see 'uniformColor'),
+     * only the four color values are copied, i.e. no buffers are rebuilt.
      * @param color The color (if not valid the triangles remain unchanged)
      */
 
     synchronized public void setTrianglesUniformColor(float[] color) {
         if (!GLShapeFactoryCV.isValidColorArray(color)) return;
+        if (mesh!=null) {
+            // 'meshColor' is also 'uniformColor' if the mesh is drawn with the uniform color,
+            // otherwise only the color buffer needs to be updated
+            System.arraycopy(color,0,meshColor,0,4);
+            if (uniformColor==null)
+                setMeshColorsBuffer();
+        }
         if (triangles!=null) {
             for (GLTriangleCV triangle : triangles)
                 triangle.setUniformColor(color);
                 // triangle.setVertexColors(new float[][] {color, color, color});
             colorArrayOfTriangles=null;
-            setModelMatrixAndBuffers();
+            if (uniformColor!=null)
+                System.arraycopy(color,0,uniformColor,0,4);
+              else
+                setModelMatrixAndBuffers();
         }
     }
 
@@ -1162,6 +1568,9 @@ public class GLShapeCV {
 
     synchronized public GLShapeCV moveCenterTo(float transX, float transY, float transZ) {
         // Log.v("GLDEMO","moveCenterTo: "+transX+" "+transY+" "+transZ);
+        if (mesh!=null)
+            // the mesh may be shared with other shapes and is therefore replaced, not modified
+            replaceMesh(mesh.translated(-transX,-transY,-transZ));
         if (triangles!=null)
             for (GLTriangleCV triangle: triangles)
                 triangle.translate(-transX,-transY,-transZ);
@@ -1188,6 +1597,9 @@ public class GLShapeCV {
      */
 
     synchronized public GLShapeCV flip(boolean flipX, boolean flipY, boolean flipZ) {
+        if (mesh!=null)
+            // the mesh may be shared with other shapes and is therefore replaced, not modified
+            replaceMesh(mesh.flipped(flipX,flipY,flipZ));
         if (triangles!=null)
             for (GLTriangleCV triangle: triangles)
                 triangle.flip(flipX,flipY,flipZ);
@@ -1225,6 +1637,15 @@ public class GLShapeCV {
     synchronized private float calculateIntrinsicSize(int dimension) {
         if (dimension<0||dimension>2) return -1;
         float min=Float.MAX_VALUE, max=Float.MIN_VALUE;
+        if (mesh!=null) {
+            for (int i = dimension; i < 3*mesh.getNumberOfVertices(); i += 3) {
+                float value = mesh.getVertexValue(i);
+                if (value < min)
+                    min = value;
+                if (value > max)
+                    max = value;
+            }
+        }
         if (triangles!=null) {
             for (GLTriangleCV triangle : triangles) {
                 float[][] vertices = triangle.getVertices();
@@ -1939,7 +2360,7 @@ public class GLShapeCV {
     /**
      *  A class for control threads for shapes.
      *  The general idea is that such control threads modify selected vertex coordinates and color values and thus "morph" shapes in their model coordinate spaces.
-     *  This morphing will be done by modifying entries of the 'triangleVerticesBuffer', 'triangleColorsBuffer', 'lineVerticesBuffer', and/or 'lineColorsBuffer'
+     *  This morphing will be done by modifying coordinates and colors in the 'triangleVertexData' and/or 'lineVertexData' buffers
      *  such that the coordinates and colors of the triangles and lines themselves, as defined by the 'triangles' and 'lines' attributes, will remain unchanged.
      *  N.B. Animation operations that affect the model matrix of shapes, i.e. their placement in the world,
      *  will be controlled by animators as specified by the 'animators' attribute and built by the methods of class GLAnimatorFactoryCV.
@@ -1968,8 +2389,8 @@ public class GLShapeCV {
 
         /**
          * @param stepsPerSecond The number of times per second the control thread shall become active
-         * @param valueProviders The value providers used to modify / animate entries of the 'triangleVerticesBuffer' (may be null if no triangles shall be animated)
-         * @param startIndices The start indices of the 'triangleVerticesBuffer' intervals the providers shall affect - see the comment on the startIndicesTriangleVB attribute for more details (may also be null)
+         * @param valueProviders The value providers used to modify / animate the triangle vertex coordinates (may be null if no triangles shall be animated)
+         * @param startIndices The start indices of the coordinate intervals the providers shall affect - see the comment on the startIndicesTriangleVB attribute for more details (may also be null)
          */
 
         ControlThread(int stepsPerSecond, ArrayList<GraphicsUtilsCV.ValueProvider> valueProviders, ArrayList<Integer> startIndices) {
@@ -1985,7 +2406,7 @@ public class GLShapeCV {
 
         /**
          * The run method executes an infinite loop within which the thread becomes active 'stepsPerSecond' times per second.
-         * It then calls the getNextValues() methods of all registered value providers and updates the 'triangleVerticesBuffer' and/or the 'lineVerticesBuffer' accordingly.
+         * It then calls the getNextValues() methods of all registered value providers and updates the 'triangleVertexData' and/or the 'lineVertexData' accordingly.
          */
 
         @Override
@@ -2024,12 +2445,13 @@ public class GLShapeCV {
         providerList.add(valueProvider);
         ArrayList<Integer> indexList = new ArrayList<>();
         indexList.add(startIndex);
-        controlThread = new ControlThread(stepsPerSecond,providerList,indexList);
-        controlThread.start();
+        startControlThread(stepsPerSecond,providerList,indexList);
     }
 
     /**
      * Initializes and starts a control thread for the shape.
+     * A shape in indexed-mesh mode is converted into a shape with GLTriangleCV objects before,
+     * such that the thread morphs buffers of its own and not the mesh shared with other shapes.
      * @param stepsPerSecond The steps per second the thread shall execute
      * @param valueProviders The value providers for morphing animations to be registered
      * @param startIndices The first indices of the buffer intervals that shall be affected by the providers
@@ -2037,75 +2459,110 @@ public class GLShapeCV {
      */
 
     public void startControlThread(int stepsPerSecond, ArrayList<GraphicsUtilsCV.ValueProvider> valueProviders, ArrayList<Integer> startIndices) {
+        synchronized (this) {
+            if (mesh!=null) {
+                convertMeshToTriangles();
+                setModelMatrixAndBuffers();
+            }
+        }
+        // the thread modifies the buffers repeatedly
+        setBufferUsage(GLES20.GL_DYNAMIC_DRAW);
+        // morphing the triangle colors needs per-vertex colors
+        for (GraphicsUtilsCV.ValueProvider valueProvider : valueProviders)
+            if ((int)valueProvider.getInfo()==MORPHTYPE_TRIANGLE_COLOR) {
+                setPerVertexColors();
+                break;
+            }
         controlThread = new ControlThread(stepsPerSecond,valueProviders,startIndices);
         controlThread.start();
     }
 
     /**
-     * Method to set a sequence of 'triangleVerticesBuffer' entries in an atomic operation.
+     * Method to set a sequence of triangle vertex coordinates in an atomic operation.
      * This method is primarily intended for the control thread.
-     * @param startIndex The first index of the sequence in the 'triangleVerticesBuffer'
-     * @param values The corresponding new values for the buffer entries, i.e. for positions startIndex, startIndex+1, ...
+     * @param startIndex The first index of the sequence, counted as in an array with the x, y, and z coordinates of the vertices in a row
+     * (i.e. 3*vertex number + dimension; the coordinates are written into 'triangleVertexData' with its stride)
+     * @param values The corresponding new values for the coordinates, i.e. for positions startIndex, startIndex+1, ...
      */
 
     synchronized private void setTriangleVerticesBuffer(int startIndex, float[] values) {
-        triangleVerticesBuffer.position(startIndex);
-        triangleVerticesBuffer.put(values);
-        triangleVerticesBuffer.position(0);
+        for (int i=0; i<values.length; i++)
+            putTriangleCoordinate(startIndex+i,values[i]);
+        triangleModified(startIndex/3,(startIndex+values.length-1)/3);
     }
 
     /**
-     * Method to set a number of 'triangleVerticesBuffer' entries in an atomic operation.
+     * Method to set a number of triangle vertex coordinates in an atomic operation.
      * This method is primarily intended for the control thread.
-     * @param indices The indices of the buffer entries to be modified
-     * @param values The corresponding new values for the buffer entries
+     * @param indices The indices of the coordinates to be modified (counted as for setTriangleVerticesBuffer(int,float[]))
+     * @param values The corresponding new values for the coordinates
      */
 
     synchronized private void setTriangleVerticesBuffer(int[] indices, float[] values) {
         for (int i=0; i<indices.length; i++) {
-            triangleVerticesBuffer.position(indices[i]);
-            triangleVerticesBuffer.put(values[i]);
+            putTriangleCoordinate(indices[i],values[i]);
+            triangleModified(indices[i]/3,indices[i]/3);
         }
-        triangleVerticesBuffer.position(0);
     }
 
     /**
-     * Method to set a sequence of 'triangleColorsBuffer' entries in an atomic operation.
+     * Method to set a sequence of triangle vertex color values in an atomic operation.
      * This method is primarily intended for the control thread.
-     * @param startIndex The first index of the sequence in the 'triangleColorsBuffer'
-     * @param values The corresponding new values for the buffer entries, i.e. for positions startIndex, startIndex+1, ...
+     * @param startIndex The first index of the sequence, counted as in an array with the RGBA values of the vertices in a row
+     * (i.e. 4*vertex number + color component)
+     * @param values The corresponding new values for the colors, i.e. for positions startIndex, startIndex+1, ...
      */
 
     synchronized private void setTriangleColorsBuffer(int startIndex, float[] values) {
-        triangleColorsBuffer.position(startIndex);
-        triangleColorsBuffer.put(values);
-        triangleColorsBuffer.position(0);
+        // (never in indexed-mesh mode, see startControlThread())
+        int colorOffset = GLVertexLayoutCV.POSITION_SIZE+vertexLayout.getNormalSize();
+        for (int i=0; i<values.length; i++)
+            vertexLayout.putColorValue(triangleVertexData,(startIndex+i)/4*triangleStride+colorOffset,(startIndex+i)%4,values[i]);
+        triangleModified(startIndex/4,(startIndex+values.length-1)/4);
     }
 
     /**
-     * Method to set a sequence of 'lineVerticesBuffer' entries in an atomic operation.
+     * Method to set a sequence of line vertex coordinates in an atomic operation.
      * This method is primarily intended for the control thread.
-     * @param startIndex The first index of the sequence in the 'lineVerticesBuffer'
-     * @param values The corresponding new values for the buffer entries, i.e. for positions startIndex, startIndex+1, ...
+     * @param startIndex The first index of the sequence, counted as in an array with the x, y, and z coordinates of the end points in a row
+     * @param values The corresponding new values for the coordinates, i.e. for positions startIndex, startIndex+1, ...
      */
 
     synchronized private void setLineVerticesBuffer(int startIndex, float[] values) {
-        lineVerticesBuffer.position(startIndex);
-        lineVerticesBuffer.put(values);
-        lineVerticesBuffer.position(0);
+        for (int i=0; i<values.length; i++)
+            lineVertexData.putFloat((startIndex+i)/3*lineStride+(startIndex+i)%3*4,values[i]);
+        lineModified(startIndex/3,(startIndex+values.length-1)/3);
     }
 
     /**
-     * Method to set a sequence of 'lineColorsBuffer' entries in an atomic operation.
+     * Method to set a sequence of line vertex color values in an atomic operation.
      * This method is primarily intended for the control thread.
-     * @param startIndex The first index of the sequence in the 'lineColorsBuffer'
-     * @param values The corresponding new values for the buffer entries, i.e. for positions startIndex, startIndex+1, ...
+     * @param startIndex The first index of the sequence, counted as in an array with the RGBA values of the end points in a row
+     * @param values The corresponding new values for the colors, i.e. for positions startIndex, startIndex+1, ...
      */
 
     synchronized private void setLineColorsBuffer(int startIndex, float[] values) {
-        lineColorsBuffer.position(startIndex);
-        lineColorsBuffer.put(values);
-        lineColorsBuffer.position(0);
+        for (int i=0; i<values.length; i++)
+            vertexLayout.putColorValue(lineVertexData,(startIndex+i)/4*lineStride+GLVertexLayoutCV.POSITION_SIZE,(startIndex+i)%4,values[i]);
+        lineModified(startIndex/4,(startIndex+values.length-1)/4);
+    }
+
+    /** Auxiliary method to write a triangle vertex coordinate into 'triangleVertexData' (index = 3*vertex number + dimension) */
+
+    synchronized private void putTriangleCoordinate(int index, float value) {
+        triangleVertexData.putFloat(index/3*triangleStride+index%3*4,value);
+    }
+
+    /** Auxiliary method to announce that the triangle vertices from 'firstVertex' to 'lastVertex' have been modified */
+
+    synchronized private void triangleModified(int firstVertex, int lastVertex) {
+        triangleVBO().modified(firstVertex*triangleStride,(lastVertex-firstVertex+1)*triangleStride);
+    }
+
+    /** Auxiliary method to announce that the line vertices from 'firstVertex' to 'lastVertex' have been modified */
+
+    synchronized private void lineModified(int firstVertex, int lastVertex) {
+        lineVBO.modified(firstVertex*lineStride,(lastVertex-firstVertex+1)*lineStride);
     }
 
     /** Auxiliary method to get a one-dimensional float array with the vertex coordinates of the triangles */
@@ -2123,6 +2580,32 @@ public class GLShapeCV {
         return coordinateArray;
     }
 
+    /**
+     * Auxiliary method to convert a shape in indexed-mesh mode into a shape with its own GLTriangleCV objects.
+     * The shared mesh remains unchanged. The buffers are not rebuilt by this method.
+     */
+
+    synchronized private void convertMeshToTriangles() {
+        triangles = trianglesFromMesh();
+        replaceMesh(null);
+        meshColor = null;
+        meshColorsVBO = null;
+    }
+
+    /** Auxiliary method to build GLTriangleCV objects from the mesh of a shape in indexed-mesh mode */
+
+    synchronized private GLTriangleCV[] trianglesFromMesh() {
+        GLTriangleCV[] meshTriangles = new GLTriangleCV[mesh.getNumberOfTriangles()];
+        float[][] vertices = new float[3][3];
+        for (int triangleNo = 0; triangleNo<meshTriangles.length; triangleNo++) {
+            for (int j=0; j<3; j++)
+                for (int k=0; k<3; k++)
+                    vertices[j][k] = mesh.getVertexValue(3*mesh.getIndex(3*triangleNo+j)+k);
+            meshTriangles[triangleNo] = new GLTriangleCV(id+"_"+triangleNo,vertices,meshColor);
+        }
+        return meshTriangles;
+    }
+
     /** Auxiliary method to get a one-dimensional float array with the normals of the triangles */
 
     synchronized private float[] normalsArrayFromTriangles() {
@@ -0,0 +1,217 @@
+// This work is provided under GPLv3, the GNU General Public License 3
+//   http://www.gnu.org/licenses/gpl-3.0.html
+
+package de.thkoeln.cvogt.android.opengl_utilities;
+
+import android.opengl.GLES20;
+
+import java.util.ArrayList;
+
+/**
+ * Class to keep track of the OpenGL state that is set by the draw() methods of the shapes:
+ * the program in use, the enabled vertex attribute arrays, the bound buffer objects and texture, and blending.
+ * <P>
+ * Consecutive shapes mostly need the same state, e.g. all letters of a text are drawn with the same program.
+ * The methods of this class therefore call OpenGL only if the requested state differs from the current one.
+ * The uniform values of a program are tracked by the program itself (see GLProgramCV).
+ * <P>
+ * The OpenGL state belongs to the context of the thread that draws, i.e. the rendering thread of a surface view.
+ * Hence there is one object of this class per thread, to be obtained by current().
+ * It must be reset by reset() when the context has been (re)created, i.e. in the onSurfaceCreated() method of the renderer,
+ * and all code that changes the tracked state must do so via this object.
+ * <P>
+ * The object also collects the buffer objects of the context that have been released (possibly by other threads, see GLBufferCV.release())
+ * and deletes them in deleteReleasedBuffers(), which is called by the renderer for every frame.
+ * @see de.thkoeln.cvogt.android.opengl_utilities.GLProgramCV
+ */
+
+public final class GLStateCacheCV {
+
+    /** The objects of the threads. */
+
+    private static final ThreadLocal<GLStateCacheCV> caches = new ThreadLocal<GLStateCacheCV>() {
+        @Override
+        protected GLStateCacheCV initialValue() {
+            return new GLStateCacheCV();
+        }
+    };
+
+    /** The program in use or null if unknown. */
+
+    private GLProgramCV program;
+
+    /** The enabled vertex attribute arrays (one bit per location). */
+
+    private int enabledAttribArrays;
+
+    /** Information whether the enabled vertex attribute arrays are known. */
+
+    private boolean attribArraysKnown;
+
+    /** The texture bound to GL_TEXTURE_2D or -1 if unknown. */
+
+    private int texture;
+
+    /** Blending: 1 = enabled, 0 = disabled, -1 = unknown. */
+
+    private int blending;
+
+    /** The buffer objects bound to GL_ARRAY_BUFFER and GL_ELEMENT_ARRAY_BUFFER or -1 if unknown. */
+
+    private int arrayBuffer, elementArrayBuffer;
+
+    /** The generation of the OpenGL context, incremented by reset(). Buffer objects of older generations no longer exist. */
+
+    private int generation;
+
+    /** The names of the released buffer objects, to be deleted by deleteReleasedBuffers(), and the generations of the context they belong to. */
+
+    private final ArrayList<int[]> releasedBuffers = new ArrayList<>();
+
+    private GLStateCacheCV() {
+        reset();
+    }
+
+    /**
+     * @return The object for the OpenGL context of the current thread.
+     */
+
+    public static GLStateCacheCV current() {
+        return caches.get();
+    }
+
+    /**
+     * Forgets the tracked state such that the next calls will set it anew.
+     * To be called when the OpenGL context has been (re)created or its state has been changed by other code.
+     */
+
+    public void reset() {
+        program = null;
+        enabledAttribArrays = 0;
+        attribArraysKnown = false;
+        texture = -1;
+        blending = -1;
+        arrayBuffer = -1;
+        elementArrayBuffer = -1;
+        generation++;
+    }
+
+    /**
+     * @return The generation of the OpenGL context, i.e. the number of calls of reset().
+     */
+
+    public int getGeneration() {
+        return generation;
+    }
+
+    /**
+     * Makes a program the current program (glUseProgram()).
+     * @param program The program.
+     */
+
+    public void useProgram(GLProgramCV program) {
+        if (this.program==program) return;
+        GLES20.glUseProgram(program.id);
+        this.program = program;
+    }
+
+    /**
+     * Enables exactly the vertex attribute arrays of a bitmask and disables all others.
+     * @param mask The bitmask with one bit per attribute location, e.g. built with GLProgramCV.attribBit().
+     */
+
+    public void setVertexAttribArrays(int mask) {
+        if (!attribArraysKnown) {
+            // if the state is unknown, all arrays might be enabled
+            int[] maxAttribs = new int[1];
+            GLES20.glGetIntegerv(GLES20.GL_MAX_VERTEX_ATTRIBS, maxAttribs, 0);
+            enabledAttribArrays = (1<<Math.min(maxAttribs[0], 31))-1;
+            attribArraysKnown = true;
+        }
+        int changes = enabledAttribArrays^mask;
+        for (int location = 0; changes!=0; location++, changes >>>= 1)
+            if ((changes&1)!=0) {
+                if ((mask&(1<<location))!=0)
+                    GLES20.glEnableVertexAttribArray(location);
+                  else
+                    GLES20.glDisableVertexAttribArray(location);
+            }
+        enabledAttribArrays = mask;
+    }
+
+    /**
+     * Binds a buffer object to GL_ARRAY_BUFFER or GL_ELEMENT_ARRAY_BUFFER.
+     * @param target GLES20.GL_ARRAY_BUFFER or GLES20.GL_ELEMENT_ARRAY_BUFFER.
+     * @param buffer The name of the buffer object.
+     */
+
+    public void bindBuffer(int target, int buffer) {
+        if (target==GLES20.GL_ARRAY_BUFFER) {
+            if (arrayBuffer==buffer) return;
+            arrayBuffer = buffer;
+        }
+          else {
+            if (elementArrayBuffer==buffer) return;
+            elementArrayBuffer = buffer;
+        }
+        GLES20.glBindBuffer(target, buffer);
+    }
+
+    /**
+     * Registers a buffer object to be deleted by the next call of deleteReleasedBuffers(). May be called from any thread.
+     * @param buffer The name of the buffer object.
+     * @param generation The generation of the context in which the buffer object has been created.
+     */
+
+    void deleteBuffer(int buffer, int generation) {
+        synchronized (releasedBuffers) {
+            releasedBuffers.add(new int[] { buffer, generation });
+        }
+    }
+
+    /**
+     * Deletes the buffer objects that have been released. To be called in the rendering thread.
+     * Buffer objects of an earlier generation of the context are skipped, as they have been deleted together with their context.
+     */
+
+    public void deleteReleasedBuffers() {
+        synchronized (releasedBuffers) {
+            for (int[] released : releasedBuffers)
+                if (released[1]==generation) {
+                    GLES20.glDeleteBuffers(1, released, 0);
+                    // a deleted buffer object is unbound
+                    if (arrayBuffer==released[0]) arrayBuffer = 0;
+                    if (elementArrayBuffer==released[0]) elementArrayBuffer = 0;
+                }
+            releasedBuffers.clear();
+        }
+    }
+
+    /**
+     * Binds a texture to GL_TEXTURE_2D.
+     * @param texture The name of the texture.
+     */
+
+    public void bindTexture(int texture) {
+        if (this.texture==texture) return;
+        GLES20.glBindTexture(GLES20.GL_TEXTURE_2D, texture);
+        this.texture = texture;
+    }
+
+    /**
+     * Enables or disables blending with the blend function (GL_SRC_ALPHA, GL_ONE_MINUS_SRC_ALPHA).
+     * @param enabled true to enable blending.
+     */
+
+    public void setBlending(boolean enabled) {
+        if (blending==(enabled?1:0)) return;
+        if (enabled) {
+            GLES20.glEnable(GLES20.GL_BLEND);
+            GLES20.glBlendFunc(GLES20.GL_SRC_ALPHA, GLES20.GL_ONE_MINUS_SRC_ALPHA);
+        }
+          else
+            GLES20.glDisable(GLES20.GL_BLEND);
+        blending = enabled?1:0;
+    }
+
+}
@@ -179,7 +179,8 @@ public class GLSurfaceViewCV extends GLSurfaceView {
      */
 
     synchronized public void removeShape(GLShapeCV shape) {
-        shapesToRender.remove(shape);
+        if (shapesToRender.remove(shape))
+            shape.setSurfaceView(null);   // releases the buffer objects of the shape
     }
 
     /**
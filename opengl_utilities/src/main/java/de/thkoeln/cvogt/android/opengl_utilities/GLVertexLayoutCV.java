@@ -0,0 +1,248 @@
+// This work is provided under GPLv3, the GNU General Public License 3
+//   http://www.gnu.org/licenses/gpl-3.0.html
+
+package de.thkoeln.cvogt.android.opengl_utilities;
+
+import android.opengl.GLES20;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+
+/**
+ * Class for the layout of the interleaved vertex buffers of shapes and meshes, i.e. the data types in which normals and colors are stored.
+ * <P>
+ * All attributes of a vertex are stored one after the other in one buffer (position, normal, color or uv coordinates),
+ * such that the graphics hardware fetches a vertex from one contiguous block of memory.
+ * The position and the uv coordinates are always stored as floats.
+ * The normal can be stored as floats (12 bytes) or as signed normalized shorts or bytes (8 or 4 bytes including padding),
+ * the color as floats (16 bytes) or as unsigned normalized bytes (4 bytes).
+ * The normalized values are converted back to floats by the hardware when the vertices are fetched, such that the shaders are the same for all layouts.
+ * <P>
+ * The default layout PACKED (byte normals, byte colors) needs 20 bytes per colored vertex instead of 40 bytes with FLOATS.
+ * A byte normal deviates from the exact direction by less than one degree, which is not visible in the lighting of the shapes.
+ * The layout of a shape can be changed by GLShapeCV.setVertexLayout(), the layout of new meshes by setDefault().
+ * @see de.thkoeln.cvogt.android.opengl_utilities.GLShapeCV
+ * @see de.thkoeln.cvogt.android.opengl_utilities.GLMeshCV
+ */
+
+public final class GLVertexLayoutCV {
+
+    /** Layout with float normals and float colors (the format of the separate buffers of earlier versions). */
+
+    public static final GLVertexLayoutCV FLOATS = new GLVertexLayoutCV(GLES20.GL_FLOAT, GLES20.GL_FLOAT);
+
+    /** Layout with signed normalized short normals and unsigned normalized byte colors. */
+
+    public static final GLVertexLayoutCV PACKED_SHORT_NORMALS = new GLVertexLayoutCV(GLES20.GL_SHORT, GLES20.GL_UNSIGNED_BYTE);
+
+    /** Layout with signed normalized byte normals and unsigned normalized byte colors. */
+
+    public static final GLVertexLayoutCV PACKED = new GLVertexLayoutCV(GLES20.GL_BYTE, GLES20.GL_UNSIGNED_BYTE);
+
+    /** The size of the position of a vertex in bytes (three floats). */
+
+    static final int POSITION_SIZE = 12;
+
+    /** The size of the uv coordinates of a vertex in bytes (two floats). */
+
+    static final int UV_SIZE = 8;
+
+    /** The layout for new shapes and meshes. */
+
+    private static GLVertexLayoutCV defaultLayout = PACKED;
+
+    /** The OpenGL type of the normal values (GL_FLOAT, GL_SHORT, or GL_BYTE). */
+
+    private final int normalType;
+
+    /** The OpenGL type of the color values (GL_FLOAT or GL_UNSIGNED_BYTE). */
+
+    private final int colorType;
+
+    /** The sizes of a normal and a color in bytes, padded to multiples of four bytes. */
+
+    private final int normalSize, colorSize;
+
+    /**
+     * Constructor.
+     * @param normalType The OpenGL type of the normal values: GLES20.GL_FLOAT, GLES20.GL_SHORT, or GLES20.GL_BYTE.
+     * @param colorType The OpenGL type of the color values: GLES20.GL_FLOAT or GLES20.GL_UNSIGNED_BYTE.
+     * @throws IllegalArgumentException if a type is not supported.
+     */
+
+    public GLVertexLayoutCV(int normalType, int colorType) {
+        switch (normalType) {
+            case GLES20.GL_FLOAT: normalSize = 12; break;
+            case GLES20.GL_SHORT: normalSize = 8; break;
+            case GLES20.GL_BYTE: normalSize = 4; break;
+            default: throw new IllegalArgumentException("Unsupported normal type "+normalType);
+        }
+        switch (colorType) {
+            case GLES20.GL_FLOAT: colorSize = 16; break;
+            case GLES20.GL_UNSIGNED_BYTE: colorSize = 4; break;
+            default: throw new IllegalArgumentException("Unsupported color type "+colorType);
+        }
+        this.normalType = normalType;
+        this.colorType = colorType;
+    }
+
+    /**
+     * @return The layout for new shapes and meshes (initially PACKED).
+     */
+
+    public static synchronized GLVertexLayoutCV getDefault() {
+        return defaultLayout;
+    }
+
+    /**
+     * Sets the layout for shapes and meshes that are made from now on. Existing shapes and meshes keep their layout.
+     * @param layout The layout.
+     */
+
+    public static synchronized void setDefault(GLVertexLayoutCV layout) {
+        if (layout==null)
+            throw new IllegalArgumentException("Vertex layout must not be null");
+        defaultLayout = layout;
+    }
+
+    /** @return The OpenGL type of the normal values. */
+
+    public int getNormalType() {
+        return normalType;
+    }
+
+    /** @return The OpenGL type of the color values. */
+
+    public int getColorType() {
+        return colorType;
+    }
+
+    /** @return The size of a normal in bytes (including padding). */
+
+    public int getNormalSize() {
+        return normalSize;
+    }
+
+    /** @return The size of a color in bytes. */
+
+    public int getColorSize() {
+        return colorSize;
+    }
+
+    /**
+     * Calculates the size of an interleaved vertex with the position and the specified attributes.
+     * @param normals true if the vertex has a normal.
+     * @param colors true if the vertex has a color.
+     * @param uv true if the vertex has uv coordinates.
+     * @return The size of the vertex in bytes, i.e. the stride of the buffer.
+     */
+
+    public int getStride(boolean normals, boolean colors, boolean uv) {
+        return POSITION_SIZE+(normals?normalSize:0)+(colors?colorSize:0)+(uv?UV_SIZE:0);
+    }
+
+    /**
+     * Makes a direct buffer in native byte order for interleaved vertices.
+     * @param numberOfVertices The number of vertices.
+     * @param stride The size of a vertex in bytes (see getStride()).
+     * @return The buffer.
+     */
+
+    static ByteBuffer allocate(int numberOfVertices, int stride) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(numberOfVertices*stride);
+        buffer.order(ByteOrder.nativeOrder());
+        return buffer;
+    }
+
+    /**
+     * Writes a position into a buffer.
+     * @param buffer The buffer.
+     * @param offset The offset of the position in the buffer in bytes.
+     * @param values The array with the coordinates.
+     * @param index The index of the x coordinate in the array.
+     */
+
+    static void putPosition(ByteBuffer buffer, int offset, float[] values, int index) {
+        for (int i=0; i<3; i++)
+            buffer.putFloat(offset+4*i, values[index+i]);
+    }
+
+    /**
+     * Writes a normal into a buffer with the normal type of the layout.
+     * @param buffer The buffer.
+     * @param offset The offset of the normal in the buffer in bytes.
+     * @param values The array with the normals.
+     * @param index The index of the x value in the array.
+     */
+
+    void putNormal(ByteBuffer buffer, int offset, float[] values, int index) {
+        for (int i=0; i<3; i++)
+            switch (normalType) {
+                case GLES20.GL_FLOAT: buffer.putFloat(offset+4*i, values[index+i]); break;
+                case GLES20.GL_SHORT: buffer.putShort(offset+2*i, (short) signedNormalized(values[index+i], 16)); break;
+                case GLES20.GL_BYTE: buffer.put(offset+i, (byte) signedNormalized(values[index+i], 8)); break;
+            }
+    }
+
+    /**
+     * Writes a color into a buffer with the color type of the layout.
+     * @param buffer The buffer.
+     * @param offset The offset of the color in the buffer in bytes.
+     * @param values The array with the colors.
+     * @param index The index of the red value in the array.
+     */
+
+    void putColor(ByteBuffer buffer, int offset, float[] values, int index) {
+        for (int i=0; i<4; i++)
+            putColorValue(buffer, offset, i, values[index+i]);
+    }
+
+    /**
+     * Writes one value of a color into a buffer with the color type of the layout.
+     * @param buffer The buffer.
+     * @param offset The offset of the color in the buffer in bytes.
+     * @param component The component of the value (0 = red, 1 = green, 2 = blue, 3 = alpha).
+     * @param value The value.
+     */
+
+    void putColorValue(ByteBuffer buffer, int offset, int component, float value) {
+        if (colorType==GLES20.GL_FLOAT)
+            buffer.putFloat(offset+4*component, value);
+          else
+            buffer.put(offset+component, (byte) Math.round(Math.max(0, Math.min(1, value))*255));
+    }
+
+    /**
+     * Connects the normal attribute of a program with the normals of the bound buffer object.
+     * @param location The location of the attribute.
+     * @param stride The size of a vertex in bytes.
+     * @param offset The offset of the normal in a vertex in bytes.
+     */
+
+    void setNormalPointer(int location, int stride, int offset) {
+        GLES20.glVertexAttribPointer(location, 3, normalType, normalType!=GLES20.GL_FLOAT, stride, offset);
+    }
+
+    /**
+     * Connects the color attribute of a program with the colors of the bound buffer object.
+     * @param location The location of the attribute.
+     * @param stride The size of a vertex in bytes.
+     * @param offset The offset of the color in a vertex in bytes.
+     */
+
+    void setColorPointer(int location, int stride, int offset) {
+        GLES20.glVertexAttribPointer(location, 4, colorType, colorType!=GLES20.GL_FLOAT, stride, offset);
+    }
+
+    /**
+     * Converts a value from [-1,1] into a signed normalized integer,
+     * using the conversion of OpenGL ES 2.0 back to float: f = (2c+1)/(2^bits-1).
+     */
+
+    private static int signedNormalized(float value, int bits) {
+        int max = (1<<(bits-1))-1;
+        int c = Math.round((Math.max(-1, Math.min(1, value))*((1<<bits)-1)-1)/2);
+        return Math.max(-max-1, Math.min(max, c));
+    }
+
+}
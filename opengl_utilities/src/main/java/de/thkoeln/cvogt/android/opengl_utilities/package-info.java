@@ -100,6 +100,7 @@
  The method is called by the renderer as often as required (see above).
  [Implementation details: The method calls glUseProgram() to apply the OpenGL program generated in initOpenGLPrograms(),
  transfers the current coordinate and color values the graphics hardware and subsequently makes the required glDrawXXX() calls.
+ Calls that would not change the OpenGL state, e.g. glUseProgram() for the program of the previous shape, are skipped (see GLStateCacheCV).
  It also updates the MVP matrix that combines the general View Projection Matrix as defined by the renderer
  and the object-specific Model Matrix placing the shape into the 3D world of the surface view.
  The Model Matrix is specified by the current rotation, scaling, and translation values of the shape